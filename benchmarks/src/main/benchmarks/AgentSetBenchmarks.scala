@@ -0,0 +1,67 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.benchmarks
+
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations.{ Benchmark, BenchmarkMode, Fork, Measurement, Mode, OutputTimeUnit, Param,
+  Scope, Setup, State, TearDown, Warmup }
+
+import org.nlogo.agent.{ AgentIterator, AgentSet }
+import org.nlogo.api.MersenneTwisterFast
+import org.nlogo.core.AgentKind
+
+// Going through the turtles as they're kept in the world (a TreeAgentSet)
+// and as they'd be kept in an agentset made by a reporter (an ArrayAgentSet),
+// in order and shuffled.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class AgentSetBenchmarks {
+
+  @Param(Array("1000", "10000"))
+  var turtleCount: Int = 0
+
+  var bench: BenchmarkWorld = null
+  var arraySet: AgentSet = null
+  val rng = new MersenneTwisterFast(0)
+
+  @Setup
+  def setup(): Unit = {
+    bench = new BenchmarkWorld("", 16, s"crt $turtleCount [ setxy random-xcor random-ycor ]")
+    arraySet = AgentSet.fromArray(AgentKind.Turtle, bench.turtles)
+  }
+
+  @TearDown
+  def tearDown(): Unit =
+    bench.dispose()
+
+  private def count(it: AgentIterator): Int = {
+    var n = 0
+    while (it.hasNext) {
+      it.next()
+      n += 1
+    }
+    n
+  }
+
+  @Benchmark
+  def treeIterator(): Int =
+    count(bench.world.turtles.iterator)
+
+  @Benchmark
+  def treeShufflerator(): Int =
+    count(bench.world.turtles.shufflerator(rng))
+
+  @Benchmark
+  def arrayIterator(): Int =
+    count(arraySet.iterator)
+
+  @Benchmark
+  def arrayShufflerator(): Int =
+    count(arraySet.shufflerator(rng))
+}
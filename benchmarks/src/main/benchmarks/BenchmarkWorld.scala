@@ -0,0 +1,32 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.benchmarks
+
+import org.nlogo.agent.{ Agent, Turtle, World }
+import org.nlogo.core.{ Model, View }
+import org.nlogo.headless.HeadlessWorkspace
+
+// A headless workspace with a model open, for the benchmarks to poke at.
+// The world is square, -size to size each way, and wraps.
+
+class BenchmarkWorld(code: String, size: Int, setup: String) {
+
+  val workspace: HeadlessWorkspace = HeadlessWorkspace.newInstance
+  workspace.openModel(Model(code = code, widgets = List(View.square(size))))
+  workspace.command("random-seed 0 " + setup)
+
+  def world: World = workspace.world
+
+  def turtles: Array[Turtle] = agents(world.turtles).map(_.asInstanceOf[Turtle])
+
+  def agents(agentSet: org.nlogo.agent.AgentSet): Array[Agent] = {
+    val result = Array.newBuilder[Agent]
+    val it = agentSet.iterator
+    while (it.hasNext)
+      result += it.next()
+    result.result()
+  }
+
+  def dispose(): Unit =
+    workspace.dispose()
+}
@@ -0,0 +1,93 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.benchmarks
+
+import java.io.FileReader
+
+import org.json.simple.{ JSONArray, JSONObject }
+import org.json.simple.parser.JSONParser
+
+import scala.jdk.CollectionConverters.{ CollectionHasAsScala, MapHasAsScala }
+
+// Compares two sets of JMH results, as written by `Jmh/run -rf json`, and
+// says which benchmarks got faster or slower.  A benchmark only counts as
+// having changed if it moved by more than the threshold and by more than the
+// two runs' error bars put together.  Exits with status 1 if anything got
+// slower, so it can fail a build.
+//
+//   Compare [--threshold <percent>] <baseline.json> <results.json>
+
+object Compare {
+
+  case class Result(benchmark: String, params: String, mode: String, score: Double, error: Double, unit: String) {
+    def key = (benchmark, params)
+    // in throughput mode higher is better; in the others, lower
+    def higherIsBetter = mode == "thrpt"
+  }
+
+  def read(path: String): Seq[Result] = {
+    val reader = new FileReader(path)
+    try {
+      val results = new JSONParser().parse(reader).asInstanceOf[JSONArray]
+      for (r <- results.asScala.toSeq) yield {
+        val result = r.asInstanceOf[JSONObject]
+        val params = Option(result.get("params").asInstanceOf[JSONObject])
+          .map(_.asScala.toSeq.map { case (k, v) => s"$k=$v" }.sorted.mkString(" "))
+          .getOrElse("")
+        val metric = result.get("primaryMetric").asInstanceOf[JSONObject]
+        def number(key: String) = metric.get(key) match {
+          case n: Number => n.doubleValue
+          case _         => Double.NaN // JMH writes "NaN" when there weren't enough iterations to say
+        }
+        Result(result.get("benchmark").toString.stripPrefix("org.nlogo.benchmarks."), params,
+          result.get("mode").toString, number("score"), number("scoreError"), metric.get("scoreUnit").toString)
+      }
+    }
+    finally reader.close()
+  }
+
+  /** The report, and whether anything got slower. */
+  def compare(baseline: Seq[Result], current: Seq[Result], thresholdPercent: Double): (Seq[String], Boolean) = {
+    val before = baseline.map(r => r.key -> r).toMap
+    var slower = false
+    val lines =
+      for (now <- current) yield {
+        val description = s"${now.benchmark} ${now.params}".trim
+        before.get(now.key) match {
+          case None =>
+            f"$description%-60s ${now.score}%12.3f ${now.unit}%-8s (new)"
+          case Some(was) =>
+            val change = (now.score - was.score) / was.score * 100
+            val noise = (now.error + was.error) / was.score * 100
+            // if JMH couldn't say what the error was, go by the threshold alone
+            val significant = change.abs > thresholdPercent && !(change.abs <= noise)
+            val better = (change > 0) == now.higherIsBetter
+            val verdict =
+              if (!significant) ""
+              else if (better) "faster"
+              else { slower = true; "SLOWER" }
+            f"$description%-60s ${was.score}%12.3f -> ${now.score}%12.3f ${now.unit}%-8s $change%+7.1f%% $verdict"
+        }
+      }
+    val dropped = baseline.filterNot(r => current.exists(_.key == r.key))
+      .map(r => s"${r.benchmark} ${r.params}".trim + " (not run)")
+    (lines ++ dropped, slower)
+  }
+
+  def main(args: Array[String]): Unit = {
+    val (threshold, files) = args.toList match {
+      case "--threshold" :: percent :: rest => (percent.toDouble, rest)
+      case rest                             => (10.0, rest)
+    }
+    files match {
+      case List(baseline, results) =>
+        val (lines, slower) = compare(read(baseline), read(results), threshold)
+        lines.foreach(println)
+        if (slower)
+          System.exit(1)
+      case _ =>
+        System.err.println("usage: Compare [--threshold <percent>] <baseline.json> <results.json>")
+        System.exit(2)
+    }
+  }
+}
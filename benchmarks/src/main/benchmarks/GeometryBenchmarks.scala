@@ -0,0 +1,69 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.benchmarks
+
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations.{ Benchmark, BenchmarkMode, Fork, Measurement, Mode, OutputTimeUnit, Param,
+  Scope, Setup, State, TearDown, Warmup }
+
+import org.nlogo.agent.Turtle
+
+// in-radius, distance, and moving turtles: what most agent-based models spend
+// their time on when they aren't running NetLogo code.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class GeometryBenchmarks {
+
+  @Param(Array("1000", "10000"))
+  var turtleCount: Int = 0
+
+  var bench: BenchmarkWorld = null
+  var turtles: Array[Turtle] = null
+
+  @Setup
+  def setup(): Unit = {
+    bench = new BenchmarkWorld("", 25, s"crt $turtleCount [ setxy random-xcor random-ycor ]")
+    turtles = bench.turtles
+  }
+
+  @TearDown
+  def tearDown(): Unit =
+    bench.dispose()
+
+  @Benchmark
+  def inRadiusTurtles(): Int =
+    bench.world.inRadiusOrCone.inRadius(turtles(0), bench.world.turtles, 5, true).size
+
+  @Benchmark
+  def inRadiusPatches(): Int =
+    bench.world.inRadiusOrCone.inRadius(turtles(0), bench.world.patches, 5, true).size
+
+  // from one turtle to every other
+  @Benchmark
+  def distance(): Double = {
+    val protractor = bench.world.protractor
+    var total = 0.0
+    var i = 1
+    while (i < turtles.length) {
+      total += protractor.distance(turtles(0), turtles(i), true)
+      i += 1
+    }
+    total
+  }
+
+  // every turtle forward 0.5, which in a wrapping world always succeeds
+  @Benchmark
+  def fd(): Unit = {
+    var i = 0
+    while (i < turtles.length) {
+      turtles(i).jump(0.5)
+      i += 1
+    }
+  }
+}
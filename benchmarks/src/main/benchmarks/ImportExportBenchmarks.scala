@@ -0,0 +1,55 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.benchmarks
+
+import java.io.{ PrintWriter, StringReader, StringWriter }
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations.{ Benchmark, BenchmarkMode, Fork, Measurement, Mode, OutputTimeUnit, Param,
+  Scope, Setup, State, TearDown, Warmup }
+
+// export-world and import-world of a world with a bit of everything in it.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+class ImportExportBenchmarks {
+
+  @Param(Array("1000", "10000"))
+  var turtleCount: Int = 0
+
+  var bench: BenchmarkWorld = null
+  var exported: String = null
+
+  @Setup
+  def setup(): Unit = {
+    bench = new BenchmarkWorld("turtles-own [ energy ] patches-own [ grass ]", 25,
+      s"""ask patches [ set grass random 10 set pcolor grass ]
+          crt $turtleCount [ setxy random-xcor random-ycor set energy random-float 10 set label who ]
+          ask n-of ($turtleCount / 2) turtles [ create-link-with one-of other turtles ]""")
+    exported = export()
+  }
+
+  @TearDown
+  def tearDown(): Unit =
+    bench.dispose()
+
+  private def export(): String = {
+    val out = new StringWriter
+    bench.world.exportWorld(new PrintWriter(out), true)
+    out.toString
+  }
+
+  @Benchmark
+  def exportWorld(): Int =
+    export().length
+
+  @Benchmark
+  def importWorld(): Int = {
+    bench.workspace.importWorld(new StringReader(exported))
+    bench.world.turtles.count
+  }
+}
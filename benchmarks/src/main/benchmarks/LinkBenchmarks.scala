@@ -0,0 +1,67 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.benchmarks
+
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations.{ Benchmark, BenchmarkMode, Fork, Measurement, Mode, OutputTimeUnit, Param,
+  Scope, Setup, State, TearDown, Warmup }
+
+import org.nlogo.agent.Turtle
+
+// Looking links up by their ends, as link-with, link-neighbor? and friends do.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class LinkBenchmarks {
+
+  @Param(Array("1000"))
+  var turtleCount: Int = 0
+
+  @Param(Array("5"))
+  var linksPerTurtle: Int = 0
+
+  var bench: BenchmarkWorld = null
+  var turtles: Array[Turtle] = null
+
+  @Setup
+  def setup(): Unit = {
+    bench = new BenchmarkWorld("", 16,
+      s"crt $turtleCount ask turtles [ create-links-with n-of $linksPerTurtle other turtles ]")
+    turtles = bench.turtles
+  }
+
+  @TearDown
+  def tearDown(): Unit =
+    bench.dispose()
+
+  // every pair of neighboring turtles, linked or not
+  @Benchmark
+  def getLink(): Int = {
+    val linkManager = bench.world.linkManager
+    var found = 0
+    var i = 1
+    while (i < turtles.length) {
+      if (linkManager.getLink(turtles(i - 1), turtles(i), bench.world.links).isDefined)
+        found += 1
+      i += 1
+    }
+    found
+  }
+
+  @Benchmark
+  def linksWith(): Int = {
+    val linkManager = bench.world.linkManager
+    var found = 0
+    var i = 1
+    while (i < turtles.length) {
+      found += linkManager.linksWith(turtles(i - 1), turtles(i), bench.world.links).length
+      i += 1
+    }
+    found
+  }
+}
@@ -0,0 +1,42 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.benchmarks
+
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations.{ Benchmark, BenchmarkMode, Fork, Measurement, Mode, OutputTimeUnit, Param,
+  Scope, Setup, State, TearDown, Warmup }
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class PatchBenchmarks {
+
+  // the world is (2 * size + 1) patches square
+  @Param(Array("50", "200"))
+  var size: Int = 0
+
+  var bench: BenchmarkWorld = null
+  var chemical: Int = 0
+
+  @Setup
+  def setup(): Unit = {
+    bench = new BenchmarkWorld("patches-own [ chemical ]", size, "ask patches [ set chemical random-float 100 ]")
+    chemical = bench.world.patchesOwnIndexOf("CHEMICAL")
+  }
+
+  @TearDown
+  def tearDown(): Unit =
+    bench.dispose()
+
+  @Benchmark
+  def diffuse(): Unit =
+    bench.world.diffuse(0.5, chemical)
+
+  @Benchmark
+  def diffuse4(): Unit =
+    bench.world.diffuse4(0.5, chemical)
+}
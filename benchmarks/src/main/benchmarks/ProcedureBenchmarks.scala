@@ -0,0 +1,67 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.benchmarks
+
+import java.util.concurrent.TimeUnit
+
+import org.openjdk.jmh.annotations.{ Benchmark, BenchmarkMode, Fork, Measurement, Mode, OutputTimeUnit,
+  Scope, Setup, State, TearDown, Warmup }
+
+import org.nlogo.api.SimpleJobOwner
+import org.nlogo.nvm.{ ExclusiveJob, Procedure }
+
+// Running compiled NetLogo code the way the engine does it for buttons and
+// the command center, minus the job thread: an ExclusiveJob runs the
+// procedure on this thread, through Context.runExclusive.
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Array(Mode.AverageTime))
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+class ProcedureBenchmarks {
+
+  val code = """
+    turtles-own [ energy ]
+    to go
+      ask turtles [
+        rt random 30 lt random 30 fd 1
+        set energy energy - 1
+        if energy < 0 [ set energy 10 ]
+      ]
+    end
+    to-report total-energy
+      let total 0
+      foreach sort turtles [ t -> set total total + [energy] of t ]
+      report total
+    end"""
+
+  var bench: BenchmarkWorld = null
+  var owner: SimpleJobOwner = null
+  var go: Procedure = null
+  var arithmetic: Procedure = null
+
+  @Setup
+  def setup(): Unit = {
+    bench = new BenchmarkWorld(code, 16, "crt 1000 [ set energy random 10 ]")
+    owner = new SimpleJobOwner("benchmark", bench.world.mainRNG)
+    go = bench.workspace.compileCommands("go")
+    arithmetic = bench.workspace.compileCommands("let x 0 repeat 1000 [ set x x + sin x * 2 ] let y total-energy")
+  }
+
+  @TearDown
+  def tearDown(): Unit =
+    bench.dispose()
+
+  private def run(procedure: Procedure): Unit =
+    new ExclusiveJob(owner, bench.world.observers, procedure, 0, null, bench.workspace, owner.random).run()
+
+  @Benchmark
+  def askTurtles(): Unit =
+    run(go)
+
+  @Benchmark
+  def reporters(): Unit =
+    run(arithmetic)
+}
@@ -41,7 +41,7 @@ abstract class AbstractExporter(filename: String) {
 
   @throws(classOf[IOException])
   def `export`(tpe: String, modelFileName: String, extraHeader: String): Unit = {
-    val file = new org.nlogo.api.LocalFile(filename)
+    val file = new org.nlogo.api.LocalFile(filename, org.nlogo.api.LocalFile.isCompressed(filename))
     try {
       file.open(FileMode.Write)
       val writer = file.getPrintWriter
@@ -0,0 +1,141 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import java.util.ArrayList
+
+import org.nlogo.core.AgentKind
+
+object AgentChanges {
+  case class Changes(changed: Seq[Agent], deaths: Seq[(AgentKind, Long)])
+
+  // each journal has a bit in AgentJ._changedIn, so there can only be so many at once
+  val MaxJournals = 32
+}
+
+// Keeps track of which agents were born, died, or had one of their built-in
+// variables change, for things like mirroring which want to know what's
+// different about the world since they last looked without looking at every
+// agent.  Each one watching gets a Journal of its own, which it drains
+// whenever it looks; nothing is tracked while there are no journals.
+//
+// The setters for built-in variables in Turtle, Patch and Link call
+// AgentJ.changed(), which puts the agent on each journal's list the first
+// time.  Things which change agents wholesale (clear-all, resizing,
+// import-world, recompiling) call changedEverything() instead, and then the
+// next drain() of every journal says to look at everything.  Links' sizes,
+// headings and midpoints depend on where their ends are, so when a turtle
+// changes, its links should be assumed to have changed too; we leave that to
+// the caller.
+//
+// Agents change on the job thread, without necessarily holding the world
+// lock, while journals may be drained elsewhere (HubNet drains its journal on
+// the event thread).  So an agent's bits and the journals' lists are only
+// touched holding this AgentChanges's lock; otherwise an agent could end up
+// with its bit set but missing from the list, and never be journaled again.
+// While no journal is recording, changes don't take the lock at all.
+
+class AgentChanges {
+  import AgentChanges.{ Changes, MaxJournals }
+
+  private val journals = new Array[Journal](MaxJournals)
+  // the journals that are keeping lists, one bit each; the ones that are
+  // going to say everything changed anyway don't need to
+  @volatile private var recording = 0
+
+  class Journal private[AgentChanges] (private[AgentChanges] val bit: Int) {
+    private[AgentChanges] var everything = true
+    private[AgentChanges] val changedAgents = new ArrayList[AgentJ]
+    private[AgentChanges] val deaths = new ArrayList[(AgentKind, Long)]
+
+    /**
+     * The agents that have changed or died since the last call, or None if
+     * too much changed to say, in which case every agent should be looked at.
+     * The first call always says that.  Changed agents may have died since;
+     * their ids will be -1.
+     */
+    def drain(): Option[Changes] = AgentChanges.this.synchronized {
+      val result =
+        if (everything)
+          None
+        else {
+          val changed = new Array[Agent](changedAgents.size)
+          var i = 0
+          while (i < changed.length) {
+            changed(i) = changedAgents.get(i).asInstanceOf[Agent]
+            i += 1
+          }
+          import scala.jdk.CollectionConverters.ListHasAsScala
+          Some(Changes(changed.toSeq, deaths.asScala.toList))
+        }
+      forget()
+      everything = false
+      recording |= bit
+      result
+    }
+
+    def close(): Unit = AgentChanges.this.synchronized {
+      forget()
+      recording &= ~bit
+      journals(Integer.numberOfTrailingZeros(bit)) = null
+    }
+
+    // called holding the lock
+    private[AgentChanges] def forget(): Unit = {
+      var i = 0
+      while (i < changedAgents.size) {
+        changedAgents.get(i)._changedIn &= ~bit
+        i += 1
+      }
+      changedAgents.clear()
+      deaths.clear()
+    }
+  }
+
+  def tracking: Boolean = synchronized { journals.exists(_ != null) }
+
+  /** Starts a new journal. Its first drain() will say everything changed. */
+  def journal(): Journal = synchronized {
+    val i = journals.indexOf(null)
+    if (i < 0)
+      throw new IllegalStateException("Too many journals of agent changes")
+    journals(i) = new Journal(1 << i)
+    journals(i)
+  }
+
+  private[agent] def changed(agent: AgentJ): Unit =
+    if (recording != 0)
+      synchronized {
+        val missing = recording & ~agent._changedIn
+        if (missing != 0) {
+          agent._changedIn |= missing
+          var bits = missing
+          while (bits != 0) {
+            journals(Integer.numberOfTrailingZeros(bits)).changedAgents.add(agent)
+            bits &= bits - 1
+          }
+        }
+      }
+
+  // must be called before the agent's id is set to -1
+  private[agent] def died(agent: Agent): Unit =
+    if (recording != 0)
+      synchronized {
+        var bits = recording
+        while (bits != 0) {
+          journals(Integer.numberOfTrailingZeros(bits)).deaths.add((agent.kind, agent._id))
+          bits &= bits - 1
+        }
+      }
+
+  def changedEverything(): Unit =
+    synchronized {
+      if (recording != 0) {
+        for (journal <- journals if journal != null) {
+          journal.forget()
+          journal.everything = true
+        }
+        recording = 0
+      }
+    }
+}
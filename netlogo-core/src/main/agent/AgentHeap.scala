@@ -0,0 +1,106 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import org.nlogo.core.AgentKind
+
+/**
+ * Keeps the `capacity` agents with the highest (or lowest) values offered so
+ * far, for max-n-of and min-n-of.  Among agents with the same value, the
+ * ones offered first win, so offering agents in shufflerator order breaks
+ * ties randomly, the same way the old sort-everything implementation did.
+ *
+ * It's a binary heap with the worst of the agents kept at the root, so each
+ * offer is O(log capacity) and nothing is allocated per agent.
+ */
+class AgentHeap(kind: AgentKind, capacity: Int, highest: Boolean) {
+
+  private val values = new Array[Double](capacity)
+  private val order = new Array[Int](capacity) // when each agent was offered
+  private val agents = new Array[Agent](capacity)
+  private var size = 0
+  private var offered = 0
+
+  def offer(agent: Agent, value: Double): Unit = {
+    val seq = offered
+    offered += 1
+    if (size < capacity) {
+      values(size) = value
+      order(size) = seq
+      agents(size) = agent
+      size += 1
+      siftUp(size - 1)
+    } else if (capacity > 0 && ahead(value, seq, values(0), order(0))) {
+      values(0) = value
+      order(0) = seq
+      agents(0) = agent
+      siftDown(0)
+    }
+  }
+
+  /** The winners, best first. Empties the heap. */
+  def build(): IndexedAgentSet = {
+    val result = new Array[Agent](size)
+    while (size > 0) {
+      result(size - 1) = agents(0)
+      size -= 1
+      move(size, 0)
+      agents(size) = null
+      siftDown(0)
+    }
+    AgentSet.fromArray(kind, result)
+  }
+
+  private def ahead(value1: Double, seq1: Int, value2: Double, seq2: Int): Boolean =
+    if (value1 != value2)
+      if (highest) value1 > value2 else value1 < value2
+    else
+      seq1 < seq2
+
+  private def ahead(i: Int, j: Int): Boolean =
+    ahead(values(i), order(i), values(j), order(j))
+
+  private def siftUp(start: Int): Unit = {
+    var i = start
+    while (i > 0 && ahead((i - 1) / 2, i)) {
+      swap(i, (i - 1) / 2)
+      i = (i - 1) / 2
+    }
+  }
+
+  private def siftDown(start: Int): Unit = {
+    var i = start
+    var done = false
+    while (!done) {
+      val left = 2 * i + 1
+      val right = left + 1
+      var worst = i
+      if (left < size && ahead(worst, left))
+        worst = left
+      if (right < size && ahead(worst, right))
+        worst = right
+      if (worst == i)
+        done = true
+      else {
+        swap(i, worst)
+        i = worst
+      }
+    }
+  }
+
+  private def move(from: Int, to: Int): Unit = {
+    values(to) = values(from)
+    order(to) = order(from)
+    agents(to) = agents(from)
+  }
+
+  private def swap(i: Int, j: Int): Unit = {
+    val value = values(i)
+    val seq = order(i)
+    val agent = agents(i)
+    move(j, i)
+    values(j) = value
+    order(j) = seq
+    agents(j) = agent
+  }
+}
@@ -8,8 +8,15 @@ abstract class AgentJ {
   final World _world;
   Object[] _variables = null;
   public long _id = 0L;
+  // which of AgentChanges' journals have this agent on their lists, one bit each
+  int _changedIn = 0;
 
   AgentJ(World world) {
     this._world = world;
   }
+
+  // called when a built-in variable changes, see AgentChanges
+  final void changed() {
+    _world.agentChanges().changed(this);
+  }
 }
@@ -34,6 +34,31 @@ trait AgentManagement
 
   protected var breedsOwnCache: JHashMap[String, Integer] = new JHashMap[String, Integer]()
 
+  // double arrays for numeric patches-own variables; anything that replaces
+  // patch variables wholesale must drop or clear these
+  val patchColumns = new PatchColumns(this)
+
+  /**
+   * Does now, on the job thread, the tidying up that reading patch variables
+   * and the turtle, link and breed agentsets would otherwise do lazily, so
+   * that they can then be read from several threads at once (as by
+   * nvm.ParallelReporters) without any of them writing anything.
+   */
+  def prepareForParallelReads(): Unit = {
+    patchColumns.materializeAll()
+    turtles.prepareForReaders()
+    links.prepareForReaders()
+    val breedIterator = breeds.values.iterator
+    while (breedIterator.hasNext)
+      breedIterator.next().prepareForReaders()
+    val linkBreedIterator = linkBreeds.values.iterator
+    while (linkBreedIterator.hasNext)
+      linkBreedIterator.next().prepareForReaders()
+  }
+
+  // who's changed since whoever's watching last looked; see AgentChanges
+  val agentChanges = new AgentChanges
+
   def createPatches(minPx: Int, maxPx: Int, minPy: Int, maxPy: Int): Unit
   @throws(classOf[AgentException])
   def getPatchAt(x: Double, y: Double): Patch
@@ -121,6 +146,8 @@ trait AgentManagement
   }
 
   def clearPatches(): Unit = {
+    patchColumns.clear()
+    agentChanges.changedEverything()
     val iter = patches.iterator
     while(iter.hasNext) {
       val patch = iter.next().asInstanceOf[Patch]
@@ -166,6 +193,7 @@ trait AgentManagement
       i += 1
     }
     newWorld._patches = new ArrayAgentSet(AgentKind.Patch, "patches", newPatchArray)
+    newWorld.rebuildTurtleBuckets()
 
     def copyBreedShapes(
       breedSets:      JMap[String, TreeAgentSet],
@@ -0,0 +1,74 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import java.util.{ BitSet, HashSet => JHashSet }
+
+// A membership test for an agentset, by id.  Ids that don't fit in an
+// Int (a turtle would have to be the two billionth one created since the
+// last clear-turtles) go in a hash set instead.
+
+class AgentSetMembership private[agent](set: AgentSet) {
+  private val bits = new BitSet
+  private var bigIds: JHashSet[Long] = null
+
+  locally {
+    val iter = set.iterator
+    while (iter.hasNext) {
+      val id = iter.next()._id
+      if (id <= Int.MaxValue)
+        bits.set(id.toInt)
+      else {
+        if (bigIds == null)
+          bigIds = new JHashSet[Long]
+        bigIds.add(id)
+      }
+    }
+  }
+
+  def contains(agent: Agent): Boolean = {
+    val id = agent._id
+    if (id < 0)
+      false
+    else if (id <= Int.MaxValue)
+      bits.get(id.toInt)
+    else
+      bigIds != null && bigIds.contains(id)
+  }
+}
+
+// in-radius and in-cone are usually run by every turtle against the same
+// agentset, so we remember the memberships of the last few agentsets we
+// were asked about.  Only ArrayAgentSets and BitSetAgentSets are
+// remembered, since they never change after they're made (their agents can
+// die, but dead agents are never asked about).  Ids can be reused after clear-turtles, an import or
+// a resize, though, so the world clears this cache when that happens.
+
+class AgentSetMemberships private[agent] {
+  private val Size = 8
+  private val sets = new Array[AgentSet](Size)
+  private val memberships = new Array[AgentSetMembership](Size)
+  private var next = 0
+
+  def apply(set: AgentSet): AgentSetMembership = {
+    var i = 0
+    while (i < Size) {
+      if (sets(i) eq set)
+        return memberships(i)
+      i += 1
+    }
+    val membership = new AgentSetMembership(set)
+    if (set.isInstanceOf[ArrayAgentSet] || set.isInstanceOf[BitSetAgentSet]) {
+      sets(next) = set
+      memberships(next) = membership
+      next = (next + 1) % Size
+    }
+    membership
+  }
+
+  def clear(): Unit = {
+    java.util.Arrays.fill(sets.asInstanceOf[Array[AnyRef]], null)
+    java.util.Arrays.fill(memberships.asInstanceOf[Array[AnyRef]], null)
+    next = 0
+  }
+}
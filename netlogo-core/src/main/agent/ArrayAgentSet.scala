@@ -10,6 +10,13 @@ import
 // after they are initially created.  However note that turtles and
 // links can die, so we may end up with an array containing some dead
 // agents (agents with id -1). NP 2013-08-28.
+//
+// Counting those used to mean looking through the whole array, and since
+// one-of and n-of count first, so did picking from them.  So the first time
+// a mortal agentset is counted (or picked from) after any turtle or link in
+// the world dies, it makes a copy of the array with just the live agents,
+// and uses that until there are more deaths.  The array itself is left as
+// it is, since the shufflerator's random numbers depend on its length.
 
 class ArrayAgentSet(
   kind: core.AgentKind,
@@ -19,19 +26,57 @@ extends IndexedAgentSet(kind, printName) {
 
   private val arraySize = array.size
 
-  /// conversions
+  private val world: World =
+    if (arraySize == 0 || array(0) == null) null else array(0).world
 
-  override def toLogoList = {
-    val freshArray =
-      if (!kind.mortal)
-        array.clone
+  // the live agents, as of when the world's death count was liveAsOf.
+  // _live is written before liveAsOf and read after it, so whoever sees a
+  // liveAsOf sees the live agents that go with it
+  @volatile private var _live: Array[Agent] = null
+  @volatile private var liveAsOf = -1L
+
+  // the live agents, in order
+  private def live: Array[Agent] =
+    if (!kind.mortal || arraySize == 0)
+      array
+    else {
+      val deaths = if (world == null) -1L else world.deaths
+      if (world != null && liveAsOf == deaths)
+        _live
       else {
-        val buf = collection.mutable.ArrayBuffer[Agent]()
-        val iter = iterator
-        while (iter.hasNext)
-          buf += iter.next()
-        buf.toArray
+        var liveCount = 0
+        var i = 0
+        while (i < arraySize) {
+          if (array(i)._id != -1)
+            liveCount += 1
+          i += 1
+        }
+        val result =
+          if (liveCount == arraySize)
+            array
+          else {
+            val agents = new Array[Agent](liveCount)
+            var j = 0
+            i = 0
+            while (i < arraySize) {
+              if (array(i)._id != -1) {
+                agents(j) = array(i)
+                j += 1
+              }
+              i += 1
+            }
+            agents
+          }
+        _live = result
+        liveAsOf = deaths
+        result
       }
+    }
+
+  /// conversions
+
+  override def toLogoList = {
+    val freshArray = live.clone
     java.util.Arrays.sort(freshArray.asInstanceOf[Array[AnyRef]])
     core.LogoList.fromIterator(freshArray.iterator)
   }
@@ -39,39 +84,13 @@ extends IndexedAgentSet(kind, printName) {
   /// counting
 
   override def isEmpty =
-    if (!kind.mortal)
-      array.isEmpty
-    else
-      !iterator.hasNext
+    live.isEmpty
 
   override def count =
-    if (!kind.mortal)
-      arraySize
-    else {
-      var result = 0
-      val iter = iterator
-      while (iter.hasNext) {
-        iter.next()
-        result += 1
-      }
-      result
-    }
+    live.length
 
-  override def checkCount(checkValue: Int, check: (Int, Int) => Boolean): Boolean = {
-    if (!kind.mortal)
-      check(arraySize, checkValue)
-    else {
-      var totalCount = 0
-      val iter = iterator
-      while (iter.hasNext) {
-        iter.next()
-        totalCount += 1
-        if (totalCount > checkValue)
-          check(totalCount, checkValue)
-      }
-      check(totalCount, checkValue)
-    }
-  }
+  override def checkCount(checkValue: Int, check: (Int, Int) => Boolean): Boolean =
+    check(live.length, checkValue)
 
   /// equality
 
@@ -106,52 +125,26 @@ extends IndexedAgentSet(kind, printName) {
 
   // assume agentset is nonempty, since _randomoneof.java checks for that
   override def randomOne(precomputedCount: Int, random: Int) =
-    if (!kind.mortal)
-      array(random)
-    else {
-      val iter = iterator
-      var i = 0
-      while (i < random) {
-        iter.next()
-        i += 1
-      }
-      iter.next()
-    }
+    live(random)
 
   // This is used to optimize the special case of randomSubset where size == 2
   override def randomTwo(precomputedCount: Int, smallRandom: Int, bigRandom: Int): Array[Agent] = {
     // we know precomputedCount, or this method would not have been called.
     // see randomSubset().
-    if (!kind.mortal)
-      Array(
-        array(smallRandom),
-        array(bigRandom))
-    else {
-      val it = iterator
-      var i = 0
-      // skip to the first random place
-      while(i < smallRandom) {
-        it.next()
-        i += 1
-      }
-      val first = it.next()
-      i += 1
-      while (i < bigRandom) {
-        it.next()
-        i += 1
-      }
-      val second = it.next()
-      Array(first, second)
-    }
+    val agents = live
+    Array(
+      agents(smallRandom),
+      agents(bigRandom))
   }
 
   override def randomSubsetGeneral(resultSize: Int, precomputedCount: Int, random: MersenneTwisterFast) = {
     val result = new Array[Agent](resultSize)
-    if (precomputedCount == arraySize) {
+    val agents = live
+    if (precomputedCount == agents.length) {
       var i, j = 0
       while (j < resultSize) {
         if (random.nextInt(precomputedCount - i) < resultSize - j) {
-          result(j) = array(i)
+          result(j) = agents(i)
           j += 1
         }
         i += 1
@@ -0,0 +1,323 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import java.util.Arrays
+import java.util.concurrent.ForkJoinPool
+
+// layout-spring pushes every pair of nodes apart, which takes time quadratic
+// in the number of nodes.  for layouts with at least
+// org.nlogo.layoutSpringThreshold nodes, Layouts uses the Barnes-Hut
+// approximation instead: the nodes are put in a quadtree (an octree in 3D),
+// and the nodes in a cell that's far enough away push as one, as if they
+// were all at the cell's center of mass.  a cell is far enough away when its
+// width over its distance is less than org.nlogo.layoutSpringTheta, so the
+// smaller theta is, the closer we are to exact; at 0, every pair is looked
+// at, just in a different order.
+//
+// each node's push is added up on its own, always walking the tree in the
+// same order, so the nodes can be done in parallel bands (see
+// Topology.inBands) without the results depending on how many threads
+// there are.  nodes on top of each other push each other apart in a
+// direction which depends only on which two nodes they are, rather than on
+// the RNG, since there'd be no telling which order random numbers were
+// drawn in.
+
+object BarnesHut {
+
+  val Threshold =
+    Integer.getInteger("org.nlogo.layoutSpringThreshold", 1000).intValue
+
+  val Theta =
+    java.lang.Double.parseDouble(System.getProperty("org.nlogo.layoutSpringTheta", "0.5"))
+
+  def worthwhile(nodeCount: Int): Boolean =
+    nodeCount >= Threshold
+
+  // cells stop being split this deep, in case lots of nodes are (nearly)
+  // on top of each other
+  private val MaxDepth = 48
+
+  /**
+   * Adds the push each node gets from all the others to forces, the same
+   * way Layouts.spring2D() and spring3D() do, but approximately.  coords
+   * and forces have an array for each dimension (2 or 3) with an entry for
+   * each node.
+   */
+  def repel(coords: Array[Array[Double]], degrees: Array[Int], rep: Double, theta: Double,
+            forces: Array[Array[Double]], parallel: Boolean): Unit = {
+    val nodeCount = degrees.length
+    if (nodeCount > 1) {
+      val tree = new Tree(coords, degrees)
+      if (parallel && ForkJoinPool.getCommonPoolParallelism > 1)
+        Topology.inBands(0, nodeCount)(tree.repel(_, _, rep, theta, forces)): Unit
+      else
+        tree.repel(0, nodeCount, rep, theta, forces)
+    }
+  }
+
+  private class Tree(coords: Array[Array[Double]], degrees: Array[Int]) {
+    private val dims = coords.length
+    private val fanOut = 1 << dims
+    private val nodeCount = degrees.length
+
+    // the nodes, ordered so that each cell's nodes are together, and where
+    // each node is in that order
+    private val order = Array.tabulate(nodeCount)(identity)
+    private val position = new Array[Int](nodeCount)
+
+    // the cells, each covering order(start) until order(end)
+    private var cellCount = 0
+    private var start = new Array[Int](nodeCount)
+    private var end = new Array[Int](nodeCount)
+    private var width = new Array[Double](nodeCount)
+    private var mass = new Array[Double](nodeCount)
+    private var degreeSum = new Array[Double](nodeCount)
+    private var center = Array.fill(dims)(new Array[Double](nodeCount))
+    // children are next to each other; leaves have none
+    private var firstChild = new Array[Int](nodeCount)
+    private var childCount = new Array[Int](nodeCount)
+
+    build()
+
+    private def build(): Unit = {
+      val lo = new Array[Double](dims)
+      var size = 0.0
+      var d = 0
+      while (d < dims) {
+        val xs = coords(d)
+        var min = xs(0)
+        var max = xs(0)
+        var i = 1
+        while (i < nodeCount) {
+          min = min min xs(i)
+          max = max max xs(i)
+          i += 1
+        }
+        lo(d) = min
+        size = size max (max - min)
+        d += 1
+      }
+      val root = newCell(0, nodeCount, if (size > 0) size else 1)
+      split(root, lo, 0, new Array[Int](nodeCount))
+      var i = 0
+      while (i < nodeCount) {
+        position(order(i)) = i
+        i += 1
+      }
+    }
+
+    private def newCell(from: Int, until: Int, cellWidth: Double): Int = {
+      if (cellCount == start.length) {
+        val capacity = cellCount * 2
+        start = Arrays.copyOf(start, capacity)
+        end = Arrays.copyOf(end, capacity)
+        width = Arrays.copyOf(width, capacity)
+        mass = Arrays.copyOf(mass, capacity)
+        degreeSum = Arrays.copyOf(degreeSum, capacity)
+        center = center.map(Arrays.copyOf(_, capacity))
+        firstChild = Arrays.copyOf(firstChild, capacity)
+        childCount = Arrays.copyOf(childCount, capacity)
+      }
+      val cell = cellCount
+      cellCount += 1
+      start(cell) = from
+      end(cell) = until
+      width(cell) = cellWidth
+      mass(cell) = until - from
+      var d = 0
+      while (d < dims) {
+        var sum = 0.0
+        var i = from
+        while (i < until) {
+          sum += coords(d)(order(i))
+          i += 1
+        }
+        center(d)(cell) = sum / (until - from)
+        d += 1
+      }
+      var sum = 0.0
+      var i = from
+      while (i < until) {
+        sum += degrees(order(i))
+        i += 1
+      }
+      degreeSum(cell) = sum
+      cell
+    }
+
+    private def quadrant(node: Int, lo: Array[Double], half: Double): Int = {
+      var q = 0
+      var d = 0
+      while (d < dims) {
+        if (coords(d)(node) >= lo(d) + half)
+          q |= 1 << d
+        d += 1
+      }
+      q
+    }
+
+    // sorts the cell's nodes by quadrant and makes a child for each quadrant with any
+    private def split(cell: Int, lo: Array[Double], depth: Int, scratch: Array[Int]): Unit = {
+      val from = start(cell)
+      val until = end(cell)
+      if (until - from > 1 && depth < MaxDepth) {
+        val half = width(cell) / 2
+        val counts = new Array[Int](fanOut + 1)
+        var i = from
+        while (i < until) {
+          counts(quadrant(order(i), lo, half) + 1) += 1
+          i += 1
+        }
+        var q = 0
+        while (q < fanOut) {
+          counts(q + 1) += counts(q)
+          q += 1
+        }
+        val starts = counts.clone()
+        i = from
+        while (i < until) {
+          val node = order(i)
+          val nq = quadrant(node, lo, half)
+          scratch(from + counts(nq)) = node
+          counts(nq) += 1
+          i += 1
+        }
+        System.arraycopy(scratch, from, order, from, until - from)
+        val children = new Array[Int](fanOut)
+        var count = 0
+        q = 0
+        while (q < fanOut) {
+          if (starts(q + 1) > starts(q)) {
+            children(count) = newCell(from + starts(q), from + starts(q + 1), half)
+            count += 1
+          }
+          q += 1
+        }
+        firstChild(cell) = children(0)
+        childCount(cell) = count
+        var c = 0
+        q = 0
+        while (q < fanOut) {
+          if (starts(q + 1) > starts(q)) {
+            val childLo = Array.tabulate(dims)(d => if ((q & (1 << d)) != 0) lo(d) + half else lo(d))
+            split(children(c), childLo, depth + 1, scratch)
+            c += 1
+          }
+          q += 1
+        }
+      }
+    }
+
+    def repel(from: Int, until: Int, rep: Double, theta: Double, forces: Array[Array[Double]]): Unit = {
+      val stack = new Array[Int](MaxDepth * fanOut + 1)
+      val push = new Array[Double](dims)
+      var node = from
+      while (node < until) {
+        Arrays.fill(push, 0.0)
+        val p = position(node)
+        // start at the root
+        stack(0) = 0
+        var top = 1
+        while (top > 0) {
+          top -= 1
+          val cell = stack(top)
+          if (childCount(cell) == 0) {
+            var i = start(cell)
+            while (i < end(cell)) {
+              val other = order(i)
+              if (other != node)
+                repelByNode(node, other, rep, push)
+              i += 1
+            }
+          } else {
+            val dist = distanceTo(node, cell)
+            if ((p < start(cell) || p >= end(cell)) && dist > 0 && width(cell) < theta * dist)
+              repelByCell(node, cell, dist, rep, push)
+            else {
+              var c = firstChild(cell) + childCount(cell) - 1
+              while (c >= firstChild(cell)) {
+                stack(top) = c
+                top += 1
+                c -= 1
+              }
+            }
+          }
+        }
+        var d = 0
+        while (d < dims) {
+          forces(d)(node) += push(d)
+          d += 1
+        }
+        node += 1
+      }
+    }
+
+    private def distanceTo(node: Int, cell: Int): Double = {
+      var sum = 0.0
+      var d = 0
+      while (d < dims) {
+        val delta = center(d)(cell) - coords(d)(node)
+        sum += delta * delta
+        d += 1
+      }
+      StrictMath.sqrt(sum)
+    }
+
+    private def repelByCell(node: Int, cell: Int, dist: Double, rep: Double, push: Array[Double]): Unit = {
+      val div = StrictMath.max((degrees(node) + degreeSum(cell) / mass(cell)) / 2.0, 1.0)
+      val f = rep * mass(cell) / (dist * dist) / div
+      var d = 0
+      while (d < dims) {
+        push(d) -= f * (center(d)(cell) - coords(d)(node)) / dist
+        d += 1
+      }
+    }
+
+    private def repelByNode(node: Int, other: Int, rep: Double, push: Array[Double]): Unit = {
+      val div = StrictMath.max((degrees(node) + degrees(other)) / 2.0, 1.0)
+      var sum = 0.0
+      var d = 0
+      while (d < dims) {
+        val delta = coords(d)(other) - coords(d)(node)
+        sum += delta * delta
+        d += 1
+      }
+      if (sum == 0) {
+        // the same push spring2D() and spring3D() give, in a direction that
+        // depends on the pair, and the opposite way for the other one
+        val sign = if (node < other) 1 else -1
+        val ang = StrictMath.toRadians(360 * pairRandom(node, other, 0))
+        if (dims == 2) {
+          push(0) -= sign * (rep / div * StrictMath.sin(ang))
+          push(1) -= sign * (rep / div * StrictMath.cos(ang))
+        } else {
+          val zVal = rep * (2 * pairRandom(node, other, 1) - 1.0)
+          val repFlat = StrictMath.sqrt(rep * rep - zVal * zVal)
+          push(0) -= sign * (repFlat * StrictMath.sin(ang))
+          push(1) -= sign * (repFlat * StrictMath.cos(ang))
+          push(2) -= sign * zVal
+        }
+      } else {
+        val dist = StrictMath.sqrt(sum)
+        val f = rep / sum / div
+        d = 0
+        while (d < dims) {
+          push(d) -= f * (coords(d)(other) - coords(d)(node)) / dist
+          d += 1
+        }
+      }
+    }
+
+    // a number in [0, 1) that's the same for both nodes of a pair
+    private def pairRandom(node: Int, other: Int, salt: Int): Double = {
+      // splitmix64's finalizer
+      var z = ((node min other).toLong << 32 | (node max other).toLong) + (salt + 1) * 0x9e3779b97f4a7c15L
+      z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L
+      z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL
+      z = z ^ (z >>> 31)
+      (z >>> 11) * (1.0 / (1L << 53))
+    }
+  }
+
+}
@@ -0,0 +1,365 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import java.util.BitSet
+
+import org.nlogo.{ api, core }
+import org.nlogo.api.MersenneTwisterFast
+
+// A subset of some other agentset, stored as one bit per position in that
+// set's array of agents (its "universe").  `with`, `other` and friends make
+// these instead of copying their results into a fresh array, so chains of
+// filters (`turtles with [...] with [...]`) share one array between them.
+//
+// Members are always iterated in universe order, which is the order the
+// agentset we filtered iterated in, so results and shufflerator order are
+// exactly what they'd be with an ArrayAgentSet of the same agents.  As with
+// ArrayAgentSet, turtles and links may die after we're made, so we skip
+// agents with id -1 when iterating.
+
+class BitSetAgentSet private[agent](
+  kind: core.AgentKind,
+  private[agent] val universe: Array[Agent],
+  private[agent] val limit: Int,
+  private[agent] val bits: BitSet)
+extends IndexedAgentSet(kind, null) {
+
+  private val size = bits.cardinality
+
+  // every agent with its bit set, dead or alive, in order
+  private def members: Array[Agent] = {
+    val result = new Array[Agent](size)
+    var i = bits.nextSetBit(0)
+    var j = 0
+    while (i >= 0) {
+      result(j) = universe(i)
+      j += 1
+      i = bits.nextSetBit(i + 1)
+    }
+    result
+  }
+
+  // the words of `bits`, and how many bits are set before each of them, so
+  // that we can find the nth member without counting our way there.  made
+  // the first time they're needed.
+  private lazy val words = bits.toLongArray
+  private lazy val setBefore = {
+    val result = new Array[Int](words.length)
+    var i = 1
+    while (i < words.length) {
+      result(i) = result(i - 1) + java.lang.Long.bitCount(words(i - 1))
+      i += 1
+    }
+    result
+  }
+
+  // position in the universe of the nth member, dead or alive
+  private def nth(n: Int): Int = {
+    // the last word with at most n bits before it is the one with ours
+    var lo = 0
+    var hi = words.length - 1
+    while (lo < hi) {
+      val mid = (lo + hi + 1) >>> 1
+      if (setBefore(mid) <= n) lo = mid else hi = mid - 1
+    }
+    var word = words(lo)
+    var skip = n - setBefore(lo)
+    while (skip > 0) {
+      word &= word - 1
+      skip -= 1
+    }
+    lo * 64 + java.lang.Long.numberOfTrailingZeros(word)
+  }
+
+  /// conversions
+
+  override def toLogoList = {
+    val freshArray =
+      if (!kind.mortal)
+        members
+      else {
+        val buf = collection.mutable.ArrayBuffer[Agent]()
+        val iter = iterator
+        while (iter.hasNext)
+          buf += iter.next()
+        buf.toArray
+      }
+    java.util.Arrays.sort(freshArray.asInstanceOf[Array[AnyRef]])
+    core.LogoList.fromIterator(freshArray.iterator)
+  }
+
+  /// counting
+
+  override def isEmpty =
+    if (!kind.mortal)
+      size == 0
+    else
+      !iterator.hasNext
+
+  override def count =
+    if (!kind.mortal)
+      size
+    else {
+      var result = 0
+      val iter = iterator
+      while (iter.hasNext) {
+        iter.next()
+        result += 1
+      }
+      result
+    }
+
+  override def checkCount(checkValue: Int, check: (Int, Int) => Boolean): Boolean =
+    check(count, checkValue)
+
+  /// equality
+
+  // assumes we've already checked for equal counts
+  override def containsSameAgents(otherSet: api.AgentSet) =
+    otherSet match {
+      case other: BitSetAgentSet if !kind.mortal && (other.universe eq universe) =>
+        other.bits == bits
+      case _ =>
+        import scala.jdk.CollectionConverters.IterableHasAsScala
+        val set = collection.mutable.HashSet[api.Agent]()
+        val iter = iterator
+        while (iter.hasNext)
+          set += iter.next()
+        otherSet.agents.asScala.forall(set.contains)
+    }
+
+  /// one-agent queries
+
+  // like ArrayAgentSet, counts dead agents
+  override def getByIndex(index: Int) =
+    universe(nth(index))
+
+  override def contains(agent: api.Agent): Boolean = agent match {
+    case a: Agent if a._id != -1 =>
+      // patches, and turtles if none have died, sit at their id
+      val guess = a._id
+      if (guess < limit && (universe(guess.toInt) eq a))
+        bits.get(guess.toInt)
+      else {
+        var i = bits.nextSetBit(0)
+        while (i >= 0) {
+          if (universe(i) eq a)
+            return true
+          i = bits.nextSetBit(i + 1)
+        }
+        false
+      }
+    case _ => false
+  }
+
+  /// random selection
+
+  // when turtles or links might have died, `random` counts only live ones,
+  // so those we have to walk to
+  override def randomOne(precomputedCount: Int, random: Int) =
+    if (!kind.mortal)
+      universe(nth(random))
+    else {
+      val iter = iterator
+      var i = 0
+      while (i < random) {
+        iter.next()
+        i += 1
+      }
+      iter.next()
+    }
+
+  override def randomTwo(precomputedCount: Int, smallRandom: Int, bigRandom: Int): Array[Agent] =
+    if (!kind.mortal)
+      Array(universe(nth(smallRandom)), universe(nth(bigRandom)))
+    else {
+      val it = iterator
+      var i = 0
+      while (i < smallRandom) {
+        it.next()
+        i += 1
+      }
+      val first = it.next()
+      i += 1
+      while (i < bigRandom) {
+        it.next()
+        i += 1
+      }
+      Array(first, it.next())
+    }
+
+  override def randomSubsetGeneral(resultSize: Int, precomputedCount: Int, random: MersenneTwisterFast) = {
+    val result = new Array[Agent](resultSize)
+    val iter = iterator
+    var i, j = 0
+    while (j < resultSize) {
+      val next = iter.next()
+      if (random.nextInt(precomputedCount - i) < resultSize - j) {
+        result(j) = next
+        j += 1
+      }
+      i += 1
+    }
+    result
+  }
+
+  override def iterator: AgentIterator =
+    new Iterator
+
+  // the same shuffle ArrayAgentSet does on an array of the same agents,
+  // dead ones included, so that it uses the RNG in exactly the same way
+  override def shufflerator(rng: MersenneTwisterFast): AgentIterator =
+    new ArrayAgentSet(kind, null, members).shufflerator(rng)
+
+  private final class Iterator extends AgentIterator {
+    private val mortal = kind.mortal
+    private var index = skipDead(bits.nextSetBit(0))
+    override def hasNext = index >= 0
+    override def next() = {
+      val result = universe(index)
+      index = skipDead(bits.nextSetBit(index + 1))
+      result
+    }
+    private def skipDead(start: Int): Int = {
+      var i = start
+      while (mortal && i >= 0 && universe(i)._id == -1)
+        i = bits.nextSetBit(i + 1)
+      i
+    }
+  }
+
+}
+
+object BitSetAgentSet {
+
+  /**
+   * Iterates over the agents in `source`, in order, letting the caller pick
+   * which ones go in the result.
+   */
+  def filter(source: AgentSet): AgentSetFilter =
+    source match {
+      case set: BitSetAgentSet =>
+        new AgentSetFilter(set.kind, set.universe, set.limit, set.bits)
+      case set: ArrayAgentSet =>
+        new AgentSetFilter(set.kind, set.array, set.array.length, null)
+      case set: TreeAgentSet =>
+        val (array, limit) = set.snapshot
+        new AgentSetFilter(set.kind, array, limit, null)
+      case _ =>
+        // some other kind of agentset; filter a copy of its agents
+        val agents = collection.mutable.ArrayBuffer[Agent]()
+        val iter = source.iterator
+        while (iter.hasNext)
+          agents += iter.next()
+        new AgentSetFilter(source.kind, agents.toArray, agents.size, null)
+    }
+
+  /**
+   * The union of the given agentsets in the order turtle-set and patch-set
+   * put them: each set's live agents in order, skipping ones already seen.
+   * We can only do this a word at a time if they're all subsets of the same
+   * universe and the result is in universe order, which is to say each set
+   * only adds agents which come after all the ones before it; otherwise we
+   * return null.
+   */
+  def union(sets: Array[AgentSet]): IndexedAgentSet = {
+    if (sets.isEmpty)
+      return null
+    val first = sets(0) match {
+      case set: BitSetAgentSet => set
+      case _                   => return null
+    }
+    val result = liveBits(first)
+    var i = 1
+    while (i < sets.length) {
+      sets(i) match {
+        case set: BitSetAgentSet if (set.universe eq first.universe) && set.kind == first.kind =>
+          val added = liveBits(set)
+          added.andNot(result)
+          if (!added.isEmpty && added.nextSetBit(0) < result.length)
+            return null
+          result.or(added)
+        case _ =>
+          return null
+      }
+      i += 1
+    }
+    make(first.kind, first.universe, first.limit, result, result.cardinality)
+  }
+
+  private def liveBits(set: BitSetAgentSet): BitSet = {
+    val bits = set.bits.clone.asInstanceOf[BitSet]
+    if (set.kind.mortal) {
+      var i = bits.nextSetBit(0)
+      while (i >= 0) {
+        if (set.universe(i)._id == -1)
+          bits.clear(i)
+        i = bits.nextSetBit(i + 1)
+      }
+    }
+    bits
+  }
+
+  // a few agents out of many are better off in an array of their own
+  private[agent] def make(kind: core.AgentKind, universe: Array[Agent], limit: Int, bits: BitSet, count: Int): IndexedAgentSet =
+    if (count.toLong * 32 < limit) {
+      val agents = new Array[Agent](count)
+      var i = bits.nextSetBit(0)
+      var j = 0
+      while (i >= 0) {
+        agents(j) = universe(i)
+        j += 1
+        i = bits.nextSetBit(i + 1)
+      }
+      AgentSet.fromArray(kind, agents)
+    }
+    else
+      new BitSetAgentSet(kind, universe, limit, bits)
+
+}
+
+// see BitSetAgentSet.filter
+
+final class AgentSetFilter private[agent](
+  kind: core.AgentKind, universe: Array[Agent], limit: Int, candidates: BitSet)
+extends AgentIterator {
+  private val mortal = kind.mortal
+  private val kept = new BitSet
+  private var keptCount = 0
+  private var current = -1
+  private var upcoming = advance(0)
+
+  override def hasNext = upcoming < limit
+
+  override def next(): Agent = {
+    current = upcoming
+    upcoming = advance(current + 1)
+    universe(current)
+  }
+
+  /** Puts the agent last returned by next() in the result. */
+  def keep(): Unit = {
+    kept.set(current)
+    keptCount += 1
+  }
+
+  def result: IndexedAgentSet =
+    BitSetAgentSet.make(kind, universe, limit, kept, keptCount)
+
+  // skips tombstones left by TreeAgentSet, and dead agents
+  private def advance(start: Int): Int = {
+    var i = nextCandidate(start)
+    while (i < limit && (universe(i) == null || (mortal && universe(i)._id == -1)))
+      i = nextCandidate(i + 1)
+    i
+  }
+
+  private def nextCandidate(start: Int): Int =
+    if (candidates == null)
+      start
+    else {
+      val i = candidates.nextSetBit(start)
+      if (i < 0) limit else i
+    }
+}
@@ -4,19 +4,61 @@ package org.nlogo.agent
 
 import java.io.PrintWriter
 import java.util.{ ArrayList, Collections }
+import java.util.concurrent.ForkJoinPool
 import java.lang.{ Long => JLong }
 import org.nlogo.{ core, api },
   api.Dump,
     Dump.csv,
-  core.Nobody
+  core.{ Breed, ExtensionObject, LogoList, Nobody }
+import scala.collection.immutable.ListMap
 import scala.jdk.CollectionConverters.{ CollectionHasAsScala, SeqHasAsJava }
 
 // I converted this from Java without (for now, at least) making any effort to clean it up and make
 // it more Scalatastic. - ST 4/12/11
 
+// Formatting the agents' rows is most of the work of exporting a big world, so with at least
+// org.nlogo.parallelExportThreshold agents, the rows are formatted in parallel bands, a window of
+// agents at a time, and written in order, so the file comes out exactly the same.  Extensions may
+// keep track of which of their objects they've been asked to dump, so if we run into one of those,
+// the rest of the rows are done one at a time, in order, as before.
+
+private[agent] object Exporter {
+
+  @volatile var parallelThreshold: Int =
+    Integer.getInteger("org.nlogo.parallelExportThreshold", 4096).intValue
+
+  // how many agents' rows are formatted before writing any of them
+  private val Window = 65536
+
+  private val LineSeparator = System.lineSeparator
+
+  private def dumpsInParallel(value: AnyRef): Boolean =
+    value match {
+      case _: ExtensionObject => false
+      case list: LogoList => list.isNumeric || list.forall(dumpsInParallel)
+      case _ => true
+    }
+
+  // where a row's cells go: straight to the writer, or into a band's buffer
+  class Row(out: java.lang.Appendable, parallel: Boolean) {
+    var ok = true
+    def data(value: AnyRef): Unit =
+      if (parallel && !dumpsInParallel(value))
+        ok = false
+      else
+        out.append(csv.data(value))
+    def comma(): Unit =
+      out.append(',')
+    def end(): Unit =
+      out.append(LineSeparator)
+  }
+
+}
+
 private[agent] class Exporter(world: World, writer: PrintWriter) {
 
   import writer.{ print, println }
+  import Exporter.Row
 
   def exportWorld(full: Boolean): Unit = {
     exportRandomState()
@@ -47,39 +89,25 @@ private[agent] class Exporter(world: World, writer: PrintWriter) {
     // when we get the list it's sorted and I think it's cool to export in who number order rather
     // than what ever the HashMap deems to return, in fact essential in order to get consistent
     // checksums.
-    val it = world.links.iterator
-    while(it.hasNext) {
-      val link = it.next().asInstanceOf[Link]
+    val columns = breedColumns(world.program.linkBreeds, breedVarIndices)
+    exportRows(world.links) { (agent, row) =>
+      val link = agent.asInstanceOf[Link]
       val breed = link.getLinkVariable(Link.VAR_BREED).asInstanceOf[AgentSet]
       val key = breed.printName
-      var breedOwns: Seq[String] = null
-      var thisBreedVarIndices: Array[Int] = null
-      var sortedBreedOwns: Array[String] = null
-      if(key != "LINKS") {
-        breedOwns = world.program.linkBreeds(key).owns
-        thisBreedVarIndices = Array.fill(breedOwns.size)(0)
-        sortedBreedOwns = Array.fill(breedOwns.size)(null: String)
-        for(j <- 0 until breedOwns.size) {
-          sortedBreedOwns(j) = breedOwns(j)
-          thisBreedVarIndices(j) = breedVarIndices(breedOwns.apply(j))
-        }
-        sortIndicesAndVars(sortedBreedOwns, thisBreedVarIndices)
-      }
-      else
-        thisBreedVarIndices = Array()
+      val (sortedBreedOwns, thisBreedVarIndices) =
+        if (key != "LINKS") columns(key) else (null, Array[Int]())
       var index = 0
       for(j <- 0 until allLinkVars.size) {
         if (j > 0)
-          print(",")
+          row.comma()
         if (j < linkVarSize)
-          print(csv.data(link.getLinkVariable(j)))
+          row.data(link.getLinkVariable(j))
         else if (index < thisBreedVarIndices.length && j == thisBreedVarIndices(index)) {
-          print(csv.data(link.getLinkVariable(
-            world.linkBreedsOwnIndexOf(breed, sortedBreedOwns(index)))))
+          row.data(link.getLinkVariable(
+            world.linkBreedsOwnIndexOf(breed, sortedBreedOwns(index))))
           index += 1
         }
       }
-      println()
     }
     println()
   }
@@ -152,39 +180,25 @@ private[agent] class Exporter(world: World, writer: PrintWriter) {
     // when we get the array list it's sorted and I think it's cool to export in who number order
     // rather than what ever the HashMap deems to return, in fact essential for consistent
     // checksums.
-    val it = world.turtles.iterator
-    while(it.hasNext) {
-      val turtle = it.next().asInstanceOf[Turtle]
-      print(csv.data(turtle.getTurtleVariable(Turtle.VAR_WHO)))
+    val columns = breedColumns(world.program.breeds, breedVarIndices)
+    exportRows(world.turtles) { (agent, row) =>
+      val turtle = agent.asInstanceOf[Turtle]
+      row.data(turtle.getTurtleVariable(Turtle.VAR_WHO))
       val breed = turtle.getTurtleVariable(Turtle.VAR_BREED).asInstanceOf[AgentSet]
       val key = breed.printName
-      var breedOwns: Seq[String] = null
-      var thisBreedVarIndices: Array[Int] = null
-      var sortedBreedOwns: Array[String] = null
-      if (key != "TURTLES") {
-        breedOwns = world.program.breeds(key).owns
-        thisBreedVarIndices = Array.fill(breedOwns.size)(0)
-        sortedBreedOwns = Array.fill(breedOwns.size)(null: String)
-        for(j <- 0 until breedOwns.size) {
-          sortedBreedOwns(j) = breedOwns(j)
-          thisBreedVarIndices(j) = breedVarIndices(breedOwns(j))
-        }
-        sortIndicesAndVars(sortedBreedOwns, thisBreedVarIndices)
-      }
-      else
-        thisBreedVarIndices = Array()
+      val (sortedBreedOwns, thisBreedVarIndices) =
+        if (key != "TURTLES") columns(key) else (null, Array[Int]())
       var index = 0
       for(j <- 1 until allTurtleVars.size) {
-        print(",")
+        row.comma()
         if (j < turtlesVarSize)
-          print(csv.data(turtle.getTurtleVariable(j)))
+          row.data(turtle.getTurtleVariable(j))
         else if(index < thisBreedVarIndices.length && j == thisBreedVarIndices(index)) {
-          print(csv.data(turtle.getTurtleVariable(world.breedsOwnIndexOf(
-            breed, sortedBreedOwns(index)))))
+          row.data(turtle.getTurtleVariable(world.breedsOwnIndexOf(
+            breed, sortedBreedOwns(index))))
           index += 1
         }
       }
-      println()
     }
     println()
   }
@@ -193,19 +207,77 @@ private[agent] class Exporter(world: World, writer: PrintWriter) {
     println(csv.encode("PATCHES"))
     val vars = world.program.patchesOwn
     println(csv.variableNameRow(vars))
-    val it = world.patches.iterator
-    while(it.hasNext) {
-      val patch = it.next().asInstanceOf[Patch]
+    exportRows(world.patches) { (agent, row) =>
+      val patch = agent.asInstanceOf[Patch]
       for(j <- 0 until vars.size) {
         if(j > 0)
-          print(",")
-        print(csv.data(patch.getPatchVariable(j)))
+          row.comma()
+        row.data(patch.getPatchVariable(j))
       }
-      println()
     }
     println()
   }
 
+  // for each breed, its own variables, and where they go in the row, in the order they go there
+  protected def breedColumns(breeds: ListMap[String, Breed], breedVarIndices: collection.Map[String, Int])
+      : Map[String, (Array[String], Array[Int])] =
+    breeds.map { case (key, breed) =>
+      val sortedBreedOwns = breed.owns.toArray
+      val thisBreedVarIndices = breed.owns.map(breedVarIndices).toArray
+      sortIndicesAndVars(sortedBreedOwns, thisBreedVarIndices)
+      key -> ((sortedBreedOwns, thisBreedVarIndices))
+    }
+
+  // writes a row for each agent, each ending in a newline.  see the comment on object Exporter.
+  protected def exportRows(agents: AgentSet)(row: (Agent, Row) => Unit): Unit = {
+    val count = agents.count
+    var done = 0
+    if (count >= Exporter.parallelThreshold && ForkJoinPool.getCommonPoolParallelism > 1) {
+      // reading a patch variable diffuse has left stale boxes up to date
+      // writes to the world's patch columns, so that's all done first, here
+      world.patchColumns.materializeAll()
+      val window = new Array[Agent](Exporter.Window min count)
+      val it = agents.iterator
+      var inParallel = true
+      while (inParallel && it.hasNext) {
+        var size = 0
+        while (size < window.length && it.hasNext) {
+          window(size) = it.next()
+          size += 1
+        }
+        val bands = Topology.inBands(0, size) { (start, end) =>
+          val out = new java.lang.StringBuilder
+          val band = new Row(out, parallel = true)
+          var i = start
+          while (i < end && band.ok) {
+            row(window(i), band)
+            band.end()
+            i += 1
+          }
+          if (band.ok) out.toString else null
+        }
+        if (bands.contains(null))
+          inParallel = false
+        else {
+          bands.foreach(text => print(text))
+          done += size
+        }
+      }
+    }
+    val out = new Row(writer, parallel = false)
+    val it = agents.iterator
+    var skipped = 0
+    while (it.hasNext) {
+      val agent = it.next()
+      if (skipped < done)
+        skipped += 1
+      else {
+        row(agent, out)
+        out.end()
+      }
+    }
+  }
+
   protected def sortIndicesAndVars(vars: Array[String], indices: Array[Int]): Unit = {
     val (sortedVars, sortedIndices) = (vars zip indices).sortBy(_._2).unzip
     sortedVars.copyToArray(vars)
@@ -167,38 +167,25 @@ private[agent] class Exporter3D(world: World3D, writer: PrintWriter) extends Exp
       breedVarIndices(breedVarName) = allTurtleVars.size - 1
     }
     println(csv.variableNameRow(allTurtleVars))
-    val it = world.turtles.iterator
-    while(it.hasNext) {
-      val turtle = it.next().asInstanceOf[Turtle]
-      print(csv.data(turtle.getTurtleVariable(Turtle.VAR_WHO)))
+    val columns = breedColumns(world.program.breeds, breedVarIndices)
+    exportRows(world.turtles) { (agent, row) =>
+      val turtle = agent.asInstanceOf[Turtle]
+      row.data(turtle.getTurtleVariable(Turtle.VAR_WHO))
       val breed = turtle.getTurtleVariable(Turtle3D.VAR_BREED3D).asInstanceOf[AgentSet]
       val key = breed.printName
-      var breedOwns: Seq[String] = null
-      var thisBreedVarIndices: Array[Int] = null
-      var sortedBreedOwns: Array[String] = null
-      if (!key.equals("TURTLES")) {
-        breedOwns = world.program.breeds(key).owns
-        thisBreedVarIndices = Array.fill(breedOwns.size)(0)
-        sortedBreedOwns = Array.fill(breedOwns.size)(null: String)
-        for(j <- 0 until breedOwns.size) {
-          sortedBreedOwns(j) = breedOwns(j)
-          thisBreedVarIndices(j) = breedVarIndices(breedOwns(j))
-        }
-        sortIndicesAndVars(sortedBreedOwns, thisBreedVarIndices)
-      }
-      else thisBreedVarIndices = Array[Int](0)
+      val (sortedBreedOwns, thisBreedVarIndices) =
+        if (!key.equals("TURTLES")) columns(key) else (null, Array[Int](0))
       var index = 0
       for(j <- 1 until allTurtleVars.size()) {
-        print(",")
+        row.comma()
         if (j < turtlesVarSize)
-          print(csv.data(turtle.getTurtleVariable(j)))
+          row.data(turtle.getTurtleVariable(j))
         else if(index < thisBreedVarIndices.length && j == thisBreedVarIndices(index)) {
-          print(csv.data(turtle.getTurtleVariable(
-            world.breedsOwnIndexOf(breed, sortedBreedOwns(index)))))
+          row.data(turtle.getTurtleVariable(
+            world.breedsOwnIndexOf(breed, sortedBreedOwns(index))))
           index += 1
         }
       }
-      println()
     }
     println()
   }
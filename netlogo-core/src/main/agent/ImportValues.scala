@@ -0,0 +1,82 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import java.util.concurrent.ForkJoinPool
+import java.util.regex.Pattern
+
+import org.nlogo.core.NumberParser
+
+// import-world reads every value in the file with the compiler's
+// readFromString, which is most of what it spends its time on.  most values
+// are numbers, strings and booleans, though, which we can read ourselves, and
+// without looking at the world, so can read many of at once.  so ImporterJ
+// reads the agents' rows a chunk at a time and has us read the values we can,
+// in parallel bands when there are enough rows; it leaves the rest to
+// readFromString as it makes the agents, one row at a time, in order, as
+// before.
+
+object ImportValues {
+
+  // how many rows ImporterJ reads before making their agents
+  val ChunkSize = 16384
+
+  val ParallelThreshold =
+    Integer.getInteger("org.nlogo.parallelImportThreshold", 4096).intValue
+
+  // what NumberParser would call a number, short of parseDouble's extras
+  // (like "Infinity" or "1d") which the tokenizer wouldn't
+  private val NumberPattern = Pattern.compile("-?([0-9]+(\\.[0-9]+)?|\\.[0-9]+)([eE]-?[0-9]+)?")
+
+  /**
+   * What each of the first count rows' values are, with nulls for the ones
+   * readFromString needs to read.
+   */
+  def read(rows: Array[Array[String]], count: Int): Array[Array[AnyRef]] = {
+    val values = new Array[Array[AnyRef]](count)
+    def readRows(start: Int, end: Int): Unit = {
+      var i = start
+      while (i < end) {
+        val row = rows(i)
+        val rowValues = new Array[AnyRef](row.length)
+        var j = 0
+        while (j < row.length) {
+          rowValues(j) = read(row(j))
+          j += 1
+        }
+        values(i) = rowValues
+        i += 1
+      }
+    }
+    if (count >= ParallelThreshold && ForkJoinPool.getCommonPoolParallelism > 1)
+      Topology.inBands(0, count)(readRows): Unit
+    else
+      readRows(0, count)
+    values
+  }
+
+  /** the value, if it's a number, a string with nothing escaped, or a boolean; otherwise null */
+  def read(s: String): AnyRef =
+    if (s.isEmpty)
+      null
+    else s.charAt(0) match {
+      case '"' =>
+        if (s.length >= 2 && s.charAt(s.length - 1) == '"' &&
+            s.indexOf('"', 1) == s.length - 1 && s.indexOf('\\') == -1)
+          s.substring(1, s.length - 1)
+        else
+          null
+      case 't' if s == "true" =>
+        java.lang.Boolean.TRUE
+      case 'f' if s == "false" =>
+        java.lang.Boolean.FALSE
+      case c if c == '-' || c == '.' || Character.isDigit(c) =>
+        if (NumberPattern.matcher(s).matches)
+          NumberParser.parse(s).toOption.orNull
+        else
+          null
+      case _ =>
+        null
+    }
+
+}
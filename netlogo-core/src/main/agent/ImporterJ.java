@@ -279,14 +279,39 @@ public abstract class ImporterJ
     String[] headers = getHeaders(kind);
 
     setupVarsToImport(headers.length);
-    while (hasMoreLines(false)) {
-      String[] line = nextLine();
-      importOneAgent(kind, line, headers);
+    if (kind == AgentKindJ.Observer() || convertPenDown) {
+      while (hasMoreLines(false)) {
+        String[] line = nextLine();
+        importOneAgent(kind, line, headers, null);
+      }
+    } else {
+      // read the simple values a chunk of rows at a time, maybe in parallel;
+      // see ImportValues.  errors name the line they're about, so lineNum is
+      // put back to each row's while its agent is made
+      String[][] rows = new String[ImportValues.ChunkSize()][];
+      int[] rowLineNums = new int[rows.length];
+      boolean more = true;
+      while (more) {
+        int count = 0;
+        while (count < rows.length && (more = hasMoreLines(false))) {
+          rowLineNums[count] = lineNum;
+          rows[count++] = nextLine();
+        }
+        int lastLineNum = lineNum;
+        Object[][] values = ImportValues.read(rows, count);
+        for (int i = 0; i < count; i++) {
+          lineNum = rowLineNums[i];
+          importOneAgent(kind, rows[i], headers, values[i]);
+          rows[i] = null;
+        }
+        lineNum = lastLineNum;
+      }
     }
   }
 
-  void importOneAgent(AgentKind kind, String[] line, String[] headers) {
-    Map<String, Object> varVals = getVarVals(headers, line, kind);
+  // values has what we already know the line's values are, or nulls where we don't
+  void importOneAgent(AgentKind kind, String[] line, String[] headers, Object[] values) {
+    Map<String, Object> varVals = getVarVals(headers, line, values, kind);
 
     if (kind == AgentKindJ.Observer()) {
       setScreenDimensions(varVals);
@@ -294,7 +319,7 @@ public abstract class ImporterJ
     // if there were any agentsets in the values that getVarVals() fetched,
     // then those values may have become invalid as a result of resizing
     // the world, so we'd better call getVarVals over again - ST 12/21/04
-    varVals = getVarVals(headers, line, kind);
+    varVals = getVarVals(headers, line, values, kind);
     Agent agent = nextAgent(kind, varVals);
     for (int i = 0; i < headers.length; i++) {
       String header = headers[i];
@@ -497,8 +522,9 @@ public abstract class ImporterJ
   //for each header, and the agent's class, this will return a map of
   //the parsed values keyed by the variable header.  if an essential variable
   //for this agent type does not have a valid value, this will throw an
-  //abortingexception
-  Map<String, Object> getVarVals(String[] headersArr, String[] values, AgentKind kind) {
+  //abortingexception.  knownValues, if not null, has the values that
+  //ImportValues already read, and nulls for the rest.
+  Map<String, Object> getVarVals(String[] headersArr, String[] values, Object[] knownValues, AgentKind kind) {
     Map<String, Object> varVals = new HashMap<String, Object>();
 
     if (!tooManyValuesForSection && values.length > headersArr.length) {
@@ -541,6 +567,7 @@ public abstract class ImporterJ
       }
 
       Object value = values[i].equals("") ? new Junk() :
+          (knownValues != null && knownValues[i] != null) ? knownValues[i] :
           getTokenValue(values[i], turtleBreedVar, linkBreedVar);
 
       // check to see if this variable is an essential variable and if it is,
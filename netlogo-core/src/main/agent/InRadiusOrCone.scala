@@ -4,7 +4,7 @@ package org.nlogo.agent
 
 import org.nlogo.api.AgentException
 import org.nlogo.core.AgentKind
-import java.util.{ArrayList, LinkedHashSet, HashSet => JHashSet, List => JList}
+import java.util.{ArrayList, LinkedHashSet, List => JList}
 
 class InRadiusOrCone private[agent](val world: World2D) extends World.InRadiusOrCone {
   private var patches: Array[Patch] = null // world.patches is not defined when this class is initiated
@@ -27,7 +27,7 @@ class InRadiusOrCone private[agent](val world: World2D) extends World.InRadiusOr
       case _ => throw new IllegalStateException
     }
 
-    val cachedIDs = initCachedIDs(sourceSet)
+    val members = memberships(sourceSet)
     initPatches()
     if (radius <= 1 && radius > 0) { // use getNeighbors to get patches in this case
       setPatches1(centerPatch)
@@ -43,7 +43,7 @@ class InRadiusOrCone private[agent](val world: World2D) extends World.InRadiusOr
       while (i < end) {
         val patch = patches(i)
 
-        if ((sourceSetIsWorldPatches || cachedIDs.contains(patch.id))
+        if ((sourceSetIsWorldPatches || (members != null && members.contains(patch)))
           && world.protractor.distance(patch.pxcor, patch.pycor, startX, startY, wrap) <= radius) {
           result.add(patch)
         }
@@ -55,40 +55,46 @@ class InRadiusOrCone private[agent](val world: World2D) extends World.InRadiusOr
       val sourceSetIsBreedSet = sourceSet.isBreedSet
       val worldWidth2 = worldWidth / 2
       val worldHeight2 = worldHeight / 2
+      // only the patches from setPatches are in increasing id order
+      val buckets = if (radius > 2) world.turtleBuckets else null
 
       while (i < end) {
         val patch = patches(i)
 
-        dx = Math.abs(patch.pxcor - patchX)
-        if (world.topology.xWraps && dx > worldWidth2)
-          dx = worldWidth - dx
-
-        dy = Math.abs(patch.pycor - patchY)
-        if (world.topology.yWraps && dy > worldHeight2)
-          dy = worldHeight - dy
-
-        gRoot = world.rootsTable.gridRoot(dx * dx + dy * dy)
-
-        // The 1.415 (square root of 2) adjustment is necessary because it is
-        // possible for portions of a patch to be within the circle even though
-        // the center of the patch is outside the circle.  Both turtles, the
-        // turtle in the center and the turtle in the agentset, can be as much
-        // as half the square root of 2 away from its patch center.  If they're
-        // away from the patch centers in opposite directions, that makes a total
-        // of square root of 2 additional distance we need to take into account.
-        if (gRoot <= radius + 1.415) {
-          val turtleIterator = patch.turtlesHere.iterator
-          while (turtleIterator.hasNext) {
-            val turtle = turtleIterator.next()
-            if ((sourceSetIsWorldTurtles
-              || (sourceSetIsBreedSet && (sourceSet eq turtle.getBreed))
-              || cachedIDs.contains(turtle.id))
-              && (gRoot <= radius - 1.415
-              || world.protractor.distance(turtle.xcor, turtle.ycor, startX, startY, wrap) <= radius))
-              result.add(turtle)
+        if (buckets != null && buckets.isEmpty(patch)) {
+          i = buckets.skipEmpty(patches, i, end)
+        } else {
+          dx = Math.abs(patch.pxcor - patchX)
+          if (world.topology.xWraps && dx > worldWidth2)
+            dx = worldWidth - dx
+
+          dy = Math.abs(patch.pycor - patchY)
+          if (world.topology.yWraps && dy > worldHeight2)
+            dy = worldHeight - dy
+
+          gRoot = world.rootsTable.gridRoot(dx * dx + dy * dy)
+
+          // The 1.415 (square root of 2) adjustment is necessary because it is
+          // possible for portions of a patch to be within the circle even though
+          // the center of the patch is outside the circle.  Both turtles, the
+          // turtle in the center and the turtle in the agentset, can be as much
+          // as half the square root of 2 away from its patch center.  If they're
+          // away from the patch centers in opposite directions, that makes a total
+          // of square root of 2 additional distance we need to take into account.
+          if (gRoot <= radius + 1.415) {
+            val turtleIterator = patch.turtlesHere.iterator
+            while (turtleIterator.hasNext) {
+              val turtle = turtleIterator.next()
+              if ((sourceSetIsWorldTurtles
+                || (sourceSetIsBreedSet && (sourceSet eq turtle.getBreed))
+                || (members != null && members.contains(turtle)))
+                && (gRoot <= radius - 1.415
+                || world.protractor.distance(turtle.xcor, turtle.ycor, startX, startY, wrap) <= radius))
+                result.add(turtle)
+            }
           }
+          i += 1
         }
-        i += 1
       }
     }
 
@@ -125,7 +131,7 @@ class InRadiusOrCone private[agent](val world: World2D) extends World.InRadiusOr
     var gRoot: Double = .0
     var dx, dy, i = 0
 
-    val cachedIDs = initCachedIDs(sourceSet)
+    val members = memberships(sourceSet)
     initPatches()
     if (radius <= 1 && radius > 0) { // use getNeighbors to get patches in this case
       setPatches1(startTurtle.currentPatch)
@@ -165,7 +171,7 @@ class InRadiusOrCone private[agent](val world: World2D) extends World.InRadiusOr
           while (!found && offsetIterator.hasNext) {
             val (offsetX, offsetY) = offsetIterator.next()
 
-            if ((sourceSetIsWorldPatches || cachedIDs.contains(patch.id))
+            if ((sourceSetIsWorldPatches || (members != null && members.contains(patch)))
               && isInCone(patch.pxcor + worldWidth * offsetX, patch.pycor + worldHeight * offsetY, startTurtle.xcor, startTurtle.ycor, radius, half, startTurtle.heading)) {
               result.add(patch)
               found = true
@@ -179,47 +185,53 @@ class InRadiusOrCone private[agent](val world: World2D) extends World.InRadiusOr
       val sourceSetIsBreedSet = sourceSet.isBreedSet
       val worldWidth2 = worldWidth / 2
       val worldHeight2 = worldHeight / 2
+      // only the patches from setPatches are in increasing id order
+      val buckets = if (radius > 2) world.turtleBuckets else null
 
       while (i < end) {
         val patch = patches(i)
 
-        dx = Math.abs(patch.pxcor - startTurtle.currentPatch.pxcor)
-        if (dx > worldWidth2)
-          dx = worldWidth - dx
-
-        dy = Math.abs(patch.pycor - startTurtle.currentPatch.pycor)
-        if (dy > worldHeight2)
-          dy = worldHeight - dy
-
-        gRoot = world.rootsTable.gridRoot(dx * dx + dy * dy)
-
-        // Only check patches that might have turtles within the radius on them.
-        // The 1.415 (square root of 2) adjustment is necessary because it is
-        // possible for portions of a patch to be within the circle even though
-        // the center of the patch is outside the circle.  Both turtles, the
-        // turtle in the center and the turtle in the agentset, can be as much
-        // as half the square root of 2 away from its patch center.  If they're
-        // away from the patch centers in opposite directions, that makes a total
-        // of square root of 2 additional distance we need to take into account.
-        if (gRoot <= radius + 1.415) {
-          val turtleIterator = patch.turtlesHere.iterator
-          while (turtleIterator.hasNext) {
-            val turtle = turtleIterator.next()
-
-            var found = false
-            val offsetIterator = offsets.iterator
-            while (!found && offsetIterator.hasNext) {
-              val (offsetX, offsetY) = offsetIterator.next()
-              if ((sourceSetIsWorldTurtles || (sourceSetIsBreedSet && (sourceSet eq turtle.getBreed))
-                || cachedIDs.contains(turtle.id))
-                && isInCone(turtle.xcor + worldWidth * offsetX, turtle.ycor + worldHeight * offsetY, startTurtle.xcor, startTurtle.ycor, radius, half, startTurtle.heading)) {
-                result.add(turtle)
-                found = true
+        if (buckets != null && buckets.isEmpty(patch)) {
+          i = buckets.skipEmpty(patches, i, end)
+        } else {
+          dx = Math.abs(patch.pxcor - startTurtle.currentPatch.pxcor)
+          if (dx > worldWidth2)
+            dx = worldWidth - dx
+
+          dy = Math.abs(patch.pycor - startTurtle.currentPatch.pycor)
+          if (dy > worldHeight2)
+            dy = worldHeight - dy
+
+          gRoot = world.rootsTable.gridRoot(dx * dx + dy * dy)
+
+          // Only check patches that might have turtles within the radius on them.
+          // The 1.415 (square root of 2) adjustment is necessary because it is
+          // possible for portions of a patch to be within the circle even though
+          // the center of the patch is outside the circle.  Both turtles, the
+          // turtle in the center and the turtle in the agentset, can be as much
+          // as half the square root of 2 away from its patch center.  If they're
+          // away from the patch centers in opposite directions, that makes a total
+          // of square root of 2 additional distance we need to take into account.
+          if (gRoot <= radius + 1.415) {
+            val turtleIterator = patch.turtlesHere.iterator
+            while (turtleIterator.hasNext) {
+              val turtle = turtleIterator.next()
+
+              var found = false
+              val offsetIterator = offsets.iterator
+              while (!found && offsetIterator.hasNext) {
+                val (offsetX, offsetY) = offsetIterator.next()
+                if ((sourceSetIsWorldTurtles || (sourceSetIsBreedSet && (sourceSet eq turtle.getBreed))
+                  || (members != null && members.contains(turtle)))
+                  && isInCone(turtle.xcor + worldWidth * offsetX, turtle.ycor + worldHeight * offsetY, startTurtle.xcor, startTurtle.ycor, radius, half, startTurtle.heading)) {
+                  result.add(turtle)
+                  found = true
+                }
               }
             }
           }
+          i += 1
         }
-        i += 1
       }
     }
 
@@ -396,20 +408,11 @@ class InRadiusOrCone private[agent](val world: World2D) extends World.InRadiusOr
     end = curr
   }
 
+  // null for breed sets, which we check by looking at each turtle's breed
   @scala.inline
-  private def initCachedIDs(sourceSet: AgentSet): JHashSet[Long] = {
-    var cachedIDs: JHashSet[Long] = null
-    if (!sourceSet.isBreedSet) {
-      cachedIDs = new JHashSet[Long](sourceSet.count)
-      val sourceTurtles = sourceSet.iterator
-      while (sourceTurtles.hasNext) {
-        val t = sourceTurtles.next()
-        cachedIDs.add(t.id)
-      }
-    } else {
-      cachedIDs = new JHashSet[Long](0)
-    }
-
-    cachedIDs
-  }
+  private def memberships(sourceSet: AgentSet): AgentSetMembership =
+    if (sourceSet.isBreedSet)
+      null
+    else
+      world.agentSetMemberships(sourceSet)
 }
@@ -92,6 +92,8 @@ public class InRadiusOrCone3D
     }
 
     Protractor3D protractor = world.protractor();
+    AgentSetMembership members = memberships(sourceSet);
+    TurtleBuckets buckets = world.turtleBuckets();
 
     for (int dz = dzmin; dz <= dzmax; dz++) {
       for (int dy = dymin; dy <= dymax; dy++) {
@@ -108,9 +110,12 @@ public class InRadiusOrCone3D
             if (protractor.distance(patch.pxcor, patch.pycor, patch.pzcor,
                 startX, startY, startZ,
                 wrap)
-                <= radius && (sourceSet == world.patches() || sourceSet.contains(patch))) {
+                <= radius && (sourceSet == world.patches() || isMember(sourceSet, members, patch))) {
               result.add(patch);
             }
+          } else if (buckets != null && buckets.isEmpty(patch)) {
+            // the patches east of this one in its bucket are empty too
+            dx += buckets.runLength(patch) - 1;
           } else {
             // Only check patches that might have turtles within the radius on them.
             // The 1.733 (square root of 3) adjustment is necessary because it is
@@ -122,7 +127,7 @@ public class InRadiusOrCone3D
                     // any turtle set with a non-null print name is either
                     // the set of all turtles, or a breed agentset - ST 2/19/04
                     (sourceSet.isBreedSet() && sourceSet == turtle.getBreed()) ||
-                    (!sourceSet.isBreedSet() && sourceSet.contains(turtle))) &&
+                    (members != null && members.contains(turtle))) &&
                     (protractor.distance(turtle.xcor(), turtle.ycor(),
                         ((Turtle3D) turtle).zcor(),
                         startX, startY, startZ, wrap)
@@ -215,6 +220,9 @@ public class InRadiusOrCone3D
       dzmin = -(int) StrictMath.ceil(depth - 1);
     }
 
+    AgentSetMembership members = memberships(sourceSet);
+    TurtleBuckets buckets = world.turtleBuckets();
+
     // loop through the patches in the rectangle.  (it doesn't matter what
     // order we check them in.)
     for (int dz = dzmin; dz <= dzmax; dz++) {
@@ -230,7 +238,7 @@ public class InRadiusOrCone3D
               for (int worldOffsetX = -m; worldOffsetX <= m; worldOffsetX++) {
                 for (int worldOffsetY = -n; worldOffsetY <= n; worldOffsetY++) {
                   for (int worldOffsetZ = -k; worldOffsetZ <= k; worldOffsetZ++) {
-                    if ((sourceSet == world.patches() || sourceSet.contains(patch))
+                    if ((sourceSet == world.patches() || isMember(sourceSet, members, patch))
                         && isInCone(patch.pxcor + worldWidth * worldOffsetX,
                         patch.pycor + worldHeight * worldOffsetY,
                         patch.pzcor + worldDepth * worldOffsetZ,
@@ -244,6 +252,9 @@ public class InRadiusOrCone3D
                   }
                 }
               }
+            } else if (buckets != null && buckets.isEmpty(patch)) {
+              // the patches east of this one in its bucket are empty too
+              dx += buckets.runLength(patch) - 1;
             } else {
               if (StrictMath.sqrt(dx * dx + dy * dy + dz * dz) <= radius + 1.733) {
                 for (Turtle turtle : patch.turtlesHere()) {
@@ -256,7 +267,7 @@ public class InRadiusOrCone3D
                         // the set of all turtles, or a breed agentset - ST 2/19/04
                         if ((sourceSet == world.turtles() ||
                             (sourceSet.isBreedSet() && sourceSet == turtle.getBreed()) ||
-                            (!sourceSet.isBreedSet() && sourceSet.contains(turtle))) &&
+                            (members != null && members.contains(turtle))) &&
                             isInCone(turtle.xcor() + worldWidth * worldOffsetX,
                                 turtle.ycor() + worldHeight * worldOffsetY,
                                 ((Turtle3D) turtle).zcor() + worldDepth * worldOffsetZ,
@@ -279,6 +290,15 @@ public class InRadiusOrCone3D
     return result;
   }
 
+  // null for breed sets, which we check by looking at each turtle's breed
+  private AgentSetMembership memberships(AgentSet sourceSet) {
+    return sourceSet.isBreedSet() ? null : world.agentSetMemberships().apply(sourceSet);
+  }
+
+  private boolean isMember(AgentSet sourceSet, AgentSetMembership members, Agent agent) {
+    return members == null ? sourceSet.contains(agent) : members.contains(agent);
+  }
+
   private boolean isInCone(double x, double y, double z,
                            double cx, double cy, double cz,
                            double r, double half, double h, double p) {
@@ -157,29 +157,41 @@ public final class Layouts {
       }
     }
 
-    for (i = 0; i < nodeCount; i++) {
-      Turtle t1 = agt[i];
-      for (int j = i + 1; j < nodeCount; j++) {
-        Turtle t2 = agt[j];
-        double dx = 0.0;
-        double dy = 0.0;
-        double div = (degCount[i] + degCount[j]) / 2.0;
-        div = StrictMath.max(div, 1.0);
-
-        if (t2.xcor() == t1.xcor() && t2.ycor() == t1.ycor()) {
-          double ang = 360 * random.nextDouble();
-          dx = -(rep / div * StrictMath.sin(StrictMath.toRadians(ang)));
-          dy = -(rep / div * StrictMath.cos(StrictMath.toRadians(ang)));
-        } else {
-          double dist = world.protractor().distance(t1, t2, false);
-          double f = rep / (dist * dist) / div;
-          dx = -(f * (t2.xcor() - t1.xcor()) / dist);
-          dy = -(f * (t2.ycor() - t1.ycor()) / dist);
+    // big layouts are pushed apart approximately, and in parallel
+    if (BarnesHut.worthwhile(nodeCount)) {
+      double[] x = new double[nodeCount];
+      double[] y = new double[nodeCount];
+      for (i = 0; i < nodeCount; i++) {
+        x[i] = agt[i].xcor();
+        y[i] = agt[i].ycor();
+      }
+      BarnesHut.repel(new double[][] {x, y}, degCount, rep, BarnesHut.Theta(),
+                      new double[][] {ax, ay}, true);
+    } else {
+      for (i = 0; i < nodeCount; i++) {
+        Turtle t1 = agt[i];
+        for (int j = i + 1; j < nodeCount; j++) {
+          Turtle t2 = agt[j];
+          double dx = 0.0;
+          double dy = 0.0;
+          double div = (degCount[i] + degCount[j]) / 2.0;
+          div = StrictMath.max(div, 1.0);
+
+          if (t2.xcor() == t1.xcor() && t2.ycor() == t1.ycor()) {
+            double ang = 360 * random.nextDouble();
+            dx = -(rep / div * StrictMath.sin(StrictMath.toRadians(ang)));
+            dy = -(rep / div * StrictMath.cos(StrictMath.toRadians(ang)));
+          } else {
+            double dist = world.protractor().distance(t1, t2, false);
+            double f = rep / (dist * dist) / div;
+            dx = -(f * (t2.xcor() - t1.xcor()) / dist);
+            dy = -(f * (t2.ycor() - t1.ycor()) / dist);
+          }
+          ax[i] += dx;
+          ay[i] += dy;
+          ax[j] -= dx;
+          ay[j] -= dy;
         }
-        ax[i] += dx;
-        ay[i] += dy;
-        ax[j] -= dx;
-        ay[j] -= dy;
       }
     }
 
@@ -326,38 +338,52 @@ public final class Layouts {
       }
     }
 
-    for (i = 0; i < nodeCount; i++) {
-      Turtle3D t1 = agt[i];
-      for (int j = i + 1; j < nodeCount; j++) {
-        Turtle3D t2 = agt[j];
-        double dx = 0.0;
-        double dy = 0.0;
-        double dz = 0.0;
-        double div = (degCount[i] + degCount[j]) / 2.0;
-        div = StrictMath.max(div, 1.0);
-
-        if (t2.xcor() == t1.xcor() && t2.ycor() == t1.ycor() && t2.zcor() == t1.zcor()) {
-          // push off in random direction
-          double ang = 360 * random.nextDouble();
-          double zVal = rep * (2 * random.nextDouble() - 1.0);
-          double repFlat = StrictMath.sqrt(rep * rep - zVal * zVal);
-          dx = -(repFlat * StrictMath.sin(StrictMath.toRadians(ang)));
-          dy = -(repFlat * StrictMath.cos(StrictMath.toRadians(ang)));
-          dz = -zVal;
-        } else {
-          double dist = world.protractor().distance(t1, t2, false);
-          // repulse according to an inverse square function
-          double f = rep / (dist * dist) / div;
-          dx = -(f * (t2.xcor() - t1.xcor()) / dist);
-          dy = -(f * (t2.ycor() - t1.ycor()) / dist);
-          dz = -(f * (t2.zcor() - t1.zcor()) / dist);
+    // big layouts are pushed apart approximately, and in parallel
+    if (BarnesHut.worthwhile(nodeCount)) {
+      double[] x = new double[nodeCount];
+      double[] y = new double[nodeCount];
+      double[] z = new double[nodeCount];
+      for (i = 0; i < nodeCount; i++) {
+        x[i] = agt[i].xcor();
+        y[i] = agt[i].ycor();
+        z[i] = agt[i].zcor();
+      }
+      BarnesHut.repel(new double[][] {x, y, z}, degCount, rep, BarnesHut.Theta(),
+                      new double[][] {ax, ay, az}, true);
+    } else {
+      for (i = 0; i < nodeCount; i++) {
+        Turtle3D t1 = agt[i];
+        for (int j = i + 1; j < nodeCount; j++) {
+          Turtle3D t2 = agt[j];
+          double dx = 0.0;
+          double dy = 0.0;
+          double dz = 0.0;
+          double div = (degCount[i] + degCount[j]) / 2.0;
+          div = StrictMath.max(div, 1.0);
+
+          if (t2.xcor() == t1.xcor() && t2.ycor() == t1.ycor() && t2.zcor() == t1.zcor()) {
+            // push off in random direction
+            double ang = 360 * random.nextDouble();
+            double zVal = rep * (2 * random.nextDouble() - 1.0);
+            double repFlat = StrictMath.sqrt(rep * rep - zVal * zVal);
+            dx = -(repFlat * StrictMath.sin(StrictMath.toRadians(ang)));
+            dy = -(repFlat * StrictMath.cos(StrictMath.toRadians(ang)));
+            dz = -zVal;
+          } else {
+            double dist = world.protractor().distance(t1, t2, false);
+            // repulse according to an inverse square function
+            double f = rep / (dist * dist) / div;
+            dx = -(f * (t2.xcor() - t1.xcor()) / dist);
+            dy = -(f * (t2.ycor() - t1.ycor()) / dist);
+            dz = -(f * (t2.zcor() - t1.zcor()) / dist);
+          }
+          ax[i] += dx;
+          ay[i] += dy;
+          az[i] += dz;
+          ax[j] -= dx;
+          ay[j] -= dy;
+          az[j] -= dz;
         }
-        ax[i] += dx;
-        ay[i] += dy;
-        az[i] += dz;
-        ax[j] -= dx;
-        ay[j] -= dy;
-        az[j] -= dz;
       }
     }
 
@@ -102,6 +102,7 @@ public class Link
 
     variables[VAR_BREED] = breed;
     world.links().add(this);
+    changed();
 
     if (breed != world.links()) {
       ((TreeAgentSet) breed).add(this);
@@ -124,8 +125,10 @@ public class Link
       ((TreeAgentSet) breed).remove(agentKey());
     }
     _world.linkManager().cleanupLink(this);
+    _world.agentChanges().died(this);
     Long oldId = this.id();
     setId(-1);
+    _world.agentsDied();
     LogManager.linkRemoved(oldId, breed.printName(), _end1.id(), _end2.id());
   }
 
@@ -489,6 +492,7 @@ public class Link
 
   public void lineThickness(Double value) {
     variables()[VAR_THICKNESS] = value;
+    changed();
   }
 
   public boolean isDirectedLink() {
@@ -509,6 +513,7 @@ public class Link
 
   public void shape(String shape) {
     variables()[VAR_SHAPE] = shape;
+    changed();
   }
 
   public static final String MODE_NONE = "none";
@@ -522,6 +527,7 @@ public class Link
   public void mode(String mode) {
     _world.tieManager().setTieMode(this, mode);
     variables()[VAR_TIEMODE] = mode;
+    changed();
   }
 
   public boolean isTied() {
@@ -543,16 +549,19 @@ public class Link
       boxedColor = Double.valueOf(c);
     }
     variables()[VAR_COLOR] = boxedColor;
+    changed();
   }
 
   public void colorDoubleUnchecked(Double boxedColor) {
     variables()[VAR_COLOR] = boxedColor;
+    changed();
   }
 
   public void color(LogoList rgb)
       throws AgentException {
     validRGBList(rgb, true);
     variables()[VAR_COLOR] = rgb;
+    changed();
     if(rgb.size() > 3) {
       _world.mayHavePartiallyTransparentObjects(true);
     }
@@ -584,6 +593,7 @@ public class Link
 
   public void label(Object label) {
     variables()[VAR_LABEL] = label;
+    changed();
   }
 
   public boolean hidden() {
@@ -592,6 +602,7 @@ public class Link
 
   public void hidden(boolean hidden) {
     variables()[VAR_HIDDEN] = hidden ? Boolean.TRUE : Boolean.FALSE;
+    changed();
   }
 
   public TreeAgentSet getBreed() {
@@ -604,12 +615,14 @@ public class Link
 
   public void labelColor(double labelColor) {
     variables()[VAR_LABELCOLOR] = Double.valueOf(Color.modulateDouble(labelColor));
+    changed();
   }
 
   public void labelColor(LogoList rgb)
       throws AgentException {
     validRGBList(rgb, true);
     variables()[VAR_LABELCOLOR] = rgb;
+    changed();
   }
 
   @Override
@@ -646,6 +659,7 @@ public class Link
       ((TreeAgentSet) breed).add(this);
     }
     variables()[VAR_BREED] = breed;
+    changed();
     if (oldBreed != null) {
       _world.linkManager().addLink(this);
     }
@@ -13,6 +13,8 @@ trait LinkManagement extends WorldKernel {
   def linkManager: LinkManager
   def turtles: TreeAgentSet
   protected def breedsOwnCache: JHashMap[String, Integer]
+  def agentChanges: AgentChanges
+  def agentsDied(): Unit
 
   val linkShapes = new ShapeListTracker(AgentKind.Link)
   val linkBreedShapes = new BreedShapes("LINKS", linkShapes)
@@ -69,6 +71,7 @@ trait LinkManagement extends WorldKernel {
   }
 
   def clearLinks(): Unit = {
+    agentChanges.changedEverything()
     linkManager.reset()
     if (program.linkBreeds.nonEmpty) {
       val breedIterator = linkBreeds.values.iterator
@@ -80,6 +83,7 @@ trait LinkManagement extends WorldKernel {
     while (iter.hasNext) {
       iter.next().asInstanceOf[Link]._id = -1
     }
+    agentsDied()
     links.clear()
     _nextLinkIndex = 0
   }
@@ -45,15 +45,28 @@ public class Patch
   }
 
   public void clearTurtles() {
+    TurtleBuckets buckets = _world.turtleBuckets();
+    if (buckets != null) {
+      buckets.remove(this, _turtlesHere.size());
+    }
     _turtlesHere.clear();
   }
 
   public void addTurtle(Turtle t) {
     _turtlesHere.add(t);
+    TurtleBuckets buckets = _world.turtleBuckets();
+    if (buckets != null) {
+      buckets.add(this);
+    }
   }
 
   public void removeTurtle(Turtle t) {
-    _turtlesHere.remove(t);
+    if (_turtlesHere.remove(t)) {
+      TurtleBuckets buckets = _world.turtleBuckets();
+      if (buckets != null) {
+        buckets.remove(this, 1);
+      }
+    }
   }
 
   public AgentSet turtlesHereAgentSet() {
@@ -240,6 +253,7 @@ public class Patch
       throws AgentException {
     if (vn > LAST_PREDEFINED_VAR) {
       _variables[vn] = value;
+      _world.patchColumns().assigned(this, vn, value);
     } else {
       switch (vn) {
         case VAR_PCOLOR:
@@ -294,9 +308,17 @@ public class Patch
 
   @Override
   public Object getPatchVariable(int vn) {
+    _world.patchColumns().materialize(this, vn);
     return _variables[vn];
   }
 
+  // diffuse may have left newer values in the world's patch columns
+  @Override
+  public Object[] variables() {
+    _world.patchColumns().materialize(this);
+    return _variables;
+  }
+
   public double getPatchVariableDouble(int vn) {
     switch (vn) {
       case VAR_PXCOR:
@@ -304,6 +326,10 @@ public class Patch
       case VAR_PYCOR:
         return pycor;
       default:
+        double[] column = _world.patchColumns().column(vn);
+        if (column != null) {
+          return column[(int) _id];
+        }
         throw new IllegalArgumentException(
             I18N.errorsJ().getN("org.nlogo.agent.Agent.notADoubleVariable", Integer.toString(vn)));
     }
@@ -360,6 +386,7 @@ public class Patch
       Double boxedColor = Double.valueOf(pcolor);
       _variables[VAR_PCOLOR] = boxedColor;
       _world.patchChangedColorAt((int) _id, pcolor);
+      changed();
     }
   }
 
@@ -373,6 +400,7 @@ public class Patch
     if (!(currentColor instanceof Double) || ((Double) currentColor).doubleValue() != color) {
       _variables[VAR_PCOLOR] = boxedColor;
       _world.patchChangedColorAt((int) _id, color);
+      changed();
     }
   }
 
@@ -382,6 +410,7 @@ public class Patch
     if (!(currentColor instanceof Double) || ((Double) currentColor).doubleValue() != color) {
       _variables[VAR_PCOLOR] = boxedColor;
       _world.patchChangedColorAt((int) _id, color);
+      changed();
     }
   }
 
@@ -396,6 +425,7 @@ public class Patch
 
     if (!(_variables[varIndex] instanceof LogoList) || !rgb.equals(_variables[varIndex])) {
       _variables[varIndex] = rgb;
+      changed();
       int red   = ((Double) rgb.get(0)).intValue();
       int green = ((Double) rgb.get(1)).intValue();
       int blue  = ((Double) rgb.get(2)).intValue();
@@ -451,6 +481,7 @@ public class Patch
       }
     }
     _variables[VAR_PLABEL] = label;
+    changed();
   }
 
   public Object labelColor() {
@@ -459,16 +490,19 @@ public class Patch
 
   public void labelColor(double labelColor) {
     _variables[VAR_PLABELCOLOR] = Double.valueOf(Color.modulateDouble(labelColor));
+    changed();
   }
 
   public void labelColor(Double labelColor) {
     _variables[VAR_PLABELCOLOR] = labelColor;
+    changed();
   }
 
   public void labelColor(LogoList rgb, int varIndex)
       throws AgentException {
     validRGBList(rgb, true);
     _variables[varIndex] = rgb;
+    changed();
   }
 
   @Override
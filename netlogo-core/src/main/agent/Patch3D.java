@@ -78,7 +78,8 @@ public final class Patch3D
   public void setPatchVariable(int vn, Object value)
       throws AgentException {
     if (vn > LAST_PREDEFINED_VAR_3D) {
-      variables()[vn] = value;
+      _variables[vn] = value;
+      _world.patchColumns().assigned(this, vn, value);
     } else {
       switch (vn) {
         case VAR_PCOLOR3D:
@@ -136,7 +137,8 @@ public final class Patch3D
 
   @Override
   public Object getPatchVariable(int vn) {
-    return variables()[vn];
+    _world.patchColumns().materialize(this, vn);
+    return _variables[vn];
   }
 
   @Override
@@ -149,6 +151,10 @@ public final class Patch3D
       case VAR_PZCOR3D:
         return pzcor;
       default:
+        double[] column = _world.patchColumns().column(vn);
+        if (column != null) {
+          return column[(int) _id];
+        }
         throw new IllegalArgumentException
             (vn + " is not a double variable");
     }
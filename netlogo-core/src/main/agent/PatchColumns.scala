@@ -0,0 +1,170 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import java.util.BitSet
+
+// Primitive storage for numeric patches-own variables.
+//
+// diffuse used to unbox every patch's value into a scratch array and box
+// a fresh Double for every patch it changed, every time it ran.  Now, the
+// first time a variable is diffused, if every patch holds a number in it,
+// we copy its values into a double array (a "column", indexed like
+// world.patches) and keep the column up to date from then on.  diffuse
+// writes only to the column and marks the patch's own boxed copy as
+// stale; the box is only made if someone reads the variable as an object
+// (Patch.getPatchVariable and Patch.variables take care of that).
+// Assigning anything but a number to the variable drops the column, after
+// boxing whatever was stale.
+//
+// Only patches-own variables get columns: pcolor has to go through Patch
+// so that the world's patch colors are kept up to date.
+
+class PatchColumns private[agent](world: WorldKernel) {
+
+  // by variable number; null where there's no column
+  private var columns = new Array[Array[Double]](0)
+  private var stale = new Array[BitSet](0)
+  // lets the per-read checks bail out quickly in the usual case
+  private var anyStale = false
+
+  /**
+   * The column for the given variable, or null if it doesn't have one.
+   * Must not be written to except through this class, or by diffuse.
+   */
+  def column(vn: Int): Array[Double] =
+    if (vn < columns.length) columns(vn) else null
+
+  /**
+   * The column for the given variable, making one if every patch holds a
+   * number in it, or null if some patch doesn't.
+   */
+  def columnFor(vn: Int): Array[Double] = {
+    val existing = column(vn)
+    if (existing != null)
+      existing
+    else {
+      val patches = world.patches.asInstanceOf[ArrayAgentSet].array
+      if (patches.isEmpty || vn < patches(0).asInstanceOf[Patch].NUMBER_PREDEFINED_VARS)
+        return null
+      val values = new Array[Double](patches.length)
+      var i = 0
+      while (i < patches.length) {
+        patches(i)._variables(vn) match {
+          case d: java.lang.Double => values(i) = d.doubleValue
+          case _                   => return null
+        }
+        i += 1
+      }
+      if (vn >= columns.length) {
+        columns = java.util.Arrays.copyOf(columns, vn + 1)
+        stale = java.util.Arrays.copyOf(stale, vn + 1)
+      }
+      columns(vn) = values
+      stale(vn) = new BitSet(patches.length)
+      values
+    }
+  }
+
+  // for diffuse.  the patch's boxed copy goes stale.
+  private[agent] def store(vn: Int, index: Int, value: Double): Unit = {
+    columns(vn)(index) = value
+    stale(vn).set(index)
+    anyStale = true
+  }
+
+  // for diffuse, when it has written to the column itself
+  private[agent] def stored(vn: Int, changed: BitSet): Unit =
+    if (!changed.isEmpty) {
+      stale(vn).or(changed)
+      anyStale = true
+    }
+
+  // called after a patch's boxed copy of the variable has been assigned
+  private[agent] def assigned(patch: Patch, vn: Int, value: AnyRef): Unit = {
+    val values = column(vn)
+    val index = patch._id.toInt
+    if (values != null && index >= 0) {
+      stale(vn).clear(index)
+      value match {
+        case d: java.lang.Double => values(index) = d.doubleValue
+        case _                   => drop(vn)
+      }
+    }
+  }
+
+  // brings the patch's boxed copy of the variable up to date
+  private[agent] def materialize(patch: Patch, vn: Int): Unit =
+    if (anyStale && vn < columns.length && columns(vn) != null) {
+      val index = patch._id.toInt
+      if (index >= 0 && stale(vn).get(index)) {
+        patch._variables(vn) = Double.box(columns(vn)(index))
+        stale(vn).clear(index)
+      }
+    }
+
+  private[agent] def materialize(patch: Patch): Unit =
+    if (anyStale) {
+      var vn = 0
+      while (vn < columns.length) {
+        materialize(patch, vn)
+        vn += 1
+      }
+    }
+
+  /**
+   * Boxes everything that's stale, keeping the columns, so that the
+   * patches' variables can then be read from other threads without any of
+   * them writing anything.  Call on the job thread.
+   */
+  def materializeAll(): Unit =
+    if (anyStale) {
+      val patches = world.patches.asInstanceOf[ArrayAgentSet].array
+      var vn = 0
+      while (vn < columns.length) {
+        val bits = stale(vn)
+        if (bits != null) {
+          val values = columns(vn)
+          var i = bits.nextSetBit(0)
+          while (i >= 0) {
+            patches(i)._variables(vn) = Double.box(values(i))
+            i = bits.nextSetBit(i + 1)
+          }
+          bits.clear()
+        }
+        vn += 1
+      }
+      anyStale = false
+    }
+
+  private def drop(vn: Int): Unit = {
+    val patches = world.patches.asInstanceOf[ArrayAgentSet].array
+    val values = columns(vn)
+    val bits = stale(vn)
+    var i = bits.nextSetBit(0)
+    while (i >= 0) {
+      patches(i)._variables(vn) = Double.box(values(i))
+      i = bits.nextSetBit(i + 1)
+    }
+    columns(vn) = null
+    stale(vn) = null
+  }
+
+  /** Boxes everything that's stale and drops all the columns. */
+  private[agent] def dropAll(): Unit = {
+    var vn = 0
+    while (vn < columns.length) {
+      if (columns(vn) != null)
+        drop(vn)
+      vn += 1
+    }
+    clear()
+  }
+
+  /** Drops all the columns without boxing anything; for when the values are being thrown away. */
+  private[agent] def clear(): Unit = {
+    columns = new Array[Array[Double]](0)
+    stale = new Array[BitSet](0)
+    anyStale = false
+  }
+}
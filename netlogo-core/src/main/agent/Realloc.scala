@@ -7,6 +7,9 @@ import org.nlogo.core.{ AgentKind, Program }
 object Realloc {
   def realloc(world: AgentManagement & CompilationManagement, oldProgram: Program, newProgram: Program): Unit = {
     import scala.jdk.CollectionConverters.SetHasAsScala
+    // patch variables may be about to move around
+    world.patchColumns.dropAll()
+    world.agentChanges.changedEverything()
     // remove agentsets for breeds that no longer exist, if any
     for(name <- world.breeds.keySet.asScala.toList)
       if(!newProgram.breeds.contains(name))
@@ -3,7 +3,10 @@
 package org.nlogo.agent
 
 import org.nlogo.api, api.AgentException
-import java.util.ArrayList
+import java.util.{ ArrayList, BitSet }
+import java.util.concurrent.{ Callable, ForkJoinPool, ForkJoinTask }
+
+import scala.jdk.CollectionConverters.ListHasAsScala
 
 object Topology {
 
@@ -39,6 +42,32 @@ object Topology {
     else
       pos
 
+  // diffuse splits worlds with at least this many patches into bands of
+  // rows and works on the bands in parallel.  each patch's new value only
+  // depends on the old values, so this doesn't change the results.
+  val ParallelDiffuseThreshold =
+    Integer.getInteger("org.nlogo.parallelDiffuseThreshold", 40000).intValue
+
+  private[agent] def diffuseInParallel(patchCount: Int): Boolean =
+    patchCount >= ParallelDiffuseThreshold && ForkJoinPool.getCommonPoolParallelism > 1
+
+  // runs body over bands covering [from, until) on the common fork-join
+  // pool, and returns what it returned for each band, in order
+  private[agent] def inBands[T](from: Int, until: Int)(body: (Int, Int) => T): Seq[T] = {
+    val rows = until - from
+    val bands = (ForkJoinPool.getCommonPoolParallelism * 4) min rows
+    val tasks = new ArrayList[ForkJoinTask[T]](bands)
+    var band = 0
+    while (band < bands) {
+      val start = from + (rows.toLong * band / bands).toInt
+      val end = from + (rows.toLong * (band + 1) / bands).toInt
+      tasks.add(ForkJoinTask.adapt(new Callable[T] { def call(): T = body(start, end) }))
+      band += 1
+    }
+    ForkJoinTask.invokeAll(tasks)
+    tasks.asScala.toSeq.map(_.join())
+  }
+
 }
 
 trait Topology(val world: World) extends Neighbors {
@@ -67,45 +96,98 @@ trait Topology(val world: World) extends Neighbors {
 
   @throws(classOf[AgentException])
   @throws(classOf[PatchException])
-  def diffuse(amount: Double, vn: Int): Unit = {
-    val scratch = getPatchScratch(vn)
-    diffuseCenter(amount, vn, fourWay = false, scratch)
-    diffuseXBorder(amount, vn, fourWay = false, scratch)
-    diffuseYBorder(amount, vn, fourWay = false, scratch)
-    diffuseCorners(amount, vn, fourWay = false, scratch)
-  }
+  def diffuse(amount: Double, vn: Int): Unit =
+    diffuse(amount, vn, fourWay = false)
 
   @throws(classOf[AgentException])
   @throws(classOf[PatchException])
-  def diffuse4(amount: Double, vn: Int): Unit = {
-    val scratch = getPatchScratch(vn)
-    diffuseCenter(amount, vn, fourWay = true, scratch)
-    diffuseXBorder(amount, vn, fourWay = true, scratch)
-    diffuseYBorder(amount, vn, fourWay = true, scratch)
-    diffuseCorners(amount, vn, fourWay = true, scratch)
+  def diffuse4(amount: Double, vn: Int): Unit =
+    diffuse(amount, vn, fourWay = true)
+
+  // while diffusing a variable that has a column in world.patchColumns,
+  // we read and write the column instead of the patches themselves.  not
+  // if anyone is watching variables, though, since they need to be told
+  // about every assignment.
+  private var diffusionColumn: Array[Double] = null
+
+  private def diffuse(amount: Double, vn: Int, fourWay: Boolean): Unit = {
+    diffusionColumn =
+      if (world.watchingVariables) null
+      else world.patchColumns.columnFor(vn)
+    try {
+      val scratch = getPatchScratch(vn)
+      diffuseCenter(amount, vn, fourWay, scratch)
+      diffuseXBorder(amount, vn, fourWay, scratch)
+      diffuseYBorder(amount, vn, fourWay, scratch)
+      diffuseCorners(amount, vn, fourWay, scratch)
+    } finally diffusionColumn = null
   }
 
   protected def diffuseCenter(amount: Double, vn: Int, fourWay: Boolean, scratch: Array[Array[Double]]): Unit = {
     val lastX = world.worldWidth - 1
     val lastY = world.worldHeight - 1
+    val column = diffusionColumn
+    if (column != null) {
+      val changes =
+        if (lastY > 1 && Topology.diffuseInParallel(world.worldWidth * world.worldHeight))
+          Topology.inBands(1, lastY)(diffuseCenterRows(amount, fourWay, scratch, column, _, _))
+        else
+          Seq(diffuseCenterRows(amount, fourWay, scratch, column, 1, lastY))
+      changes.foreach(world.patchColumns.stored(vn, _))
+    }
+    else {
+      var x = 1
+      while (x < lastX) {
+        val e = scratch(x + 1)
+        val c = scratch(x)
+        val w = scratch(x - 1)
+        var y = 1
+        while (y < lastY) {
+          val oldVal = c(y)
+          val sum = sum4(e(y), w(y), c(y - 1), c(y + 1))
+          if (fourWay)
+            updatePatch(amount, vn, 4, x, y, oldVal, sum)
+          else
+            updatePatch(amount, vn, 8, x, y, oldVal,
+              sum + sum4(e(y + 1), e(y - 1), w(y + 1), w(y - 1)))
+          y += 1
+        }
+        x += 1
+      }
+    }
+  }
+
+  // the same as the loop above, for rows fromY until untilY, but writing
+  // straight to the column so that bands can run at the same time.  returns
+  // the indices of the patches whose values changed.
+  private def diffuseCenterRows(amount: Double, fourWay: Boolean, scratch: Array[Array[Double]],
+                                column: Array[Double], fromY: Int, untilY: Int): BitSet = {
+    val width = world.worldWidth
+    val lastX = width - 1
+    val changed = new BitSet
     var x = 1
     while (x < lastX) {
       val e = scratch(x + 1)
       val c = scratch(x)
       val w = scratch(x - 1)
-      var y = 1
-      while (y < lastY) {
+      var y = fromY
+      while (y < untilY) {
         val oldVal = c(y)
         val sum = sum4(e(y), w(y), c(y - 1), c(y + 1))
-        if (fourWay)
-          updatePatch(amount, vn, 4, x, y, oldVal, sum)
-        else
-          updatePatch(amount, vn, 8, x, y, oldVal,
-            sum + sum4(e(y + 1), e(y - 1), w(y + 1), w(y - 1)))
+        val newVal =
+          if (fourWay)
+            diffused(amount, 4, oldVal, sum)
+          else
+            diffused(amount, 8, oldVal, sum + sum4(e(y + 1), e(y - 1), w(y + 1), w(y - 1)))
+        if (newVal != oldVal) {
+          column(y * width + x) = newVal
+          changed.set(y * width + x)
+        }
         y += 1
       }
       x += 1
     }
+    changed
   }
 
   protected def diffuseXBorder(amount: Double, vn: Int, fourWay: Boolean, scratch: Array[Array[Double]]): Unit
@@ -154,12 +236,20 @@ trait Topology(val world: World) extends Neighbors {
       (low1 + high1) + (low2 + high2)
   }
 
+  @inline
+  final protected def diffused(amount: Double, directions: Int, oldVal: Double, sum: Double): Double =
+    oldVal + amount * (sum / directions - oldVal)
+
   @inline
   final protected def updatePatch(amount: Double, vn: Int, directions: Int,
                                   x: Int, y: Int, oldVal: Double, sum: Double): Unit = {
-    val newVal = oldVal + amount * (sum / directions - oldVal)
+    val newVal = diffused(amount, directions, oldVal, sum)
     if (newVal != oldVal) {
-      world.patches.getByIndex(y * world.worldWidth + x).setPatchVariable(vn, Double.box(newVal))
+      val index = y * world.worldWidth + x
+      if (diffusionColumn != null)
+        world.patchColumns.store(vn, index, newVal)
+      else
+        world.patches.getByIndex(index).setPatchVariable(vn, Double.box(newVal))
     }
   }
 
@@ -169,6 +259,26 @@ trait Topology(val world: World) extends Neighbors {
     val minX = world.minPxcor
     val maxY = world.maxPycor
     val scratch = world.getPatchScratch
+    val column = diffusionColumn
+    if (column != null) {
+      // the column is in the same order as world.patches: by row, from the top
+      def copyRows(fromY: Int, untilY: Int): Unit = {
+        var y = fromY
+        while (y < untilY) {
+          var x = 0
+          while (x < xx) {
+            scratch(x)(y) = column(y * xx + x)
+            x += 1
+          }
+          y += 1
+        }
+      }
+      if (Topology.diffuseInParallel(xx * yy))
+        Topology.inBands(0, yy)(copyRows)
+      else
+        copyRows(0, yy)
+      return scratch
+    }
     var i = 0
     val ps = xx * yy
     while (i < ps) {
@@ -235,52 +235,101 @@ class Torus3D(_world3d: World3D) extends Torus(_world3d) with Topology3D {
         throw new PatchException(w.fastGetPatchAt(wrapX(x).toInt, wrapY(y).toInt, wrapZ(z).toInt))
     }
 
-    z = zz
-    while (z < zz2) {
-      y = yy
-      while (y < yy2) {
-        x = xx
-        while (x < xx2) {
-          var sum: Double = 0.0
-          sum =  scratch((x - 1) % xx)((y - 1) % yy)(z       % zz)
-          sum += scratch((x - 1) % xx)(y       % yy)(z       % zz)
-          sum += scratch((x - 1) % xx)((y + 1) % yy)(z       % zz)
-          sum += scratch(x       % xx)((y - 1) % yy)(z       % zz)
-          sum += scratch(x       % xx)((y + 1) % yy)(z       % zz)
-          sum += scratch((x + 1) % xx)((y - 1) % yy)(z       % zz)
-          sum += scratch((x + 1) % xx)(y       % yy)(z       % zz)
-          sum += scratch((x + 1) % xx)((y + 1) % yy)(z       % zz)
-          sum += scratch((x - 1) % xx)((y - 1) % yy)((z - 1) % zz)
-          sum += scratch((x - 1) % xx)(y       % yy)((z - 1) % zz)
-          sum += scratch((x - 1) % xx)((y + 1) % yy)((z - 1) % zz)
-          sum += scratch(x       % xx)((y - 1) % yy)((z - 1) % zz)
-          sum += scratch(x       % xx)((y + 1) % yy)((z - 1) % zz)
-          sum += scratch((x + 1) % xx)((y - 1) % yy)((z - 1) % zz)
-          sum += scratch((x + 1) % xx)(y       % yy)((z - 1) % zz)
-          sum += scratch((x + 1) % xx)((y + 1) % yy)((z - 1) % zz)
-          sum += scratch(x       % xx)(y       % yy)((z - 1) % zz)
-          sum += scratch((x - 1) % xx)((y - 1) % yy)((z + 1) % zz)
-          sum += scratch((x - 1) % xx)(y       % yy)((z + 1) % zz)
-          sum += scratch((x - 1) % xx)((y + 1) % yy)((z + 1) % zz)
-          sum += scratch(x       % xx)((y - 1) % yy)((z + 1) % zz)
-          sum += scratch(x       % xx)((y + 1) % yy)((z + 1) % zz)
-          sum += scratch((x + 1) % xx)((y - 1) % yy)((z + 1) % zz)
-          sum += scratch((x + 1) % xx)(y       % yy)((z + 1) % zz)
-          sum += scratch((x + 1) % xx)((y + 1) % yy)((z + 1) % zz)
-          sum += scratch(x       % xx)(y       % yy)((z + 1) % zz)
-
-          val oldval = scratch(x - xx)(y - yy)(z - zz)
-          val newval = oldval * (1.0 - diffuseparam) + (sum / 26) * diffuseparam
-          if (newval != oldval) {
-            w.getPatchAt(x - xx, y - yy, z - zz)
-              .setPatchVariable(vn, Double.box(newval))
+    if (Topology.diffuseInParallel(xx * yy * zz)) {
+      // work out the new values in bands of layers, then set them in the
+      // same order as below
+      val layers = Topology.inBands(zz, zz2) { (fromZ, untilZ) =>
+        val newvals = new Array[Double]((untilZ - fromZ) * yy * xx)
+        var i = 0
+        var z = fromZ
+        while (z < untilZ) {
+          var y = yy
+          while (y < yy2) {
+            var x = xx
+            while (x < xx2) {
+              newvals(i) = diffusedValue(scratch, diffuseparam, x, y, z)
+              i += 1
+              x += 1
+            }
+            y += 1
           }
+          z += 1
+        }
+        newvals
+      }
+      z = 0
+      for (newvals <- layers) {
+        var i = 0
+        while (i < newvals.length) {
+          x = i % xx
+          y = (i / xx) % yy
+          val layer = z + i / (xx * yy)
+          if (newvals(i) != scratch(x)(y)(layer))
+            w.getPatchAt(x, y, layer).setPatchVariable(vn, Double.box(newvals(i)))
+          i += 1
+        }
+        z += newvals.length / (xx * yy)
+      }
+    }
+    else {
+      z = zz
+      while (z < zz2) {
+        y = yy
+        while (y < yy2) {
+          x = xx
+          while (x < xx2) {
+            val oldval = scratch(x - xx)(y - yy)(z - zz)
+            val newval = diffusedValue(scratch, diffuseparam, x, y, z)
+            if (newval != oldval) {
+              w.getPatchAt(x - xx, y - yy, z - zz)
+                .setPatchVariable(vn, Double.box(newval))
+            }
 
-          x += 1
+            x += 1
+          }
+          y += 1
         }
-        y += 1
+        z += 1
       }
-      z += 1
     }
   }
+
+  // the new value of the patch at x - xx, y - yy, z - zz, where xx, yy and zz
+  // are the world's dimensions (so that the neighbors' indices stay positive)
+  private def diffusedValue(scratch: Array[Array[Array[Double]]], diffuseparam: Double, x: Int, y: Int, z: Int): Double = {
+    val xx = _world3d.worldWidth
+    val yy = _world3d.worldHeight
+    val zz = _world3d.worldDepth
+
+    var sum: Double = 0.0
+    sum =  scratch((x - 1) % xx)((y - 1) % yy)(z       % zz)
+    sum += scratch((x - 1) % xx)(y       % yy)(z       % zz)
+    sum += scratch((x - 1) % xx)((y + 1) % yy)(z       % zz)
+    sum += scratch(x       % xx)((y - 1) % yy)(z       % zz)
+    sum += scratch(x       % xx)((y + 1) % yy)(z       % zz)
+    sum += scratch((x + 1) % xx)((y - 1) % yy)(z       % zz)
+    sum += scratch((x + 1) % xx)(y       % yy)(z       % zz)
+    sum += scratch((x + 1) % xx)((y + 1) % yy)(z       % zz)
+    sum += scratch((x - 1) % xx)((y - 1) % yy)((z - 1) % zz)
+    sum += scratch((x - 1) % xx)(y       % yy)((z - 1) % zz)
+    sum += scratch((x - 1) % xx)((y + 1) % yy)((z - 1) % zz)
+    sum += scratch(x       % xx)((y - 1) % yy)((z - 1) % zz)
+    sum += scratch(x       % xx)((y + 1) % yy)((z - 1) % zz)
+    sum += scratch((x + 1) % xx)((y - 1) % yy)((z - 1) % zz)
+    sum += scratch((x + 1) % xx)(y       % yy)((z - 1) % zz)
+    sum += scratch((x + 1) % xx)((y + 1) % yy)((z - 1) % zz)
+    sum += scratch(x       % xx)(y       % yy)((z - 1) % zz)
+    sum += scratch((x - 1) % xx)((y - 1) % yy)((z + 1) % zz)
+    sum += scratch((x - 1) % xx)(y       % yy)((z + 1) % zz)
+    sum += scratch((x - 1) % xx)((y + 1) % yy)((z + 1) % zz)
+    sum += scratch(x       % xx)((y - 1) % yy)((z + 1) % zz)
+    sum += scratch(x       % xx)((y + 1) % yy)((z + 1) % zz)
+    sum += scratch((x + 1) % xx)((y - 1) % yy)((z + 1) % zz)
+    sum += scratch((x + 1) % xx)(y       % yy)((z + 1) % zz)
+    sum += scratch((x + 1) % xx)((y + 1) % yy)((z + 1) % zz)
+    sum += scratch(x       % xx)(y       % yy)((z + 1) % zz)
+
+    val oldval = scratch(x - xx)(y - yy)(z - zz)
+    oldval * (1.0 - diffuseparam) + (sum / 26) * diffuseparam
+  }
 }
@@ -2,8 +2,6 @@
 
 package org.nlogo.agent
 
-import java.util.ArrayList
-
 import
   org.nlogo.{ api, core },
     core.{ AgentKind, LogoList },
@@ -16,19 +14,40 @@ import
 // are put in they come out in the same order (by id) -- otherwise
 // we get different results after an import and export. since we don't
 // know the order that the turtles entered the breed agentset.
+//
+// The tree map is only used as an index, though.  Alongside it we keep
+// the same agents, in the same order, in a dense array.  Removing an
+// agent leaves a null tombstone in the array, and the array is
+// compacted (or rebuilt from the tree map, if an agent was added out of
+// order) lazily, the next time something needs it.  Iterators read the
+// dense array directly instead of copying it; since the old iterator
+// handed out a snapshot, we preserve that by copying the array before
+// changing any slot that an outstanding iterator might still see.
 
 class TreeAgentSet(kind: AgentKind, printName: String)
 extends AgentSet(kind, printName) {
 
-  private val _agents = new java.util.TreeMap[AnyRef, Agent]
-  override val agents: java.lang.Iterable[api.Agent] =
-    _agents.values.asInstanceOf[java.lang.Iterable[api.Agent]]
+  private final class Slot(val agent: Agent, var position: Int)
+
+  private val index = new java.util.TreeMap[AnyRef, Slot]
+
+  // agents in index order, with nulls where agents have been removed.
+  // only the first `end` slots are in use.
+  private var dense = new Array[Agent](TreeAgentSet.InitialCapacity)
+  private var end = 0
+  private var tombstones = 0
+  // true if an agent was added out of order, so `dense` no longer
+  // reflects the index and must be rebuilt before it's read
+  private var stale = false
+  // true if an iterator may still be reading `dense`, in which case we
+  // may append to it but must copy it before overwriting a slot
+  private var shared = false
 
   val simpleChangeEventPublisher = new SimpleChangeEventPublisher
 
-  override def count = _agents.size
+  override def count = index.size
 
-  override def isEmpty = _agents.isEmpty
+  override def isEmpty = index.isEmpty
 
   override def checkCount(checkValue: Int, check: (Int, Int) => Boolean): Boolean = {
     check(count, checkValue)
@@ -43,10 +62,10 @@ extends AgentSet(kind, printName) {
     true
   }
 
-  def getAgent(id: AnyRef): Agent =
-    _agents.get(id)
-
-  private var nextIndex = 0L
+  def getAgent(id: AnyRef): Agent = {
+    val slot = index.get(id)
+    if (slot == null) null else slot.agent
+  }
 
   /**
    * It is the caller's responsibility not to add an agent that
@@ -54,25 +73,94 @@ extends AgentSet(kind, printName) {
    */
   def add(agent: Agent): Unit = {
     require(kind == agent.kind)
-    _agents.put(agent.agentKey, agent)
-    nextIndex = nextIndex max (agent._id + 1)
+    val key = agent.agentKey
+    val slot = new Slot(agent, -1)
+    val previous = index.put(key, slot)
+    // new turtles and links almost always sort last, so we can just
+    // append.  agents changing breed or being imported may not.
+    if (stale || previous != null || index.higherKey(key) != null)
+      stale = true
+    else {
+      if (end == dense.length) {
+        dense = java.util.Arrays.copyOf(dense, end * 2)
+        shared = false
+      }
+      dense(end) = agent
+      slot.position = end
+      end += 1
+    }
     simpleChangeEventPublisher.publish()
   }
 
   // made public for mutable agentset operations
   def remove(key: AnyRef): Unit = {
-    _agents.remove(key)
+    val slot = index.remove(key)
+    if (slot != null && !stale) {
+      if (shared) {
+        dense = dense.clone
+        shared = false
+      }
+      dense(slot.position) = null
+      tombstones += 1
+      // trim trailing tombstones so that killing the newest agents
+      // doesn't cost us a compaction later
+      while (end > 0 && dense(end - 1) == null) {
+        end -= 1
+        tombstones -= 1
+      }
+    }
     simpleChangeEventPublisher.publish()
   }
 
   def clear(): Unit = {
-    _agents.clear()
+    index.clear()
+    dense = new Array[Agent](TreeAgentSet.InitialCapacity)
+    end = 0
+    tombstones = 0
+    stale = false
+    shared = false
     simpleChangeEventPublisher.publish()
   }
 
   override def contains(agent: api.Agent): Boolean = agent match {
-    case a: Agent => _agents.containsKey(a.agentKey)
-    case _ => _agents.containsValue(agent)
+    case a: Agent => index.containsKey(a.agentKey)
+    case _ => false
+  }
+
+  /// dense array maintenance
+
+  private def ensureOrdered(): Unit =
+    if (stale)
+      rebuild()
+
+  // after this, dense(0) until dense(count) are exactly the live agents
+  private def ensureCompact(): Unit =
+    if (stale || tombstones > 0)
+      rebuild()
+
+  private def rebuild(): Unit = {
+    val size = index.size
+    if (shared || dense.length < size) {
+      dense = new Array[Agent](TreeAgentSet.InitialCapacity max (size + (size >> 1)))
+      shared = false
+    } else {
+      var i = size
+      while (i < end) {
+        dense(i) = null
+        i += 1
+      }
+    }
+    val slots = index.values.iterator
+    var i = 0
+    while (slots.hasNext) {
+      val slot = slots.next()
+      slot.position = i
+      dense(i) = slot.agent
+      i += 1
+    }
+    end = size
+    tombstones = 0
+    stale = false
   }
 
   // the next few methods take precomputedCount as an argument since we want to avoid _randomoneof
@@ -81,51 +169,26 @@ extends AgentSet(kind, printName) {
 
   override def randomOne(precomputedCount: Int, random: Int): Agent = {
     // note: assume agentset nonempty, since _randomoneof.java checks for that
-    val iter = iterator
-    var i = 0
-    while(i < random) {
-      iter.next()
-      i += 1
-    }
-    iter.next()
+    ensureCompact()
+    dense(random)
   }
 
   // This is used to optimize the special case of randomSubset where size == 2
   override def randomTwo(precomputedCount: Int, smallRandom: Int, bigRandom: Int): Array[Agent] = {
     // we know precomputedCount, or this method would not have been called.
     // see randomSubset().
-    if (precomputedCount == nextIndex)
-      Array(
-        _agents.get(Double.box(smallRandom)),
-        _agents.get(Double.box(bigRandom)))
-    else {
-      val it = iterator
-      var i = 0
-      // skip to the first random place
-      while(i < smallRandom) {
-        it.next()
-        i += 1
-      }
-      val first = it.next()
-      i += 1
-      while (i < bigRandom) {
-        it.next()
-        i += 1
-      }
-      val second = it.next()
-      Array(first, second)
-    }
+    ensureCompact()
+    Array(dense(smallRandom), dense(bigRandom))
   }
 
   override def randomSubsetGeneral(resultSize: Int, precomputedCount: Int,
       rng: MersenneTwisterFast): Array[Agent] = {
+    ensureCompact()
     val result = new Array[Agent](resultSize)
-    val iter = iterator
     var i, j = 0
     while (j < resultSize) {
-      val next = iter.next()
       if (rng.nextInt(precomputedCount - i) < resultSize - j) {
-        result(j) = next
+        result(j) = dense(i)
         j += 1
       }
       i += 1
@@ -134,18 +197,65 @@ extends AgentSet(kind, printName) {
   }
 
   override def toLogoList =
-    LogoList.fromJava(_agents.values)
+    LogoList.fromIterator(liveAgents.iterator)
 
-  // parent enumeration class
-  final private class Iterator extends AgentIterator {
-    private val iter = new ArrayList(_agents.values).iterator
-    override def hasNext = iter.hasNext
-    override def next() = iter.next()
+  private def liveAgents: Array[Agent] = {
+    ensureCompact()
+    java.util.Arrays.copyOf(dense, end)
+  }
+
+  override def agents: java.lang.Iterable[api.Agent] =
+    new java.lang.Iterable[api.Agent] {
+      override def iterator: java.util.Iterator[api.Agent] =
+        new java.util.Iterator[api.Agent] {
+          private val it = TreeAgentSet.this.iterator
+          override def hasNext = it.hasNext
+          override def next(): api.Agent = it.next()
+        }
+    }
+
+  // parent enumeration class.  iterates over the agents as they were
+  // when the iterator was made, skipping tombstones
+  final private class Iterator(array: Array[Agent], limit: Int) extends AgentIterator {
+    private var i = 0
+    skipTombstones()
+    override def hasNext = i < limit
+    override def next() = {
+      val result = array(i)
+      i += 1
+      skipTombstones()
+      result
+    }
+    private def skipTombstones(): Unit =
+      while (i < limit && array(i) == null)
+        i += 1
+  }
+
+  // the agents as they are now, in order, with nulls where agents have
+  // been removed, and how many slots are in use.  like an iterator, the
+  // caller may hold on to the array, since we won't change it.
+  private[agent] def snapshot: (Array[Agent], Int) = {
+    ensureOrdered()
+    if (!shared)
+      shared = true
+    (dense, end)
   }
 
   // returns an Iterator object of the appropriate class
-  override def iterator: AgentIterator =
-    new Iterator
+  override def iterator: AgentIterator = {
+    ensureOrdered()
+    if (!shared)
+      shared = true
+    new Iterator(dense, end)
+  }
+
+  // compacts the dense array now, rather than whenever it's next needed, and
+  // marks it shared, so that until the set next changes, reading it doesn't
+  // write anything, and several threads can read it at once
+  private[agent] def prepareForReaders(): Unit = {
+    ensureCompact()
+    shared = true
+  }
 
   /// shuffling iterator = shufflerator! (Google hits: 0)
 
@@ -157,7 +267,7 @@ extends AgentSet(kind, printName) {
   final private class Shufflerator(rng: MersenneTwisterFast)
   extends AgentIterator {
     private var i = 0
-    private val copy = _agents.values.toArray(new Array[Agent](_agents.size))
+    private val copy = liveAgents
     private var _next: Agent = null
     fetch()
     def hasNext = _next != null
@@ -182,3 +292,7 @@ extends AgentSet(kind, printName) {
     }
   }
 }
+
+object TreeAgentSet {
+  private val InitialCapacity = 16
+}
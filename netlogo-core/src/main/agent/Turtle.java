@@ -90,6 +90,7 @@ public abstract class Turtle
     if (getId) {
       setId(world.newTurtleId());
       world.turtles().add(this);
+      changed();
     }
     initvars(xcor, ycor, breed);
 
@@ -109,6 +110,7 @@ public abstract class Turtle
     this(world, world.turtles(), World.Zero(), World.Zero(), false);
     setId(id);
     world.turtles().add(this);
+    changed();
   }
 
 
@@ -149,8 +151,10 @@ public abstract class Turtle
     }
     _world.removeLineThickness(this);
     _world.turtles().remove(agentKey());
+    _world.agentChanges().died(this);
     long oldId = this.id();
     setId(-1);
+    _world.agentsDied();
     Observer observer = _world.observer();
     if (this == observer.targetAgent()) {
       observer.updatePosition();
@@ -567,16 +571,19 @@ public abstract class Turtle
       boxedColor = Double.valueOf(c);
     }
     _variables[VAR_COLOR] = boxedColor;
+    changed();
   }
 
   public void colorDoubleUnchecked(Double boxedColor) {
     _variables[VAR_COLOR] = boxedColor;
+    changed();
   }
 
   public void color(LogoList rgb, int varIndex)
       throws AgentException {
     validRGBList(rgb, true);
     _variables[varIndex] = rgb;
+    changed();
     if(rgb.size() > 3) {
       _world.mayHavePartiallyTransparentObjects(true);
     }
@@ -615,6 +622,7 @@ public abstract class Turtle
     }
     this.heading = heading;
     _variables[VAR_HEADING] = null;
+    changed();
     Observer observer = _world.observer();
     if (this == observer.targetAgent()) {
       observer.updatePosition();
@@ -636,6 +644,7 @@ public abstract class Turtle
     } else {
       _variables[VAR_HEADING] = null;
     }
+    changed();
     Observer observer = _world.observer();
     if (this == observer.targetAgent()) {
       observer.updatePosition();
@@ -748,6 +757,7 @@ public abstract class Turtle
     this.xcor = _world.wrapX(xcor);
 
     _variables[VAR_XCOR] = null;
+    changed();
     currentPatch = null;
     Patch targetPatch = getPatchHere();
     if (originalPatch != targetPatch) {
@@ -780,6 +790,7 @@ public abstract class Turtle
     } else {
       _variables[VAR_XCOR] = null;
     }
+    changed();
     currentPatch = null;
     Patch targetPatch = getPatchHere();
     if (originalPatch != targetPatch) {
@@ -813,6 +824,7 @@ public abstract class Turtle
     this.ycor = _world.wrapY(ycor);
 
     _variables[VAR_YCOR] = null;
+    changed();
     currentPatch = null;
     Patch targetPatch = getPatchHere();
     if (originalPatch != targetPatch) {
@@ -843,6 +855,7 @@ public abstract class Turtle
     } else {
       _variables[VAR_YCOR] = null;
     }
+    changed();
     currentPatch = null;
     Patch targetPatch = getPatchHere();
     if (originalPatch != targetPatch) {
@@ -897,6 +910,7 @@ public abstract class Turtle
 
     _variables[VAR_XCOR] = null;
     _variables[VAR_YCOR] = null;
+    changed();
     currentPatch = null;
     Patch targetPatch = getPatchHere();
     if (originalPatch != targetPatch) {
@@ -930,6 +944,7 @@ public abstract class Turtle
     this.ycor = wrappedY;
     _variables[VAR_XCOR] = (x == wrappedX) ? xcor : null;
     _variables[VAR_YCOR] = (y == wrappedY) ? ycor : null;
+    changed();
     currentPatch = null;
     Patch targetPatch = getPatchHere();
     if (originalPatch != targetPatch) {
@@ -980,6 +995,7 @@ public abstract class Turtle
 
   public void shape(String shape) {
     _variables[VAR_SHAPE] = shape;
+    changed();
   }
 
   public Object label() {
@@ -997,6 +1013,7 @@ public abstract class Turtle
 
   public void label(Object label) {
     _variables[VAR_LABEL] = label;
+    changed();
   }
 
   public Object labelColor() {
@@ -1005,12 +1022,14 @@ public abstract class Turtle
 
   public void labelColor(double labelColor) {
     _variables[VAR_LABELCOLOR] = Double.valueOf(Color.modulateDouble(labelColor));
+    changed();
   }
 
   public void labelColor(LogoList rgb, int valueIndex)
       throws AgentException {
     validRGBList(rgb, true);
     _variables[valueIndex] = rgb;
+    changed();
   }
 
   public TreeAgentSet getBreed() {
@@ -1065,6 +1084,7 @@ public abstract class Turtle
 
   public void hidden(boolean hidden) {
     _variables[VAR_HIDDEN] = hidden ? Boolean.TRUE : Boolean.FALSE;
+    changed();
   }
 
   public double size() {
@@ -1073,6 +1093,7 @@ public abstract class Turtle
 
   public void size(double size) {
     _variables[VAR_SIZE] = Double.valueOf(size);
+    changed();
   }
 
   public double penSize() {
@@ -1081,6 +1102,7 @@ public abstract class Turtle
 
   public void penSize(double penSize) {
     _variables[VAR_PENSIZE] = Double.valueOf(penSize);
+    changed();
   }
 
   public String penMode() {
@@ -1089,6 +1111,7 @@ public abstract class Turtle
 
   public void penMode(String penMode) {
     _variables[VAR_PENMODE] = penMode.intern();
+    changed();
   }
 
   @Override
@@ -23,6 +23,7 @@ public class Turtle2D
     this(world, world.turtles(), World.Zero(), World.Zero(), false);
     setId(id);
     _world.turtles().add(this);
+    changed();
   }
 
   Turtle2D(World world) {
@@ -45,6 +46,7 @@ public class Turtle2D
       breed.add(child);
     }
     child.getPatchHere().addTurtle(child);
+    child.changed();
     return child;
   }
 
@@ -160,6 +162,7 @@ public class Turtle2D
       this.ycor = y;
       _variables[VAR_XCOR] = p._variables[Patch.VAR_PXCOR];
       _variables[VAR_YCOR] = p._variables[Patch.VAR_PYCOR];
+      changed();
       Observer observer = _world.observer();
       if (this == observer.targetAgent()) {
         observer.updatePosition();
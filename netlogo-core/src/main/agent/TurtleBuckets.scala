@@ -0,0 +1,87 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+// A coarse occupancy grid over the patches.  Each bucket covers a block of
+// cellSize patches on a side (a cube, in 3D) and counts the turtles on
+// those patches.  Patch.addTurtle and Patch.removeTurtle keep the counts up
+// to date, which covers every way a turtle can change patches.
+//
+// in-radius and in-cone use this to skip over whole stretches of empty
+// patches at once.  We store counts rather than the turtles themselves
+// because the order in which those prims find turtles (patch by patch,
+// then in turtles-here order) determines the order of the resulting
+// agentset, and hence what the shufflerator does with it, so it has to
+// stay exactly the same.
+
+class TurtleBuckets private[agent](world: World, val cellSize: Int) {
+
+  private val patchArray = world.patches.asInstanceOf[ArrayAgentSet].array
+  private val minPxcor = world.minPxcor
+  private val worldWidth = world.worldWidth
+
+  // bucket index of each patch, by patch id
+  private val bucketOf = new Array[Int](patchArray.length)
+  private val counts = {
+    val columns = (world.worldWidth + cellSize - 1) / cellSize
+    val rows = (world.worldHeight + cellSize - 1) / cellSize
+    var maxBucket = 0
+    var i = 0
+    while (i < patchArray.length) {
+      val patch = patchArray(i).asInstanceOf[Patch]
+      val column = (patch.pxcor - minPxcor) / cellSize
+      val row = (world.maxPycor - patch.pycor) / cellSize
+      val layer = patch match {
+        case p: Patch3D => (world.asInstanceOf[World3D].maxPzcor - p.pzcor) / cellSize
+        case _          => 0
+      }
+      bucketOf(i) = column + columns * (row + rows * layer)
+      maxBucket = maxBucket max bucketOf(i)
+      i += 1
+    }
+    new Array[Int](maxBucket + 1)
+  }
+
+  locally {
+    var i = 0
+    while (i < patchArray.length) {
+      counts(bucketOf(i)) += patchArray(i).asInstanceOf[Patch].turtleCount
+      i += 1
+    }
+  }
+
+  def add(patch: Patch): Unit =
+    counts(bucketOf(patch._id.toInt)) += 1
+
+  def remove(patch: Patch, turtleCount: Int): Unit =
+    counts(bucketOf(patch._id.toInt)) -= turtleCount
+
+  def isEmpty(patch: Patch): Boolean =
+    counts(bucketOf(patch._id.toInt)) == 0
+
+  /**
+   * The number of patches, starting at this one and moving east without
+   * wrapping, which share this patch's bucket.
+   */
+  def runLength(patch: Patch): Int = {
+    val x = patch.pxcor - minPxcor
+    (cellSize - x % cellSize) min (worldWidth - x)
+  }
+
+  /**
+   * Given that `patches(start)` is in an empty bucket, returns the index of
+   * the next patch in `patches` which might not be.  Only valid if the ids
+   * of `patches(start)` through `patches(end - 1)` are strictly increasing,
+   * as they are for the regions returned by Topology.getRegion.
+   */
+  def skipEmpty(patches: Array[Patch], start: Int, end: Int): Int = {
+    val patch = patches(start)
+    val last = start + runLength(patch) - 1
+    // since ids are strictly increasing, if the id went up by exactly one
+    // per step then we have a run of adjacent patches in one bucket row
+    if (last < end && patches(last)._id == patch._id + (last - start))
+      last + 1
+    else
+      start + 1
+  }
+}
@@ -14,6 +14,7 @@ trait TurtleManagement extends WorldKernel { this: CoreWorld =>
   def clearObserverPosition(): Unit
   def program: Program
   protected def breedsOwnCache: JHashMap[String, Integer]
+  def agentChanges: AgentChanges
 
   // Turtle creation is a responsibility of the World
   def createTurtle(breed: AgentSet): Turtle
@@ -29,6 +30,9 @@ trait TurtleManagement extends WorldKernel { this: CoreWorld =>
 
   var breeds: JMap[String, TreeAgentSet] = new JHashMap[String, TreeAgentSet]()
 
+  // used by in-radius and in-cone; anything that lets ids be reused must clear it
+  private[agent] val agentSetMemberships = new AgentSetMemberships
+
   protected val lineThicknesses: JMap[Agent, JDouble] = new JHashMap[Agent, JDouble]()
 
   def turtleShapeList: ShapeList = turtleShapes.shapeList
@@ -55,12 +59,14 @@ trait TurtleManagement extends WorldKernel { this: CoreWorld =>
 
   def nextTurtleIndex(nextTurtleIndex: Long): Unit = {
     _nextTurtleIndex = nextTurtleIndex
+    agentSetMemberships.clear()
   }
 
   def nextTurtleIndex: Long = _nextTurtleIndex
 
   def setLineThickness(agent: Agent, size: Double): Unit = {
     lineThicknesses.put(agent, JDouble.valueOf(size))
+    agent.changed()
   }
 
   def lineThickness(agent: Agent): Double = {
@@ -93,6 +99,7 @@ trait TurtleManagement extends WorldKernel { this: CoreWorld =>
   }
 
   def clearTurtles(): Unit = {
+    agentChanges.changedEverything()
     if (program.breeds.nonEmpty) {
       val breedIterator = breeds.values.iterator
       while (breedIterator.hasNext) {
@@ -106,12 +113,14 @@ trait TurtleManagement extends WorldKernel { this: CoreWorld =>
       linkManager.cleanupTurtle(turtle)
       turtle._id = -1
     }
+    agentsDied()
     turtles.clear()
     val patchIter = patches.iterator
     while (patchIter.hasNext) {
       patchIter.next().asInstanceOf[Patch].clearTurtles()
     }
     _nextTurtleIndex = 0
+    agentSetMemberships.clear()
     clearObserverPosition()
   }
 
@@ -51,6 +51,8 @@ trait WatcherManagement {
     }
   }
 
+  private[agent] def watchingVariables: Boolean = hasWatchers
+
   def notifyWatchers(agent: Agent, vn: Int, value: Object): Unit = {
     // This needs to be crazy fast if there are no watchers. Thus, hasWatchers. -- BCH (3/31/2014)
     if (hasWatchers) {
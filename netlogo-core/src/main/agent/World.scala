@@ -31,6 +31,10 @@ object World {
     def inRadius(agent: Agent, sourceSet: AgentSet, radius: Double, wrap: Boolean): JList[Agent]
     def inCone(turtle: Turtle, sourceSet: AgentSet, radius: Double, angle: Double, wrap: Boolean): JList[Agent]
   }
+
+  // the side length, in patches, of the TurtleBuckets kept by new worlds.
+  // anything less than 2 means don't keep them.
+  val DefaultTurtleBucketSize: Int = Integer.getInteger("org.nlogo.turtleBucketSize", 0).intValue
 }
 
 import org.nlogo.agent.World._
@@ -96,6 +100,15 @@ trait CoreWorld
 
     def ticks: Double = tickCounter.ticks
 
+    // how many times turtles or links have died (or been cleared away), so
+    // that ArrayAgentSets can tell whether the live agents they found last
+    // time are still all alive
+    private var _deaths = 0L
+    def deaths: Long = _deaths
+    def agentsDied(): Unit = {
+      _deaths += 1
+    }
+
     def allStoredValues: scala.collection.Iterator[Object] = AllStoredValues.apply(this)
 
     def worldWidth: Int
@@ -115,6 +128,33 @@ abstract class World
   with WatcherManagement {
 
   def inRadiusOrCone: InRadiusOrCone
+
+  private var _turtleBucketSize: Int = DefaultTurtleBucketSize
+  private var _turtleBuckets: TurtleBuckets = null
+
+  // null unless enabled, see TurtleBuckets
+  def turtleBuckets: TurtleBuckets = _turtleBuckets
+
+  def turtleBucketSize: Int = _turtleBucketSize
+
+  def turtleBucketSize(size: Int): Unit = {
+    _turtleBucketSize = size
+    rebuildTurtleBuckets()
+  }
+
+  // must be called whenever the patches are replaced
+  private[agent] def rebuildTurtleBuckets(): Unit = {
+    _turtleBuckets =
+      if (_turtleBucketSize > 1 && _patches != null)
+        new TurtleBuckets(this, _turtleBucketSize)
+      else
+        null
+  }
+
+  private[agent] def dropTurtleBuckets(): Unit = {
+    _turtleBuckets = null
+  }
+
   def clearDrawing(): Unit
   def protractor: Protractor
   def diffuse(param: Double, vn: Int): Unit
@@ -187,8 +227,10 @@ class World2D extends World with CompilationManagement {
 
   @throws(classOf[java.io.IOException])
   def importWorld(errorHandler: ImporterErrorHandler, importerUser: ImporterUser,
-                          stringReader: ImporterStringReader, reader: java.io.BufferedReader): Unit =
+                          stringReader: ImporterStringReader, reader: java.io.BufferedReader): Unit = {
     new Importer(errorHandler, this, importerUser, stringReader).importWorld(reader)
+    agentChanges.changedEverything()
+  }
 
   /// equality
 
@@ -294,6 +336,9 @@ class World2D extends World with CompilationManagement {
     minPycor: Int, maxPycor: Int): Unit = {
 
     _patchScratch = null
+    dropTurtleBuckets()
+    patchColumns.clear()
+    agentChanges.changedEverything()
 
     _minPxcor = minPxcor
     _maxPxcor = maxPxcor
@@ -349,6 +394,8 @@ class World2D extends World with CompilationManagement {
     _patchesWithLabels = 0
     _patchesAllBlack = true
     _mayHavePartiallyTransparentObjects = false
+    agentSetMemberships.clear()
+    rebuildTurtleBuckets()
   }
 
   override def clearAll(): Unit = {
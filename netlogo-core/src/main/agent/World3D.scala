@@ -184,6 +184,9 @@ class World3D extends World
 
     _patchScratch = null
     _patchScratch3d = null
+    dropTurtleBuckets()
+    patchColumns.clear()
+    agentChanges.changedEverything()
 
     _minPxcor = minPxcor
     _maxPxcor = maxPxcor
@@ -258,6 +261,8 @@ class World3D extends World
     _patchesWithLabels = 0
     _patchesAllBlack = true
     _mayHavePartiallyTransparentObjects = false
+    agentSetMemberships.clear()
+    rebuildTurtleBuckets()
   }
 
   /// export world
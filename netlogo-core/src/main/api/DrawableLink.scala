@@ -0,0 +1,27 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.api
+
+/**
+ * What the 2D view needs to know to draw a link.  Besides links themselves,
+ * the links in a view snapshot are these.
+ */
+trait DrawableLink {
+  def x1: Double
+  def y1: Double
+  def x2: Double
+  def y2: Double
+  def midpointX: Double
+  def midpointY: Double
+  def heading: Double
+  def size: Double
+  def linkDestinationSize: Double
+  def isDirectedLink: Boolean
+  def shape: String
+  def hidden: Boolean
+  def lineThickness: Double
+  def color: AnyRef
+  def hasLabel: Boolean
+  def labelString: String
+  def labelColor: AnyRef
+}
@@ -0,0 +1,21 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.api
+
+/**
+ * What the 2D view needs to know to draw a turtle.  Besides turtles
+ * themselves, the turtles in a view snapshot are these.
+ */
+trait DrawableTurtle {
+  def xcor: Double
+  def ycor: Double
+  def heading: Double
+  def size: Double
+  def shape: String
+  def hidden: Boolean
+  def lineThickness: Double
+  def color: AnyRef
+  def hasLabel: Boolean
+  def labelString: String
+  def labelColor: AnyRef
+}
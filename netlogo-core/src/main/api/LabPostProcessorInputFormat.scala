@@ -6,4 +6,5 @@ object LabPostProcessorInputFormat {
   trait Format
   case class Spreadsheet(fileName: String) extends Format
   case class Table(fileName: String) extends Format
+  case class BinaryTable(fileName: String) extends Format
 }
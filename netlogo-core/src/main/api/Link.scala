@@ -5,7 +5,7 @@ package org.nlogo.api
 /**
  * Interface provides access to NetLogo links.
  */
-trait Link extends Agent {
+trait Link extends Agent with DrawableLink {
 
   /**
    * Returns the first end point of this link.  If the link is directed this is the source
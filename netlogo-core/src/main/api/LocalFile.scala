@@ -2,12 +2,29 @@
 
 package org.nlogo.api
 
-import java.io.{ BufferedReader, File, FileInputStream, FileOutputStream, IOException, InputStreamReader,
-                 OutputStreamWriter, PrintWriter }
+import java.io.{ BufferedOutputStream, BufferedReader, File, FileInputStream, FileOutputStream, InputStream,
+                 IOException, InputStreamReader, OutputStream, OutputStreamWriter, PrintWriter }
+import java.util.zip.{ GZIPInputStream, GZIPOutputStream }
 
 import org.nlogo.core.{ File => CoreFile, FileMode }
 
-class LocalFile(filepath: String) extends CoreFile {
+object LocalFile {
+  private val BufferSize = 1 << 16
+
+  // export-world and friends compress what they write to files named like this, and
+  // import-world decompresses what it reads from them
+  def isCompressed(filepath: String): Boolean =
+    filepath.toLowerCase.endsWith(".gz")
+}
+
+/**
+ * A file on disk.  If gzipped is true, what's written is compressed with gzip and what's read is
+ * decompressed.
+ */
+class LocalFile(filepath: String, gzipped: Boolean) extends CoreFile {
+  import LocalFile.BufferSize
+
+  def this(filepath: String) = this(filepath, false)
 
   private var w: PrintWriter = null
   override def getPrintWriter = w
@@ -25,19 +42,26 @@ class LocalFile(filepath: String) extends CoreFile {
       case FileMode.Read =>
         pos = 0
         eof = false
-        reader = new BufferedReader(new InputStreamReader(new FileInputStream(new File(filepath)), "UTF-8"))
+        reader = new BufferedReader(new InputStreamReader(input(new FileInputStream(new File(filepath))), "UTF-8"))
         this.mode = mode
       case FileMode.Write =>
-        w = new PrintWriter(new OutputStreamWriter(new FileOutputStream(new File(filepath)), "UTF-8"))
+        w = new PrintWriter(new OutputStreamWriter(output(new FileOutputStream(new File(filepath))), "UTF-8"))
         this.mode = mode
       case FileMode.Append =>
-        w = new PrintWriter(new OutputStreamWriter(new FileOutputStream(new File(filepath), true), "UTF-8"))
+        w = new PrintWriter(new OutputStreamWriter(output(new FileOutputStream(new File(filepath), true)), "UTF-8"))
         this.mode = mode
       case FileMode.None =>
         throw new IllegalStateException("file is not open")
     }
   }
 
+  private def input(stream: InputStream): InputStream =
+    if (gzipped) new GZIPInputStream(stream, BufferSize) else stream
+
+  private def output(stream: OutputStream): OutputStream =
+    if (gzipped) new GZIPOutputStream(new BufferedOutputStream(stream, BufferSize), BufferSize)
+    else new BufferedOutputStream(stream, BufferSize)
+
   @throws(classOf[IOException])
   override def print(str: String): Unit = {
     if (w == null)
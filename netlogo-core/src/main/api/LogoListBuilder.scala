@@ -3,21 +3,21 @@
 package org.nlogo.api
 
 import org.nlogo.core.LogoList
-import collection.immutable.VectorBuilder
 
 // for use from Java, or when efficiency is paramount - ST 2/25/11
+// lists of nothing but numbers come out numeric; see LogoList
 class LogoListBuilder {
-  private val b = new VectorBuilder[AnyRef]
+  private val b = new LogoList.Builder
   def add(obj: AnyRef): Unit = {
-    b += obj
+    b.add(obj)
   }
   def addAll(objs: scala.Iterable[? <: AnyRef]): Unit = {
-    b ++= objs
+    objs.foreach(b.add)
   }
   def addAll(objs: java.lang.Iterable[? <: AnyRef]): Unit = {
     val it = objs.iterator
     while(it.hasNext)
-      b += it.next()
+      b.add(it.next())
   }
-  def toLogoList = LogoList.fromVector(b.result())
+  def toLogoList = b.result()
 }
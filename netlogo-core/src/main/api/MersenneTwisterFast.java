@@ -200,6 +200,22 @@ public final class MersenneTwisterFast
     return result.toString();
   }
 
+  /**
+   * This method added for use by NetLogo's checksums.  It writes the
+   * same state save() does, without making a string of it.
+   */
+  public void save(java.io.DataOutput out)
+      throws java.io.IOException {
+    out.writeInt(__mag01[0]);
+    out.writeInt(__mag01[1]);
+    out.writeInt(mti);
+    out.writeDouble(__nextNextGaussian);
+    out.writeBoolean(__haveNextNextGaussian);
+    for (int i = 0; i < N; i++) {
+      out.writeInt(__mt[i]);
+    }
+  }
+
   /**
    * This method added for use by NetLogo's import-world feature.
    * It was not in Sean's original code.
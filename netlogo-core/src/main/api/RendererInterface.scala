@@ -15,4 +15,20 @@ trait RendererInterface {
   def exportView(settings: ViewSettings): java.awt.image.BufferedImage
   def prepareToPaint(settings: ViewSettings, width: Int, height: Int): Unit
   def setRenderLabelsAsRectangles(b: Boolean): Unit
+
+  /**
+   * Copies what the view shows out of the world, for paintSnapshot(). Must be
+   * called with the world locked.
+   */
+  def takeSnapshot(settings: ViewSettings): Unit = {}
+
+  /**
+   * Paints the last snapshot, without locking the world, if there is one and
+   * the world hasn't changed shape since. Returns false, having painted
+   * nothing, otherwise.
+   */
+  def paintSnapshot(g: GraphicsInterface, settings: ViewSettings): Boolean = false
+  def paintSnapshot(g: java.awt.Graphics2D, settings: ViewSettings): Boolean = false
+
+  def discardSnapshot(): Unit = {}
 }
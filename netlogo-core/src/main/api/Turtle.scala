@@ -5,7 +5,7 @@ package org.nlogo.api
 /**
  * Interface provides access to NetLogo turtles.
  */
-trait Turtle extends Agent {
+trait Turtle extends Agent with DrawableTurtle {
 
   /** Returns the value of the <code>xcor</code> variable. */
   def xcor: Double
@@ -51,6 +51,9 @@ object MiddleEnd extends MiddleEndInterface {
       for(procdef <- transformedProcedures)
         procdef.accept(new Optimizer(optimizations))   // do various code-improving rewrites
 
+    for(procdef <- transformedProcedures)
+      procdef.accept(new PureBlockVisitor)             // mark blocks that can run in parallel
+
     transformedProcedures
   }
 
@@ -0,0 +1,50 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.compile
+package middle
+
+import org.nlogo.{ core, nvm, prim }
+import org.nlogo.compile.api.{ DefaultAstVisitor, Expression, ReporterApp, ReporterBlock }
+
+/**
+ * Marks the reporter blocks of _of, _with and _countwith that are pure: they
+ * only read variables and call Pure reporters, so they can't change anything
+ * or use the RNG.  Those prims may then evaluate their block for many agents
+ * at once (see nvm.ParallelReporters).  Runs after Optimizer, which is what
+ * makes _countwith.
+ */
+class PureBlockVisitor extends DefaultAstVisitor {
+  override def visitReporterApp(app: ReporterApp): Unit = {
+    app.reporter match {
+      case of: prim._of             => of.pureBlock = PureBlockVisitor.isPure(app.args(0))
+      case w: prim._with            => w.pureBlock = PureBlockVisitor.isPure(app.args(1))
+      case countWith: prim._countwith => countWith.pureBlock = PureBlockVisitor.isPure(app.args(1))
+      case _ =>
+    }
+    super.visitReporterApp(app)
+  }
+}
+
+object PureBlockVisitor {
+
+  def isPure(expr: Expression): Boolean =
+    expr match {
+      case block: ReporterBlock => isPure(block.app)
+      case app: ReporterApp     => isPure(app.reporter) && app.args.forall(isPure)
+      case _                    => false
+    }
+
+  // variables are read from the agent the block is running in, the observer,
+  // or the procedure the block is in, none of which change while it runs
+  private def isPure(reporter: nvm.Reporter): Boolean =
+    reporter match {
+      case _: core.Pure
+         | _: prim._turtlevariable | _: prim._patchvariable | _: prim._linkvariable
+         | _: prim._turtleorlinkvariable | _: prim._breedvariable | _: prim._linkbreedvariable
+         | _: prim._observervariable | _: prim._procedurevariable | _: prim._letvariable =>
+        true
+      case _ =>
+        false
+    }
+
+}
@@ -0,0 +1,96 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.generate
+
+import org.nlogo.agent.AgentBit
+import org.nlogo.core.AgentKind
+import org.nlogo.nvm.{ Activation, Command, Context, EngineException, HaltException, Instruction, Workspace }
+
+/**
+ * A run of consecutive commands in a procedure, compiled by SequenceGenerator into a single run()
+ * method that performs each in turn, so they aren't dispatched one at a time by the loop in
+ * Context.  Each command gets its own call site in run(), which only ever sees that one class, so
+ * HotSpot can inline all of them into one method.  The sequence takes the place of the first
+ * command in Procedure.code; the others stay where they were, so jumping into the middle of the
+ * run still works.
+ *
+ * run() only keeps going from one command to the next if Context would have: the command left ip
+ * pointing at the next one, didn't call or return from a procedure, and didn't finish the context.
+ * Otherwise it returns and lets Context carry on from wherever ip is.  When the context is being
+ * stepped concurrently, where switching commands have to give other agents a turn, or the agent
+ * can't run every command in the run, we just perform the first command and let Context go on
+ * from there as usual.
+ */
+abstract class GeneratedSequence extends Command {
+
+  // set by SequenceGenerator.  commands(0) is at this sequence's own position in the procedure,
+  // which is start
+  var commands: Array[Command] = null
+  var start = 0
+
+  private var allAgentBits = 0
+
+  def run(context: Context, activation: Activation): Unit
+
+  override def init(workspace: Workspace): Unit = {
+    super.init(workspace)
+    // the others are still in the procedure's code, which inits them
+    commands(0).init(workspace)
+    switches = commands(0).switches
+    allAgentBits = commands.foldLeft(agentBits)((bits, command) =>
+      bits & AgentBit.fromAgentClassString(command.agentClassString))
+  }
+
+  override def callsOtherCode: Boolean =
+    commands(0).callsOtherCode
+
+  override def perform(context: Context): Unit =
+    if ((context.agentBit & allAgentBits) != 0 && context.makeChildrenExclusive)
+      run(context, context.activation)
+    else
+      commands(0).perform(context)
+
+  // called by run() between commands
+  protected final def keepGoing(context: Context, activation: Activation, next: Int, command: Command): Boolean = {
+    if (world.comeUpForAir)
+      comeUpForAir(context, command)
+    !context.finished && context.ip == next && (context.activation eq activation) && context.job.result == null
+  }
+
+  // what Context does after each command
+  private def comeUpForAir(context: Context, command: Command): Unit = {
+    if (command.switches && context.job.owner.ownsPrimaryJobs)
+      workspace.breathe(context)
+    if (Thread.currentThread.isInterrupted) {
+      world.comeUpForAir = false
+      context.finished = true
+      throw new HaltException(true)
+    }
+  }
+
+  override def throwAgentClassException(context: Context, kind: AgentKind): Nothing =
+    commands(0).throwAgentClassException(context, kind)
+
+  // blame whichever of our commands was running.  run() only goes on to a command once ip points
+  // at it, so that's the one at ip
+  override def extractErrorInstruction(ex: EngineException): Instruction = {
+    val running = ex.context match {
+      case context: Context if context.ip > start && context.ip < start + commands.length &&
+                               context.activation != null &&
+                               (context.activation.code(context.ip) eq commands(context.ip - start)) =>
+        commands(context.ip - start)
+      case _ =>
+        commands(0)
+    }
+    running.extractErrorInstruction(ex)
+  }
+
+  override def toString =
+    super.toString + ":" + commands.length
+
+  override def dump(indentLevel: Int): String = {
+    val spaces = " " * (indentLevel * 2)
+    super.dump(indentLevel) + commands.map(spaces + _.dump(indentLevel + 1)).mkString("\n", "\n", "")
+  }
+
+}
@@ -13,16 +13,27 @@ object Generator {
   private val DEBUG_DUMP_CLASS_FILES = false
   // If a generated method exceeds this size in bytes, a warning will be printed to stderr
   private val METHOD_SIZE_WARNING_THRESHOLD = 32768 // half of 64K, which is the JVM limit
+  // If this is set, runs of consecutive commands in each procedure are compiled into a single
+  // method (see SequenceGenerator), instead of Context dispatching them one at a time.  It's read
+  // when procedures are compiled.
+  @volatile var fuseCommands = java.lang.Boolean.getBoolean("org.nlogo.fuseCommands")
   // it seems like we also might want to use ASM's CheckClassAdapter during debugging?
   // (or maybe just leave it on all the time, depending on what the performance impact is?)
   // something to think about - ST 2/2/11
 }
 
 class Generator(procedure: Procedure, profilingEnabled: Boolean) extends GeneratorInterface {
+  var fuseCommands = Generator.fuseCommands
   var ip = 0 // kinda ugly we need to track this only to use in one place, in generateCallReport - ST 2/10/09
   def generate() = {
     ip = 0
-    procedure.code.map { cmd => val result = recurse(cmd); ip += 1; result }
+    val code = procedure.code.map { cmd => val result = recurse(cmd); ip += 1; result }
+    // the profiler needs to see each command, and LambdaArgsHandler reaches into the first
+    // command of anonymous procedures, so leave those alone
+    if (fuseCommands && !profilingEnabled && !procedure.isLambda)
+      new SequenceGenerator(procedure, loader).fuse(procedure.code, code)
+    else
+      code
   }
   private def recurse[A <: Instruction](instr: A): A = // A is Command or Reporter
     if (BytecodeUtils.isRejiggered(instr))
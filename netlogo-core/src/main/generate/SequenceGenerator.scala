@@ -0,0 +1,121 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.generate
+
+import org.nlogo.nvm.{ Command, Procedure }
+import org.nlogo.prim._call
+import org.objectweb.asm.{ ClassWriter, Label, Type }
+import org.objectweb.asm.Opcodes._
+
+/**
+ * Used by Generator, once it has generated all of a procedure's commands, to replace each run of
+ * consecutive commands with a GeneratedSequence.  A run starts at the beginning of the procedure,
+ * at any place a command jumps to, right after a command that jumps (where its block is, if it has
+ * one, which prims like ask and create-turtles run in contexts of their own, starting there), and
+ * right after a call or any command that calls other code (since that's where it comes back to),
+ * and goes on until the next such place.
+ */
+class SequenceGenerator(procedure: Procedure, loader: CustomClassLoader) {
+
+  private val superClassName = Type.getInternalName(classOf[GeneratedSequence])
+  private val commandDescriptor = Type.getDescriptor(classOf[Command])
+  private val runDescriptor = "(Lorg/nlogo/nvm/Context;Lorg/nlogo/nvm/Activation;)V"
+  private val keepGoingDescriptor =
+    "(Lorg/nlogo/nvm/Context;Lorg/nlogo/nvm/Activation;ILorg/nlogo/nvm/Command;)Z"
+
+  // original is the procedure's code as it was before being generated, so the prims are still
+  // themselves
+  def fuse(original: Array[Command], code: Array[Command]): Array[Command] = {
+    val starts = runStarts(original, code)
+    val result = code.clone
+    for (start <- starts.indices if starts(start)) {
+      var end = start + 1
+      while (end < code.length && !starts(end))
+        end += 1
+      if (end - start > 1)
+        result(start) = generate(start, code.slice(start, end))
+    }
+    result
+  }
+
+  private def runStarts(original: Array[Command], code: Array[Command]): Array[Boolean] = {
+    val starts = new Array[Boolean](code.length)
+    if (code.nonEmpty)
+      starts(0) = true
+    for (i <- code.indices) {
+      // after assembly, a jumping command's offset is where it jumps to (or near it, for the ones
+      // that do their own arithmetic with it); for the rest it's just their own position.  missing
+      // a place that gets jumped to only costs speed, since the commands there still work alone
+      val target = code(i).offset
+      val jumps = target != i && target >= 0 && target < code.length
+      if (jumps)
+        starts(target) = true
+      val entered = jumps || code(i).callsOtherCode || original(i).isInstanceOf[_call]
+      if (entered && i + 1 < code.length)
+        starts(i + 1) = true
+    }
+    starts
+  }
+
+  private def generate(start: Int, commands: Array[Command]): GeneratedSequence = {
+    val className = {
+      val name = procedure.name.toLowerCase.filter(Character.isJavaIdentifierPart).take(100)
+      s"org/nlogo/prim/_asm_procedure${name}_sequence_$start"
+    }
+    val cw = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES)
+    cw.visit(V1_8, ACC_PUBLIC + ACC_SUPER, className, null, superClassName, null)
+    cw.visitSource("", null)
+    for (i <- commands.indices)
+      cw.visitField(ACC_PUBLIC, fieldName(i), commandDescriptor, null, null).visitEnd()
+
+    val constructor = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null)
+    constructor.visitCode()
+    constructor.visitVarInsn(ALOAD, 0)
+    constructor.visitMethodInsn(INVOKESPECIAL, superClassName, "<init>", "()V", false)
+    constructor.visitInsn(RETURN)
+    constructor.visitMaxs(0, 0)
+    constructor.visitEnd()
+
+    // local 1 is the context, local 2 the activation we started in
+    val run = cw.visitMethod(ACC_PUBLIC + ACC_FINAL, "run", runDescriptor, null,
+      Array("org/nlogo/api/LogoException"))
+    run.visitCode()
+    val end = new Label
+    for (i <- commands.indices) {
+      run.visitVarInsn(ALOAD, 0)
+      run.visitFieldInsn(GETFIELD, className, fieldName(i), commandDescriptor)
+      run.visitVarInsn(ALOAD, 1)
+      run.visitMethodInsn(INVOKEVIRTUAL, "org/nlogo/nvm/Command", "perform", "(Lorg/nlogo/nvm/Context;)V", false)
+      if (i < commands.length - 1) {
+        run.visitVarInsn(ALOAD, 0)
+        run.visitVarInsn(ALOAD, 1)
+        run.visitVarInsn(ALOAD, 2)
+        run.visitLdcInsn(Int.box(start + i + 1))
+        run.visitVarInsn(ALOAD, 0)
+        run.visitFieldInsn(GETFIELD, className, fieldName(i), commandDescriptor)
+        run.visitMethodInsn(INVOKEVIRTUAL, superClassName, "keepGoing", keepGoingDescriptor, false)
+        run.visitJumpInsn(IFEQ, end)
+      }
+    }
+    run.visitLabel(end)
+    run.visitInsn(RETURN)
+    run.visitMaxs(0, 0)
+    run.visitEnd()
+    cw.visitEnd()
+
+    val bytecode = cw.toByteArray
+    val result = loader.loadBytecodeClass(className.replace('/', '.'), bytecode)
+      .getDeclaredConstructor().newInstance().asInstanceOf[GeneratedSequence]
+    for (i <- commands.indices)
+      result.getClass.getField(fieldName(i)).set(result, commands(i))
+    result.commands = commands
+    result.start = start
+    result.copyMetadataFrom(commands(0))
+    result.next = commands(0).next
+    result.offset = commands(0).offset
+    result
+  }
+
+  private def fieldName(i: Int) = "command" + i
+
+}
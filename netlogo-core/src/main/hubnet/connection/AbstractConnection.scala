@@ -6,6 +6,7 @@ import java.io._
 import java.util.concurrent.TimeUnit
 import java.net.SocketException
 import org.nlogo.api.Exceptions
+import org.nlogo.hubnet.protocol.WireFormat
 
 abstract class AbstractConnection(name: String, connectionStreams: Streamable) extends Thread(name) {
   private val writingThread = new WritingThread(name)
@@ -13,20 +14,31 @@ abstract class AbstractConnection(name: String, connectionStreams: Streamable) e
   // protected for testing. JC - 1/1/11
   protected val writeQueue = new java.util.concurrent.LinkedBlockingQueue[Any]
 
-  private var count = 0
-  private val RESET_DELAY = 1000
-
   protected val output = connectionStreams.getOutputStream
-  private val input = connectionStreams.getInputStream
+  private val input = new DataInputStream(connectionStreams.getInputStream)
   private var keepListening = true
   @volatile private var keepWriting = true
+  private var headerSent = false
+
+  // connections whose channel is watched by a selector don't run, or have a writing thread:
+  // the selector hands them what it reads, and frames sent to them go straight to the channel
+  private val channel: Option[ChannelStreamable] = connectionStreams match {
+    case c: ChannelStreamable => Some(c)
+    case _                    => None
+  }
 
   override def run(): Unit = {
+    try {
+      sendHeader()
+      WireFormat.readHeader(input)
+    }
+    catch { case e: IOException => handleEx(e, false); keepListening = false }
     writingThread.start()
     while (keepListening) {
-      try receiveData(input.readObject())
+      try receiveData(WireFormat.read(input))
       catch {
-        case e@(_:InterruptedIOException|_:OptionalDataException|_:RuntimeException) =>
+        // a frame is read whole even if what's in it can't be, so we can go on to the next one
+        case e@(_:InterruptedIOException|_:OptionalDataException|_:ClassNotFoundException|_:RuntimeException) =>
           handleEx(e.asInstanceOf[Exception], false)
         case e@(_:SocketException|_:EOFException) => keepListening = false
         case e: IOException => handleEx(e, false); keepListening = false
@@ -50,7 +62,11 @@ abstract class AbstractConnection(name: String, connectionStreams: Streamable) e
     // but it doesn't matter... the caller is *never* guaranteed that
     // messages are going to get through, since the client could vanish
     // at any time. - ST 11/22/04
-    writeQueue.add(a)
+    if (channel.isEmpty)
+      writeQueue.add(a)
+    else if (keepWriting)
+      try send(a)
+      catch { case e: IOException => handleEx(e, true) }
   }
 
   // after a call to this, you should only call waitForSendData()
@@ -76,28 +92,37 @@ abstract class AbstractConnection(name: String, connectionStreams: Streamable) e
     }
   }
 
-  def getSendQueueSize = writeQueue.size
+  def getSendQueueSize = channel.map(_.pendingCount).getOrElse(writeQueue.size)
 
   @throws(classOf[java.io.IOException])
-  private def send(a: Any): Unit = {
+  private def sendHeader(): Unit = {
     output.synchronized {
-      output.writeObject(a)
-      // we're not sure if this call to flush is absolutely necessary.
-      // it can take up to .02 seconds.  however, since it is in a
-      // background thread and we want to ensure that we send out the
-      // messages as quickly as possible, let's leave it in.  if we
-      // ever need this code in a non-background thread.  we should
-      // revisit this issue.
-      // --mag 10/14/02
-      output.flush()
-      // always do a reset on the outputstream so that we don't get
-      // outofmemory errors from the serialized graph of object
-      // building up
-      // --mag 12/9/02
-      // only resetting every 1000th message seems to decrease
-      // bandwidth a good deal. --josh 11/19/09
-      count += 1
-      if (count % RESET_DELAY == 0) output.reset()
+      if (!headerSent) {
+        headerSent = true
+        WireFormat.writeHeader(output)
+      }
+    }
+  }
+
+  @throws(classOf[java.io.IOException])
+  private def send(a: Any): Unit = {
+    channel match {
+      case Some(c) =>
+        // the channel sends its own header
+        c.send(WireFormat.frame(a))
+      case None =>
+        sendHeader()
+        output.synchronized {
+          WireFormat.write(output, a)
+          // we're not sure if this call to flush is absolutely necessary.
+          // it can take up to .02 seconds.  however, since it is in a
+          // background thread and we want to ensure that we send out the
+          // messages as quickly as possible, let's leave it in.  if we
+          // ever need this code in a non-background thread.  we should
+          // revisit this issue.
+          // --mag 10/14/02
+          output.flush()
+        }
     }
   }
 
@@ -0,0 +1,81 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.hubnet.connection
+
+import java.io.{ InputStream, IOException, OutputStream }
+import java.nio.ByteBuffer
+import java.nio.channels.SocketChannel
+
+import org.nlogo.api.Exceptions
+import org.nlogo.hubnet.protocol.WireFormat
+
+/**
+ * The streams for a connection whose socket is watched by a selector (see
+ * org.nlogo.hubnet.server.ConnectionManager) instead of having threads of its own.  Frames are
+ * written straight to the channel when it can take them; whatever it can't is kept, in order, until
+ * the selector says it can take more.  Frames are never copied, so one frame can be sent to any
+ * number of connections.  The selector does all the reading, so there's nothing to read here.
+ */
+class ChannelStreamable(val channel: SocketChannel, wantsToWrite: ChannelStreamable => Unit)
+extends Streamable {
+
+  private val pending = new java.util.ArrayDeque[ByteBuffer]
+  private var closing = false
+
+  enqueue(ByteBuffer.wrap(WireFormat.header))
+
+  def getOutputStream: OutputStream = new OutputStream {
+    override def write(b: Int): Unit = enqueue(ByteBuffer.wrap(Array(b.toByte)))
+    override def write(b: Array[Byte], off: Int, len: Int): Unit =
+      enqueue(ByteBuffer.wrap(java.util.Arrays.copyOfRange(b, off, off + len)))
+  }
+
+  def getInputStream: InputStream = InputStream.nullInputStream()
+
+  @throws(classOf[IOException])
+  def send(frame: WireFormat.Frame): Unit = enqueue(frame.asByteBuffer)
+
+  def pendingCount: Int = synchronized { pending.size }
+
+  def isClosing: Boolean = synchronized { closing }
+
+  // the frames still get written before the channel is closed
+  def close(): Unit = {
+    synchronized { closing = true }
+    wantsToWrite(this)
+  }
+
+  /**
+   * Writes as much as the channel will take.  Called by the selector when the channel can take
+   * more.  Closes the channel once everything's written, if we've been asked to.
+   * @return true if everything was written
+   */
+  @throws(classOf[IOException])
+  def writePending(): Boolean = synchronized {
+    var blocked = false
+    while (!blocked && !pending.isEmpty && channel.isOpen) {
+      val buffer = pending.peek
+      channel.write(buffer)
+      if (buffer.hasRemaining) blocked = true
+      else pending.poll()
+    }
+    if (!blocked && closing && channel.isOpen)
+      Exceptions.warning(classOf[IOException]) { channel.close() }
+    !blocked
+  }
+
+  @throws(classOf[IOException])
+  private def enqueue(buffer: ByteBuffer): Unit = {
+    val needsSelector = synchronized {
+      // nobody's promised that messages get through, since the client could vanish at any time
+      if (closing || !channel.isOpen) false
+      else {
+        val wasIdle = pending.isEmpty
+        pending.add(buffer)
+        // if nothing was waiting, try writing it now; most of the time it all fits
+        wasIdle && !writePending()
+      }
+    }
+    if (needsSelector) wantsToWrite(this)
+  }
+}
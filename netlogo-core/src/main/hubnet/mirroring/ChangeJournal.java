@@ -0,0 +1,38 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.hubnet.mirroring;
+
+import org.nlogo.api.Agent;
+
+import java.util.List;
+
+/**
+ * Tells a ServerWorld which agents have changed since it last looked, so
+ * that it needn't look at all of them. See ServerWorld.updateWorld().
+ */
+public interface ChangeJournal {
+
+  /**
+   * returns what's changed since the last call, or null if anything might
+   * have, in which case every agent will be looked at. This is called with
+   * a lock on the world.
+   */
+  Changes drain();
+
+  final class Changes {
+    /**
+     * the patches, turtles and links whose view-related variables may have
+     * changed, including the links of turtles that moved. Agents that have
+     * since died (whose ids are -1) are skipped.
+     */
+    public final List<Agent> changed;
+    public final List<Long> deadTurtles;
+    public final List<Long> deadLinks;
+
+    public Changes(List<Agent> changed, List<Long> deadTurtles, List<Long> deadLinks) {
+      this.changed = changed;
+      this.deadTurtles = deadTurtles;
+      this.deadLinks = deadLinks;
+    }
+  }
+}
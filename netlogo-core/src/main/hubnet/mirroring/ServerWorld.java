@@ -9,7 +9,9 @@ import org.nlogo.api.Turtle;
 import org.nlogo.api.World;
 import org.nlogo.api.WorldPropertiesInterface;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,6 +33,9 @@ import java.util.Map;
  * world.  All such methods are commented.  To ensure that we are on the event
  * thread, we check that we are on all methods which act as entry points into
  * an instance of this class.
+ * <p/>
+ * Given a ChangeJournal, updateWorld() only looks at the agents that have
+ * changed, and only holds the lock on the world long enough to copy them.
  */
 public class ServerWorld {
   private final WorldPropertiesInterface settings;
@@ -39,6 +44,10 @@ public class ServerWorld {
   private final Map<Double, PatchData> patches;
   private Map<ClientWorld.LinkKey, LinkData> links;
 
+  // whether we've looked at every agent yet. until we have, a journal
+  // can't tell us what's different from what we have.
+  private boolean scanned = false;
+
   private int minPxcor;
   private int minPycor;
   private int maxPxcor;
@@ -83,15 +92,96 @@ public class ServerWorld {
   public synchronized DiffBuffer updateWorld(World world, boolean resetWorld) {
     DiffBuffer buf = new DiffBuffer();
     synchronized (world) {
+      updateEverything(world, buf, resetWorld);
+    }
+    return buf;
+  }
+
+  /**
+   * like updateWorld(World, boolean), but only looks at the agents journal
+   * says have changed. With the world locked, we only drain the journal and
+   * copy the changed agents' data; comparing that with ours happens after
+   * letting go of the world. If the journal can't say what's changed, or
+   * this is our first update, we look at everything, as updateWorld(World,
+   * boolean) does.
+   * <p/>
+   * This method MUST be called from the event thread, and it must be safe
+   * for us to get a lock on the world.
+   */
+  public synchronized DiffBuffer updateWorld(World world, boolean resetWorld, ChangeJournal journal) {
+    DiffBuffer buf = new DiffBuffer();
+    ChangeJournal.Changes changes;
+    List<PatchData> changedPatches = new ArrayList<PatchData>();
+    List<TurtleData> changedTurtles = new ArrayList<TurtleData>();
+    List<LinkData> changedLinks = new ArrayList<LinkData>();
+    synchronized (world) {
+      changes = journal.drain();
+      if (changes == null || !scanned) {
+        updateEverything(world, buf, resetWorld);
+        return buf;
+      }
       updateGeneral(world, buf);
-      updatePatches(world, buf);
-      updateTurtles(world, buf);
-      updateLinks(world, buf);
+      for (Agent a : changes.changed) {
+        if (a.id() == -1) {
+          continue;
+        }
+        if (a instanceof Patch) {
+          changedPatches.add(patchData((Patch) a));
+        } else if (a instanceof Turtle) {
+          changedTurtles.add(turtleData((Turtle) a));
+        } else if (a instanceof Link) {
+          changedLinks.add(linkData((Link) a));
+        }
+      }
       updateDrawing(world, buf, resetWorld);
     }
+    for (PatchData pd : changedPatches) {
+      PatchData diffs = updatePatch(pd);
+      if (diffs != null) {
+        buf.addPatch(diffs);
+      }
+    }
+    for (TurtleData td : changedTurtles) {
+      TurtleData diffs = updateTurtle(td);
+      if (diffs != null) {
+        buf.addTurtle(diffs);
+      }
+    }
+    for (LinkData data : changedLinks) {
+      LinkData diffs = updateLink(data);
+      if (diffs != null) {
+        buf.addLink(diffs);
+      }
+    }
+    for (Long id : changes.deadTurtles) {
+      if (turtles.remove(Double.valueOf(id.doubleValue())) != null) {
+        buf.addTurtle(new TurtleData(id.longValue()));
+      }
+    }
+    for (Long id : changes.deadLinks) {
+      // link keys are equal when their ids are
+      if (links.remove(new ClientWorld.LinkKey(id.longValue(), 0, 0, 0)) != null) {
+        buf.addLink(new LinkData(id.longValue()));
+      }
+    }
     return buf;
   }
 
+  /**
+   * looks at everything in the world.
+   * <p/>
+   * This method MUST be called from the event thread, and the method which
+   * called it must have a lock on the world.
+   */
+  private void updateEverything(World world, DiffBuffer buf, boolean resetWorld) {
+    updateGeneral(world, buf);
+    updatePatches(world, buf);
+    updateTurtles(world, buf);
+    updateLinks(world, buf);
+    updateDrawing(world, buf, resetWorld);
+    scanned = true;
+  }
+
   /**
    * updates local general view data (sex/y, label font size, etc.) to match
    * the current state of the world, storing diffs in buf.
@@ -205,6 +295,7 @@ public class ServerWorld {
     }
     // finally, the new map replaces the old one.
     links = newLinks;
+
   }
 
   /**
@@ -215,23 +306,36 @@ public class ServerWorld {
    * called it must have a lock on the world.
    */
   private PatchData updatePatch(Patch patch) {
-    // make a data object for this patch.
-    PatchData pd = new PatchData(patch.id(), PatchData.COMPLETE,
+    return updatePatch(patchData(patch));
+  }
+
+  /**
+   * makes a data object for a patch.
+   * <p/>
+   * The method which called it must have a lock on the world.
+   */
+  private PatchData patchData(Patch patch) {
+    return new PatchData(patch.id(), PatchData.COMPLETE,
         patch.pxcor(), patch.pycor(),
         patch.pcolor(), patch.labelString(),
         patch.labelColor());
+  }
 
+  /**
+   * updates local patch data to match pd, returning the diffs.
+   */
+  private PatchData updatePatch(PatchData pd) {
     // we'll need our version, if we've got one.
-    PatchData bufPatch = patches.get(Double.valueOf(patch.id()));
+    PatchData bufPatch = patches.get(Double.valueOf(pd.id()));
 
     // if we haven't got one, this is a new patch...
     if (bufPatch == null) {
-      patches.put(Double.valueOf(patch.id()), pd);
+      patches.put(Double.valueOf(pd.id()), pd);
       // this patch is complete and new, so it IS the diffs.
       return pd;
     }
 
-    patches.put(Double.valueOf(patch.id()), pd);
+    patches.put(Double.valueOf(pd.id()), pd);
 
     // otherwise, perform the update...
     return bufPatch.updateFrom(pd);
@@ -246,20 +350,33 @@ public class ServerWorld {
    * called it must have a lock on the world.
    */
   private TurtleData updateTurtle(Turtle turtle) {
-    // make a data object for this turtle.
-    TurtleData td = new TurtleData
+    return updateTurtle(turtleData(turtle));
+  }
+
+  /**
+   * makes a data object for a turtle.
+   * <p/>
+   * The method which called it must have a lock on the world.
+   */
+  private TurtleData turtleData(Turtle turtle) {
+    return new TurtleData
         (turtle.id(), TurtleData.COMPLETE, turtle.xcor(), turtle.ycor(),
             turtle.shape(), turtle.color(),
             turtle.heading(), turtle.size(), turtle.hidden(),
             turtle.labelString(), turtle.labelColor(), turtle.getBreedIndex(),
             turtle.lineThickness());
+  }
 
+  /**
+   * updates local turtle data to match td, returning the diffs.
+   */
+  private TurtleData updateTurtle(TurtleData td) {
     // we'll need our version, if we've got one.
-    TurtleData bufTurtle = turtles.get(Double.valueOf(turtle.id()));
+    TurtleData bufTurtle = turtles.get(Double.valueOf(td.id()));
 
     // if we haven't got one, this turtle is new...
     if (bufTurtle == null) {
-      turtles.put(Double.valueOf(turtle.id()), td);
+      turtles.put(Double.valueOf(td.id()), td);
       // this turtle is complete and new, so it IS the diffs.
       return td;
     }
@@ -269,13 +386,26 @@ public class ServerWorld {
   }
 
   private LinkData updateLink(Link link) {
-    // make a data object for this turtle.
-    LinkData data = new LinkData
+    return updateLink(linkData(link));
+  }
+
+  /**
+   * makes a data object for a link.
+   * <p/>
+   * The method which called it must have a lock on the world.
+   */
+  private LinkData linkData(Link link) {
+    return new LinkData
         (link.id(), link.end1().id(), link.end2().id(), LinkData.COMPLETE, link.x1(), link.y1(), link.x2(), link.y2(),
             link.shape(), link.color(), link.hidden(), link.labelString(), link.labelColor(),
             link.lineThickness(), link.isDirectedLink(), (link.isDirectedLink() ? link.linkDestinationSize() : 1),
             link.heading(), link.size(), link.getBreedIndex());
+  }
 
+  /**
+   * updates local link data to match data, returning the diffs.
+   */
+  private LinkData updateLink(LinkData data) {
     // we'll need our version, if we've got one.
     LinkData bufLink = links.get(data.getKey());
 
@@ -5,8 +5,7 @@ package org.nlogo.hubnet.protocol
 import java.net.Socket
 import org.nlogo.api.Version
 import org.nlogo.api.HubNetInterface.ClientInterface
-import java.io.{IOException, ObjectOutputStream}
-import org.nlogo.util.ClassLoaderObjectInputStream
+import java.io.{BufferedInputStream, BufferedOutputStream, DataInputStream, IOException}
 import java.util.concurrent.{Executors, ExecutorService, TimeUnit, LinkedBlockingQueue}
 
 import scala.jdk.CollectionConverters._
@@ -25,9 +24,8 @@ case class TestClient(userId: String, clientType: String="COMPUTER", ip:String="
   import org.nlogo.hubnet.protocol.{ViewUpdate => ViewUp}
 
   private val socket = new Socket(ip, port) {setSoTimeout(0)}
-  private val in = ClassLoaderObjectInputStream(
-    Thread.currentThread.getContextClassLoader, socket.getInputStream)
-  private val out = new ObjectOutputStream(socket.getOutputStream)
+  private val in = new DataInputStream(new BufferedInputStream(socket.getInputStream))
+  private val out = new BufferedOutputStream(socket.getOutputStream)
 
   // public api
   val (activityName, interfaceSpec) = handshake()
@@ -51,9 +49,11 @@ case class TestClient(userId: String, clientType: String="COMPUTER", ip:String="
   private def handshake(): (String, ClientInterface) = {
     def sendAndReceive(a: AnyRef): AnyRef = {
       rawSend(a)
-      in.readObject()
+      WireFormat.read(in)
     }
     try{
+      WireFormat.writeHeader(out)
+      WireFormat.readHeader(in)
       sendAndReceive(Version.version)
       val response = sendAndReceive(new HandshakeFromClient(userId, clientType))
       val result = response match {
@@ -72,8 +72,8 @@ case class TestClient(userId: String, clientType: String="COMPUTER", ip:String="
   // sends a message to the server
   protected def send(a: AnyRef) = { rawSend(a) }
 
-  protected def rawSend(a: AnyRef): Unit ={
-    out.writeObject(a)
+  protected def rawSend(a: AnyRef): Unit = synchronized {
+    WireFormat.write(out, a)
     out.flush()
   }
 
@@ -86,7 +86,7 @@ case class TestClient(userId: String, clientType: String="COMPUTER", ip:String="
   private class Receiver extends Runnable {
     override def run(): Unit = {
       try {
-        messagesReceived.put(in.readObject.asInstanceOf[Message])
+        messagesReceived.put(WireFormat.read(in).asInstanceOf[Message])
         executor.submit(this)
       } catch {
         // keep track of death so that users of TestClient know.
@@ -0,0 +1,313 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.hubnet.protocol
+
+import java.io.{ ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream, InputStream,
+                 IOException, ObjectOutputStream, ObjectInputStream, ObjectStreamClass, OutputStream }
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
+/**
+ * How HubNet messages go over the wire.  Each end of a connection starts by sending a header (a magic
+ * number and the protocol version), then each message is sent as a frame: its length, then a tag
+ * saying what kind of message it is, then the message.  The messages that get sent the most (view
+ * updates, text, activity commands and widget updates with simple values, and the login messages)
+ * are written out field by field; anything else is Java serialized, on its own, inside its frame.
+ *
+ * Since a frame doesn't depend on what was sent before it, a message going to many clients only
+ * needs to be encoded once (see Frame).
+ */
+object WireFormat {
+
+  // "HNet"
+  val Magic = 0x484e6574
+  val ProtocolVersion: Byte = 1
+  val HeaderLength = 5
+
+  // anything claiming to be bigger than this isn't a HubNet message
+  val MaxFrameLength = 256 * 1024 * 1024
+  // nor, from a client that hasn't logged in yet, anything bigger than this, since all it has any
+  // business sending is its version and its handshake
+  val MaxLoginFrameLength = 64 * 1024
+
+  /** A message, encoded and ready to send to any number of connections. */
+  final class Frame private[WireFormat] (private[WireFormat] val bytes: Array[Byte]) {
+    def length = bytes.length
+    def asByteBuffer: ByteBuffer = ByteBuffer.wrap(bytes).asReadOnlyBuffer
+  }
+
+  private object Tags {
+    val Serialized: Byte = 0
+    val Version: Byte = 1
+    val ViewUpdate: Byte = 2
+    val Text: Byte = 3
+    val DisableView: Byte = 4
+    val Enter: Byte = 5
+    val Exit: Byte = 6
+    val HandshakeFromClient: Byte = 7
+    val LoginFailure: Byte = 8
+    val ClearOverride: Byte = 9
+    val AgentPerspective: Byte = 10
+    val WidgetControl: Byte = 11
+    val ActivityCommand: Byte = 12
+  }
+
+  private object ValueTags {
+    val String: Byte = 0
+    val Double: Byte = 1
+    val Boolean: Byte = 2
+  }
+
+  def header: Array[Byte] =
+    ByteBuffer.allocate(HeaderLength).putInt(Magic).put(ProtocolVersion).array
+
+  @throws(classOf[IOException])
+  def writeHeader(out: OutputStream): Unit = {
+    out.write(header)
+    out.flush()
+  }
+
+  @throws(classOf[IOException])
+  def readHeader(in: DataInputStream): Unit = {
+    val bytes = new Array[Byte](HeaderLength)
+    in.readFully(bytes)
+    checkHeader(ByteBuffer.wrap(bytes))
+  }
+
+  @throws(classOf[IOException])
+  def checkHeader(buffer: ByteBuffer): Unit = {
+    if (buffer.getInt != Magic)
+      throw new IOException("Not a HubNet connection.")
+    val version = buffer.get
+    if (version != ProtocolVersion)
+      throw new IOException("HubNet protocol version " + version + " isn't supported (expected " + ProtocolVersion + ")")
+  }
+
+  def frame(message: Any): Frame =
+    message match {
+      case f: Frame => f
+      case _        => new Frame(encode(message))
+    }
+
+  @throws(classOf[IOException])
+  def write(out: OutputStream, message: Any): Unit =
+    out.write(frame(message).bytes)
+
+  @throws(classOf[IOException])
+  @throws(classOf[ClassNotFoundException])
+  def read(in: DataInputStream): AnyRef =
+    decode(readPayload(in))
+
+  @throws(classOf[IOException])
+  private def readPayload(in: DataInputStream): Array[Byte] = {
+    val length = checkLength(in.readInt())
+    val payload = new Array[Byte](length)
+    in.readFully(payload)
+    payload
+  }
+
+  @throws(classOf[IOException])
+  def checkLength(length: Int, max: Int = MaxFrameLength): Int = {
+    if (length <= 0 || length > max)
+      throw new IOException("Bad HubNet frame length: " + length)
+    length
+  }
+
+  private def encode(message: Any): Array[Byte] = {
+    val bytes = new ByteArrayOutputStream
+    val out = new DataOutputStream(bytes)
+    // room for the length, filled in at the end
+    out.writeInt(0)
+    message match {
+      case s: String =>
+        out.writeByte(Tags.Version)
+        writeString(out, s)
+      case ViewUpdate(worldData) =>
+        out.writeByte(Tags.ViewUpdate)
+        writeBytes(out, worldData)
+      case Text(content, messageType) =>
+        out.writeByte(Tags.Text)
+        out.writeByte(messageType match {
+          case Text.MessageType.USER  => 0
+          case Text.MessageType.TEXT  => 1
+          case Text.MessageType.CLEAR => 2
+        })
+        writeString(out, content)
+      case DisableView =>
+        out.writeByte(Tags.DisableView)
+      case EnterMessage =>
+        out.writeByte(Tags.Enter)
+      case ExitMessage(reason) =>
+        out.writeByte(Tags.Exit)
+        writeString(out, reason)
+      case HandshakeFromClient(userId, clientType) =>
+        out.writeByte(Tags.HandshakeFromClient)
+        writeString(out, userId)
+        writeString(out, clientType)
+      case LoginFailure(content) =>
+        out.writeByte(Tags.LoginFailure)
+        writeString(out, content)
+      case ClearOverrideMessage =>
+        out.writeByte(Tags.ClearOverride)
+      case AgentPerspectiveMessage(perspective) =>
+        out.writeByte(Tags.AgentPerspective)
+        writeBytes(out, perspective)
+      case WidgetControl(content, tag) if isSimpleValue(content) =>
+        out.writeByte(Tags.WidgetControl)
+        writeString(out, tag)
+        writeValue(out, content)
+      case ActivityCommand(tag, content) if isSimpleValue(content) =>
+        out.writeByte(Tags.ActivityCommand)
+        writeString(out, tag)
+        writeValue(out, content)
+      case _ =>
+        out.writeByte(Tags.Serialized)
+        val objectOut = new ObjectOutputStream(out)
+        objectOut.writeObject(message)
+        objectOut.flush()
+    }
+    out.flush()
+    val result = bytes.toByteArray
+    ByteBuffer.wrap(result).putInt(0, result.length - 4)
+    result
+  }
+
+  // throws ClassNotFoundException if the other end sent something we don't have the class for
+  @throws(classOf[IOException])
+  @throws(classOf[ClassNotFoundException])
+  def decode(payload: Array[Byte]): AnyRef = {
+    val in = new DataInputStream(new ByteArrayInputStream(payload))
+    in.readByte() match {
+      case Tags.Serialized =>
+        new VersionIDMismatchIgnoringObjectInputStream(in).readObject()
+      case Tags.Version =>
+        readString(in)
+      case Tags.ViewUpdate =>
+        ViewUpdate(readBytes(in))
+      case Tags.Text =>
+        val messageType = in.readByte() match {
+          case 0 => Text.MessageType.USER
+          case 1 => Text.MessageType.TEXT
+          case _ => Text.MessageType.CLEAR
+        }
+        Text(readString(in), messageType)
+      case Tags.DisableView =>
+        DisableView
+      case Tags.Enter =>
+        EnterMessage
+      case Tags.Exit =>
+        ExitMessage(readString(in))
+      case Tags.HandshakeFromClient =>
+        HandshakeFromClient(readString(in), readString(in))
+      case Tags.LoginFailure =>
+        LoginFailure(readString(in))
+      case Tags.ClearOverride =>
+        ClearOverrideMessage
+      case Tags.AgentPerspective =>
+        AgentPerspectiveMessage(readBytes(in))
+      case Tags.WidgetControl =>
+        val tag = readString(in)
+        WidgetControl(readValue(in), tag)
+      case Tags.ActivityCommand =>
+        val tag = readString(in)
+        ActivityCommand(tag, readValue(in))
+      case tag =>
+        throw new IOException("Unknown HubNet message tag: " + tag)
+    }
+  }
+
+  private def isSimpleValue(value: AnyRef): Boolean =
+    value match {
+      case _: String | _: java.lang.Double | _: java.lang.Boolean => true
+      case _ => false
+    }
+
+  private def writeValue(out: DataOutputStream, value: AnyRef): Unit =
+    value match {
+      case s: String =>
+        out.writeByte(ValueTags.String)
+        writeString(out, s)
+      case d: java.lang.Double =>
+        out.writeByte(ValueTags.Double)
+        out.writeDouble(d.doubleValue)
+      case b: java.lang.Boolean =>
+        out.writeByte(ValueTags.Boolean)
+        out.writeBoolean(b.booleanValue)
+      case _ =>
+        throw new IllegalArgumentException(String.valueOf(value))
+    }
+
+  private def readValue(in: DataInputStream): AnyRef & java.io.Serializable =
+    in.readByte() match {
+      case ValueTags.String => readString(in)
+      case ValueTags.Double => Double.box(in.readDouble())
+      case _                => Boolean.box(in.readBoolean())
+    }
+
+  // unlike writeUTF, these handle null and strings of any length
+  private def writeString(out: DataOutputStream, s: String): Unit =
+    if (s == null)
+      out.writeInt(-1)
+    else
+      writeBytes(out, s.getBytes(StandardCharsets.UTF_8))
+
+  private def readString(in: DataInputStream): String = {
+    val length = in.readInt()
+    if (length < 0)
+      null
+    else {
+      val bytes = new Array[Byte](length)
+      in.readFully(bytes)
+      new String(bytes, StandardCharsets.UTF_8)
+    }
+  }
+
+  private def writeBytes(out: DataOutputStream, bytes: Array[Byte]): Unit = {
+    out.writeInt(bytes.length)
+    out.write(bytes)
+  }
+
+  private def readBytes(in: DataInputStream): Array[Byte] = {
+    val bytes = new Array[Byte](in.readInt())
+    in.readFully(bytes)
+    bytes
+  }
+
+}
+
+// This fixes #1364, a spurious serialVersionUID mismatch.  Basically we just ignore all such
+// mismatches and keep on trucking.  The version check on the version of NetLogo itself should
+// prevent any problems.  This leaves us free to use ProGuard in ways that alter automatically
+// calculated serialVersionUIDs without breaking HubNet.  thank you
+// stackoverflow.com/questions/795470/how-to-deserialize-an-object-persited-in-a-db-now-when-the-obect-has-different-se/796589#796589
+// !!!!!! - ST 8/17/11
+// Classes are looked up the way ClassLoaderObjectInputStream does, since the test client runs
+// under sbt, where ObjectInputStream's own lookup doesn't find them.
+private class VersionIDMismatchIgnoringObjectInputStream(in: InputStream)
+extends ObjectInputStream(in) {
+  private val classLoader = Option(Thread.currentThread.getContextClassLoader).getOrElse(getClass.getClassLoader)
+
+  override protected def resolveClass(objectStreamClass: ObjectStreamClass): Class[?] =
+    try Class.forName(objectStreamClass.getName, false, classLoader)
+    catch { case _: ClassNotFoundException => super.resolveClass(objectStreamClass) }
+
+  override protected def readClassDescriptor: ObjectStreamClass = {
+    var resultClassDescriptor = super.readClassDescriptor
+    val localClass = Class.forName(resultClassDescriptor.getName, false, classLoader)
+    if (localClass == null) {
+      // println("No local class for " + resultClassDescriptor.getName);
+      resultClassDescriptor
+    }
+    else {
+      val localClassDescriptor = ObjectStreamClass.lookup(localClass)
+      if (localClassDescriptor != null) { // only if class implements serializable
+        val localSUID = localClassDescriptor.getSerialVersionUID
+        val streamSUID = resultClassDescriptor.getSerialVersionUID
+        if (streamSUID != localSUID) { // check for serialVersionUID mismatch.
+          resultClassDescriptor = localClassDescriptor; // Use local class descriptor for deserialization
+        }
+      }
+      resultClassDescriptor
+    }
+  }
+}
@@ -0,0 +1,45 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.hubnet.server
+
+import java.util.{ ArrayList, Collections, IdentityHashMap }
+
+import org.nlogo.agent.{ AgentChanges, Link, Turtle, World }
+import org.nlogo.api.Agent
+import org.nlogo.core.AgentKind
+import org.nlogo.hubnet.mirroring.ChangeJournal
+
+// Hands a ServerWorld what the world's AgentChanges says has changed. A turtle's links
+// follow it around, so when it changes, they're said to have changed too.  Should be
+// made and closed with the world locked.
+class AgentChangesJournal(world: World) extends ChangeJournal {
+  private val journal = world.agentChanges.journal()
+
+  def close(): Unit = journal.close()
+
+  def drain(): ChangeJournal.Changes =
+    journal.drain().map(changes).orNull
+
+  private def changes(agentChanges: AgentChanges.Changes): ChangeJournal.Changes = {
+    val changed = new ArrayList[Agent](agentChanges.changed.size)
+    val links = Collections.newSetFromMap(new IdentityHashMap[Link, java.lang.Boolean])
+    def addLink(link: Link): Unit =
+      if (links.add(link)) changed.add(link)
+    agentChanges.changed.foreach {
+      case link: Link => addLink(link)
+      case turtle: Turtle =>
+        changed.add(turtle)
+        if (turtle.id != -1)
+          turtle.links().foreach(addLink)
+      case agent => changed.add(agent)
+    }
+    val deadTurtles = new ArrayList[java.lang.Long]
+    val deadLinks = new ArrayList[java.lang.Long]
+    for ((kind, id) <- agentChanges.deaths) kind match {
+      case AgentKind.Turtle => deadTurtles.add(id)
+      case AgentKind.Link   => deadLinks.add(id)
+      case _                =>
+    }
+    new ChangeJournal.Changes(changed, deadTurtles, deadLinks)
+  }
+}
@@ -2,18 +2,24 @@
 
 package org.nlogo.hubnet.server
 
-import java.io.{ Serializable => JSerializable, InterruptedIOException, IOException }
-import java.net.{ BindException, InetAddress, NetworkInterface, ServerSocket }
+import java.io.{ Serializable => JSerializable, IOException }
+import java.net.{ BindException, InetAddress, InetSocketAddress, NetworkInterface }
+import java.nio.ByteBuffer
+import java.nio.channels.{ SelectionKey, Selector, ServerSocketChannel }
+import java.util.concurrent.{ ConcurrentLinkedQueue, ExecutorService, Executors }
 
+import scala.jdk.CollectionConverters.SetHasAsScala
+
+import org.nlogo.agent.{ World => AgentWorld }
 import org.nlogo.api.HubNetInterface.ClientInterface
 import org.nlogo.api.{ AgentSet, HubNetWorkspaceInterface, PlotInterface, Workspace, WorldPropertiesInterface }
 import org.nlogo.core.AgentKind
 import org.nlogo.hubnet.connection.MessageEnvelope.MessageEnvelope
-import org.nlogo.hubnet.connection.{ ConnectionInterface, ConnectionTypes, HubNetException, Ports, Streamable }
+import org.nlogo.hubnet.connection.{ ChannelStreamable, ConnectionInterface, ConnectionTypes, HubNetException, Ports }
 import org.nlogo.hubnet.mirroring.{ AgentPerspective, ClearOverride, SendOverride, ServerWorld }
 import org.nlogo.hubnet.protocol.{ AgentPerspectiveMessage, ClearOverrideMessage, ComputerInterface, DisableView,
                                    HandshakeFromServer, Message, OverrideMessage, PlotControl, PlotUpdate, Text,
-                                   ViewUpdate, WidgetControl }
+                                   ViewUpdate, WidgetControl, WireFormat }
 import org.nlogo.plot.Plot
 
 // Connection Manager calls back to this when these events happen.
@@ -47,6 +53,9 @@ class ConnectionManager(val connection: ConnectionInterface,
 
   private val world = workspace.world
   private var worldBuffer = new ServerWorld(worldProps)
+  // which agents have changed since the last view update, when the world can tell us.
+  // started in startup, closed in shutdown
+  private var changeJournal: AgentChangesJournal = null
   private def worldProps =
     if(workspace.getPropertiesInterface != null) workspace.getPropertiesInterface
     else new WorldPropertiesInterface { def fontSize = 10 } // TODO BAD HACK! JC 12/28/10
@@ -54,7 +63,12 @@ class ConnectionManager(val connection: ConnectionInterface,
   // instantiated in startup
   var nodeThread: Thread = null
   private var announcer: DiscoveryAnnouncer = null
-  @volatile private var socket: ServerSocket = null
+  @volatile private var socket: ServerSocketChannel = null
+  // all of the server's sockets are watched by one selector, run by nodeThread, and everything
+  // the clients send is handed to their connections, in order, on the dispatcher
+  private var selector: Selector = null
+  private var dispatcher: ExecutorService = null
+  private val wantsToWrite = new ConcurrentLinkedQueue[ChannelStreamable]
   private var _port = -1
   def port = _port
   private def port_=(p:Int): Unit ={ _port = p }
@@ -103,16 +117,27 @@ class ConnectionManager(val connection: ConnectionInterface,
 
     // try every port from DEFAULT_PORT_NUMBER to MAX_PORT_NUMBER until
     // we find one that works
-    def createSocket(portToTry: Int): (Int, ServerSocket) = {
+    def createSocket(portToTry: Int): (Int, ServerSocketChannel) = {
       if (portToTry > Ports.MAX_PORT_NUMBER) throw new BindException("port: " + portToTry)
-      else
-        try { (portToTry, new ServerSocket(portToTry) { setSoTimeout(250) }) }
-        catch {case bex: BindException => createSocket(portToTry + 1) }
+      else {
+        val channel = ServerSocketChannel.open()
+        try { (portToTry, channel.bind(new InetSocketAddress(portToTry))) }
+        catch {case bex: BindException => channel.close(); createSocket(portToTry + 1) }
+      }
     }
     try {
       val (port, socket) = createSocket(Ports.DEFAULT_PORT_NUMBER)
       this.port = port
       this.socket = socket
+      selector = Selector.open()
+      socket.configureBlocking(false)
+      socket.register(selector, SelectionKey.OP_ACCEPT)
+      dispatcher = Executors.newSingleThreadExecutor(r => new Thread(r, "org.nlogo.hubnet.server.ConnectionManager dispatcher"))
+      world match {
+        case w: AgentWorld if changeJournal == null =>
+          changeJournal = w.synchronized { new AgentChangesJournal(w) }
+        case _ =>
+      }
       serverOn = true
 
       announcer = new DiscoveryAnnouncer(serverName, workspace.modelNameForDisplay, port, selectedNetwork._2)
@@ -127,6 +152,9 @@ class ConnectionManager(val connection: ConnectionInterface,
         val message = "Could not start the HubNet server. No ports are available."
         org.nlogo.api.Exceptions.handle(new Exception(message, ex))
       false
+      case ex: IOException =>
+        org.nlogo.api.Exceptions.handle(ex)
+        false
     }
   }
 
@@ -137,7 +165,13 @@ class ConnectionManager(val connection: ConnectionInterface,
     // in headless, its possible that the connection manager was never started
     // yet it will always try to shut it down when disposed. JC - 12/18/10
     if (nodeThread != null && nodeThread.isAlive) {
+      // the clients are told first; the selector sees their exit messages out before it stops
+      clients.synchronized {
+        for (conn <- clients.values) {disconnectClient(conn, true, "Shutting Down.")}
+        clients.clear()
+      }
       serverOn = false
+      selector.wakeup()
       while (socket != null) {
         try Thread.sleep(50)
         catch {
@@ -145,10 +179,10 @@ class ConnectionManager(val connection: ConnectionInterface,
           case ie: InterruptedException => org.nlogo.api.Exceptions.ignore(ie)
         }
       }
-      clients.synchronized {
-        for (conn <- clients.values) {disconnectClient(conn, true, "Shutting Down.")}
-        clients.clear()
-      }
+    }
+    if (changeJournal != null) {
+      world.synchronized { changeJournal.close() }
+      changeJournal = null
     }
     workspace.hubNetRunning = false
     running = false
@@ -165,15 +199,18 @@ class ConnectionManager(val connection: ConnectionInterface,
   def run(): Unit = {
     try {
       while (serverOn) {
-        try waitForConnection()
+        try select()
         catch {
-          // accept timed out
-          case e: InterruptedIOException => // do nothing.
           case e: IOException => org.nlogo.api.Exceptions.handle(e)
           case e: RuntimeException => org.nlogo.api.Exceptions.handle(e)
         }
       }
       announcer.shutdown()
+      flushPendingWrites()
+      for (key <- selector.keys.toArray(new Array[SelectionKey](0)))
+        org.nlogo.api.Exceptions.warning(classOf[IOException]) { key.channel.close() }
+      selector.close()
+      dispatcher.shutdown()
       socket.close()
       this.socket = null
     }
@@ -182,20 +219,178 @@ class ConnectionManager(val connection: ConnectionInterface,
     }
   }
 
+  // how long, at most, shutting down waits for what's queued for the clients to be sent
+  private val FlushTimeout = 2000
+
+  // goes on selecting, without taking new connections, until every client has been sent what's
+  // queued for it (ExitMessages, when shutting down), or it's taken too long
+  private def flushPendingWrites(): Unit = {
+    val acceptKey = socket.keyFor(selector)
+    if (acceptKey != null)
+      acceptKey.cancel()
+    def unsent = selector.keys.asScala.exists { key =>
+      key.isValid && (key.attachment match {
+        case client: Client => client.streams.channel.isOpen && client.streams.pendingCount > 0
+        case _ => false
+      })
+    }
+    val deadline = System.currentTimeMillis + FlushTimeout
+    while ((!wantsToWrite.isEmpty || unsent) && System.currentTimeMillis < deadline) {
+      try select()
+      catch {
+        case e: IOException => org.nlogo.api.Exceptions.handle(e)
+        case e: RuntimeException => org.nlogo.api.Exceptions.handle(e)
+      }
+    }
+  }
+
+  // what the selector knows about each client's socket
+  private class Client(val streams: ChannelStreamable) {
+    var connection: ServerSideConnection = null
+    var buffer = ByteBuffer.allocate(64 * 1024)
+    var headerRead = false
+
+    // takes the complete frames out of what's been read so far
+    @throws(classOf[IOException])
+    def frames(): Seq[Array[Byte]] = {
+      val payloads = collection.mutable.ArrayBuffer[Array[Byte]]()
+      buffer.flip()
+      if (!headerRead && buffer.remaining >= WireFormat.HeaderLength) {
+        WireFormat.checkHeader(buffer)
+        headerRead = true
+      }
+      // until a client has logged in, it only gets to send small frames, so that sockets which
+      // never log in can't have us allocate room for huge ones
+      val maxLength =
+        if (connection != null && connection.clientId != null) WireFormat.MaxFrameLength
+        else WireFormat.MaxLoginFrameLength
+      var needed = 0
+      while (headerRead && needed == 0 && buffer.remaining >= 4) {
+        val length = WireFormat.checkLength(buffer.getInt(buffer.position), maxLength)
+        if (buffer.remaining < 4 + length)
+          needed = 4 + length
+        else {
+          buffer.getInt
+          val payload = new Array[Byte](length)
+          buffer.get(payload)
+          payloads += payload
+        }
+      }
+      buffer.compact()
+      // the next frame won't fit, so make room for it
+      if (needed > buffer.capacity) {
+        buffer.flip()
+        buffer = ByteBuffer.allocate(needed).put(buffer)
+      }
+      payloads.toSeq
+    }
+  }
+
+  @throws(classOf[IOException])
+  private def select(): Unit = {
+    // the timeout is just so we notice serverOn going false
+    selector.select(250)
+    val keys = selector.selectedKeys.iterator
+    while (keys.hasNext) {
+      val key = keys.next()
+      keys.remove()
+      if (key.isValid && key.isAcceptable)
+        acceptConnection()
+      if (key.isValid && key.isReadable)
+        readFrom(key, key.attachment.asInstanceOf[Client])
+      if (key.isValid && key.isWritable)
+        writeTo(key, key.attachment.asInstanceOf[Client].streams)
+    }
+    // connections that have more to send than their sockets would take
+    var streams = wantsToWrite.poll()
+    while (streams != null) {
+      val key = streams.channel.keyFor(selector)
+      if (key != null && key.isValid)
+        writeTo(key, streams)
+      streams = wantsToWrite.poll()
+    }
+  }
+
   @throws(classOf[IOException])
-  private def waitForConnection(): Unit = {
-    val newSocket = socket.accept()
-    newSocket.setSoTimeout(0)
-    /*
-     * do not uncomment the following line to enable tcp_no_delay.
-     * in theory, it should get our messages out to clients slightly faster.
-     * in practice, it was creating hundreds of extra tiny packets, consuming bandwidth.
-     * this caused clients to skip and pause erratically and rendered them unusable.
-     * this typically went unnoticed in small simulations, or simulations sending
-     * only a few messages. --josh 11/19/09
-     */
-    // newSocket.setTcpNoDelay( true )
-    new ServerSideConnection(Streamable(newSocket), newSocket.getRemoteSocketAddress.toString, this).start()
+  private def acceptConnection(): Unit = {
+    val channel = socket.accept()
+    if (channel != null) {
+      channel.configureBlocking(false)
+      /*
+       * do not uncomment the following line to enable tcp_no_delay.
+       * in theory, it should get our messages out to clients slightly faster.
+       * in practice, it was creating hundreds of extra tiny packets, consuming bandwidth.
+       * this caused clients to skip and pause erratically and rendered them unusable.
+       * this typically went unnoticed in small simulations, or simulations sending
+       * only a few messages. --josh 11/19/09
+       */
+      // channel.socket.setTcpNoDelay( true )
+      val client = new Client(new ChannelStreamable(channel, requestWrite))
+      client.connection =
+        new ServerSideConnection(client.streams, channel.socket.getRemoteSocketAddress.toString, this)
+      channel.register(selector, SelectionKey.OP_READ, client)
+    }
+  }
+
+  private def requestWrite(streams: ChannelStreamable): Unit = {
+    wantsToWrite.add(streams)
+    selector.wakeup()
+  }
+
+  private def readFrom(key: SelectionKey, client: Client): Unit = {
+    val connection = client.connection
+    def lost(e: Option[IOException]): Unit = {
+      key.cancel()
+      org.nlogo.api.Exceptions.warning(classOf[IOException]) { client.streams.channel.close() }
+      dispatcher.execute { () =>
+        e.foreach(connection.handleEx(_, false))
+        connection.disconnect("Shutting down.")
+      }
+    }
+    // the client going away, however it goes, isn't an error
+    val count =
+      try client.streams.channel.read(client.buffer)
+      catch { case e: IOException => -1 }
+    if (count < 0)
+      lost(None)
+    else
+      try {
+        val payloads = client.frames()
+        if (payloads.nonEmpty)
+          dispatcher.execute { () =>
+            for (payload <- payloads) {
+              // a frame is read whole even if what's in it can't be, so we can go on to the next one
+              try connection.receiveData(WireFormat.decode(payload))
+              catch {
+                case e: IOException => connection.handleEx(e, false)
+                case e: ClassNotFoundException => connection.handleEx(e, false)
+                case e: RuntimeException => connection.handleEx(e, false)
+              }
+            }
+          }
+      }
+      catch {
+        // not speaking our protocol
+        case e: IOException => lost(Some(e))
+      }
+  }
+
+  private def writeTo(key: SelectionKey, streams: ChannelStreamable): Unit = {
+    try {
+      val done = streams.writePending()
+      if (key.isValid) {
+        // once a connection is closing, all that's left to do is send what it has
+        val reading = if (streams.isClosing) 0 else SelectionKey.OP_READ
+        key.interestOps(if (done) reading else reading | SelectionKey.OP_WRITE)
+      }
+    }
+    catch {
+      case e: IOException =>
+        key.cancel()
+        org.nlogo.api.Exceptions.warning(classOf[IOException]) { streams.channel.close() }
+        val connection = key.attachment.asInstanceOf[Client].connection
+        dispatcher.execute(() => connection.handleEx(e, true))
+    }
   }
 
   def getClients: Iterable[String] = {
@@ -307,7 +502,11 @@ class ConnectionManager(val connection: ConnectionInterface,
    * Broadcasts a message to all clients.
    */
   private def broadcastMessage(msg:Message): Unit = {
-    clients.synchronized { for (connection <- clients.values) { connection.sendData(msg) } }
+    // encoded once, not once per client. if it can't be, let each connection deal with that as usual
+    val encoded: Any =
+      try WireFormat.frame(msg)
+      catch { case e: IOException => msg }
+    clients.synchronized { for (connection <- clients.values) { connection.sendData(encoded) } }
   }
 
   def sendTextMessage(node: String, text: String): Boolean =
@@ -396,7 +595,9 @@ class ConnectionManager(val connection: ConnectionInterface,
       worldBuffer = new ServerWorld(worldProps)
       lastPatches = world.patches
     }
-    val buf = worldBuffer.updateWorld(world, resetWorld)
+    val buf =
+      if (changeJournal == null) worldBuffer.updateWorld(world, resetWorld)
+      else worldBuffer.updateWorld(world, resetWorld, changeJournal)
     if (!buf.isEmpty) broadcastMessage(new ViewUpdate(buf.toByteArray))
   }
 
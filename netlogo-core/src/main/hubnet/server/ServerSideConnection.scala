@@ -31,7 +31,8 @@ class ServerSideConnection(connectionStreams:Streamable, val remoteAddress: Stri
 
   private var validClientVersion = false
   @volatile private var disconnecting = false
-  var clientId: String = null
+  // read by the selector, to know how big a frame to let the client send
+  @volatile var clientId: String = null
 
   override def receiveData(a:AnyRef): Unit = {
     a match {
@@ -0,0 +1,244 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.lab
+
+import java.io.{ BufferedInputStream, DataInputStream, DataOutputStream, EOFException, File, FileInputStream,
+  InputStream, PrintWriter }
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets.UTF_8
+
+import org.nlogo.core.WorldDimensions
+
+// The binary form of table output, written by BinaryTableExporter.  It holds
+// the same rows as a table, but column by column, in chunks of up to
+// ChunkRows rows, so that numbers don't have to be formatted on the way out
+// or parsed on the way back in.  A file is laid out as:
+//
+//   header:  magic, format version, NetLogo version, model file name,
+//            experiment name, date, world dimensions, parameter names,
+//            metric names
+//   chunks:  row count (0 where an exporter stopped), length in bytes of the rest of the
+//            chunk, lowest and highest run number and step, the run number
+//            column, the step column, then one column per parameter and one
+//            per metric
+//
+// Each parameter and metric column is stored in whichever of these fits
+// every value it has in that chunk:
+//
+//   DoubleTag:  lowest and highest value, then the values
+//   BooleanTag: one byte per value
+//   StringTag:  each value as the table would show it (lists, strings, etc.)
+//
+// Strings are written as a length followed by that many bytes of UTF-8.
+// A resumed experiment's chunks go on after the empty chunk where it
+// stopped, so readers read on to the end of the file.  Runs that were
+// killed may leave files without the final empty chunk.
+
+object BinaryTable {
+
+  val Magic = 0x4e4c4254 // "NLBT"
+  val FormatVersion = 1
+  val ChunkRows = 4096
+
+  val DoubleTag: Byte = 0
+  val BooleanTag: Byte = 1
+  val StringTag: Byte = 2
+
+  case class Header(netLogoVersion: String, modelFileName: String, experimentName: String, date: String,
+                    dims: WorldDimensions, parameterNames: Seq[String], metricNames: Seq[String])
+
+  sealed trait Column {
+    /** The value in the given row, as it was reported. Strings are as the table would show them. */
+    def value(row: Int): AnyRef
+    /** The value in the given row as the table would show it. */
+    def dumped(row: Int): String
+  }
+
+  class DoubleColumn(val values: Array[Double], val min: Double, val max: Double) extends Column {
+    def value(row: Int) = Double.box(values(row))
+    def dumped(row: Int) = Exporter.dump(Double.box(values(row)))
+  }
+
+  class BooleanColumn(val values: Array[Boolean]) extends Column {
+    def value(row: Int) = Boolean.box(values(row))
+    def dumped(row: Int) = Exporter.dump(Boolean.box(values(row)))
+  }
+
+  class StringColumn(val values: Array[String]) extends Column {
+    def value(row: Int) = values(row)
+    def dumped(row: Int) = values(row)
+  }
+
+  /**
+   * One chunk's worth of rows.  Its columns are only decoded when asked
+   * for, so readers looking for particular runs or steps can pass over the
+   * rest of the chunk cheaply.
+   */
+  class Chunk private[BinaryTable](val rowCount: Int, columnCount: Int, body: ByteBuffer) {
+    val minRunNumber = body.getInt()
+    val maxRunNumber = body.getInt()
+    val minStep = body.getInt()
+    val maxStep = body.getInt()
+    private val runNumbersAt = body.position()
+    private val stepsAt = runNumbersAt + 4 * rowCount
+    private lazy val columnOffsets: Array[Int] = {
+      val offsets = new Array[Int](columnCount)
+      body.position(stepsAt + 4 * rowCount)
+      for (i <- 0 until columnCount) {
+        offsets(i) = body.position()
+        skipColumn()
+      }
+      offsets
+    }
+    private val decoded = new Array[Column](columnCount)
+
+    lazy val runNumbers: Array[Int] = ints(runNumbersAt)
+    lazy val steps: Array[Int] = ints(stepsAt)
+
+    /** Parameters come first, then metrics, in the header's order. */
+    def column(i: Int): Column = {
+      if (decoded(i) == null) {
+        body.position(columnOffsets(i))
+        decoded(i) = readColumn()
+      }
+      decoded(i)
+    }
+
+    private def ints(at: Int): Array[Int] = {
+      val result = new Array[Int](rowCount)
+      body.position(at)
+      body.asIntBuffer.get(result)
+      result
+    }
+
+    private def readColumn(): Column =
+      body.get() match {
+        case DoubleTag =>
+          val (min, max) = (body.getDouble(), body.getDouble())
+          val values = new Array[Double](rowCount)
+          body.asDoubleBuffer.get(values)
+          new DoubleColumn(values, min, max)
+        case BooleanTag =>
+          new BooleanColumn(Array.fill(rowCount)(body.get() != 0))
+        case StringTag =>
+          new StringColumn(Array.fill(rowCount)(readString(body)))
+        case tag =>
+          throw new IllegalStateException("unknown column type: " + tag)
+      }
+
+    private def skipColumn(): Unit =
+      body.get() match {
+        case DoubleTag  => body.position(body.position() + 16 + 8 * rowCount)
+        case BooleanTag => body.position(body.position() + rowCount)
+        case StringTag  => for (_ <- 0 until rowCount) body.position(body.position() + 4 + body.getInt())
+        case tag        => throw new IllegalStateException("unknown column type: " + tag)
+      }
+  }
+
+  /** Reads the header right away, then the chunks one at a time as they're iterated over. */
+  class Reader(in: InputStream) extends Iterator[Chunk] with AutoCloseable {
+    private val data = new DataInputStream(new BufferedInputStream(in))
+
+    val header: Header = {
+      if (data.readInt() != Magic)
+        throw new IllegalStateException("not a BehaviorSpace binary table")
+      val version = data.readInt()
+      if (version > FormatVersion)
+        throw new IllegalStateException("unsupported BehaviorSpace binary table version: " + version)
+      def names() = Seq.fill(data.readInt())(readString(data))
+      Header(readString(data), readString(data), readString(data), readString(data),
+        new WorldDimensions(data.readInt(), data.readInt(), data.readInt(), data.readInt()),
+        names(), names())
+    }
+
+    private val columnCount = header.parameterNames.length + header.metricNames.length
+    private var upcoming: Chunk = null
+    private var done = false
+
+    def hasNext: Boolean = {
+      while (upcoming == null && !done) {
+        val rowCount =
+          try data.readInt()
+          catch { case _: EOFException => -1 }
+        if (rowCount < 0)
+          done = true
+        else if (rowCount > 0) {
+          val body = new Array[Byte](data.readInt())
+          data.readFully(body)
+          upcoming = new Chunk(rowCount, columnCount, ByteBuffer.wrap(body))
+        }
+      }
+      upcoming != null
+    }
+
+    def next(): Chunk = {
+      if (!hasNext)
+        throw new NoSuchElementException
+      val result = upcoming
+      upcoming = null
+      result
+    }
+
+    def close(): Unit =
+      data.close()
+  }
+
+  /** Writes out the same table TableExporter would have written. */
+  def toTable(in: InputStream, out: PrintWriter): Unit = {
+    import Exporter.csv
+    val reader = new Reader(in)
+    try {
+      import reader.header._
+      Exporter.writeExportHeader(out, org.nlogo.api.LabExporterType.TABLE, netLogoVersion, modelFileName,
+                                 experimentName, date, dims)
+      val headers = "[run number]" +: parameterNames ++: "[step]" +: metricNames
+      out.println(headers.map(csv.header).mkString(","))
+      val paramCount = parameterNames.length
+      for (chunk <- reader) {
+        val columns = Array.tabulate(paramCount + metricNames.length)(chunk.column)
+        for (row <- 0 until chunk.rowCount) {
+          val line = new StringBuilder(csv.encode(chunk.runNumbers(row).toString))
+          for (i <- 0 until columns.length) {
+            if (i == paramCount)
+              line.append(',').append(csv.encode(chunk.steps(row).toString))
+            line.append(',').append(csv.encode(columns(i).dumped(row)))
+          }
+          if (columns.length == paramCount)
+            line.append(',').append(csv.encode(chunk.steps(row).toString))
+          out.println(line)
+        }
+      }
+    }
+    finally {
+      reader.close()
+      out.close()
+    }
+  }
+
+  /** Converts a binary table to CSV: BinaryTable <binary table> <CSV table> */
+  def main(args: Array[String]): Unit = {
+    if (args.length != 2) {
+      System.err.println("usage: BinaryTable <binary table> <CSV table>")
+      System.exit(1)
+    }
+    toTable(new FileInputStream(args(0)), new PrintWriter(new File(args(1)), UTF_8.name))
+  }
+
+  private[lab] def writeString(out: DataOutputStream, s: String): Unit = {
+    val bytes = s.getBytes(UTF_8)
+    out.writeInt(bytes.length)
+    out.write(bytes)
+  }
+
+  private def readString(in: DataInputStream): String = {
+    val bytes = new Array[Byte](in.readInt())
+    in.readFully(bytes)
+    new String(bytes, UTF_8)
+  }
+
+  private def readString(in: ByteBuffer): String = {
+    val bytes = new Array[Byte](in.getInt())
+    in.get(bytes)
+    new String(bytes, UTF_8)
+  }
+}
@@ -0,0 +1,136 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.lab
+
+import java.io.{ BufferedOutputStream, ByteArrayOutputStream, DataOutputStream, OutputStream }
+
+import org.nlogo.api.{ LabProtocol, Version }
+import org.nlogo.core.WorldDimensions
+import org.nlogo.nvm.LabInterface.ProgressListener
+import org.nlogo.nvm.Workspace
+
+import BinaryTable._
+
+// Writes the same rows as TableExporter, in the format described in
+// BinaryTable.  Rows are collected until there are enough for a chunk, then
+// written out a column at a time.
+
+class BinaryTableExporter(modelFileName: String,
+                          initialDims: WorldDimensions,
+                          protocol: LabProtocol,
+                          out: OutputStream)
+  extends ProgressListener
+{
+  private val data = new DataOutputStream(new BufferedOutputStream(out))
+  private val settings = new collection.mutable.HashMap[Int, List[Any]]
+  private val parameterNames = protocol.valueSets(0).map(_.variableName)
+  private val columnCount = parameterNames.length + protocol.metrics.length
+
+  // the rows of the chunk being collected
+  private val runNumbers = new Array[Int](ChunkRows)
+  private val steps = new Array[Int](ChunkRows)
+  private val columns = Array.fill(columnCount)(new Array[AnyRef](ChunkRows))
+  private var rows = 0
+
+  private var closed = false
+
+  override def experimentStarted(): Unit = {
+    // a resumed experiment's rows go on the end of the file it already started
+    if (protocol.runsCompleted == 0) {
+      data.writeInt(Magic)
+      data.writeInt(FormatVersion)
+      writeString(data, Version.version)
+      writeString(data, modelFileName)
+      writeString(data, protocol.name)
+      writeString(data, Exporter.timestamp())
+      import initialDims._
+      Seq(minPxcor, maxPxcor, minPycor, maxPycor).foreach(data.writeInt)
+      for (names <- Seq(parameterNames, protocol.metrics)) {
+        data.writeInt(names.length)
+        names.foreach(writeString(data, _))
+      }
+    }
+    data.flush()
+  }
+  override def runStarted(w: Workspace, runNumber: Int, runSettings: List[(String, Any)]): Unit = {
+    settings(runNumber) = runSettings.map(_._2)
+  }
+  override def measurementsTaken(w: Workspace, runNumber: Int, step: Int, values: List[AnyRef]): Unit = {
+    if (!values.isEmpty)
+      addRow(runNumber, step, values)
+  }
+  override def runCompleted(w: Workspace, runNumber: Int, steps: Int): Unit = {
+    if (protocol.metrics.isEmpty)
+      addRow(runNumber, steps, Nil)  // record how long the run lasted, if nothing else
+    settings -= runNumber
+  }
+  override def experimentAborted(): Unit = {
+    close()
+  }
+  override def experimentCompleted(): Unit = {
+    close()
+  }
+
+  private def close(): Unit =
+    if (!closed) {
+      closed = true
+      writeChunk()
+      data.writeInt(0)
+      data.close()
+    }
+
+  private def addRow(runNumber: Int, step: Int, values: List[AnyRef]): Unit = {
+    runNumbers(rows) = runNumber
+    steps(rows) = step
+    var i = 0
+    for (value <- settings(runNumber).iterator ++ values.iterator) {
+      columns(i)(rows) = value.asInstanceOf[AnyRef]
+      i += 1
+    }
+    rows += 1
+    if (rows == ChunkRows)
+      writeChunk()
+  }
+
+  private def writeChunk(): Unit =
+    if (rows > 0) {
+      val bytes = new ByteArrayOutputStream
+      val body = new DataOutputStream(bytes)
+      body.writeInt(runNumbers.iterator.take(rows).min)
+      body.writeInt(runNumbers.iterator.take(rows).max)
+      body.writeInt(steps.iterator.take(rows).min)
+      body.writeInt(steps.iterator.take(rows).max)
+      for (i <- 0 until rows)
+        body.writeInt(runNumbers(i))
+      for (i <- 0 until rows)
+        body.writeInt(steps(i))
+      columns.foreach(writeColumn(body, _))
+      body.flush()
+      data.writeInt(rows)
+      data.writeInt(bytes.size)
+      bytes.writeTo(data)
+      columns.foreach(java.util.Arrays.fill(_, null))
+      rows = 0
+    }
+
+  private def writeColumn(body: DataOutputStream, values: Array[AnyRef]): Unit = {
+    def all(test: AnyRef => Boolean) = values.iterator.take(rows).forall(test)
+    if (all(_.isInstanceOf[java.lang.Double])) {
+      val doubles = Array.tabulate(rows)(values(_).asInstanceOf[java.lang.Double].doubleValue)
+      body.writeByte(DoubleTag)
+      body.writeDouble(doubles.reduce(_ min _))
+      body.writeDouble(doubles.reduce(_ max _))
+      doubles.foreach(body.writeDouble)
+    }
+    else if (all(_.isInstanceOf[java.lang.Boolean])) {
+      body.writeByte(BooleanTag)
+      for (i <- 0 until rows)
+        body.writeBoolean(values(i).asInstanceOf[java.lang.Boolean].booleanValue)
+    }
+    else {
+      body.writeByte(StringTag)
+      for (i <- 0 until rows)
+        writeString(body, Exporter.dump(values(i)))
+    }
+  }
+}
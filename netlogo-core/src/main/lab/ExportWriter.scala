@@ -0,0 +1,65 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.lab
+
+import java.util.concurrent.ArrayBlockingQueue
+
+import org.nlogo.nvm.LabInterface.ProgressListener
+
+// When an experiment runs on several threads, the exporters used to be
+// called from whichever thread a run was on, one thread at a time, so
+// runs spent much of their time waiting for each other's output to be
+// formatted and written.  Exporters only care about the order of events
+// within each run, though, so now each Runner collects its exporters'
+// events in a buffer of its own and hands them over in batches to a
+// single thread which does all of the writing.
+
+class ExportWriter(exporters: Seq[ProgressListener], capacity: Int) {
+
+  type Batch = Array[ProgressListener => Unit]
+
+  private val Done: Batch = Array()
+
+  // bounded, so that runs can't get arbitrarily far ahead of the writing
+  private val batches = new ArrayBlockingQueue[Batch](capacity)
+
+  @volatile private var failure: Throwable = null
+  @volatile private var finished = false
+
+  private val thread = new Thread("BehaviorSpace Export Writer") {
+    override def run(): Unit = {
+      var batch = batches.take()
+      while (batch ne Done) {
+        // once an exporter has failed, keep draining so runs aren't blocked
+        if (failure == null) {
+          try batch.foreach(event => exporters.foreach(event))
+          catch { case t: Throwable => failure = t }
+        }
+        batch = batches.take()
+      }
+    }
+  }
+  thread.setDaemon(true)
+  thread.start()
+
+  /**
+   * Queues events for the exporters, waiting if the writer is too far behind.
+   * Events from runs still going when an experiment is aborted arrive after
+   * finish(), and are dropped.
+   */
+  def submit(events: Batch): Unit =
+    if (events.nonEmpty && !finished)
+      batches.put(events)
+
+  /**
+   * Waits for everything submitted so far to be written, then stops the
+   * writer.  Rethrows the first exception any exporter threw.
+   */
+  def finish(): Unit = {
+    finished = true
+    batches.put(Done)
+    thread.join()
+    if (failure != null)
+      throw failure
+  }
+}
@@ -9,43 +9,55 @@ import org.nlogo.nvm.LabInterface.ProgressListener
 
 object Exporter {
   val NUM_HEADER_ROWS = 6
-}
-
-// abstract superclass of SpreadsheetExporter and TableExporter.
-// subclasses must implement ProgressListener's methods.
 
-abstract class Exporter(modelFileName: String,
-                        initialDims: WorldDimensions,
-                        protocol: LabProtocol,
-                        out: java.io.PrintWriter,
-                        exporterType: String)
-  extends ProgressListener
-{
-  val csv = new CSV({
+  // how metric values and settings appear in the CSV outputs
+  def dump(x: Any): String = x match {
     // boxed integers are used here, but illegal logoObjects -- NP 2018-02-23
     case i: java.lang.Integer => i.toString
     case x => Dump.logoObject(x.asInstanceOf[AnyRef], false, true)
-  })
-  def writeExportHeader(): Unit = {
+  }
+
+  val csv = new CSV(dump)
+
+  def timestamp(): String =
+    new java.text.SimpleDateFormat("MM/dd/yyyy HH:mm:ss:SSS Z").format(new java.util.Date)
+
+  def writeExportHeader(out: java.io.PrintWriter, exporterType: String, version: String, modelFileName: String,
+                        experimentName: String, date: String, dims: WorldDimensions): Unit = {
     out.println(
       csv.headerRow(
-        Array("BehaviorSpace results (" + Version.version + ")", exporterType + " version " + LabExporterVersion.version)))
+        Array("BehaviorSpace results (" + version + ")", exporterType + " version " + LabExporterVersion.version)))
     out.println(
       csv.header(modelFileName))
     out.println(
-      csv.header(protocol.name))
+      csv.header(experimentName))
     out.println(
-      csv.header(
-        new java.text.SimpleDateFormat("MM/dd/yyyy HH:mm:ss:SSS Z")
-          .format(new java.util.Date)))
+      csv.header(date))
     out.println(
       csv.headerRow(
         Array("min-pxcor", "max-pxcor", "min-pycor", "max-pycor")))
     out.println{
-      import initialDims._
+      import dims._
       List(minPxcor, maxPxcor, minPycor, maxPycor)
         .map(csv.number(_))
         .mkString(",")
     }
   }
 }
+
+// abstract superclass of SpreadsheetExporter and TableExporter.
+// subclasses must implement ProgressListener's methods.
+
+abstract class Exporter(modelFileName: String,
+                        initialDims: WorldDimensions,
+                        protocol: LabProtocol,
+                        out: java.io.PrintWriter,
+                        exporterType: String)
+  extends ProgressListener
+{
+  val csv = Exporter.csv
+  def writeExportHeader(): Unit = {
+    Exporter.writeExportHeader(out, exporterType, Version.version, modelFileName, protocol.name,
+                               Exporter.timestamp(), initialDims)
+  }
+}
@@ -25,10 +25,14 @@ class Lab extends LabInterface {
         worker.addTableWriter(modelPath, dims.getOrElse(modelDims), _))
       spreadsheetWriter.foreach(
         worker.addSpreadsheetWriter(modelPath, dims.getOrElse(modelDims), _))
+      binaryTableWriter.foreach(x =>
+        worker.addBinaryTableWriter(modelPath, dims.getOrElse(modelDims), x._1))
       statsWriter.foreach(x =>
         worker.addStatsWriter(modelPath, dims.getOrElse(modelDims), x._1,
           {
-            if (tableWriter != None) LabPostProcessorInputFormat.Table(x._2)
+            // the binary table is quickest to read back in, so prefer it
+            if (binaryTableWriter != None) LabPostProcessorInputFormat.BinaryTable(binaryTableWriter.get._2)
+            else if (tableWriter != None) LabPostProcessorInputFormat.Table(x._2)
             else LabPostProcessorInputFormat.Spreadsheet(x._2)
           }
         )
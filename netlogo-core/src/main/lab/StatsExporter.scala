@@ -4,7 +4,7 @@ import org.nlogo.api.{LabProtocol, LabPostProcessorInputFormat, LabExporterType}
 import org.nlogo.core.{LogoList, WorldDimensions}
 import scala.collection.mutable.{ HashMap, HashSet, ListBuffer }
 import scala.collection.immutable.{ Set }
-import java.io.{ BufferedReader, FileReader }
+import java.io.{ BufferedReader, FileInputStream, FileReader }
 import scala.math.{ max }
 
 class StatsExporter(modelFileName: String,
@@ -60,6 +60,7 @@ class StatsExporter(modelFileName: String,
     in match {
       case t: LabPostProcessorInputFormat.Table => Some(extractFromTable(t.fileName))
       case s: LabPostProcessorInputFormat.Spreadsheet => Some(extractFromSpreadsheet(s.fileName))
+      case b: LabPostProcessorInputFormat.BinaryTable => Some(extractFromBinaryTable(b.fileName))
       case _ => None
       }
   }
@@ -221,6 +222,48 @@ class StatsExporter(modelFileName: String,
     data
   }
 
+  // the same as extractFromTable, except that numbers and booleans don't need parsing
+  def extractFromBinaryTable(fileName: String): Data = {
+    val data = new HashMap[List[Any], DataPerStep]()
+    // run numbers count up from 1 through the protocol's combinations of settings
+    val runParams = protocol.refElements.map(_.map(_._2)).toIndexedSeq
+    val reader = new BinaryTable.Reader(new FileInputStream(fileName))
+    try {
+      val firstMetric = reader.header.parameterNames.length
+      for (chunk <- reader) {
+        val columns = protocol.metrics.indices.map(i => chunk.column(firstMetric + i))
+        for (row <- 0 until chunk.rowCount) {
+          val measurements = columns.zipWithIndex.map { case (column, i) =>
+            val metric = protocol.metrics(i)
+            column match {
+              case c: BinaryTable.DoubleColumn if !listMetrics.contains(metric) =>
+                numericMetrics += metric
+                c.values(row)
+              case _: BinaryTable.BooleanColumn =>
+                invalidMetrics += metric
+                Double.NaN
+              case c =>
+                val entry = c.dumped(row)
+                if (listMetrics.contains(metric) || entry.contains("[")) handleList(entry, i)
+                else handleNonNumeric(entry, i)
+            }
+          }.toList
+          val params = runParams(chunk.runNumbers(row) - 1)
+          val step = chunk.steps(row)
+          if (!data.contains(params)) {
+            data(params) = new HashMap[Int, Measurements]()
+          }
+          if (!data(params).contains(step)) {
+            data(params)(step) = new ListBuffer[List[Any]]()
+          }
+          data(params)(step) += measurements
+        }
+      }
+    }
+    finally reader.close()
+    data
+  }
+
   def extractFromSpreadsheet(fileName: String): Data = {
     val bufferedReader: BufferedReader = new BufferedReader(new FileReader(fileName))
     var line = ""
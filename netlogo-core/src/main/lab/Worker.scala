@@ -25,6 +25,9 @@ class Worker(val protocol: LabProtocol, val supervisorWriting: () => Unit = () =
   def addTableWriter(modelFileName: String, initialDims: WorldDimensions, w: java.io.PrintWriter): Unit = {
     addListener(new TableExporter(modelFileName, initialDims, protocol, w))
   }
+  def addBinaryTableWriter(modelFileName: String, initialDims: WorldDimensions, out: java.io.OutputStream): Unit = {
+    addListener(new BinaryTableExporter(modelFileName, initialDims, protocol, out))
+  }
   def addStatsWriter(modelFileName: String, initialDims: WorldDimensions,
                       w: java.io.PrintWriter, in: LabPostProcessorInputFormat.Format): Unit = {
     addListener(new StatsExporter(modelFileName, initialDims, protocol, w, in))
@@ -36,7 +39,12 @@ class Worker(val protocol: LabProtocol, val supervisorWriting: () => Unit = () =
   var runners: Seq[Runner] = null
   // we only want to compile stuff once per workspace, so use this
   // (should use a Scala collection not a Java one, but oh well, too lazy today - ST 8/13/09)
+  // runners on different threads share it, so access it while holding its lock
   val proceduresMap = new java.util.WeakHashMap[Workspace, Procedures]
+  // while running on more than one thread, exporters are written to by an
+  // ExportWriter, and only the other listeners are called by the Runners
+  @volatile private var exportWriter: ExportWriter = null
+  @volatile private var directListeners: Seq[ProgressListener] = Seq()
   def run(initialWorkspace: Workspace, fn: () => Workspace, threads: Int): Unit = {
     val globals = initialWorkspace.world.program.interfaceGlobals
     val initialState = collection.mutable.Map[String, AnyRef]()
@@ -58,6 +66,16 @@ class Worker(val protocol: LabProtocol, val supervisorWriting: () => Unit = () =
       runners =
         (for((settings, runNumber) <- (protocol.refElements zip LazyList.from(1).iterator).drop(protocol.runsCompleted))
          yield new Runner(runNumber, settings, fn)).toSeq
+      val exporters = listeners.toSeq.filter {
+        case _: Exporter | _: BinaryTableExporter => true
+        case _ => false
+      }
+      if (threads > 1 && exporters.nonEmpty) {
+        exportWriter = new ExportWriter(exporters, threads * 4)
+        directListeners = listeners.toSeq.filterNot(exporters.contains)
+      }
+      else
+        directListeners = listeners.toSeq
       val futures = {
         import scala.jdk.CollectionConverters.{ ListHasAsScala, SeqHasAsJava }
         // The explicit use of JavaConversions here with a type parameter, instead of just plain
@@ -75,6 +93,7 @@ class Worker(val protocol: LabProtocol, val supervisorWriting: () => Unit = () =
       }
       executor.shutdown()
       executor.awaitTermination(java.lang.Integer.MAX_VALUE, TimeUnit.SECONDS)
+      finishExporting()
       supervisorWriting()
       listeners.foreach(_.experimentCompleted())
       // this will cause the first ExecutionException we got to be thrown - ST 3/10/09
@@ -83,18 +102,31 @@ class Worker(val protocol: LabProtocol, val supervisorWriting: () => Unit = () =
     catch {
       case _: InterruptedException =>
         runners.foreach(_.aborted = true)
+        finishExporting()
         listeners.foreach(_.experimentAborted())
     } finally {
       // "Invocation has no additional effect if already shut down." - API doc.
       // We need to be completely sure the executor is shut down otherwise we leak
       // threads (ticket #1185). - ST 2/11/11
       executor.shutdown()
+      // if something went wrong before the exporting was finished, the writer
+      // still has to be stopped, or its thread would be left waiting for more,
+      // holding on to the exporters and their files.  what went wrong matters
+      // more than anything the exporters might have thrown.
+      try finishExporting()
+      catch { case e: Exception => org.nlogo.api.Exceptions.ignore(e) }
       runners = null
       for (g <- globals) {
         initialWorkspace.world.setObserverVariableByName(g, initialState(g))
       }
     }
   }
+  private def finishExporting(): Unit =
+    if (exportWriter != null) {
+      val writer = exportWriter
+      exportWriter = null
+      writer.finish()
+    }
   // result discarded -- we just want to see if compilation succeeds.
   // used in TestCompileAll, also used before the start of the
   // experiment in the GUI so if something doesn't compile we can fail early.
@@ -126,10 +158,24 @@ class Worker(val protocol: LabProtocol, val supervisorWriting: () => Unit = () =
     private def owner(rng: MersenneTwisterFast) =
       new SimpleJobOwner("BehaviorSpace", rng, AgentKind.Observer)
     @volatile var aborted = false
+    // events for the ExportWriter, if there is one.  only this Runner's
+    // thread touches it.
+    private val exportEvents = new collection.mutable.ArrayBuffer[ProgressListener => Unit]
     // each Runner is on its own thread, but all the Runners share a ProgressListener,
     // so we need to synchronize
     def eachListener(fn: (ProgressListener)=>Unit): Unit = {
-      listeners.synchronized { listeners.foreach(fn) }
+      listeners.synchronized { directListeners.foreach(fn) }
+      if (exportWriter != null) {
+        exportEvents += fn
+        if (exportEvents.size >= 256)
+          flushExportEvents()
+      }
+    }
+    private def flushExportEvents(): Unit = {
+      val writer = exportWriter
+      if (writer != null)
+        writer.submit(exportEvents.toArray)
+      exportEvents.clear()
     }
     def call(): Unit = {
       // not clear why this check would be necessary, but perhaps it will
@@ -140,11 +186,12 @@ class Worker(val protocol: LabProtocol, val supervisorWriting: () => Unit = () =
           try callHelper(workspace)
           catch { case t: Throwable =>
             if (!aborted) eachListener(_.runtimeError(workspace, runNumber, t)) }
+          finally flushExportEvents()
         }
       }
     }
     def callHelper(ws: Workspace): Unit = {
-      val procedures =
+      val procedures = proceduresMap.synchronized {
         if (proceduresMap.containsKey(ws))
           proceduresMap.get(ws)
         else {
@@ -152,6 +199,7 @@ class Worker(val protocol: LabProtocol, val supervisorWriting: () => Unit = () =
           proceduresMap.put(ws, newProcedures)
           newProcedures
         }
+      }
       var lastMeasuredStep = -1
       import procedures._
       def setVariables(settings: List[(String, AnyRef)]): Unit = {
@@ -290,24 +338,28 @@ class Worker(val protocol: LabProtocol, val supervisorWriting: () => Unit = () =
       {
         checkForRuntimeError()
         steps += 1
-        eachListener(_.stepCompleted(ws, steps))
+        // the ExportWriter may not call the listeners until later, when steps
+        // has moved on, so they get a copy
+        val step = steps
+        eachListener(_.stepCompleted(ws, step))
         if ((protocol.runMetricsEveryStep || shouldTakeMeasurements()) && listeners.nonEmpty) {
           val m = takeMeasurements()
-          eachListener(_.measurementsTaken(ws, runNumber, steps, m))
+          eachListener(_.measurementsTaken(ws, runNumber, step, m))
           checkForRuntimeError()
-          lastMeasuredStep = steps
+          lastMeasuredStep = step
         }
         ws.updateDisplay(false)
         if (aborted) return
       }
-      if (!protocol.runMetricsEveryStep && steps != lastMeasuredStep && listeners.nonEmpty) {
+      val lastStep = steps
+      if (!protocol.runMetricsEveryStep && lastStep != lastMeasuredStep && listeners.nonEmpty) {
         val m = takeMeasurements()
-        eachListener(_.measurementsTaken(ws, runNumber, steps, m))
+        eachListener(_.measurementsTaken(ws, runNumber, lastStep, m))
         checkForRuntimeError()
       }
       ws.runCompiledCommands(owner(ws.world.mainRNG), postRunProcedure)
       checkForRuntimeError()
-      eachListener(_.runCompleted(ws, runNumber, steps))
+      eachListener(_.runCompleted(ws, runNumber, lastStep))
     }
   }
 }
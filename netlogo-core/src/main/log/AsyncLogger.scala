@@ -0,0 +1,225 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.log
+
+import java.time.{ Instant, LocalDateTime, ZoneId }
+
+import org.nlogo.api.Exceptions.warning
+import org.nlogo.core.LogoList
+
+// With turtle, link or global logging on, a model which makes and kills
+// thousands of turtles a tick used to spend most of its time building maps of
+// event info and writing them out as JSON, on the job thread.  So the logger
+// `LogManager` hands events to is one of these, which puts them in a ring
+// buffer, as they are, and leaves the rest to a thread of its own.  That
+// thread wakes up when the buffer is half full (or every FlushMillis anyway),
+// writes out everything in it, and flushes.
+//
+// When the buffer fills up, events are waited on to fit, or, if
+// org.nlogo.logWhenFull is "drop", dropped.  Dropped events are counted, and
+// the count is written to the log after the batch they'd have been in.
+//
+// A global's values are written down as strings before they're queued,
+// unless they're numbers, strings or booleans, since a turtle (say) could die
+// or change breed before the writer gets to it, and the writer shouldn't be
+// looking at the world anyway.
+
+object AsyncLogger {
+  val Capacity =
+    Integer.getInteger("org.nlogo.logBufferSize", 65536).intValue
+
+  val DropWhenFull =
+    System.getProperty("org.nlogo.logWhenFull", "block") == "drop"
+
+  val FlushMillis = 250L
+
+  private val Other:  Byte = 0
+  private val Turtle: Byte = 1
+  private val Link:   Byte = 2
+  private val Global: Byte = 3
+
+  private[log] def snapshot(value: AnyRef): AnyRef =
+    value match {
+      case null | _: java.lang.Number | _: java.lang.Boolean | _: String => value
+      case l: LogoList if l.isNumeric => l
+      case l: LogoList => LogoList.fromIterator(l.iterator.map(snapshot))
+      case v => v.toString
+    }
+}
+
+class AsyncLogger(logger: FileLogger, capacity: Int = AsyncLogger.Capacity,
+                  dropWhenFull: Boolean = AsyncLogger.DropWhenFull) extends FileLogger {
+
+  import AsyncLogger._
+
+  val fileNameFilter = logger.fileNameFilter
+
+  // the smallest power of two with room for capacity events
+  private val size = Integer.highestOneBit(((capacity max 2) - 1) * 2)
+  private val mask = size - 1
+
+  // what each event is, and when it happened.  the ids are the turtle's who
+  // number or the link's id, and the link's ends; the name is the event's,
+  // the breed's or the global's; the values are the global's new and old
+  // values, or the event info of events from anywhere else
+  private val kinds     = new Array[Byte](size)
+  private val times     = new Array[Long](size)
+  private val actions   = new Array[String](size)
+  private val ids       = new Array[Long](size)
+  private val ends1     = new Array[Long](size)
+  private val ends2     = new Array[Long](size)
+  private val names     = new Array[String](size)
+  private val values    = new Array[AnyRef](size)
+  private val oldValues = new Array[AnyRef](size)
+
+  // the events from head until tail are waiting to be written.  the writer
+  // only looks at those, and the loggers only fill in the ones after, so only
+  // these need the lock
+  private var head = 0L
+  private var tail = 0L
+  private var closed = false
+  private var _dropped = 0L
+
+  // how many events have been dropped since logging started
+  def dropped: Long = synchronized { _dropped }
+
+  private val writer = new Thread("NetLogo Log Writer") {
+    override def run(): Unit = {
+      var droppedWritten = 0L
+      var done = false
+      while (!done) {
+        var from, until, droppedSoFar = 0L
+        AsyncLogger.this.synchronized {
+          if (!closed && tail - head < size / 2)
+            AsyncLogger.this.wait(FlushMillis)
+          from = head
+          until = tail
+          droppedSoFar = _dropped
+        }
+        warning(classOf[Exception]) {
+          write(from, until)
+          if (droppedSoFar > droppedWritten) {
+            logger.log(LogEvents.Types.dropped, Map[String, Any]("count" -> (droppedSoFar - droppedWritten)))
+            droppedWritten = droppedSoFar
+          }
+          logger.flush()
+        }
+        AsyncLogger.this.synchronized {
+          head = until
+          AsyncLogger.this.notifyAll()
+          done = closed && head == tail
+        }
+      }
+    }
+  }
+  writer.setDaemon(true)
+  writer.start()
+
+  private def write(from: Long, until: Long): Unit = {
+    var i = from
+    while (i < until) {
+      val slot = (i & mask).toInt
+      val time = LocalDateTime.ofInstant(Instant.ofEpochMilli(times(slot)), ZoneId.systemDefault)
+      kinds(slot) match {
+        case Turtle =>
+          logger.log(LogEvents.Types.turtle, FileLogger.turtleInfo(actions(slot), ids(slot), names(slot)), time)
+        case Link =>
+          logger.log(LogEvents.Types.link,
+                     FileLogger.linkInfo(actions(slot), ids(slot), names(slot), ends1(slot), ends2(slot)), time)
+        case Global =>
+          logger.log(LogEvents.Types.global, FileLogger.globalInfo(names(slot), values(slot), oldValues(slot)), time)
+        case _ =>
+          logger.log(names(slot), values(slot).asInstanceOf[Map[String, Any]], time)
+      }
+      // so the buffer doesn't keep anything alive
+      names(slot) = null
+      values(slot) = null
+      oldValues(slot) = null
+      i += 1
+    }
+  }
+
+  // the slot for a new event, or -1 if it's dropped; call with the lock held
+  private def claim(kind: Byte): Int = {
+    try {
+      while (!dropWhenFull && !closed && tail - head == size)
+        wait()
+    } catch {
+      case _: InterruptedException =>
+        Thread.currentThread.interrupt()
+    }
+    if (closed)
+      -1
+    else if (tail - head == size) {
+      _dropped += 1
+      -1
+    } else {
+      val slot = (tail & mask).toInt
+      kinds(slot) = kind
+      times(slot) = System.currentTimeMillis
+      slot
+    }
+  }
+
+  private def publish(): Unit = {
+    tail += 1
+    if (tail - head == size / 2)
+      notifyAll()
+  }
+
+  override def log(event: String, eventInfo: Map[String, Any]): Unit = synchronized {
+    val slot = claim(Other)
+    if (slot != -1) {
+      names(slot) = event
+      values(slot) = eventInfo
+      publish()
+    }
+  }
+
+  override def logTurtle(action: String, who: Long, breedName: String): Unit = synchronized {
+    val slot = claim(Turtle)
+    if (slot != -1) {
+      actions(slot) = action
+      ids(slot) = who
+      names(slot) = breedName
+      publish()
+    }
+  }
+
+  override def logLink(action: String, id: Long, breedName: String, end1: Long, end2: Long): Unit = synchronized {
+    val slot = claim(Link)
+    if (slot != -1) {
+      actions(slot) = action
+      ids(slot) = id
+      names(slot) = breedName
+      ends1(slot) = end1
+      ends2(slot) = end2
+      publish()
+    }
+  }
+
+  override def logGlobal(globalName: String, newValue: AnyRef, oldValue: AnyRef): Unit = {
+    val newSnapshot = snapshot(newValue)
+    val oldSnapshot = snapshot(oldValue)
+    synchronized {
+      val slot = claim(Global)
+      if (slot != -1) {
+        names(slot) = globalName
+        values(slot) = newSnapshot
+        oldValues(slot) = oldSnapshot
+        publish()
+      }
+    }
+  }
+
+  /** Writes out everything logged so far, then closes the logger underneath. */
+  override def close(): Unit = {
+    synchronized {
+      closed = true
+      notifyAll()
+    }
+    writer.join()
+    logger.close()
+  }
+
+}
@@ -3,11 +3,49 @@
 package org.nlogo.log
 
 import java.io.{ File, FilenameFilter }
+import java.time.LocalDateTime
 
 trait FileLogger {
   def close(): Unit = {}
+  def flush(): Unit = {}
   def log(event: String, eventInfo: Map[String, Any]): Unit = {}
+  // for events logged some time after they happened, as by `AsyncLogger`
+  def log(event: String, eventInfo: Map[String, Any], timeStamp: LocalDateTime): Unit = log(event, eventInfo)
   val fileNameFilter: FilenameFilter
+
+  // The agent and global events can come so thick and fast that `AsyncLogger` queues them
+  // without making maps of them, so these have their own methods.
+  def logTurtle(action: String, who: Long, breedName: String): Unit =
+    log(LogEvents.Types.turtle, FileLogger.turtleInfo(action, who, breedName))
+  def logLink(action: String, id: Long, breedName: String, end1: Long, end2: Long): Unit =
+    log(LogEvents.Types.link, FileLogger.linkInfo(action, id, breedName, end1, end2))
+  def logGlobal(globalName: String, newValue: AnyRef, oldValue: AnyRef): Unit =
+    log(LogEvents.Types.global, FileLogger.globalInfo(globalName, newValue, oldValue))
+}
+
+object FileLogger {
+  private[log] def turtleInfo(action: String, who: Long, breedName: String) =
+    Map[String, Any](
+      "action"    -> action
+    , "who"       -> who
+    , "breedName" -> breedName
+    )
+
+  private[log] def linkInfo(action: String, id: Long, breedName: String, end1: Long, end2: Long) =
+    Map[String, Any](
+      "action"    -> action
+    , "id"        -> id
+    , "breedName" -> breedName
+    , "end1"      -> end1
+    , "end2"      -> end2
+    )
+
+  private[log] def globalInfo(globalName: String, newValue: AnyRef, oldValue: AnyRef) =
+    Map[String, Any](
+      "globalName" -> globalName
+    , "newValue"   -> newValue
+    , "oldValue"   -> oldValue
+    )
 }
 
 private[log] class NoOpLogger extends FileLogger {
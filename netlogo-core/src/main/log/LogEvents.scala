@@ -10,6 +10,8 @@ object LogEvents {
     val comment       = "comment"
     val compile       = "compile"
     val commandCenter = "command-center"
+    // not one to ask for; written when events had to be dropped (see `AsyncLogger`)
+    val dropped       = "dropped"
     val global        = "global"
     val inputBox      = "input-box"
     val link          = "link"
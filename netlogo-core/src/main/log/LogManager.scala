@@ -55,6 +55,11 @@ import org.nlogo.api.FileIO.fileToString
 
 // -Jeremy B 2022
 
+// The logger the factory makes is wrapped in an `AsyncLogger`, so events are written out
+// on a thread of its own instead of on the job thread (or the event thread).  The agent
+// and global events skip making a map of their info, since they can come by the
+// thousands each tick; that gets done on the writing thread.
+
 case class LoggerState(
   addListener:   (NetLogoAdapter) => Unit,
   loggerFactory: (Path) => FileLogger,
@@ -126,7 +131,7 @@ object LogManager {
     // If the logger blows up for any reason (security, disk full, etc), just ignore it and output to the error stream
     // so NetLogo can at least continune running with the NoOpLogger -Jeremy B February 2024
     try {
-      LogManager.logger                 = LogManager.state.loggerFactory(LogManager.state.logDirectoryPath)
+      LogManager.logger                 = new AsyncLogger(LogManager.state.loggerFactory(LogManager.state.logDirectoryPath))
       LogManager.loggingListener.logger = LogManager.logger
     } catch {
       case _: Throwable => directoryWarning()
@@ -215,38 +220,19 @@ object LogManager {
 
   def globalChanged(globalName: String, newValue: AnyRef, oldValue: AnyRef): Unit = {
     if (LogManager.state.events.global && !Equality.equals(newValue, oldValue)) {
-      val eventInfo = Map[String, Any](
-        "globalName" -> globalName
-      , "newValue"   -> newValue
-      , "oldValue"   -> oldValue
-      )
-      LogManager.log(LogEvents.Types.global, eventInfo)
+      LogManager.logger.logGlobal(globalName, newValue, oldValue)
     }
   }
 
   def linkCreated(id: Long, breedName: String, end1: Long, end2: Long): Unit = {
     if (LogManager.state.events.link) {
-      val eventInfo = Map[String, Any](
-        "action"    -> "created"
-      , "id"        -> id
-      , "breedName" -> breedName
-      , "end1"      -> end1
-      , "end2"      -> end2
-      )
-      LogManager.log(LogEvents.Types.link, eventInfo)
+      LogManager.logger.logLink("created", id, breedName, end1, end2)
     }
   }
 
   def linkRemoved(id: Long, breedName: String, end1: Long, end2: Long): Unit = {
     if (LogManager.state.events.link) {
-      val eventInfo = Map[String, Any](
-        "action"    -> "removed"
-      , "id"        -> id
-      , "breedName" -> breedName
-      , "end1"      -> end1
-      , "end2"      -> end2
-      )
-      LogManager.log(LogEvents.Types.link, eventInfo)
+      LogManager.logger.logLink("removed", id, breedName, end1, end2)
     }
   }
 
@@ -261,23 +247,13 @@ object LogManager {
 
   def turtleCreated(who: Long, breedName: String): Unit = {
     if (LogManager.state.events.turtle) {
-      val eventInfo = Map[String, Any](
-        "action"    -> "created"
-      , "who"       -> who
-      , "breedName" -> breedName
-      )
-      LogManager.log(LogEvents.Types.turtle, eventInfo)
+      LogManager.logger.logTurtle("created", who, breedName)
     }
   }
 
   def turtleRemoved(who: Long, breedName: String): Unit = {
     if (LogManager.state.events.turtle) {
-      val eventInfo = Map[String, Any](
-        "action"    -> "removed"
-      , "who"       -> who
-      , "breedName" -> breedName
-      )
-      LogManager.log(LogEvents.Types.turtle, eventInfo)
+      LogManager.logger.logTurtle("removed", who, breedName)
     }
   }
 
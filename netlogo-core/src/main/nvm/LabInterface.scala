@@ -11,6 +11,7 @@ object LabInterface {
     def addListener(l: ProgressListener): Unit
     def addTableWriter(modelFileName: String, initialDims: WorldDimensions, w: java.io.PrintWriter): Unit
     def addSpreadsheetWriter(modelFileName: String, initialDims: WorldDimensions, w: java.io.PrintWriter): Unit
+    def addBinaryTableWriter(modelFileName: String, initialDims: WorldDimensions, out: java.io.OutputStream): Unit
     def addStatsWriter(modelFileName: String, initialDims: WorldDimensions, w: java.io.PrintWriter, in: LabPostProcessorInputFormat.Format): Unit
     def addListsWriter(modelFileName: String, initialDims: WorldDimensions, w: java.io.PrintWriter,
                        in: LabPostProcessorInputFormat.Format): Unit
@@ -39,7 +40,8 @@ object LabInterface {
     threads: Int,
     suppressErrors: Boolean,
     updatePlots: Boolean,
-    mirrorHeadlessOutput: Boolean = false
+    mirrorHeadlessOutput: Boolean = false,
+    binaryTableWriter: Option[(java.io.OutputStream, String)] = None
     )
 }
 trait LabInterface {
@@ -0,0 +1,85 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.nvm
+
+import java.util.ArrayList
+import java.util.concurrent.{ Callable, ForkJoinPool, ForkJoinTask }
+import java.util.concurrent.atomic.AtomicBoolean
+
+import org.nlogo.agent.{ Agent, AgentIterator, AgentSet }
+
+import scala.util.control.NonFatal
+
+// of, with and count ... with can evaluate their reporter block for many
+// agents at once, in bands on the common fork-join pool, each band with its
+// own Context.  the compiler only lets them when the block is pure (see
+// compile.middle.PureBlockVisitor): it only reads variables and calls Pure
+// reporters, so it can't change anything or use the RNG, and the agents can
+// be visited in any order.  the caller still decides the order (running the
+// shufflerator itself, for of) and puts the results together in that order,
+// so models give the same results either way.
+//
+// reading a patch variable diffuse has changed, or a turtle, link or breed
+// agentset some of whose agents have died, tidies things up as it goes,
+// which isn't safe from several threads at once, so the world gets that
+// done on the job thread first.
+//
+// it's off unless org.nlogo.parallelReporters is set, and only kicks in for
+// agentsets with at least org.nlogo.parallelReportersThreshold agents.
+
+object ParallelReporters {
+
+  @volatile var enabled: Boolean =
+    java.lang.Boolean.getBoolean("org.nlogo.parallelReporters")
+
+  val Threshold =
+    Integer.getInteger("org.nlogo.parallelReportersThreshold", 2000).intValue
+
+  def worthwhile(agentCount: Int): Boolean =
+    enabled && agentCount >= Threshold && ForkJoinPool.getCommonPoolParallelism > 1
+
+  def agents(iter: AgentIterator): Array[Agent] = {
+    val result = new ArrayList[Agent]
+    while (iter.hasNext)
+      result.add(iter.next())
+    result.toArray(new Array[Agent](result.size))
+  }
+
+  /**
+   * The block's value for each agent, in the same order as the agents.  If
+   * evaluating it fails for any agent, returns null; the caller should go
+   * through the agents again one at a time, which is harmless since the
+   * block is pure, and gets the error reported for the same agent, the same
+   * way, as if we'd never tried this.
+   */
+  def evaluate(context: Context, sourceSet: AgentSet, agents: Array[Agent], block: Reporter): Array[AnyRef] = {
+    block.world.prepareForParallelReads()
+    val results = new Array[AnyRef](agents.length)
+    val failed = new AtomicBoolean(false)
+    val bands = (ForkJoinPool.getCommonPoolParallelism * 4) min agents.length
+    val tasks = new ArrayList[ForkJoinTask[Unit]](bands)
+    var band = 0
+    while (band < bands) {
+      val start = (agents.length.toLong * band / bands).toInt
+      val end = (agents.length.toLong * (band + 1) / bands).toInt
+      tasks.add(ForkJoinTask.adapt(new Callable[Unit] {
+        def call(): Unit = {
+          val bandContext = new Context(context, sourceSet)
+          var i = start
+          try {
+            while (i < end && !failed.get) {
+              results(i) = bandContext.evaluateReporter(agents(i), block)
+              i += 1
+            }
+          } catch {
+            case NonFatal(_) => failed.set(true)
+          }
+        }
+      }))
+      band += 1
+    }
+    ForkJoinTask.invokeAll(tasks)
+    if (failed.get) null else results
+  }
+
+}
@@ -2,7 +2,7 @@
 
 package org.nlogo.plot
 
-import org.nlogo.api.{ CSV, PlotInterface, PlotPointInterface }
+import org.nlogo.api.{ CSV, PlotInterface }
 import collection.mutable.Buffer
 
 // This would be called just `PlotExporter` but we need to leave the class with
@@ -67,34 +67,22 @@ class CorePlotExporter(private val plot: PlotInterface, private val csv: CSV) {
       pointHeaders ++= Array("x", "y", "color", "pen down?")
     writer.println(csv.headerRow(pointHeaders.toArray))
 
-    // Output data rows
-    // Get pen data lists, put them in a list,
-    // and transpose that list into a 2 dimensional array
-    val penDataListsList = Buffer[Seq[PlotPointInterface]]()
-    var maxPenDataListSize = 0
-    for (pen <- plot.pens) {
-      val penDataList = Option(pen.points).getOrElse(Vector())
-      maxPenDataListSize = maxPenDataListSize max penDataList.size
-      penDataListsList += penDataList
-    }
-    val outColumnsArray:Array[Array[PlotPointInterface]] = Array.ofDim(maxPenDataListSize, numPens)
-    for (i <- 0 until numPens) {
-      val penDataList = penDataListsList(i)
-      val penDataListSize = penDataList.size
-      for (j <- 0 until penDataListSize)
-        outColumnsArray(j)(i) = penDataList(j)
-    }
-    // Now output the 2 dimensional array of PlotPoints
+    // Output data rows, taking a point from each pen in turn
+    // (pens may have different numbers of points)
+    val penDataLists = plot.pens.map(pen => Option(pen.points).getOrElse(Vector()))
+    val maxPenDataListSize = penDataLists.foldLeft(0)(_ max _.size)
     for (row <- 0 until maxPenDataListSize) {
       for (col <- 0 until numPens) {
-        if (outColumnsArray(row)(col) != null) {
-          writer.print(csv.data(outColumnsArray(row)(col).x))
+        val penDataList = penDataLists(col)
+        if (row < penDataList.size) {
+          val point = penDataList(row)
+          writer.print(csv.data(point.x))
           writer.print(",")
-          writer.print(csv.data(outColumnsArray(row)(col).y))
+          writer.print(csv.data(point.y))
           writer.print(",")
-          writer.print(csv.data(org.nlogo.api.Color.argbToColor(outColumnsArray(row)(col).color)))
+          writer.print(csv.data(org.nlogo.api.Color.argbToColor(point.color)))
           writer.print(",")
-          writer.print(csv.data(outColumnsArray(row)(col).isDown))
+          writer.print(csv.data(point.isDown))
           if (col + 1 < numPens) {writer.print(",")}
         }
         else {
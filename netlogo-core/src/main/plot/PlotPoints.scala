@@ -0,0 +1,213 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.plot
+
+import java.util.Arrays
+import java.util.Locale
+
+/**
+ * The points a pen has plotted, as of some moment.  Rather than one PlotPoint object per point,
+ * they're kept in columns (x, y, color, and a bitset for whether the pen was down), and a PlotPoint
+ * is only made when someone asks for one.  Code that's going through a lot of points can read the
+ * columns directly instead.
+ *
+ * A PlotPoints never changes.  The pen keeps adding points to the same arrays (see
+ * PlotPointsBuffer), but only past the end of every PlotPoints it's handed out, and it starts over
+ * with new arrays whenever it needs to change a point it already has.
+ */
+final class PlotPoints private[plot] (xs: Array[Double], ys: Array[Double], colors: Array[Int],
+                                      downs: Array[Long], start: Int, end: Int)
+extends IndexedSeq[PlotPoint] {
+
+  override def length: Int = end - start
+
+  override def apply(i: Int): PlotPoint = {
+    if (i < 0 || i >= length)
+      throw new IndexOutOfBoundsException(s"$i is out of bounds (min 0, max ${length - 1})")
+    val j = start + i
+    PlotPoint(xs(j), ys(j), PlotPoints.isDown(downs, j), colors(j))
+  }
+
+  def x(i: Int): Double = xs(start + i)
+  def y(i: Int): Double = ys(start + i)
+  def color(i: Int): Int = colors(start + i)
+  def isDown(i: Int): Boolean = PlotPoints.isDown(downs, start + i)
+}
+
+object PlotPoints {
+
+  /**
+   * What a pen does once it has plotted a lot of points.  KeepAll keeps every point, as pens
+   * always have.  Window(max) keeps only the newest max points, scrolling the older ones away.
+   * Decimate(max) keeps the whole run, but when it gets to max points it thins them out to about
+   * half as many, keeping the highest and lowest point in each group of four, as well as the first
+   * and last points and every point where the pen goes up or down or changes color, so the shape
+   * of the line survives.
+   */
+  sealed trait Retention
+  case object KeepAll extends Retention
+  case class Window(max: Int) extends Retention
+  case class Decimate(max: Int) extends Retention
+
+  // org.nlogo.plotPenMaxPoints turns retention on for every pen, and org.nlogo.plotPenRetention
+  // ("decimate", the default, or "window") says which kind
+  val DefaultRetention: Retention =
+    Integer.getInteger("org.nlogo.plotPenMaxPoints", 0).intValue match {
+      case max if max <= 0 => KeepAll
+      case max =>
+        System.getProperty("org.nlogo.plotPenRetention", "decimate").toLowerCase(Locale.ENGLISH) match {
+          case "window" => Window(max max 2)
+          case _        => Decimate(max max 16)
+        }
+    }
+
+  private[plot] def isDown(downs: Array[Long], i: Int): Boolean =
+    (downs(i >> 6) & (1L << i)) != 0
+
+}
+
+/**
+ * Where a pen keeps its points.  result hands out the points plotted so far without copying them.
+ *
+ * Points are added on the job thread while the plot is painted from result on the event thread,
+ * so what changes the arrays and their bounds, and result, synchronize on the buffer; otherwise
+ * result could pair the arrays from one moment with the bounds from another.
+ */
+class PlotPointsBuffer(retention: PlotPoints.Retention = PlotPoints.DefaultRetention) {
+
+  import PlotPoints.{ Decimate, KeepAll, Window }
+
+  private var xs = new Array[Double](0)
+  private var ys = new Array[Double](0)
+  private var colors = new Array[Int](0)
+  private var downs = new Array[Long](0)
+  private var start = 0
+  private var end = 0
+
+  // how many points we keep before scrolling or thinning them out
+  private var limit = retention match {
+    case KeepAll       => Int.MaxValue
+    case Window(max)   => max
+    case Decimate(max) => max
+  }
+
+  def size: Int = synchronized { end - start }
+  def nonEmpty: Boolean = synchronized { end > start }
+
+  def result: PlotPoints = synchronized {
+    new PlotPoints(xs, ys, colors, downs, start, end)
+  }
+
+  def clear(): Unit = synchronized {
+    // a fresh start, since the old arrays may still be in use by points we handed out
+    xs = new Array[Double](0)
+    ys = new Array[Double](0)
+    colors = new Array[Int](0)
+    downs = new Array[Long](0)
+    start = 0
+    end = 0
+  }
+
+  def set(points: Seq[PlotPoint]): Unit = synchronized {
+    clear()
+    points match {
+      case ps: PlotPoints =>
+        for (i <- 0 until ps.length)
+          add(ps.x(i), ps.y(i), ps.isDown(i), ps.color(i))
+      case _ =>
+        for (p <- points)
+          add(p.x, p.y, p.isDown, p.color)
+    }
+  }
+
+  def add(x: Double, y: Double, isDown: Boolean, color: Int): Unit = synchronized {
+    if (size >= limit)
+      retention match {
+        case Window(_)   => start += 1
+        case Decimate(_) => decimate()
+        case KeepAll     =>
+      }
+    if (end == xs.length)
+      reallocate(start, end, newCapacity)
+    xs(end) = x
+    ys(end) = y
+    colors(end) = color
+    if (isDown)
+      downs(end >> 6) |= (1L << end)
+    end += 1
+  }
+
+  private def newCapacity: Int = {
+    val wanted = (size * 2) max 16
+    retention match {
+      // room for the window and as many again, so we only have to move it now and then
+      case Window(_) => wanted min (limit * 2)
+      case _         => wanted min limit
+    }
+  }
+
+  private def reallocate(from: Int, until: Int, capacity: Int): Unit = {
+    val count = until - from
+    val cap = capacity max (count + 1)
+    val newDowns = new Array[Long]((cap + 63) >> 6)
+    for (i <- 0 until count if PlotPoints.isDown(downs, from + i))
+      newDowns(i >> 6) |= (1L << i)
+    xs = Arrays.copyOfRange(xs, from, from + cap)
+    ys = Arrays.copyOfRange(ys, from, from + cap)
+    colors = Arrays.copyOfRange(colors, from, from + cap)
+    downs = newDowns
+    start = 0
+    end = count
+  }
+
+  private def decimate(): Unit = {
+    val count = size
+    val newXs = new Array[Double](xs.length)
+    val newYs = new Array[Double](xs.length)
+    val newColors = new Array[Int](xs.length)
+    val newDowns = new Array[Long](downs.length)
+    var kept = 0
+    def keep(i: Int): Unit = {
+      newXs(kept) = xs(i)
+      newYs(kept) = ys(i)
+      newColors(kept) = colors(i)
+      if (PlotPoints.isDown(downs, i))
+        newDowns(kept >> 6) |= (1L << kept)
+      kept += 1
+    }
+    def changes(i: Int): Boolean =
+      i == start || i == end - 1 || colors(i) != colors(i - 1) ||
+        PlotPoints.isDown(downs, i) != PlotPoints.isDown(downs, i - 1) ||
+        colors(i) != colors(i + 1) || PlotPoints.isDown(downs, i) != PlotPoints.isDown(downs, i + 1)
+    var group = start
+    while (group < end) {
+      val groupEnd = (group + 4) min end
+      var lowest = group
+      var highest = group
+      var i = group + 1
+      while (i < groupEnd) {
+        if (ys(i) < ys(lowest)) lowest = i
+        if (ys(i) > ys(highest)) highest = i
+        i += 1
+      }
+      i = group
+      while (i < groupEnd) {
+        if (i == lowest || i == highest || changes(i))
+          keep(i)
+        i += 1
+      }
+      group = groupEnd
+    }
+    xs = newXs
+    ys = newYs
+    colors = newColors
+    downs = newDowns
+    start = 0
+    end = kept
+    // if the points change color or go up and down too often to thin out, there's nothing to do
+    // but let the pen have more of them
+    if (kept > count * 3 / 4)
+      limit = kept * 2
+  }
+
+}
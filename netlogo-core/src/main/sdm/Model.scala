@@ -9,6 +9,12 @@ import scala.collection.mutable.ListBuffer
 
 object Model {
   class ModelException(message: String) extends Exception(message)
+
+  // the ways system-dynamics-go can step the model forward, see Translator
+  val Euler = "euler"
+  val RK4 = "rk4"
+  val DormandPrince = "dormand-prince"
+  val integrators = Seq(Euler, RK4, DormandPrince)
 }
 class Model(modelName: String,
   var dt: Double,
@@ -20,6 +26,8 @@ class Model(modelName: String,
 
   var xmlElement: XMLElement = null
 
+  private var _integrator = Model.Euler
+
   def getDt = dt
   @throws(classOf[Model.ModelException])
   def setDt(dt: Double): Unit = {
@@ -28,6 +36,13 @@ class Model(modelName: String,
       throw new Model.ModelException("dt cannot be less than or equal to 0.")
     this.dt = dt
   }
+  def integrator = _integrator
+  @throws(classOf[Model.ModelException])
+  def setIntegrator(integrator: String): Unit = {
+    if(!Model.integrators.contains(integrator))
+      throw new Model.ModelException("Unknown integrator: " + integrator)
+    _integrator = integrator
+  }
   def addElement(element: ModelElement): Unit = {
     elements += element
   }
@@ -46,13 +61,17 @@ class Model(modelName: String,
   def copy(modelName: String = modelName,
     dt: Double = dt,
     elements: ListBuffer[ModelElement] = elements,
-    serializedGUI: String = serializedGUI) =
-      new Model(name, dt, elements, serializedGUI)
+    serializedGUI: String = serializedGUI) = {
+      val model = new Model(name, dt, elements, serializedGUI)
+      model._integrator = _integrator
+      model
+    }
 
   def read(element: XMLElement): AnyRef = {
     xmlElement = element
 
     setDt(element("dt").toDouble)
+    setIntegrator(element("integrator", Model.Euler))
 
     val (refs, conns) = element.children.foldLeft((Seq[ModelElement](), Map[Rate, (Int, Int)]())) {
       case ((refs, conns), el @ XMLElement("stock", _, text, _)) =>
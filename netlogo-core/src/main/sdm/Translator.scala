@@ -10,7 +10,17 @@ import org.nlogo.core.{ CompilerException, LiteralParser }
  * Turns an Model into a NetLogo source fragment
  * Parse from stocks out, calculating only the dependencies.  Build a
  * concise textual explanation of the execution model as a comment in
- * Code tab. */
+ * Code tab.
+ *
+ * SYSTEM-DYNAMICS-GO steps the model forward by dt with the model's
+ * integrator: Euler's method, as always, or, for models which would
+ * otherwise need a very small dt to be accurate, the classic fourth order
+ * Runge-Kutta method, or the Dormand-Prince method, which takes as many
+ * smaller steps within each dt as it takes to keep the estimated error
+ * under SD-TOLERANCE.  The flows and variables are NetLogo reporters which
+ * can ask about anything in the world, so the stocks are set to each
+ * stage's values while the flows are found (ticks stays where it was);
+ * in between calls they always hold the values at the end of a step. */
 class Translator(model: Model, compiler: LiteralParser) {
   val stocks = new collection.mutable.ListBuffer[Stock]
   val rates = new collection.mutable.ListBuffer[Rate]
@@ -56,15 +66,34 @@ class Translator(model: Model, compiler: LiteralParser) {
     }
     // add the dt global
     globals += "  ;; size of each step, see SYSTEM-DYNAMICS-GO\n" + "  " + "dt\n"
+    if(model.integrator == Model.DormandPrince) {
+      globals += "  ;; largest error allowed in each step, relative to the stock values (or 1,\n" +
+        "  ;; when they're smaller); see SYSTEM-DYNAMICS-GO\n  sd-tolerance\n"
+      procedures += "  set sd-tolerance " + DefaultTolerance + "\n"
+    }
     globals += "]\n\n"
     procedures += "end\n\n"
-    procedures += ";; Step through the system dynamics model by performing next iteration of Euler's method.\n"
-    procedures += ";; Call this in your model's GO procedure.\n"
-    procedures += "to system-dynamics-go\n"
+    model.integrator match {
+      case Model.RK4 =>
+        procedures += ";; Step through the system dynamics model with the fourth order Runge-Kutta method.\n"
+        procedures += ";; Call this in your model's GO procedure.\n"
+        procedures += "to system-dynamics-go\n"
+        procedures += rungeKuttaStep(sortedStocks)
+      case Model.DormandPrince =>
+        procedures += ";; Step through the system dynamics model with the Dormand-Prince method, taking as\n"
+        procedures += ";; many steps in between ticks as it takes to keep each one's error under SD-TOLERANCE.\n"
+        procedures += ";; Call this in your model's GO procedure.\n"
+        procedures += "to system-dynamics-go\n"
+        procedures += dormandPrinceSteps(sortedStocks)
+      case _ =>
+        procedures += ";; Step through the system dynamics model by performing next iteration of Euler's method.\n"
+        procedures += ";; Call this in your model's GO procedure.\n"
+        procedures += "to system-dynamics-go\n"
+    }
     plots += ";; Plot the current state of the system dynamics model's stocks\n"
     plots += ";; Call this procedure in your plot's update commands.\n"
     plots += "to system-dynamics-do-plot\n"
-    if(!converters.isEmpty || !rates.isEmpty) {
+    if(model.integrator == Model.Euler && (!converters.isEmpty || !rates.isEmpty)) {
       procedures += "\n  ;; compute variable and flow values once per step\n"
       for(c <- converters)
         procedures += "  let local-" + c.name + " " + c.name + "\n"
@@ -72,17 +101,20 @@ class Translator(model: Model, compiler: LiteralParser) {
         procedures += "  let local-" + r.name + " " + r.name + "\n"
     }
     if(!stocks.isEmpty) {
-      procedures += "\n  ;; update stock values\n" +
-        "  ;; use temporary variables so order of computation doesn't affect result.\n"
+      if(model.integrator == Model.Euler)
+        procedures += "\n  ;; update stock values\n" +
+          "  ;; use temporary variables so order of computation doesn't affect result.\n"
       for(s <- sortedStocks) {
-        procedures += updateStockExpression(s)
+        if(model.integrator == Model.Euler)
+          procedures += updateStockExpression(s)
         plots += "  if plot-pen-exists? \"" + s.name + "\" [\n"
         plots += "    set-current-plot-pen \"" + s.name + "\"\n"
         plots += "    plotxy ticks " + s.name + "\n"
         plots += "  ]\n"
       }
-      for(s <- sortedStocks)
-        procedures += "  set " + s.name + " new-" + s.name + "\n"
+      if(model.integrator == Model.Euler)
+        for(s <- sortedStocks)
+          procedures += "  set " + s.name + " new-" + s.name + "\n"
     }
     procedures += "\n  tick-advance dt\nend\n\n"
     plots += "end\n\n"
@@ -93,6 +125,95 @@ class Translator(model: Model, compiler: LiteralParser) {
       procedures += procedureForConverter(c)
     globals + procedures + plots
   }
+  // the flows at each stage of a step, with the stocks set to their values at the start plus
+  // the earlier stages' changes in the given proportions, then the changes that make up the
+  // step, and how to estimate the step's error (Dormand and Prince, 1980)
+  private val DormandPrinceStages = Seq(
+    Seq(),
+    Seq(1.0 / 5),
+    Seq(3.0 / 40, 9.0 / 40),
+    Seq(44.0 / 45, -56.0 / 15, 32.0 / 9),
+    Seq(19372.0 / 6561, -25360.0 / 2187, 64448.0 / 6561, -212.0 / 729),
+    Seq(9017.0 / 3168, -355.0 / 33, 46732.0 / 5247, 49.0 / 176, -5103.0 / 18656),
+    Seq(35.0 / 384, 0.0, 500.0 / 1113, 125.0 / 192, -2187.0 / 6784, 11.0 / 84))
+  private val DormandPrinceError =
+    Seq(71.0 / 57600, 0.0, -71.0 / 16695, 71.0 / 1920, -17253.0 / 339200, 22.0 / 525, -1.0 / 40)
+  private val DefaultTolerance = "0.000001"
+
+  // how much a stage's flows change a stock
+  private def change(s: Stock, stage: Int) = {
+    var expr = "( 0 "
+    for(r <- rates) {
+      if(r.source.name == s.name)
+        expr += "- sd-k" + stage + "-" + r.name + " "
+      if(r.sink.name == s.name)
+        expr += "+ sd-k" + stage + "-" + r.name + " "
+    }
+    expr + ")"
+  }
+  private def changes(s: Stock, weights: Seq[Double]) =
+    weights.zipWithIndex.collect {
+      case (w, i) if w != 0 => " + " + w + " * " + change(s, i + 1)
+    }.mkString
+  private def nonNegative(s: Stock, expr: String) =
+    if(s.nonNegative) "max ( list 0 ( " + expr + " ) )" else expr
+  // sets the stocks to their values at the start plus the stages' changes, then finds the flows
+  private def stage(sortedStocks: Array[Stock], number: Int, weights: Seq[Double], indent: String, flow: String => String) = {
+    var code = ""
+    if(number > 1)
+      for(s <- sortedStocks)
+        code += indent + "set " + s.name + " sd-start-" + s.name + changes(s, weights) + "\n"
+    for(r <- rates)
+      code += indent + "let sd-k" + number + "-" + r.name + " " + flow(r.name) + "\n"
+    code
+  }
+
+  private def rungeKuttaStep(sortedStocks: Array[Stock]) = {
+    var code = "\n  ;; the stock values at the start of the step\n"
+    for(s <- sortedStocks)
+      code += "  let sd-start-" + s.name + " " + s.name + "\n"
+    code += "\n  ;; find the flows at the start of the step, twice halfway through, and at the end,\n" +
+      "  ;; with the stocks set to where the flows found before would have them\n"
+    val stages = Seq(Seq(), Seq(0.5), Seq(0.0, 0.5), Seq(0.0, 0.0, 1.0))
+    for((weights, i) <- stages.zipWithIndex)
+      code += stage(sortedStocks, i + 1, weights, "  ", identity)
+    if(!stocks.isEmpty) {
+      code += "\n  ;; update stock values, from a weighted average of the flows\n"
+      for(s <- sortedStocks)
+        code += "  set " + s.name + " " +
+          nonNegative(s, "sd-start-" + s.name + changes(s, Seq(1.0 / 6, 1.0 / 3, 1.0 / 3, 1.0 / 6))) + "\n"
+    }
+    code
+  }
+
+  private def dormandPrinceSteps(sortedStocks: Array[Stock]) = {
+    var code = "\n  ;; how much of dt there is left to go, and how big a step to try next\n" +
+      "  let sd-left dt\n  let sd-h dt\n  while [ sd-left > 0 ] [\n" +
+      "    if sd-h > sd-left [ set sd-h sd-left ]\n"
+    for(s <- sortedStocks)
+      code += "    let sd-start-" + s.name + " " + s.name + "\n"
+    code += "    ;; find the flows over a step of sd-h at each stage; after the last,\n" +
+      "    ;; the stocks hold their values at the end of the step\n"
+    for((weights, i) <- DormandPrinceStages.zipWithIndex)
+      code += stage(sortedStocks, i + 1, weights, "    ", _ + " * sd-h / dt")
+    code += "    ;; estimate the error, from how a fourth order step would have been different\n" +
+      "    let sd-error max ( list 0"
+    for(s <- sortedStocks)
+      code += "\n      ( abs ( 0" + changes(s, DormandPrinceError) + " ) / ( sd-tolerance * max list 1 abs " + s.name + " ) )"
+    code += " )\n"
+    code += "    ifelse sd-error <= 1 or sd-h <= dt * 0.000001 [\n" +
+      "      set sd-left sd-left - sd-h\n"
+    for(s <- sortedStocks; if s.nonNegative)
+      code += "      set " + s.name + " " + nonNegative(s, s.name) + "\n"
+    code += "    ] [\n      ;; too far off, so go back and try a smaller step\n"
+    for(s <- sortedStocks)
+      code += "      set " + s.name + " sd-start-" + s.name + "\n"
+    code += "    ]\n" +
+      "    set sd-h sd-h * ( ifelse-value sd-error = 0 [ 5 ] [ max list 0.2 min list 5 ( 0.9 * sd-error ^ -0.2 ) ] )\n" +
+      "  ]\n"
+    code
+  }
+
   private def procedureForRate(r: Rate) =
     ";; Report value of flow\n" +
       "to-report " + r.name + "\n" + "  report ( " +
@@ -3,13 +3,27 @@
 package org.nlogo.workspace
 
 import java.awt.image.BufferedImage
-import java.io.{ ByteArrayOutputStream, PrintWriter }
-import java.security.MessageDigest
+import java.io.{ BufferedOutputStream, ByteArrayOutputStream, DataOutputStream, OutputStream, PrintWriter }
+import java.security.{ DigestOutputStream, MessageDigest }
 import javax.imageio.ImageIO
 
-import org.nlogo.api.{ PreviewCommands, Workspace }
+import org.nlogo.api.{ Agent, AgentSet, Dump, Link, Patch, PreviewCommands, Turtle, World, Workspace }
+import org.nlogo.core.{ ExtensionObject, LogoList, Nobody }
 import org.nlogo.util.HexString
 
+// There are two kinds of checksums here.  The text ones, which __checksum
+// reports, are of what export-world writes, and of the exported view's
+// pixel values written one to a line.  What's written goes straight into
+// the digest, rather than into a string first.
+//
+// The binary ones are of the ticks, the random state and the agents'
+// variables, and of the view's pixels, fed to the digest in a binary form
+// without being exported or written out as text at all, so they're a good
+// deal quicker to take.  They don't cover the plots, the output area, the
+// drawing or extensions' data, though, and aren't meant to stay the same
+// from one version of NetLogo to the next.  WorldHistory uses them to find
+// where two runs diverge.
+
 object Checksummer {
   def initModelForChecksumming(workspace: Workspace, variant: String): Unit = {
     workspace.renderer.setRenderLabelsAsRectangles(true)
@@ -34,7 +48,7 @@ object Checksummer {
   }
 
   def calculateWorldChecksum(workspace: Workspace): String =
-    calculateChecksum(workspace.exportWorld, cleanExportString)
+    calculateExportChecksum(workspace.exportWorld)
 
   def exportGraphics(workspace: Workspace): Array[Byte] = {
     val stream = new ByteArrayOutputStream
@@ -49,10 +63,29 @@ object Checksummer {
   def calculateGraphicsChecksum(workspace: Workspace): String =
     calculateGraphicsChecksum(workspace.renderer.exportView(workspace))
 
+  // the same as printing each of the pixels' samples on a line of its own
+  // and taking the checksum of that
   def calculateGraphicsChecksum(image: BufferedImage): String = {
-    calculateChecksum { writer =>
-      image.getData.getPixels(0, 0, image.getWidth, image.getHeight, null: Array[Int]).foreach(writer.println)
+    val digest = newDigest()
+    val out = digestStream(digest)
+    val newline = System.lineSeparator.getBytes
+    val digits = new Array[Byte](20)
+    val raster = image.getRaster
+    val width = image.getWidth
+    val row = new Array[Int](width * raster.getNumBands)
+    var y = 0
+    while (y < image.getHeight) {
+      raster.getPixels(0, y, width, 1, row)
+      var i = 0
+      while (i < row.length) {
+        writeDecimal(out, row(i), digits)
+        out.write(newline)
+        i += 1
+      }
+      y += 1
     }
+    out.close()
+    HexString.toHexString(digest.digest)
   }
 
   // public for testing - ST 7/15/10
@@ -69,7 +102,19 @@ object Checksummer {
       transformer(outputStream.toString)
     }
 
-    HexString.toHexString(MessageDigest.getInstance("SHA").digest(output.getBytes))
+    HexString.toHexString(newDigest().digest(output.getBytes))
+  }
+
+  /** the same as calculateChecksum(fn, cleanExportString), without the string */
+  def calculateExportChecksum(fn: PrintWriter => Unit): String = {
+    val digest = newDigest()
+    val writer = new PrintWriter(new ExportDigestStream(digest))
+
+    fn(writer)
+
+    writer.close()
+
+    HexString.toHexString(digest.digest)
   }
 
   private def cleanExportString(exportStr: String): String = {
@@ -77,4 +122,228 @@ object Checksummer {
 
     norm.drop(norm.indexOf("\n\n") + 2)
   }
+
+  /// binary checksums
+
+  def calculateBinaryWorldChecksum(workspace: Workspace): String =
+    calculateBinaryChecksum(writeWorld(workspace.world, _))
+
+  def calculateBinaryGraphicsChecksum(workspace: Workspace): String =
+    calculateBinaryGraphicsChecksum(workspace.renderer.exportView(workspace))
+
+  def calculateBinaryGraphicsChecksum(image: BufferedImage): String =
+    calculateBinaryChecksum { out =>
+      val width = image.getWidth
+      out.writeInt(width)
+      out.writeInt(image.getHeight)
+      val row = new Array[Int](width)
+      var y = 0
+      while (y < image.getHeight) {
+        image.getRGB(0, y, width, 1, row, 0, width)
+        var x = 0
+        while (x < width) {
+          out.writeInt(row(x))
+          x += 1
+        }
+        y += 1
+      }
+    }
+
+  def calculateBinaryChecksum(fn: DataOutputStream => Unit): String =
+    HexString.toHexString(digestOf(newDigest())(fn))
+
+  /**
+   * A running checksum of a world, for finding out where two runs which
+   * should be the same first differ: sample both as they go (say, every
+   * tick) and compare.  Each sample covers the world as it is and all the
+   * samples before, so if the last ones agree, so did the rest.
+   */
+  class WorldHistory(world: World) {
+    private var last = Array[Byte]()
+
+    /** must be called on the job thread, or with the world locked */
+    def sample(): String = {
+      val digest = newDigest()
+      digest.update(last)
+      last = digestOf(digest)(writeWorld(world, _))
+      HexString.toHexString(last)
+    }
+  }
+
+  private def newDigest(): MessageDigest =
+    MessageDigest.getInstance("SHA")
+
+  private def digestStream(digest: MessageDigest): OutputStream =
+    new BufferedOutputStream(new DigestOutputStream(OutputStream.nullOutputStream, digest))
+
+  private def digestOf(digest: MessageDigest)(fn: DataOutputStream => Unit): Array[Byte] = {
+    val out = new DataOutputStream(digestStream(digest))
+    fn(out)
+    out.close()
+    digest.digest
+  }
+
+  private def writeWorld(world: World, out: DataOutputStream): Unit = {
+    out.writeDouble(world.ticks)
+    world.mainRNG.save(out)
+    writeAgent(world.observer, out)
+    writeAgents(world.turtles, out)
+    writeAgents(world.patches, out)
+    writeAgents(world.links, out)
+  }
+
+  private def writeAgents(agents: AgentSet, out: DataOutputStream): Unit = {
+    out.writeInt(agents.count)
+    val iter = agents.agents.iterator
+    while (iter.hasNext)
+      writeAgent(iter.next(), out)
+  }
+
+  private def writeAgent(agent: Agent, out: DataOutputStream): Unit = {
+    val count = agent.variables.length
+    out.writeInt(count)
+    var i = 0
+    while (i < count) {
+      writeValue(agent.getVariable(i), out)
+      i += 1
+    }
+  }
+
+  // each value starts with a byte saying what it is, so that, say, a list
+  // of two numbers can't come out the same as two numbers
+  private def writeValue(value: AnyRef, out: DataOutputStream): Unit =
+    value match {
+      case d: java.lang.Double =>
+        out.writeByte('D')
+        // 0 and -0 are the same number to NetLogo
+        out.writeDouble(if (d.doubleValue == 0) 0.0 else d.doubleValue)
+      case s: String =>
+        out.writeByte('S')
+        writeString(s, out)
+      case b: java.lang.Boolean =>
+        out.writeByte(if (b.booleanValue) 't' else 'f')
+      case list: LogoList =>
+        out.writeByte('L')
+        out.writeInt(list.size)
+        list.foreach(writeValue(_, out))
+      case turtle: Turtle if turtle.id != -1 =>
+        out.writeByte('T')
+        out.writeLong(turtle.id)
+      case patch: Patch =>
+        out.writeByte('P')
+        out.writeLong(patch.id)
+      case link: Link if link.id != -1 =>
+        out.writeByte('K')
+        out.writeLong(link.end1.id)
+        out.writeLong(link.end2.id)
+        writeValue(link.getBreed, out)
+      case _: Turtle | _: Link | Nobody =>
+        out.writeByte('N')
+      case set: AgentSet if set.printName != null =>
+        out.writeByte('B')
+        writeString(set.printName, out)
+      case set: AgentSet =>
+        out.writeByte('A')
+        writeString(set.kind.toString, out)
+        out.writeInt(set.count)
+        val iter = set.agents.iterator
+        while (iter.hasNext)
+          writeValue(iter.next(), out)
+      case obj: ExtensionObject =>
+        out.writeByte('X')
+        writeString(obj.getExtensionName, out)
+        writeString(obj.getNLTypeName, out)
+        writeString(obj.dump(false, false, false), out)
+      case _ =>
+        out.writeByte('O')
+        writeString(Dump.logoObject(value, true, false), out)
+    }
+
+  private def writeString(s: String, out: DataOutputStream): Unit = {
+    out.writeInt(s.length)
+    out.writeChars(s)
+  }
+
+  private def writeDecimal(out: OutputStream, n: Int, digits: Array[Byte]): Unit = {
+    if (n < 0)
+      out.write('-')
+    var rest = StrictMath.abs(n.toLong)
+    var start = digits.length - 1
+    digits(start) = ('0' + rest % 10).toByte
+    rest /= 10
+    while (rest != 0) {
+      start -= 1
+      digits(start) = ('0' + rest % 10).toByte
+      rest /= 10
+    }
+    out.write(digits, start, digits.length - start)
+  }
+
+  // feeds what's written to it to a digest, having done what
+  // cleanExportString() does on the way: turned each "\r\n" into "\n" and
+  // dropped everything through the first blank line.  this works on the
+  // bytes, not the characters, which is fine for any charset in which '\r'
+  // and '\n' are single bytes that don't turn up inside other characters,
+  // as in UTF-8 and ASCII's other descendants.
+  private class ExportDigestStream(digest: MessageDigest) extends OutputStream {
+    // what we've seen of the header; null once it's over
+    private var header = new ByteArrayOutputStream
+    private var lastWasNewline = false
+    private var pendingReturn = false
+
+    override def write(b: Int): Unit = {
+      if (pendingReturn) {
+        pendingReturn = false
+        if (b != '\n')
+          emit('\r')
+      }
+      if (b == '\r')
+        pendingReturn = true
+      else
+        emit(b)
+    }
+
+    override def write(bytes: Array[Byte], off: Int, len: Int): Unit = {
+      val end = off + len
+      var i = off
+      while (i < end) {
+        if (header == null && !pendingReturn) {
+          // the usual case: pass along everything up to the next '\r'
+          var j = i
+          while (j < end && bytes(j) != '\r')
+            j += 1
+          digest.update(bytes, i, j - i)
+          i = j
+        }
+        if (i < end) {
+          write(bytes(i).toInt)
+          i += 1
+        }
+      }
+    }
+
+    private def emit(b: Int): Unit =
+      if (header == null)
+        digest.update(b.toByte)
+      else if (b == '\n' && lastWasNewline)
+        header = null
+      else {
+        header.write(b)
+        lastWasNewline = b == '\n'
+      }
+
+    override def close(): Unit = {
+      if (pendingReturn) {
+        pendingReturn = false
+        emit('\r')
+      }
+      // with no blank line, cleanExportString() drops just the first character
+      if (header != null) {
+        val bytes = header.toByteArray
+        if (bytes.length > 1)
+          digest.update(bytes, 1, bytes.length - 1)
+        header = null
+      }
+    }
+  }
 }
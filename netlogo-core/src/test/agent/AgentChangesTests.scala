@@ -0,0 +1,63 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import org.nlogo.util.AnyFunSuiteEx
+
+class AgentChangesTests extends AnyFunSuiteEx {
+
+  def makeWorld(turtleCount: Int): World = {
+    val world = new World2D
+    world.createPatches(-5, 5, -5, 5)
+    world.realloc()
+    for (_ <- 0 until turtleCount)
+      new Turtle2D(world, world.turtles, 0.0, 0.0)
+    world
+  }
+
+  test("changes are journaled once per drain") {
+    val world = makeWorld(3)
+    val journal = world.agentChanges.journal()
+    assertResult(None)(journal.drain())
+    val turtle = world.getTurtle(1)
+    turtle.changed()
+    turtle.changed()
+    assertResult(Seq(turtle))(journal.drain().get.changed)
+    assertResult(Seq())(journal.drain().get.changed)
+    turtle.changed()
+    assertResult(Seq(turtle))(journal.drain().get.changed)
+    journal.close()
+  }
+
+  // the job thread changes agents while HubNet drains its journal on the
+  // event thread.  whatever the interleaving, an agent which changes after
+  // a drain has to be in a later one.
+  test("changing agents while draining loses none of them") {
+    val world = makeWorld(500)
+    val turtles = (0 until 500).map(world.getTurtle(_))
+    val journal = world.agentChanges.journal()
+    journal.drain()
+    @volatile var failure: Throwable = null
+    val changer = new Thread {
+      override def run(): Unit =
+        try {
+          for (_ <- 0 until 200; turtle <- turtles)
+            turtle.changed()
+        } catch {
+          case t: Throwable => failure = t
+        }
+    }
+    changer.start()
+    while (changer.isAlive) {
+      val changed = journal.drain().get.changed
+      assertResult(changed.size)(changed.distinct.size)
+    }
+    changer.join()
+    assert(failure == null, failure)
+    journal.drain()
+    turtles.foreach(_.changed())
+    assertResult(turtles.toSet)(journal.drain().get.changed.toSet)
+    journal.close()
+  }
+
+}
@@ -0,0 +1,69 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import org.nlogo.api.MersenneTwisterFast
+import org.nlogo.core.AgentKind
+import org.nlogo.util.AnyFunSuiteEx
+
+class AgentHeapTests extends AnyFunSuiteEx {
+
+  val world = new World2D
+  world.createPatches(-5, 5, -5, 5)
+  world.realloc()
+
+  val patches: Seq[Agent] = {
+    val iter = world.patches.iterator
+    val result = Seq.newBuilder[Agent]
+    while (iter.hasNext)
+      result += iter.next()
+    result.result()
+  }
+
+  def agents(set: AgentSet): Seq[Agent] = {
+    val iter = set.iterator
+    val result = Seq.newBuilder[Agent]
+    while (iter.hasNext)
+      result += iter.next()
+    result.result()
+  }
+
+  // what max-n-of and min-n-of used to do: a stable sort of everything
+  // (the values here are all whole numbers)
+  def expected(offers: Seq[(Agent, Double)], n: Int, highest: Boolean): Seq[Agent] =
+    offers.sortBy { case (_, value) => if (highest) -value.toInt else value.toInt }.take(n).map(_._1)
+
+  def winners(offers: Seq[(Agent, Double)], n: Int, highest: Boolean): Seq[Agent] = {
+    val heap = new AgentHeap(AgentKind.Patch, n, highest)
+    for ((agent, value) <- offers)
+      heap.offer(agent, value)
+    agents(heap.build())
+  }
+
+  test("matches a stable sort, ties and all") {
+    val rng = new MersenneTwisterFast(0)
+    for (trial <- 0 until 50) {
+      // few distinct values, so lots of ties
+      val offers = shuffled(rng, patches).map(agent => (agent, rng.nextInt(trial % 10 + 1).toDouble))
+      for (n <- Seq(0, 1, 2, 7, 60, patches.size); highest <- Seq(true, false))
+        assertResult(expected(offers, n, highest))(winners(offers, n, highest))
+    }
+  }
+
+  test("fewer offers than room") {
+    val offers = patches.take(3).zip(Seq(2.0, 5.0, 2.0))
+    assertResult(Seq(patches(1), patches(0), patches(2)))(winners(offers, 10, true))
+    assertResult(Seq(patches(0), patches(2), patches(1)))(winners(offers, 10, false))
+  }
+
+  def shuffled(rng: MersenneTwisterFast, xs: Seq[Agent]): Seq[Agent] = {
+    val array = xs.toArray
+    for (i <- array.length - 1 to 1 by -1) {
+      val j = rng.nextInt(i + 1)
+      val tmp = array(i)
+      array(i) = array(j)
+      array(j) = tmp
+    }
+    array.toSeq
+  }
+}
@@ -0,0 +1,82 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import org.nlogo.api.MersenneTwisterFast
+import org.nlogo.core.AgentKind
+import org.nlogo.util.AnyFunSuiteEx
+
+class ArrayAgentSetTests extends AnyFunSuiteEx {
+
+  def makeWorld(turtleCount: Int): World = {
+    val world = new World2D
+    world.createPatches(-5, 5, -5, 5)
+    world.realloc()
+    for (_ <- 0 until turtleCount)
+      new Turtle2D(world, world.turtles, 0.0, 0.0)
+    world
+  }
+
+  def agents(set: AgentSet): Seq[Agent] = {
+    val iter = set.iterator
+    val result = Seq.newBuilder[Agent]
+    while (iter.hasNext)
+      result += iter.next()
+    result.result()
+  }
+
+  def turtleSet(world: World, whos: Seq[Int]): AgentSet =
+    AgentSet.fromArray(AgentKind.Turtle, whos.map(world.getTurtle(_)).toArray)
+
+  test("counts keep up with deaths") {
+    val world = makeWorld(20)
+    val set = turtleSet(world, 0 until 20 by 2)
+    assertResult(10)(set.count)
+    world.getTurtle(4).die()
+    world.getTurtle(5).die()
+    assertResult(9)(set.count)
+    assert(set.checkCount(9, _ == _))
+    assertResult((0 until 20 by 2).filter(_ != 4).map(_.toLong))(agents(set).map(_.id))
+    for (who <- 0 until 20 by 2)
+      Option(world.getTurtle(who)).foreach(_.die())
+    assert(set.isEmpty)
+    assertResult(0)(set.count)
+  }
+
+  test("counts keep up with clear-turtles") {
+    val world = makeWorld(5)
+    val set = turtleSet(world, 0 until 5)
+    assertResult(5)(set.count)
+    world.clearTurtles()
+    assertResult(0)(set.count)
+    assert(set.toLogoList.isEmpty)
+  }
+
+  test("picking at random skips the dead") {
+    val world = makeWorld(30)
+    val set = turtleSet(world, 0 until 30)
+    for (who <- 0 until 30 by 3)
+      world.getTurtle(who).die()
+    val living = agents(set)
+    val count = set.count
+    assertResult(living.size)(count)
+    for (i <- 0 until count)
+      assert(set.randomOne(count, i) eq living(i))
+    assertResult(Seq(living(3), living(11)))(set.randomTwo(count, 3, 11).toSeq)
+    val alive = AgentSet.fromArray(AgentKind.Turtle, living.toArray)
+    assertResult(alive.randomSubsetGeneral(7, count, new MersenneTwisterFast(3)).toSeq)(
+      set.randomSubsetGeneral(7, count, new MersenneTwisterFast(3)).toSeq)
+  }
+
+  test("link counts keep up with deaths") {
+    val world = makeWorld(4)
+    val links = (1 until 4).map(i => world.linkManager.createLink(world.getTurtle(0), world.getTurtle(i), world.links))
+    val set = AgentSet.fromArray(AgentKind.Link, links.toArray)
+    assertResult(3)(set.count)
+    links(1).die()
+    assertResult(2)(set.count)
+    world.getTurtle(0).die()
+    assert(set.isEmpty)
+  }
+
+}
@@ -0,0 +1,73 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import org.nlogo.api.MersenneTwisterFast
+import org.nlogo.util.AnyFunSuiteEx
+
+class BarnesHutTests extends AnyFunSuiteEx {
+
+  def nodes(count: Int, dims: Int): (Array[Array[Double]], Array[Int]) = {
+    val random = new MersenneTwisterFast(0)
+    (Array.fill(dims, count)(random.nextDouble() * 100 - 50), Array.fill(count)(random.nextInt(5)))
+  }
+
+  // what spring2D() and spring3D() do, for nodes that aren't on top of each other
+  def exact(coords: Array[Array[Double]], degrees: Array[Int], rep: Double): Array[Array[Double]] = {
+    val forces = coords.map(xs => new Array[Double](xs.length))
+    for (i <- degrees.indices; j <- i + 1 until degrees.length) {
+      val div = StrictMath.max((degrees(i) + degrees(j)) / 2.0, 1.0)
+      val dist = StrictMath.sqrt(coords.map(xs => (xs(j) - xs(i)) * (xs(j) - xs(i))).sum)
+      val f = rep / (dist * dist) / div
+      for (d <- coords.indices) {
+        val push = -(f * (coords(d)(j) - coords(d)(i)) / dist)
+        forces(d)(i) += push
+        forces(d)(j) -= push
+      }
+    }
+    forces
+  }
+
+  def repel(coords: Array[Array[Double]], degrees: Array[Int], theta: Double, parallel: Boolean): Array[Array[Double]] = {
+    val forces = coords.map(xs => new Array[Double](xs.length))
+    BarnesHut.repel(coords, degrees, 1, theta, forces, parallel)
+    forces
+  }
+
+  for (dims <- Seq(2, 3)) {
+    test(s"theta of 0 is exact in ${dims}D") {
+      val (coords, degrees) = nodes(300, dims)
+      val expected = exact(coords, degrees, 1)
+      val actual = repel(coords, degrees, 0, false)
+      for (d <- 0 until dims; i <- degrees.indices)
+        assert(math.abs(expected(d)(i) - actual(d)(i)) <= 1e-9 * (1 + math.abs(expected(d)(i))))
+    }
+
+    test(s"approximation is close in ${dims}D") {
+      val (coords, degrees) = nodes(2000, dims)
+      val expected = exact(coords, degrees, 1)
+      val actual = repel(coords, degrees, 0.5, false)
+      def norm(forces: Array[Array[Double]], i: Int) = math.sqrt(forces.map(f => f(i) * f(i)).sum)
+      val difference = (0 until dims).map(d => expected(d).lazyZip(actual(d)).map(_ - _)).toArray
+      val error = degrees.indices.map(norm(difference, _)).sum / degrees.indices.map(norm(expected, _)).sum
+      assert(error < 0.05)
+    }
+
+    test(s"threads don't change the results in ${dims}D") {
+      val (coords, degrees) = nodes(5000, dims)
+      val sequential = repel(coords, degrees, 0.5, false)
+      val parallel = repel(coords, degrees, 0.5, true)
+      for (d <- 0 until dims)
+        assert(sequential(d).sameElements(parallel(d)))
+    }
+
+    test(s"nodes on top of each other push each other apart in ${dims}D") {
+      val coords = Array.fill(dims, 2)(3.0)
+      val forces = repel(coords, Array(0, 0), 0.5, false)
+      assert((0 until dims).exists(d => forces(d)(0) != 0))
+      for (d <- 0 until dims)
+        assertResult(-forces(d)(0))(forces(d)(1))
+    }
+  }
+
+}
@@ -0,0 +1,128 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import org.nlogo.api.MersenneTwisterFast
+import org.nlogo.core.AgentKind
+import org.nlogo.util.AnyFunSuiteEx
+
+class BitSetAgentSetTests extends AnyFunSuiteEx {
+
+  def makeWorld(turtleCount: Int): World = {
+    val world = new World2D
+    world.createPatches(-5, 5, -5, 5)
+    world.realloc()
+    for (_ <- 0 until turtleCount)
+      new Turtle2D(world, world.turtles, 0.0, 0.0)
+    world
+  }
+
+  def agents(set: AgentSet): Seq[Agent] = {
+    val iter = set.iterator
+    val result = Seq.newBuilder[Agent]
+    while (iter.hasNext)
+      result += iter.next()
+    result.result()
+  }
+
+  def shuffled(set: AgentSet): Seq[Agent] = {
+    val iter = set.shufflerator(new MersenneTwisterFast(5))
+    val result = Seq.newBuilder[Agent]
+    while (iter.hasNext)
+      result += iter.next()
+    result.result()
+  }
+
+  def filtered(source: AgentSet)(keep: Agent => Boolean): AgentSet = {
+    val filter = BitSetAgentSet.filter(source)
+    while (filter.hasNext)
+      if (keep(filter.next()))
+        filter.keep()
+    filter.result
+  }
+
+  test("filtering keeps the source's order and shuffles like an array") {
+    val world = makeWorld(200)
+    for (who <- 0 until 200 by 7)
+      world.getTurtle(who).die()
+    val evens = filtered(world.turtles)(_.id % 2 == 0)
+    assert(evens.isInstanceOf[BitSetAgentSet])
+    val expected = agents(world.turtles).filter(_.id % 2 == 0)
+    assertResult(expected)(agents(evens))
+    assertResult(expected.size)(evens.count)
+    val asArray = AgentSet.fromArray(AgentKind.Turtle, expected.toArray)
+    assertResult(shuffled(asArray))(shuffled(evens))
+    val fours = filtered(evens)(_.id % 4 == 0)
+    assertResult(expected.filter(_.id % 4 == 0))(agents(fours))
+    // patches in an arbitrary order stay in that order
+    val someOrder = agents(world.patches).reverse.toArray
+    val reversed = filtered(AgentSet.fromArray(AgentKind.Patch, someOrder))(_.id % 3 != 0)
+    assertResult(someOrder.toSeq.filter(_.id % 3 != 0))(agents(reversed))
+  }
+
+  test("agents dying afterwards are skipped but still shuffled like an array") {
+    val world = makeWorld(100)
+    val most = filtered(world.turtles)(_.id % 10 != 0)
+    val asArray = AgentSet.fromArray(AgentKind.Turtle, agents(most).toArray)
+    world.getTurtle(11).die()
+    world.getTurtle(12).die()
+    assertResult(agents(asArray))(agents(most))
+    assertResult(88)(most.count)
+    assertResult(shuffled(asArray))(shuffled(most))
+    assert(!most.contains(world.getTurtle(10)))
+    assert(most.contains(world.getTurtle(13)))
+  }
+
+  test("contains works whether or not agents sit at their ids") {
+    val world = makeWorld(80)
+    world.getTurtle(3).die()
+    val odd = filtered(world.turtles)(_.id % 2 == 1)
+    assert(odd.contains(world.getTurtle(41)))
+    assert(!odd.contains(world.getTurtle(40)))
+    val patches = filtered(world.patches)(_.id < 60)
+    assert(patches.contains(world.getPatch(59)))
+    assert(!patches.contains(world.getPatch(60)))
+  }
+
+  test("unions are combined a word at a time only when the order allows it") {
+    val world = makeWorld(100)
+    val low = filtered(world.turtles)(_.id < 60)
+    val high = filtered(world.turtles)(_.id >= 40)
+    val union = BitSetAgentSet.union(Array(low, high))
+    assertResult(agents(world.turtles))(agents(union))
+    // turtle-set puts high's agents first, which bits can't express
+    assert(BitSetAgentSet.union(Array(high, low)) == null)
+    assert(BitSetAgentSet.union(Array(low, AgentSet.fromArray(AgentKind.Turtle, agents(high).toArray))) == null)
+  }
+
+  test("random picks agree with an array of the same agents") {
+    val world = makeWorld(100)
+    world.getTurtle(30).die()
+    val sets = Seq(
+      filtered(world.patches)(p => p.id % 3 != 0 && p.id != 64),
+      filtered(world.turtles)(_.id % 2 == 0))
+    world.getTurtle(40).die()
+    for (set <- sets) {
+      assert(set.isInstanceOf[BitSetAgentSet])
+      val array = AgentSet.fromArray(set.kind, agents(set).toArray)
+      val count = array.count
+      assertResult(count)(set.count)
+      for (i <- 0 until count)
+        assertResult(array.randomOne(count, i))(set.randomOne(count, i))
+      for (i <- 1 until count)
+        assertResult(array.randomTwo(count, i - 1, i).toSeq)(set.randomTwo(count, i - 1, i).toSeq)
+      val rng1 = new MersenneTwisterFast(7)
+      val rng2 = new MersenneTwisterFast(7)
+      for (_ <- 0 until 20)
+        assertResult(agents(array.randomSubset(2, count, rng1)))(agents(set.randomSubset(2, count, rng2)))
+    }
+  }
+
+  test("sparse results are plain arrays") {
+    val world = makeWorld(500)
+    val few = filtered(world.turtles)(_.id % 100 == 0)
+    assert(few.isInstanceOf[ArrayAgentSet])
+    assertResult(Seq[Long](0, 100, 200, 300, 400))(agents(few).map(_.id))
+  }
+
+}
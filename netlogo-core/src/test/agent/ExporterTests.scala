@@ -0,0 +1,74 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import java.io.{ PrintWriter, StringWriter }
+
+import org.nlogo.core.{ Breed, ExtensionObject, LogoList, Program, WorldDimensions }
+import org.nlogo.util.AnyFunSuiteEx
+
+import scala.collection.immutable.ListMap
+
+class ExporterTests extends AnyFunSuiteEx {
+
+  // numbers itself each time it's dumped, as some extensions' objects do
+  class Numbered extends ExtensionObject {
+    def dump(readable: Boolean, exporting: Boolean, reference: Boolean): String = {
+      dumps += 1
+      dumps.toString
+    }
+    def getExtensionName = "test"
+    def getNLTypeName = "numbered"
+    def recursivelyEqual(obj: AnyRef) = obj eq this
+  }
+  var dumps = 0
+
+  def makeWorld(): World = {
+    val world = new World2D
+    world.createPatches(new WorldDimensions(-50, 50, -50, 50))
+    world.realloc()
+    world.program(Program.empty().copy(
+      breeds = ListMap("WOLVES" -> Breed("WOLVES", "WOLF", "wolves", "wolf", owns = Seq("HUNGER"))),
+      linkBreeds = ListMap("FOOS" -> Breed("FOOS", "FOO", "foos", "foo", owns = Seq("A", "B"), isLinkBreed = true))))
+    world.realloc()
+    for (i <- 0 until 5000) {
+      val turtle = world.createTurtle(if (i % 2 == 0) world.turtles else world.getBreed("WOLVES"))
+      turtle.setVariable(Turtle.VAR_LABEL, if (i % 3 == 0) "a \"quoted\" label" else LogoList(Double.box(i), "two"))
+      if (i > 0)
+        world.linkManager.createLink(world.getTurtle(i - 1), turtle, if (i % 2 == 0) world.links else world.getLinkBreed("FOOS"))
+    }
+    import scala.jdk.CollectionConverters.IterableHasAsScala
+    for ((patch, i) <- world.patches.agents.asScala.zipWithIndex)
+      patch.setVariable(Patch.VAR_PLABEL, Double.box(i * 0.5))
+    world
+  }
+
+  def exported(world: World, threshold: Int): String = {
+    val old = Exporter.parallelThreshold
+    Exporter.parallelThreshold = threshold
+    dumps = 0
+    try {
+      val out = new StringWriter
+      val writer = new PrintWriter(out)
+      world.exportWorld(writer, true)
+      writer.flush()
+      out.toString
+    }
+    finally Exporter.parallelThreshold = old
+  }
+
+  test("rows formatted in parallel come out the same") {
+    val world = makeWorld()
+    assertResult(exported(world, Int.MaxValue))(exported(world, 1))
+  }
+
+  test("extension objects are dumped one at a time, in order") {
+    val world = makeWorld()
+    world.getPatch(5000).setVariable(Patch.VAR_PLABEL, new Numbered)
+    world.getPatch(9000).setVariable(Patch.VAR_PLABEL, new Numbered)
+    val expected = exported(world, Int.MaxValue)
+    assert(expected.contains("numbered 1}}") && expected.contains("numbered 2}}"))
+    assertResult(expected)(exported(world, 1))
+  }
+
+}
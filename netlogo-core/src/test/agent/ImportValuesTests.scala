@@ -0,0 +1,32 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import org.nlogo.util.AnyFunSuiteEx
+
+class ImportValuesTests extends AnyFunSuiteEx {
+
+  test("simple values are read") {
+    assertResult(Double.box(5))(ImportValues.read("5"))
+    assertResult(Double.box(-0.5))(ImportValues.read("-.5"))
+    assertResult(Double.box(1.0E-5))(ImportValues.read("1.0E-5"))
+    assertResult("a plain string")(ImportValues.read("\"a plain string\""))
+    assertResult(java.lang.Boolean.TRUE)(ImportValues.read("true"))
+    assertResult(java.lang.Boolean.FALSE)(ImportValues.read("false"))
+  }
+
+  test("anything else is left for readFromString") {
+    for (s <- Seq("", "\"escaped \\\" quote\"", "\"", "[1 2 3]", "(turtle 5)", "{all-turtles}", "nobody",
+                  "TRUE", "1d", "Infinity", "NaN", "1e400", "9007199254740993", "1.", "--1"))
+      assertResult(null, s)(ImportValues.read(s))
+  }
+
+  test("rows are read in order") {
+    val rows = Array.tabulate(10000)(i => Array(i.toString, "\"" + i + "\"", "[" + i + "]"))
+    val values = ImportValues.read(rows, 9000)
+    assertResult(9000)(values.length)
+    for (i <- values.indices)
+      assertResult(Seq(Double.box(i), i.toString, null))(values(i).toSeq)
+  }
+
+}
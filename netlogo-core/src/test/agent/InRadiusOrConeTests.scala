@@ -0,0 +1,70 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import org.nlogo.api.MersenneTwisterFast
+import org.nlogo.core.AgentKind
+import org.nlogo.util.AnyFunSuiteEx
+
+import scala.jdk.CollectionConverters.ListHasAsScala
+
+class InRadiusOrConeTests extends AnyFunSuiteEx {
+
+  def makeWorld(xWrap: Boolean, yWrap: Boolean, turtleCount: Int, rng: MersenneTwisterFast): World2D = {
+    val world = new World2D
+    world.changeTopology(xWrap, yWrap)
+    world.createPatches(-20, 20, -15, 15)
+    world.realloc()
+    for (_ <- 0 until turtleCount) {
+      val turtle = new Turtle2D(world, world.turtles, 0.0, 0.0)
+      turtle.xandycor(-20 + 40 * rng.nextDouble(), -15 + 30 * rng.nextDouble())
+    }
+    world
+  }
+
+  def everyTurtle(world: World): Seq[Turtle] = {
+    val iter = world.turtles.iterator
+    val result = Seq.newBuilder[Turtle]
+    while (iter.hasNext)
+      result += iter.next().asInstanceOf[Turtle]
+    result.result()
+  }
+
+  // what each turtle finds with in-radius and in-cone, in order
+  def queries(world: World, sourceSet: AgentSet): Seq[Seq[Agent]] =
+    everyTurtle(world).flatMap { turtle =>
+      Seq(3.5, 7.0).flatMap { radius =>
+        Seq(
+          world.inRadiusOrCone.inRadius(turtle, sourceSet, radius, true).asScala.toSeq,
+          world.inRadiusOrCone.inRadius(turtle, sourceSet, radius, false).asScala.toSeq,
+          world.inRadiusOrCone.inCone(turtle, sourceSet, radius, 90, true).asScala.toSeq)
+      }
+    }
+
+  for (xWrap <- Seq(true, false); yWrap <- Seq(true, false)) {
+    test(s"turtle buckets don't change results or their order, wrapping: ${(xWrap, yWrap)}") {
+      val rng = new MersenneTwisterFast(1234)
+      val world = makeWorld(xWrap, yWrap, 60, rng)
+      val someTurtles = AgentSet.fromArray(AgentKind.Turtle, everyTurtle(world).filter(_.id % 3 == 0).toArray[Agent])
+      val expected = Seq(queries(world, world.turtles), queries(world, someTurtles))
+      for (cellSize <- Seq(2, 4, 7)) {
+        world.turtleBucketSize(cellSize)
+        assertResult(expected)(Seq(queries(world, world.turtles), queries(world, someTurtles)))
+      }
+      world.turtleBucketSize(0)
+    }
+  }
+
+  test("turtle buckets follow turtles as they move and die") {
+    val rng = new MersenneTwisterFast(99)
+    val world = makeWorld(true, true, 40, rng)
+    world.turtleBucketSize(3)
+    for (turtle <- everyTurtle(world))
+      turtle.xandycor(-20 + 40 * rng.nextDouble(), -15 + 30 * rng.nextDouble())
+    everyTurtle(world).take(10).foreach(_.die())
+    val withBuckets = queries(world, world.turtles)
+    world.turtleBucketSize(0)
+    assertResult(queries(world, world.turtles))(withBuckets)
+  }
+
+}
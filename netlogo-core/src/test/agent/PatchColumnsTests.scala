@@ -0,0 +1,108 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import org.nlogo.api.MersenneTwisterFast
+import org.nlogo.core.Program
+import org.nlogo.util.AnyFunSuiteEx
+
+class PatchColumnsTests extends AnyFunSuiteEx {
+
+  val Heat = Patch.LAST_PREDEFINED_VAR + 1
+
+  def makeWorld(xWrap: Boolean, yWrap: Boolean, maxPxcor: Int = 5, maxPycor: Int = 4): World2D = {
+    val world = new World2D
+    world.changeTopology(xWrap, yWrap)
+    world.createPatches(-maxPxcor - 1, maxPxcor, -maxPycor, maxPycor)
+    val program = Program.empty()
+    world.program(program.copy(patchesOwn = program.patchesOwn :+ "HEAT"))
+    world.realloc()
+    val rng = new MersenneTwisterFast(7)
+    for (i <- 0 until world.patches.count)
+      world.getPatch(i).setPatchVariable(Heat, Double.box(rng.nextInt(100).toDouble))
+    world
+  }
+
+  def heats(world: World): Seq[AnyRef] =
+    (0 until world.patches.count).map(world.getPatch(_).getPatchVariable(Heat))
+
+  // a watcher keeps diffuse away from the columns, so this is the old way
+  def boxedWorld(xWrap: Boolean, yWrap: Boolean, maxPxcor: Int = 5, maxPycor: Int = 4): World2D = {
+    val world = makeWorld(xWrap, yWrap, maxPxcor, maxPycor)
+    world.addWatcher("HEAT", new World.VariableWatcher {
+      def update(agent: Agent, variableName: String, value: Object): Unit = {}
+    })
+    world
+  }
+
+  for (xWrap <- Seq(true, false); yWrap <- Seq(true, false)) {
+    test(s"diffusing through a column gives the same values, wrapping: ${(xWrap, yWrap)}") {
+      val boxed = boxedWorld(xWrap, yWrap)
+      val columnar = makeWorld(xWrap, yWrap)
+      for (_ <- 0 until 5) {
+        boxed.diffuse(0.3, Heat)
+        columnar.diffuse(0.3, Heat)
+        boxed.diffuse4(0.6, Heat)
+        columnar.diffuse4(0.6, Heat)
+      }
+      assert(boxed.patchColumns.column(Heat) == null)
+      assert(columnar.patchColumns.column(Heat) != null)
+      assertResult(heats(boxed))(heats(columnar))
+      assertResult(boxed.getPatch(17).variables.toSeq)(columnar.getPatch(17).variables.toSeq)
+    }
+  }
+
+  test("diffusing a big world in bands gives the same values") {
+    val (maxPxcor, maxPycor) = (110, 100)
+    assert(221 * 201 >= Topology.ParallelDiffuseThreshold)
+    for (xWrap <- Seq(true, false); yWrap <- Seq(true, false)) {
+      val boxed = boxedWorld(xWrap, yWrap, maxPxcor, maxPycor)
+      val columnar = makeWorld(xWrap, yWrap, maxPxcor, maxPycor)
+      boxed.diffuse(0.7, Heat)
+      columnar.diffuse(0.7, Heat)
+      boxed.diffuse4(0.4, Heat)
+      columnar.diffuse4(0.4, Heat)
+      assertResult(heats(boxed))(heats(columnar))
+    }
+  }
+
+  test("materializing everything boxes what's stale and keeps the column") {
+    val boxed = boxedWorld(true, true)
+    val columnar = makeWorld(true, true)
+    boxed.diffuse(0.5, Heat)
+    columnar.diffuse(0.5, Heat)
+    columnar.patchColumns.materializeAll()
+    assert(columnar.patchColumns.column(Heat) != null)
+    assertResult(heats(boxed))((0 until columnar.patches.count).map(columnar.getPatch(_)._variables(Heat)))
+    columnar.diffuse(0.5, Heat)
+    boxed.diffuse(0.5, Heat)
+    assertResult(heats(boxed))(heats(columnar))
+  }
+
+  test("assigning a number keeps the column, assigning anything else drops it") {
+    val world = makeWorld(true, true)
+    world.diffuse(0.5, Heat)
+    val diffused = heats(world)
+    world.getPatch(3).setPatchVariable(Heat, Double.box(42))
+    assertResult(42.0)(world.patchColumns.column(Heat)(3))
+    assertResult(42.0)(world.getPatch(3).getPatchVariableDouble(Heat))
+    world.diffuse(0.5, Heat)
+    val rediffused = heats(world)
+    world.getPatch(5).setPatchVariable(Heat, "hot")
+    assert(world.patchColumns.column(Heat) == null)
+    assertResult(rediffused.updated(5, "hot"))(heats(world))
+    assert(diffused != rediffused)
+  }
+
+  test("clear-patches and resizing throw the columns away") {
+    val world = makeWorld(false, false)
+    world.diffuse(0.5, Heat)
+    world.clearPatches()
+    assert(world.patchColumns.column(Heat) == null)
+    assert(heats(world).forall(_ == World.Zero))
+    world.diffuse(0.5, Heat)
+    world.createPatches(-2, 2, -2, 2)
+    assert(world.patchColumns.column(Heat) == null)
+  }
+
+}
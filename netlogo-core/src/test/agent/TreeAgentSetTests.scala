@@ -0,0 +1,96 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.agent
+
+import org.nlogo.api.MersenneTwisterFast
+import org.nlogo.core.AgentKind
+import org.nlogo.util.AnyFunSuiteEx
+
+class TreeAgentSetTests extends AnyFunSuiteEx {
+
+  def makeWorld(turtleCount: Int): World = {
+    val world = new World2D
+    world.createPatches(-2, 2, -2, 2)
+    world.realloc()
+    for (_ <- 0 until turtleCount)
+      new Turtle2D(world, world.turtles, 0.0, 0.0)
+    world
+  }
+
+  def ids(set: AgentSet): Seq[Long] = {
+    val iter = set.iterator
+    val result = Seq.newBuilder[Long]
+    while (iter.hasNext)
+      result += iter.next().id
+    result.result()
+  }
+
+  test("iterates in who order even when agents are added out of order") {
+    val world = makeWorld(6)
+    val breed = new TreeAgentSet(AgentKind.Turtle, "FOOS")
+    for (who <- Seq(4, 1, 5, 0, 3))
+      breed.add(world.getTurtle(who))
+    assertResult(Seq[Long](0, 1, 3, 4, 5))(ids(breed))
+    assertResult(Seq[Long](0, 1, 3, 4, 5))(breed.toLogoList.map(_.asInstanceOf[Agent].id))
+  }
+
+  test("iterators see the agents present when they were made") {
+    val world = makeWorld(5)
+    val iter = world.turtles.iterator
+    world.getTurtle(2).die()
+    new Turtle2D(world, world.turtles, 0.0, 0.0)
+    var seen = 0
+    while (iter.hasNext) {
+      iter.next()
+      seen += 1
+    }
+    assertResult(5)(seen)
+    assertResult(Seq[Long](0, 1, 3, 4, 5))(ids(world.turtles))
+  }
+
+  test("random selection skips dead agents") {
+    val world = makeWorld(10)
+    for (who <- Seq(0, 3, 4, 9))
+      world.getTurtle(who).die()
+    assertResult(6)(world.turtles.count)
+    val expected = Seq[Long](1, 2, 5, 6, 7, 8)
+    for (i <- expected.indices)
+      assertResult(expected(i))(world.turtles.randomOne(6, i).id)
+    assertResult(Seq[Long](2, 7))(world.turtles.randomTwo(6, 1, 4).map(_.id).toSeq)
+  }
+
+  test("random subsets match a walk over the live agents") {
+    val world = makeWorld(20)
+    for (who <- 0 until 20 by 3)
+      world.getTurtle(who).die()
+    val live = ids(world.turtles)
+    val expected = {
+      val rng = new MersenneTwisterFast(42)
+      var i, j = 0
+      val result = Seq.newBuilder[Long]
+      while (j < 5) {
+        if (rng.nextInt(live.size - i) < 5 - j) {
+          result += live(i)
+          j += 1
+        }
+        i += 1
+      }
+      result.result()
+    }
+    val actual = world.turtles.randomSubsetGeneral(5, live.size, new MersenneTwisterFast(42))
+    assertResult(expected)(actual.map(_.id).toSeq)
+  }
+
+  test("getAgent and contains use the index") {
+    val world = makeWorld(3)
+    val turtle = world.getTurtle(1)
+    assert(world.turtles.contains(turtle))
+    turtle.die()
+    assert(world.getTurtle(1) == null)
+    assert(!world.turtles.contains(turtle))
+    world.turtles.clear()
+    assert(world.turtles.isEmpty)
+    assert(!world.turtles.iterator.hasNext)
+  }
+
+}
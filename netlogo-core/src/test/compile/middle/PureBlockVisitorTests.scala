@@ -0,0 +1,44 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.compile
+package middle
+
+import org.nlogo.compile.api.ReporterApp
+import org.nlogo.prim.{ _of, _with }
+import org.nlogo.util.AnyFunSuiteEx
+
+class PureBlockVisitorTests extends AnyFunSuiteEx {
+
+  val Header = "globals [glob1] turtles-own [energy] "
+
+  def compile(source: String): ReporterApp = {
+    val procdef = Scaffold(Header + "to-report __test [x] let y 5 report " + source + "\nend").head
+    procdef.accept(new PureBlockVisitor)
+    procdef.statements.stmts.last.args.head.asInstanceOf[ReporterApp]
+  }
+
+  def pureOf(source: String): Boolean =
+    compile(source).reporter.asInstanceOf[_of].pureBlock
+
+  def pureWith(source: String): Boolean =
+    compile(source).reporter.asInstanceOf[_with].pureBlock
+
+  test("variable reads and arithmetic are pure") {
+    assert(pureOf("[energy] of turtles"))
+    assert(pureOf("[energy * 2 + xcor] of turtles"))
+    assert(pureOf("[pcolor + glob1 - x / y] of turtles"))
+    assert(pureOf("[abs energy > 3 and color = red] of turtles"))
+    assert(pureWith("turtles with [energy > glob1]"))
+  }
+
+  test("randomness, other agents and side effects aren't") {
+    assert(!pureOf("[random 10] of turtles"))
+    assert(!pureOf("[energy + random-float 1] of turtles"))
+    assert(!pureOf("[count turtles-here] of turtles"))
+    assert(!pureOf("[[energy] of myself] of turtles"))
+    assert(!pureOf("[__test energy] of turtles"))
+    assert(!pureWith("turtles with [random-float 1 < 0.5]"))
+    assert(!pureWith("turtles with [any? turtles-here]"))
+  }
+
+}
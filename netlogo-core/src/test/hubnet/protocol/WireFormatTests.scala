@@ -0,0 +1,70 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.hubnet.protocol
+
+import java.io.{ ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, IOException }
+
+import org.nlogo.core.LogoList
+import org.nlogo.util.AnyFunSuiteEx
+
+class WireFormatTests extends AnyFunSuiteEx {
+
+  def roundTrip(messages: Any*): Seq[AnyRef] = {
+    val bytes = new ByteArrayOutputStream
+    WireFormat.writeHeader(bytes)
+    messages.foreach(WireFormat.write(bytes, _))
+    val in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray))
+    WireFormat.readHeader(in)
+    messages.map(_ => WireFormat.read(in))
+  }
+
+  test("messages survive the trip") {
+    val messages = Seq(
+      "NetLogo 7.0",
+      HandshakeFromClient("some user \u2202", "COMPUTER"),
+      LoginFailure("no"),
+      EnterMessage,
+      ExitMessage(null),
+      DisableView,
+      ClearOverrideMessage,
+      Text("hi", Text.MessageType.USER),
+      Text(null, Text.MessageType.CLEAR),
+      ActivityCommand("slider", Double.box(3.5)),
+      ActivityCommand("switch", Boolean.box(true)),
+      WidgetControl("a string", "monitor"),
+      // not one of the simple values, so it goes the long way
+      WidgetControl(LogoList(Double.box(1), "two"), "monitor"))
+    assertResult(messages)(roundTrip(messages*))
+  }
+
+  test("byte arrays survive the trip") {
+    val data = Array.tabulate[Byte](1000)(_.toByte)
+    roundTrip(ViewUpdate(data), AgentPerspectiveMessage(data)) match {
+      case Seq(ViewUpdate(a), AgentPerspectiveMessage(b)) =>
+        assert(a.sameElements(data))
+        assert(b.sameElements(data))
+      case other => fail(other.toString)
+    }
+  }
+
+  test("a frame can be sent more than once") {
+    val frame = WireFormat.frame(Text("to everyone", Text.MessageType.TEXT))
+    assert(WireFormat.frame(frame) eq frame)
+    assertResult(Seq.fill(3)(Text("to everyone", Text.MessageType.TEXT)))(roundTrip(frame, frame, frame))
+  }
+
+  test("anything else isn't HubNet") {
+    val in = new DataInputStream(new ByteArrayInputStream(Array[Byte](0, 0, 0, 0, 0, 0, 0, 0)))
+    intercept[IOException] { WireFormat.readHeader(in) }
+  }
+
+  test("frame lengths") {
+    assertResult(100)(WireFormat.checkLength(100))
+    assertResult(WireFormat.MaxLoginFrameLength)(
+      WireFormat.checkLength(WireFormat.MaxLoginFrameLength, WireFormat.MaxLoginFrameLength))
+    intercept[IOException] { WireFormat.checkLength(WireFormat.MaxLoginFrameLength + 1, WireFormat.MaxLoginFrameLength) }
+    intercept[IOException] { WireFormat.checkLength(WireFormat.MaxFrameLength + 1) }
+    intercept[IOException] { WireFormat.checkLength(0) }
+  }
+
+}
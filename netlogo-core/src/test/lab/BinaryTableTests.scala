@@ -0,0 +1,120 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.lab
+
+import java.io.{ File, FileInputStream, FileOutputStream, PrintWriter, StringWriter }
+import java.nio.file.Files
+
+import org.nlogo.api.{ LabPostProcessorInputFormat, LabProtocol, RefEnumeratedValueSet }
+import org.nlogo.core.{ LogoList, WorldDimensions }
+import org.nlogo.nvm.LabInterface.ProgressListener
+import org.nlogo.util.AnyFunSuiteEx
+
+class BinaryTableTests extends AnyFunSuiteEx {
+
+  val dims = new WorldDimensions(-16, 16, -16, 16)
+
+  def protocol(metrics: List[String]) =
+    LabProtocol("experiment", "", "", "", "", "", 2, true, true, "", 0, "", metrics,
+      List(new RefEnumeratedValueSet("density", List(0.25, 0.5).map(Double.box))), Nil)
+
+  // runs 1 to 4, each taking `steps` measurements
+  def runExperiment(protocol: LabProtocol, steps: Int, listeners: ProgressListener*): Unit =
+    runExperimentUntil(protocol, steps, 4, listeners*)
+
+  // picks up after protocol.runsCompleted, and is aborted after run `lastRun` if that's not the last
+  def runExperimentUntil(protocol: LabProtocol, steps: Int, lastRun: Int, listeners: ProgressListener*): Unit = {
+    listeners.foreach(_.experimentStarted())
+    for ((settings, run) <- protocol.refElements.zipWithIndex.map { case (s, i) => (s, i + 1) }
+                                                .drop(protocol.runsCompleted).takeWhile(_._2 <= lastRun)) {
+      listeners.foreach(_.runStarted(null, run, settings))
+      if (protocol.metrics.nonEmpty)
+        for (step <- 0 until steps) {
+          val values = List(Double.box(run * 1000 + step), if (step % 3 == 0) "say \"hi\"" else Double.box(step),
+                            Boolean.box(step % 2 == 0), LogoList(Double.box(step), Double.box(run)))
+          listeners.foreach(_.measurementsTaken(null, run, step, values.take(protocol.metrics.length)))
+        }
+      listeners.foreach(_.runCompleted(null, run, steps))
+    }
+    if (lastRun < protocol.countRuns)
+      listeners.foreach(_.experimentAborted())
+    else
+      listeners.foreach(_.experimentCompleted())
+  }
+
+  def withoutDate(lines: Seq[String]) = lines.patch(3, Nil, 1)
+
+  def tempFile(suffix: String): File = {
+    val file = Files.createTempFile("binary-table", suffix).toFile
+    file.deleteOnExit()
+    file
+  }
+
+  test("converts back to the table TableExporter writes") {
+    for (metrics <- Seq(List("ticks", "mood", "happy?", "xs"), Nil)) {
+      val p = protocol(metrics)
+      val table = new StringWriter
+      val binary = tempFile(".bin")
+      // enough rows for a few chunks
+      runExperiment(p, 2000, new TableExporter("model.nlogox", dims, p, new PrintWriter(table)),
+        new BinaryTableExporter("model.nlogox", dims, p, new FileOutputStream(binary)))
+      val converted = new StringWriter
+      BinaryTable.toTable(new FileInputStream(binary), new PrintWriter(converted))
+      assertResult(withoutDate(table.toString.linesIterator.toSeq))(
+        withoutDate(converted.toString.linesIterator.toSeq))
+    }
+  }
+
+  test("a resumed experiment goes on in the same file") {
+    val p = protocol(List("ticks", "mood", "happy?", "xs"))
+    val table = new StringWriter
+    runExperiment(p, 3000, new TableExporter("model.nlogox", dims, p, new PrintWriter(table)))
+    val binary = tempFile(".bin")
+    runExperimentUntil(p, 3000, 2, new BinaryTableExporter("model.nlogox", dims, p, new FileOutputStream(binary)))
+    p.runsCompleted = 2
+    runExperiment(p, 3000, new BinaryTableExporter("model.nlogox", dims, p, new FileOutputStream(binary, true)))
+    val converted = new StringWriter
+    BinaryTable.toTable(new FileInputStream(binary), new PrintWriter(converted))
+    assertResult(withoutDate(table.toString.linesIterator.toSeq))(
+      withoutDate(converted.toString.linesIterator.toSeq))
+  }
+
+  test("chunks record their ranges and column types") {
+    val p = protocol(List("ticks", "mood", "happy?"))
+    val binary = tempFile(".bin")
+    runExperiment(p, 2000, new BinaryTableExporter("model.nlogox", dims, p, new FileOutputStream(binary)))
+    val reader = new BinaryTable.Reader(new FileInputStream(binary))
+    try {
+      assertResult(Seq("density"))(reader.header.parameterNames)
+      assertResult(Seq("ticks", "mood", "happy?"))(reader.header.metricNames)
+      val chunks = reader.toList
+      assertResult(Seq(4096, 3904))(chunks.map(_.rowCount))
+      val first = chunks.head
+      assertResult((1, 3, 0, 1999))((first.minRunNumber, first.maxRunNumber, first.minStep, first.maxStep))
+      val ticks = first.column(1).asInstanceOf[BinaryTable.DoubleColumn]
+      assertResult((1000.0, 3999.0))((ticks.min, ticks.max))
+      assert(first.column(2).isInstanceOf[BinaryTable.StringColumn])
+      assert(first.column(3).isInstanceOf[BinaryTable.BooleanColumn])
+      assertResult(Exporter.dump("say \"hi\""))(first.column(2).dumped(0))
+      assertResult("1")(first.column(2).dumped(1))
+    }
+    finally reader.close()
+  }
+
+  test("stats from a binary table match stats from a table") {
+    val p = protocol(List("ticks", "mood", "happy?", "xs"))
+    val table = tempFile(".csv")
+    val binary = tempFile(".bin")
+    runExperiment(p, 50, new TableExporter("model.nlogox", dims, p, new PrintWriter(table)),
+      new BinaryTableExporter("model.nlogox", dims, p, new FileOutputStream(binary)))
+    def stats(in: LabPostProcessorInputFormat.Format): Seq[String] = {
+      val out = new StringWriter
+      new StatsExporter("model.nlogox", dims, p, new PrintWriter(out), in).process()
+      withoutDate(out.toString.linesIterator.toSeq)
+    }
+    val fromTable = stats(LabPostProcessorInputFormat.Table(table.getPath))
+    assert(fromTable.length > 50)
+    assertResult(fromTable)(stats(LabPostProcessorInputFormat.BinaryTable(binary.getPath)))
+  }
+
+}
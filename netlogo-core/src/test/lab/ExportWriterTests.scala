@@ -0,0 +1,54 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.lab
+
+import org.nlogo.nvm.LabInterface.ProgressListener
+import org.nlogo.nvm.Workspace
+import org.nlogo.util.AnyFunSuiteEx
+
+class ExportWriterTests extends AnyFunSuiteEx {
+
+  class Recorder extends ProgressListener {
+    val seen = collection.mutable.ArrayBuffer[(Int, Int)]()
+    override def measurementsTaken(w: Workspace, runNumber: Int, step: Int, values: List[AnyRef]): Unit =
+      seen += ((runNumber, step))
+  }
+
+  def events(runNumber: Int, steps: Range): Array[ProgressListener => Unit] =
+    steps.map(step => (l: ProgressListener) => l.measurementsTaken(null, runNumber, step, Nil)).toArray
+
+  test("each run's events reach every exporter in order") {
+    val (a, b) = (new Recorder, new Recorder)
+    val writer = new ExportWriter(Seq(a, b), 2)
+    val threads = (1 to 4).map { run =>
+      new Thread {
+        override def run(): Unit =
+          for (from <- 0 until 100 by 10)
+            writer.submit(events(run, from until from + 10))
+      }
+    }
+    threads.foreach(_.start())
+    threads.foreach(_.join())
+    writer.finish()
+    assertResult(a.seen)(b.seen)
+    for (run <- 1 to 4)
+      assertResult(0 until 100)(a.seen.filter(_._1 == run).map(_._2))
+  }
+
+  test("finish rethrows what an exporter threw, after draining") {
+    val recorder = new Recorder
+    val failing = new ProgressListener {
+      override def measurementsTaken(w: Workspace, runNumber: Int, step: Int, values: List[AnyRef]): Unit =
+        throw new IllegalStateException("disk full")
+    }
+    val writer = new ExportWriter(Seq(recorder, failing), 1)
+    for (run <- 1 to 5)
+      writer.submit(events(run, 0 until 3))
+    val e = intercept[IllegalStateException] { writer.finish() }
+    assertResult("disk full")(e.getMessage)
+    assertResult(Seq((1, 0)))(recorder.seen.toSeq)
+    // later events are dropped rather than blocking
+    writer.submit(events(6, 0 until 3))
+  }
+
+}
@@ -0,0 +1,95 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.log
+
+import java.io.{ File, FilenameFilter }
+import java.time.LocalDateTime
+import java.util.concurrent.CountDownLatch
+
+import scala.collection.mutable.ArrayBuffer
+
+import org.nlogo.core.LogoList
+import org.nlogo.util.AnyFunSuiteEx
+
+class AsyncLoggerTests extends AnyFunSuiteEx {
+
+  class RecordingLogger(latch: CountDownLatch = new CountDownLatch(0)) extends FileLogger {
+    val events = ArrayBuffer[(String, Map[String, Any])]()
+    var closed = false
+    val fileNameFilter = new FilenameFilter {
+      override def accept(dir: File, name: String) = false
+    }
+    override def log(event: String, eventInfo: Map[String, Any]): Unit = {
+      latch.await()
+      events += ((event, eventInfo))
+    }
+    override def close(): Unit = {
+      closed = true
+    }
+  }
+
+  test("events are written in order, with the info they'd have had") {
+    val recorder = new RecordingLogger
+    val logger = new AsyncLogger(recorder, 8, false)
+    logger.log(LogEvents.Types.start, Map("modelName" -> "Fire"))
+    for (i <- 0 until 100)
+      logger.logTurtle("created", i, "TURTLES")
+    logger.logLink("removed", 3, "LINKS", 1, 2)
+    logger.logGlobal("x", Double.box(1), Double.box(0))
+    logger.close()
+    assert(recorder.closed)
+    assertResult(103)(recorder.events.size)
+    assertResult((LogEvents.Types.start, Map("modelName" -> "Fire")))(recorder.events.head)
+    assertResult((LogEvents.Types.turtle, FileLogger.turtleInfo("created", 42, "TURTLES")))(recorder.events(43))
+    assertResult((LogEvents.Types.link, FileLogger.linkInfo("removed", 3, "LINKS", 1, 2)))(recorder.events(101))
+    assertResult((LogEvents.Types.global, FileLogger.globalInfo("x", Double.box(1), Double.box(0))))(recorder.events(102))
+    assertResult(0L)(logger.dropped)
+  }
+
+  test("events are stamped with when they were logged") {
+    var stamps = Seq[LocalDateTime]()
+    val recorder = new RecordingLogger {
+      override def log(event: String, eventInfo: Map[String, Any], timeStamp: LocalDateTime): Unit =
+        stamps :+= timeStamp
+    }
+    val before = LocalDateTime.now.withNano(0)
+    val logger = new AsyncLogger(recorder)
+    logger.logTurtle("created", 0, "TURTLES")
+    logger.close()
+    assertResult(1)(stamps.size)
+    assert(!stamps.head.isBefore(before))
+  }
+
+  test("globals are logged as they were, not as they are when written") {
+    class Thing(var name: String) {
+      override def toString = name
+    }
+    val latch = new CountDownLatch(1)
+    val recorder = new RecordingLogger(latch)
+    val logger = new AsyncLogger(recorder)
+    val thing = new Thing("turtle 3")
+    logger.logGlobal("x", LogoList(thing, Double.box(1)), thing)
+    thing.name = "turtle -1"
+    latch.countDown()
+    logger.close()
+    assertResult(Seq((LogEvents.Types.global,
+      FileLogger.globalInfo("x", LogoList("turtle 3", Double.box(1)), "turtle 3"))))(recorder.events.toSeq)
+  }
+
+  test("when full, events can be dropped and counted") {
+    val latch = new CountDownLatch(1)
+    val recorder = new RecordingLogger(latch)
+    val logger = new AsyncLogger(recorder, 4, true)
+    for (i <- 0 until 100)
+      logger.logTurtle("created", i, "TURTLES")
+    latch.countDown()
+    logger.close()
+    val dropped = logger.dropped
+    assert(dropped > 0)
+    val (turtles, others) = recorder.events.partition(_._1 == LogEvents.Types.turtle)
+    assertResult(100L)(turtles.size + dropped)
+    assert(others.forall(_._1 == LogEvents.Types.dropped))
+    assertResult(dropped)(others.map(_._2("count").asInstanceOf[Long]).sum)
+  }
+
+}
@@ -2,7 +2,7 @@
 
 package org.nlogo.headless
 
-import java.io.{ File, FileWriter, PrintWriter }
+import java.io.{ File, FileOutputStream, FileWriter, OutputStream, PrintWriter }
 
 import org.nlogo.core.WorldDimensions
 import org.nlogo.api.{ APIVersion, ExportPlotWarningAction, LabDefaultValues, LabProtocol, PlotCompilationErrorAction,
@@ -22,6 +22,7 @@ Run NetLogo using the NetLogo_Console app with the --headless command line argum
 * --experiment <name>: name of experiment to run
 * --table <path>: pathname to send table output to (or - for standard output)
 * --spreadsheet <path>: pathname to send spreadsheet output to (or - for standard output)
+* --binary-table <path>: pathname to send table output to in a compact binary form (convert it to a table with org.nlogo.lab.BinaryTable)
 * --lists <path>: pathname to send lists output to (or - for standard output), cannot be used without --table or --spreadsheet
 * --stats <path>: pathname to send statistics output to (or - for standard output)
 * --threads <number>: use this many threads to do model runs in parallel, or 1 to disable parallel runs. defaults to floor( .75 * number of processors).
@@ -123,6 +124,7 @@ See the Advanced Usage section of the BehaviorSpace documentation in the NetLogo
     var experiment: Option[String] = None
     var tableWriter: Option[PrintWriter] = None
     var spreadsheetWriter: Option[PrintWriter] = None
+    var binaryTableWriter: Option[(OutputStream, String)] = None
     var statsWriter: Option[(PrintWriter, String)] = None
     var listsWriter: Option[(PrintWriter, String)] = None
     var threads =  LabDefaultValues.getDefaultThreads
@@ -221,6 +223,11 @@ See the Advanced Usage section of the BehaviorSpace documentation in the NetLogo
           outputPath = localOut
         spreadsheetWriter = Some(path2writer(localOut))
 
+      } else if (arg == "--binary-table") {
+        requireHasNext()
+        val path = it.next()
+        binaryTableWriter = Some((new FileOutputStream(path.trim), path.trim))
+
       } else if (arg == "--lists") {
         requireHasNext()
         listsWriter = Some((path2writer(it.next()), outputPath))
@@ -261,8 +268,8 @@ See the Advanced Usage section of the BehaviorSpace documentation in the NetLogo
       die("If any of min/max-px/ycor are specified, all four must be specified.  Try --help for more information.")
     }
 
-    if (statsWriter != None && (tableWriter == None && spreadsheetWriter == None)) {
-      die("You cannot specify --stats without also specifying --table or --spreadsheet. Try --help for more information.")
+    if (statsWriter != None && (tableWriter == None && spreadsheetWriter == None && binaryTableWriter == None)) {
+      die("You cannot specify --stats without also specifying --table, --spreadsheet, or --binary-table. Try --help for more information.")
     }
 
     val dims = if (dimStrings.forall(!_.isDefined)) {
@@ -288,6 +295,7 @@ See the Advanced Usage section of the BehaviorSpace documentation in the NetLogo
     , threads
     , suppressErrors
     , updatePlots
+    , binaryTableWriter = binaryTableWriter
     ))
   }
 }
@@ -47,7 +47,10 @@ class JsonFileLogger(private val logDirectoryPath: Path) extends FileLogger {
   writer.write("[\n")
   private var first = true
 
-  override def log(event: String, eventInfo: Map[String, Any]): Unit = {
+  override def log(event: String, eventInfo: Map[String, Any]): Unit =
+    log(event, eventInfo, LocalDateTime.now)
+
+  override def log(event: String, eventInfo: Map[String, Any], timeStamp: LocalDateTime): Unit = {
     warning(classOf[Exception]) {
       if (first) {
         first = false
@@ -56,8 +59,6 @@ class JsonFileLogger(private val logDirectoryPath: Path) extends FileLogger {
         writer.write(", ")
       }
 
-      val timeStamp = LocalDateTime.now
-
       val map = Map[String, Any](
         "event"     -> event
       , "timeStamp" -> timeStamp.format(DateTimeFormats.logEntry)
@@ -96,6 +97,10 @@ class JsonFileLogger(private val logDirectoryPath: Path) extends FileLogger {
     }
   }
 
+  override def flush(): Unit = {
+    writer.flush()
+  }
+
   override def close(): Unit = {
     writer.write("]")
     writer.flush()
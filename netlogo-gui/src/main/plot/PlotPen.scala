@@ -44,6 +44,9 @@ extends PlotPenInterface with JSerializable {
 
   private var _runtimeError: Option[Exception] = None
 
+  // a var only so readObject() can make a new one
+  private var pointsBuffer = new PlotPointsBuffer
+
   hardReset()
 
   plot.addPen(this)
@@ -77,7 +80,8 @@ extends PlotPenInterface with JSerializable {
     hidden = s.hidden
   }
 
-  var points: Vector[PlotPoint] = Vector()
+  def points: PlotPoints = pointsBuffer.result
+  def points_=(points: Seq[PlotPoint]): Unit = pointsBuffer.set(points)
 
   def color = _color
   def color_=(newColor: Int): Unit = {
@@ -146,12 +150,12 @@ extends PlotPenInterface with JSerializable {
   def softReset(): Unit = {
     x = 0.0
     isDown = true
-    points = Vector()
+    pointsBuffer.clear()
     runtimeError = None
   }
 
   def plot(y: Double): Unit = {
-    if (points.nonEmpty) x += interval
+    if (pointsBuffer.nonEmpty) x += interval
     plot(x, y)
   }
 
@@ -159,13 +163,13 @@ extends PlotPenInterface with JSerializable {
     this.x = x
     // note that we add the point even if the pen is up; this may
     // seem useless but it simplifies the painting logic - ST 2/23/06
-    points = points :+ PlotPoint(x, y, isDown, color)
+    pointsBuffer.add(x, y, isDown, color)
     if (isDown) plot.perhapsGrowRanges(this, x, y)
     plot.plotListener.foreach(_.plot(x, y))
   }
 
   def plot(x: Double, y: Double, color: Int, isDown: Boolean): Unit = {
-    points = points :+ PlotPoint(x, y, isDown, color)
+    pointsBuffer.add(x, y, isDown, color)
   }
 
   // serialization is for HubNet plot mirroring
@@ -176,7 +180,7 @@ extends PlotPenInterface with JSerializable {
     out.writeBoolean(temporary)
     out.writeDouble(x)
     out.writeInt(color)
-    out.writeObject(points)
+    out.writeObject(points.toVector)
     out.writeDouble(interval)
     out.writeBoolean(isDown)
     out.writeInt(mode)
@@ -189,7 +193,8 @@ extends PlotPenInterface with JSerializable {
     temporary = in.readBoolean()
     x = in.readDouble()
     _color = in.readInt()
-    points = readPointList(in).toVector
+    pointsBuffer = new PlotPointsBuffer
+    points = readPointList(in)
     _interval = in.readDouble()
     _isDown = in.readBoolean()
     _mode = in.readInt()
@@ -10,11 +10,14 @@ import org.nlogo.core.I18N;
 import org.nlogo.api.LogoException;
 import org.nlogo.core.Syntax;
 import org.nlogo.nvm.Context;
+import org.nlogo.nvm.ParallelReporters;
 import org.nlogo.nvm.RuntimePrimitiveException;
 import org.nlogo.nvm.Reporter;
 
 public final class _countwith extends Reporter {
 
+  // set by PureBlockVisitor
+  public boolean pureBlock = false;
 
   @Override
   public Object report(Context context) throws LogoException {
@@ -27,10 +30,20 @@ public final class _countwith extends Reporter {
       throws LogoException {
     block.checkAgentSetClass(sourceSet, context);
     Context freshContext = new Context(context, sourceSet);
+    // null unless the block was evaluated for all the agents in parallel
+    Object[] results = null;
+    if (pureBlock && ParallelReporters.worthwhile(sourceSet.count())) {
+      results = ParallelReporters.evaluate(context, sourceSet,
+          ParallelReporters.agents(sourceSet.iterator()), block);
+    }
     int result = 0;
+    int i = 0;
     for (AgentIterator iter = sourceSet.iterator(); iter.hasNext();) {
       Agent tester = iter.next();
-      Object value = freshContext.evaluateReporter(tester, block);
+      Object value = results == null
+          ? freshContext.evaluateReporter(tester, block)
+          : results[i];
+      i++;
       if (!(value instanceof Boolean)) {
         throw new RuntimePrimitiveException
             (context, this, I18N.errorsJ().getN("org.nlogo.prim.$common.expectedBooleanValue",
@@ -44,6 +44,15 @@ public final class _nsum4 extends Reporter {
       patch = (Patch) context.agent;
     }
     double sum = 0;
+    // diffuse keeps numeric patch variables in a double array, so
+    // there's nothing to check or unbox
+    double[] column = world.patchColumns().column(vn);
+    if (column != null) {
+      for (AgentIterator it = patch.getNeighbors4().iterator(); it.hasNext();) {
+        sum += column[(int) it.next().id()];
+      }
+      return validDouble(sum, context);
+    }
     for (AgentIterator it = patch.getNeighbors4().iterator(); it.hasNext();) {
       Object value = ((Patch) it.next()).getPatchVariable(vn);
       if (!(value instanceof Double)) {
@@ -10,12 +10,15 @@ import org.nlogo.api.LogoException;
 import org.nlogo.api.LogoListBuilder;
 import org.nlogo.core.Syntax;
 import org.nlogo.nvm.Context;
+import org.nlogo.nvm.ParallelReporters;
 import org.nlogo.nvm.RuntimePrimitiveException;
 import org.nlogo.nvm.Reporter;
 
 public final class _of
     extends Reporter {
 
+  // set by PureBlockVisitor
+  public boolean pureBlock = false;
 
   @Override
   public Object report(final Context context) throws LogoException {
@@ -33,9 +36,19 @@ public final class _of
       LogoListBuilder result = new LogoListBuilder();
       Context freshContext = new Context(context, sourceSet);
       args[0].checkAgentSetClass(sourceSet, context);
-      for (AgentIterator iter = sourceSet.shufflerator(context.job.random);
-           iter.hasNext();) {
-        result.add(freshContext.evaluateReporter(iter.next(), args[0]));
+      AgentIterator iter = sourceSet.shufflerator(context.job.random);
+      if (pureBlock && ParallelReporters.worthwhile(sourceSet.count())) {
+        Agent[] agents = ParallelReporters.agents(iter);
+        Object[] results = ParallelReporters.evaluate(context, sourceSet, agents, args[0]);
+        for (int i = 0; i < agents.length; i++) {
+          result.add(results == null
+              ? freshContext.evaluateReporter(agents[i], args[0])
+              : results[i]);
+        }
+      } else {
+        while (iter.hasNext()) {
+          result.add(freshContext.evaluateReporter(iter.next(), args[0]));
+        }
       }
       return result.toLogoList();
     } else {
@@ -3,9 +3,9 @@
 package org.nlogo.prim;
 
 import org.nlogo.agent.Agent;
-import org.nlogo.agent.AgentIterator;
 import org.nlogo.agent.AgentSet;
-import org.nlogo.agent.AgentSetBuilder;
+import org.nlogo.agent.AgentSetFilter;
+import org.nlogo.agent.BitSetAgentSet;
 import org.nlogo.api.LogoException;
 import org.nlogo.core.Syntax;
 import org.nlogo.nvm.Context;
@@ -23,13 +23,13 @@ public final class _other
   }
 
   public AgentSet report_1(final Context context, AgentSet sourceSet) {
-    AgentSetBuilder result = new AgentSetBuilder(sourceSet.kind(), sourceSet.count());
-    for (AgentIterator it = sourceSet.iterator(); it.hasNext();) {
-      Agent otherAgent = it.next();
+    AgentSetFilter filter = BitSetAgentSet.filter(sourceSet);
+    while (filter.hasNext()) {
+      Agent otherAgent = filter.next();
       if (context.agent != otherAgent) {
-        result.add(otherAgent);
+        filter.keep();
       }
     }
-    return result.build();
+    return filter.result();
   }
 }
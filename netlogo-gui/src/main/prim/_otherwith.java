@@ -3,8 +3,9 @@
 package org.nlogo.prim;
 
 import org.nlogo.agent.Agent;
-import org.nlogo.agent.AgentIterator;
 import org.nlogo.agent.AgentSet;
+import org.nlogo.agent.AgentSetFilter;
+import org.nlogo.agent.BitSetAgentSet;
 import org.nlogo.api.Dump;
 import org.nlogo.core.I18N;
 import org.nlogo.api.LogoException;
@@ -13,9 +14,6 @@ import org.nlogo.nvm.Context;
 import org.nlogo.nvm.RuntimePrimitiveException;
 import org.nlogo.nvm.Reporter;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class _otherwith
     extends Reporter {
 
@@ -30,10 +28,10 @@ public final class _otherwith
   public AgentSet report_1(final Context context, AgentSet sourceSet, Reporter reporterBlock)
       throws LogoException {
     Context freshContext = new Context(context, sourceSet);
-    List<Agent> result = new ArrayList<Agent>();
     reporterBlock.checkAgentSetClass(sourceSet, context);
-    for (AgentIterator iter = sourceSet.iterator(); iter.hasNext();) {
-      Agent tester = iter.next();
+    AgentSetFilter filter = BitSetAgentSet.filter(sourceSet);
+    while (filter.hasNext()) {
+      Agent tester = filter.next();
       if (tester == context.agent) {
         continue;
       }
@@ -44,9 +42,9 @@ public final class _otherwith
                 displayName(), Dump.logoObject(tester), Dump.logoObject(value)));
       }
       if (((Boolean) value).booleanValue()) {
-        result.add(tester);
+        filter.keep();
       }
     }
-    return AgentSet.fromArray(sourceSet.kind(), result.toArray(new Agent[result.size()]));
+    return filter.result();
   }
 }
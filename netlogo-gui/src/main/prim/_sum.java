@@ -21,6 +21,12 @@ public final class _sum extends Reporter implements Pure {
 
   public double report_1(Context context, LogoList l0) throws LogoException {
     double sum = 0;
+    if (l0.isNumeric()) {
+      for (int i = 0; i < l0.size(); i++) {
+        sum += l0.doubleAt(i);
+      }
+      return validDouble(sum, context);
+    }
     for (Iterator<Object> it = l0.javaIterator(); it.hasNext();) {
       Object elt = it.next();
       if (elt instanceof Double) {
@@ -3,22 +3,23 @@
 package org.nlogo.prim;
 
 import org.nlogo.agent.Agent;
-import org.nlogo.agent.AgentIterator;
 import org.nlogo.agent.AgentSet;
+import org.nlogo.agent.AgentSetFilter;
+import org.nlogo.agent.BitSetAgentSet;
 import org.nlogo.api.Dump;
 import org.nlogo.core.I18N;
 import org.nlogo.api.LogoException;
 import org.nlogo.core.Syntax;
 import org.nlogo.nvm.Context;
+import org.nlogo.nvm.ParallelReporters;
 import org.nlogo.nvm.RuntimePrimitiveException;
 import org.nlogo.nvm.Reporter;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public final class _with
     extends Reporter {
 
+  // set by PureBlockVisitor
+  public boolean pureBlock = false;
 
   @Override
   public Object report(final Context context)
@@ -30,20 +31,30 @@ public final class _with
   public AgentSet report_1(final Context context, AgentSet sourceSet, Reporter reporterBlock)
       throws LogoException {
     Context freshContext = new Context(context, sourceSet);
-    List<Agent> result = new ArrayList<Agent>();
     reporterBlock.checkAgentSetClass(sourceSet, context);
-    for (AgentIterator iter = sourceSet.iterator(); iter.hasNext();) {
-      Agent tester = iter.next();
-      Object value = freshContext.evaluateReporter(tester, reporterBlock);
+    // null unless the block was evaluated for all the agents in parallel
+    Object[] results = null;
+    if (pureBlock && ParallelReporters.worthwhile(sourceSet.count())) {
+      results = ParallelReporters.evaluate(context, sourceSet,
+          ParallelReporters.agents(BitSetAgentSet.filter(sourceSet)), reporterBlock);
+    }
+    AgentSetFilter filter = BitSetAgentSet.filter(sourceSet);
+    int i = 0;
+    while (filter.hasNext()) {
+      Agent tester = filter.next();
+      Object value = results == null
+          ? freshContext.evaluateReporter(tester, reporterBlock)
+          : results[i];
+      i++;
       if (!(value instanceof Boolean)) {
         throw new RuntimePrimitiveException
             (context, this, I18N.errorsJ().getN("org.nlogo.prim.$common.expectedBooleanValue",
                 displayName(), Dump.logoObject(tester), Dump.logoObject(value)));
       }
       if (((Boolean) value).booleanValue()) {
-        result.add(tester);
+        filter.keep();
       }
     }
-    return AgentSet.fromArray(sourceSet.kind(), result.toArray(new Agent[result.size()]));
+    return filter.result();
   }
 }
@@ -11,25 +11,28 @@ import org.nlogo.nvm.Context;
 import org.nlogo.nvm.RuntimePrimitiveException;
 import org.nlogo.nvm.Reporter;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.Arrays;
 
 public final class _median extends Reporter implements org.nlogo.core.Pure {
   @Override
   public Object report(final Context context) throws LogoException {
     LogoList list = argEvalList(context, 0);
-    int badElts = 0;
-    List<Double> nums = new ArrayList<Double>(list.size());
-    for (Object elt : list.javaIterable()) {
-      if (!(elt instanceof Double)) {
-        ++badElts;
-        continue;
+    int listSize = list.size();
+    // sorting unboxed doubles orders them the same way sorting Doubles does
+    double[] nums = new double[listSize];
+    int count = 0;
+    if (list.isNumeric()) {
+      for (; count < listSize; count++) {
+        nums[count] = list.doubleAt(count);
+      }
+    } else {
+      for (Object elt : list.javaIterable()) {
+        if (elt instanceof Double) {
+          nums[count++] = ((Double) elt).doubleValue();
+        }
       }
-      nums.add((Double) elt);
     }
-    int listSize = list.size();
-    if (listSize == badElts) {
+    if (count == 0) {
       throw new RuntimePrimitiveException(
         context,
         this,
@@ -39,13 +42,13 @@ public final class _median extends Reporter implements org.nlogo.core.Pure {
         )
       );
     }
-    Collections.sort(nums);
-    int medianPos = (listSize - badElts) / 2;
-    if ((listSize - badElts) % 2 == 1) {
-      return nums.get(medianPos);
+    Arrays.sort(nums, 0, count);
+    int medianPos = count / 2;
+    if (count % 2 == 1) {
+      return Double.valueOf(nums[medianPos]);
     }
-    Double middle1 = nums.get(medianPos - 1);
-    Double middle2 = nums.get(medianPos);
-    return newValidDouble(middle1.doubleValue() / 2 + middle2.doubleValue() / 2, context);
+    double middle1 = nums[medianPos - 1];
+    double middle2 = nums[medianPos];
+    return newValidDouble(middle1 / 2 + middle2 / 2, context);
   }
 }
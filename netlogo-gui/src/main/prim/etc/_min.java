@@ -21,6 +21,16 @@ public final class _min extends Reporter implements Pure {
   }
 
   public double report_1(Context context, LogoList list) throws LogoException {
+    if (list.isNumeric()) {
+      double winner = list.doubleAt(0);
+      for (int i = 1; i < list.size(); i++) {
+        double value = list.doubleAt(i);
+        if (value < winner) {
+          winner = value;
+        }
+      }
+      return winner;
+    }
     double winner = 0;
     Double boxedWinner = null;
     for (Object elt : list.javaIterable()) {
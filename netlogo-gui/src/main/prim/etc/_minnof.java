@@ -2,20 +2,15 @@
 
 package org.nlogo.prim.etc;
 
-import org.nlogo.agent.Agent;
+import org.nlogo.agent.AgentHeap;
 import org.nlogo.agent.AgentIterator;
 import org.nlogo.agent.AgentSet;
-import org.nlogo.agent.AgentSetBuilder;
 import org.nlogo.core.I18N;
 import org.nlogo.api.LogoException;
 import org.nlogo.core.Syntax;
 import org.nlogo.nvm.RuntimePrimitiveException;
 import org.nlogo.nvm.Reporter;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.TreeMap;
-
 public final class _minnof
     extends Reporter {
 
@@ -34,37 +29,17 @@ public final class _minnof
           I18N.errorsJ().getN("org.nlogo.prim.etc.$common.notThatManyAgentsExist", n, count));
     }
     args[2].checkAgentSetClass(sourceSet, context);
-    TreeMap<Object, LinkedList<Agent>> resultAgents =
-        new TreeMap<Object, LinkedList<Agent>>();
-
+    AgentHeap winners = new AgentHeap(sourceSet.kind(), n, false);
     org.nlogo.nvm.Context freshContext =
         new org.nlogo.nvm.Context(context, sourceSet);
     for (AgentIterator iter = sourceSet.shufflerator(context.job.random);
          iter.hasNext();) {
       org.nlogo.agent.Agent tester = iter.next();
       Object result = freshContext.evaluateReporter(tester, args[2]);
-      if (!(result instanceof Double)) {
-        continue;
-      }
-      LinkedList<Agent> resultList = resultAgents.get(result);
-      if (resultList == null) {
-        resultList = new LinkedList<Agent>();
-        resultAgents.put(result, resultList);
-      }
-      resultList.add(tester);
-    }
-
-    AgentSetBuilder resultSet = new AgentSetBuilder(sourceSet.kind(), n);
-
-    for (Iterator<LinkedList<Agent>> iter = resultAgents.values().iterator();
-         n > 0 && iter.hasNext();) {
-      LinkedList<Agent> list = iter.next();
-      for (Iterator<Agent> iter2 = list.iterator(); n > 0 && iter2.hasNext();) {
-        resultSet.add(iter2.next());
-        n--;
+      if (result instanceof Double) {
+        winners.offer(tester, ((Double) result).doubleValue());
       }
     }
-
-    return resultSet.build();
+    return winners.build();
   }
 }
@@ -13,6 +13,7 @@ import org.nlogo.core.Pure;
 import org.nlogo.nvm.Reporter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 
@@ -33,6 +34,14 @@ public final class _sort
       return ((AgentSet) obj).toLogoList();
     } else if (obj instanceof LogoList) {
       LogoList input = (LogoList) obj;
+      if (input.isNumeric()) {
+        double[] sorted = new double[input.size()];
+        for (int i = 0; i < sorted.length; i++) {
+          sorted[i] = input.doubleAt(i);
+        }
+        Arrays.sort(sorted);
+        return LogoList.fromDoubles(sorted);
+      }
       ArrayList<Double> numbers = new ArrayList<Double>();
       ArrayList<String> strings = new ArrayList<String>();
       ArrayList<Agent> agents = new ArrayList<Agent>();
@@ -23,6 +23,19 @@ public final class _standarddeviation extends Reporter implements Pure {
   }
 
   public double report_1(Context context, LogoList list) throws LogoException {
+    if (list.isNumeric() && list.size() > 1) {
+      int count = list.size();
+      double sum = 0;
+      for (int i = 0; i < count; i++) {
+        sum += list.doubleAt(i);
+      }
+      double mean = sum / count;
+      double squareOfDifference = 0;
+      for (int i = 0; i < count; i++) {
+        squareOfDifference += StrictMath.pow(list.doubleAt(i) - mean, 2);
+      }
+      return validDouble(StrictMath.sqrt(squareOfDifference / (count - 1)), context);
+    }
     int listSize = list.size();
     double sum = 0, badElts = 0;
     for (Iterator<Object> it = list.javaIterator(); it.hasNext();) {
@@ -5,6 +5,7 @@ package org.nlogo.prim.etc;
 import org.nlogo.agent.AgentIterator;
 import org.nlogo.core.*;
 import org.nlogo.agent.AgentSet;
+import org.nlogo.agent.BitSetAgentSet;
 import org.nlogo.agent.Turtle;
 import org.nlogo.api.Dump;
 import org.nlogo.api.LogoException;
@@ -26,8 +27,19 @@ public final class _turtleset
       throws LogoException {
     LinkedHashSet<Turtle> resultSet =
         new LinkedHashSet<Turtle>();
+    // while every input is a BitSetAgentSet, hold off in case we can
+    // combine them a word at a time
+    AgentSet[] bitSets = new AgentSet[args.length];
     for (int i = 0; i < args.length; i++) {
       Object elt = args[i].report(context);
+      if (bitSets != null) {
+        if (elt instanceof BitSetAgentSet && ((AgentSet) elt).kind() == AgentKindJ.Turtle()) {
+          bitSets[i] = (AgentSet) elt;
+          continue;
+        }
+        addAll(bitSets, i, resultSet);
+        bitSets = null;
+      }
       if (elt instanceof AgentSet) {
         AgentSet tempSet = (AgentSet) elt;
         if (tempSet.kind() != AgentKindJ.Turtle()) {
@@ -46,9 +58,24 @@ public final class _turtleset
             (context, this, i, Syntax.TurtleType() | Syntax.TurtlesetType(), elt);
       }
     }
+    if (bitSets != null) {
+      AgentSet union = BitSetAgentSet.union(bitSets);
+      if (union != null) {
+        return union;
+      }
+      addAll(bitSets, args.length, resultSet);
+    }
     return AgentSet.fromArray(AgentKindJ.Turtle(), resultSet.toArray(new Turtle[resultSet.size()]));
   }
 
+  private static void addAll(AgentSet[] sets, int count, Set<Turtle> result) {
+    for (int i = 0; i < count; i++) {
+      for (AgentIterator iter = sets[i].iterator(); iter.hasNext();) {
+        result.add((Turtle) iter.next());
+      }
+    }
+  }
+
   private void descendList(Context context, LogoList tempList, Set<Turtle> result)
       throws LogoException {
     for (Iterator<Object> iter = tempList.javaIterator();
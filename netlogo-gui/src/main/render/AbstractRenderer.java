@@ -61,7 +61,7 @@ public abstract class AbstractRenderer
   public final org.nlogo.api.World world;
   public final LinkDrawer linkDrawer;
   public final TurtleDrawer turtleDrawer;
-  private final TrailDrawer _trailDrawer;
+  final TrailDrawer _trailDrawer;
 
   public TrailDrawerInterface trailDrawer() {
     return _trailDrawer;
@@ -142,13 +142,7 @@ public abstract class AbstractRenderer
     // now paint turtles & labels
     topology.fillBackground(g);
     paintPatches(g, settings.patchSize());
-    // Since the drawing scales when we zoom, even drawing a blank
-    // gets expensive very fast. -- 10/06/05 CLB
-    // but for some reason on Windows some models run a lot
-    // faster on some machines if we uselessly draw the blank
-    // layer -- go figure! it's only worth doing if there
-    // are turtles though - ST 11/23/05
-    if (!_trailDrawer.drawingBlank || (WINDOWS && anyTurtles() && settings.workspaceContext().workspaceGUI())) {
+    if (shouldPaintDrawing(_trailDrawer.drawingBlank, anyTurtles(), settings)) {
       topology.paintViewImage
           (g, _trailDrawer.getAndCreateDrawing(false));
     }
@@ -163,18 +157,33 @@ public abstract class AbstractRenderer
     }
   }
 
+  // Since the drawing scales when we zoom, even drawing a blank
+  // gets expensive very fast. -- 10/06/05 CLB
+  // but for some reason on Windows some models run a lot
+  // faster on some machines if we uselessly draw the blank
+  // layer -- go figure! it's only worth doing if there
+  // are turtles though - ST 11/23/05
+  boolean shouldPaintDrawing(boolean drawingBlank, boolean anyTurtles, ViewSettings settings) {
+    return !drawingBlank || (WINDOWS && anyTurtles && settings.workspaceContext().workspaceGUI());
+  }
+
   private void paintPatches(GraphicsInterface g, double patchSize) {
+    paintPatchColors(g, world.patchesAllBlack() ? null : world.patchColors());
+    paintPatchLabels(g, patchSize);
+  }
+
+  // colors is null if the patches are all black
+  void paintPatchColors(GraphicsInterface g, int[] colors) {
     g.antiAliasing(false);
     // first draw the patch colors
-    if (world.patchesAllBlack()) {
+    if (colors == null) {
       topology.paintAllPatchesBlack(g);
     } else {
-      setUpPatchImage();
+      setUpPatchImage(colors);
       topology.paintViewImage(g, patchImage);
     }
     // turn on anti-aliasing
     g.antiAliasing(true);
-    paintPatchLabels(g, patchSize);
   }
 
   private int[] patchColors;
@@ -185,9 +194,9 @@ public abstract class AbstractRenderer
       new java.awt.image.DirectColorModel
           (32, 0xff << 16, 0xff << 8, 0xff);
 
-  private void setUpPatchImage() {
-    if (patchColors != world.patchColors()) {
-      patchColors = world.patchColors();
+  private void setUpPatchImage(int[] colors) {
+    if (patchColors != colors) {
+      patchColors = colors;
       patchImage = new java.awt.image.BufferedImage
           (COLOR_MODEL,
               java.awt.image.Raster.createWritableRaster
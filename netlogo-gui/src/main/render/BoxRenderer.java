@@ -51,7 +51,7 @@ public class BoxRenderer extends AbstractTopologyRenderer {
   }
 
   @Override
-  public void drawLink(GraphicsInterface g, org.nlogo.api.Link link, LinkDrawer.LinkDrawable drawable,
+  public void drawLink(GraphicsInterface g, org.nlogo.api.DrawableLink link, LinkDrawer.LinkDrawable drawable,
                        double patchSize, java.awt.Color color, double lineThickness) {
     int lineWidth = (int) StrictMath.max(1, (lineThickness * patchSize));
 
@@ -92,7 +92,7 @@ public class HorizCylinderRenderer extends AbstractTopologyRenderer {
   }
 
   @Override
-  public void drawLink(GraphicsInterface g, org.nlogo.api.Link link, LinkDrawer.LinkDrawable drawable,
+  public void drawLink(GraphicsInterface g, org.nlogo.api.DrawableLink link, LinkDrawer.LinkDrawable drawable,
                        double patchSize, java.awt.Color color, double lineThickness) {
     double x1 = graphicsX(link.x1(), patchSize);
     double y1 = graphicsY(link.y1(), patchSize);
@@ -12,7 +12,7 @@ public class LinkDrawer {
     this.linkShapeTracker = linkShapeTracker;
   }
 
-  public void drawLink(GraphicsInterface g, TopologyRenderer topology, org.nlogo.api.Link link,
+  public void drawLink(GraphicsInterface g, TopologyRenderer topology, org.nlogo.api.DrawableLink link,
                        double patchSize, boolean outline) {
     if (!link.hidden()) {
       if (link.size() > 0) {
@@ -29,13 +29,13 @@ public class LinkDrawer {
     }
   }
 
-  void drawLink(GraphicsInterface g, TopologyRenderer topology, org.nlogo.api.Link link,
+  void drawLink(GraphicsInterface g, TopologyRenderer topology, org.nlogo.api.DrawableLink link,
                 double patchSize) {
     topology.drawLink(g, link, getLinkDrawable(link), patchSize,
         org.nlogo.api.Color.getColor(link.color()), link.lineThickness());
   }
 
-  private void drawLinkWithOutline(GraphicsInterface g, TopologyRenderer topology, org.nlogo.api.Link link,
+  private void drawLinkWithOutline(GraphicsInterface g, TopologyRenderer topology, org.nlogo.api.DrawableLink link,
                                    double patchSize) {
     LinkDrawable drawer = getLinkDrawable(link);
     double lineThickness = link.lineThickness();
@@ -46,7 +46,7 @@ public class LinkDrawer {
     topology.drawLink(g, link, drawer, patchSize, color, lineThickness);
   }
 
-  private LinkDrawable getLinkDrawable(org.nlogo.api.Link link) {
+  private LinkDrawable getLinkDrawable(org.nlogo.api.DrawableLink link) {
     LinkShape shape = (LinkShape) linkShapeTracker.shapeList().shape(link.shape());
 
     if (shape.isTooSimpleToPaint() && !link.isDirectedLink()) {
@@ -58,14 +58,14 @@ public class LinkDrawer {
     }
   }
 
-  private void drawLinkLabel(GraphicsInterface g, TopologyRenderer topology, org.nlogo.api.Link link, double patchSize) {
+  private void drawLinkLabel(GraphicsInterface g, TopologyRenderer topology, org.nlogo.api.DrawableLink link, double patchSize) {
     double midx = labelX(link, topology);
     double midy = labelY(link, topology);
 
     topology.drawLabelHelper(g, midx, midy, link.labelString(), link.labelColor(), patchSize, 1);
   }
 
-  private double labelX(org.nlogo.api.Link link, TopologyRenderer topology) {
+  private double labelX(org.nlogo.api.DrawableLink link, TopologyRenderer topology) {
     if (!link.isDirectedLink()) {
       return link.midpointX() - 0.5;
     } else {
@@ -73,7 +73,7 @@ public class LinkDrawer {
     }
   }
 
-  private double labelY(org.nlogo.api.Link link, TopologyRenderer topology) {
+  private double labelY(org.nlogo.api.DrawableLink link, TopologyRenderer topology) {
     if (!link.isDirectedLink()) {
       return link.midpointY() + 0.5;
     } else {
@@ -81,14 +81,14 @@ public class LinkDrawer {
     }
   }
 
-  private double pointBetweenMidpointAndEnd2X(org.nlogo.api.Link link, TopologyRenderer topology, double c) {
+  private double pointBetweenMidpointAndEnd2X(org.nlogo.api.DrawableLink link, TopologyRenderer topology, double c) {
     double x1 = (link.x1() + link.x2()) / 2;
     double x2 = link.x2() - StrictMath.sin(StrictMath.toRadians(link.heading())) * (link.linkDestinationSize() - 1);
     double xdiff = x1 - x2;
     return topology.wrapX(x1 - (xdiff * c));
   }
 
-  private double pointBetweenMidpointAndEnd2Y(org.nlogo.api.Link link, TopologyRenderer topology, double c) {
+  private double pointBetweenMidpointAndEnd2Y(org.nlogo.api.DrawableLink link, TopologyRenderer topology, double c) {
     double y1 = (link.y1() + link.y2()) / 2;
     double y2 = link.y2() - StrictMath.cos(StrictMath.toRadians(link.heading())) * (link.linkDestinationSize() - 1);
     double ydiff = y1 - y2;
@@ -96,14 +96,14 @@ public class LinkDrawer {
   }
 
   public interface LinkDrawable {
-    void draw(GraphicsInterface g, org.nlogo.api.Link link, java.awt.Color color,
+    void draw(GraphicsInterface g, org.nlogo.api.DrawableLink link, java.awt.Color color,
               double x1, double y1, double x2, double y2,
               double patchSize, double lineThickness);
   }
 
   private class LineDrawer
       implements LinkDrawable {
-    public void draw(GraphicsInterface g, org.nlogo.api.Link link, java.awt.Color color,
+    public void draw(GraphicsInterface g, org.nlogo.api.DrawableLink link, java.awt.Color color,
                      double x1, double y1, double x2, double y2,
                      double patchSize, double lineThickness) {
       g.drawLine(x1, y1, x2, y2);
@@ -118,7 +118,7 @@ public class LinkDrawer {
       this.shape = shape;
     }
 
-    public void draw(GraphicsInterface g, org.nlogo.api.Link link, java.awt.Color color,
+    public void draw(GraphicsInterface g, org.nlogo.api.DrawableLink link, java.awt.Color color,
                      double x1, double y1, double x2, double y2,
                      double patchSize, double lineThickness) {
       g.drawLine(x1, y1, x2, y2);
@@ -137,7 +137,7 @@ public class LinkDrawer {
       this.shape = shape;
     }
 
-    public void draw(GraphicsInterface g, org.nlogo.api.Link link, java.awt.Color color,
+    public void draw(GraphicsInterface g, org.nlogo.api.DrawableLink link, java.awt.Color color,
                      double x1, double y1, double x2, double y2,
                      double patchSize, double lineThickness) {
       shape.paint(g, color, x1, y1, x2, y2,
@@ -0,0 +1,383 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.render;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.nlogo.api.Agent;
+import org.nlogo.api.AgentSet;
+import org.nlogo.api.DrawableLink;
+import org.nlogo.api.DrawableTurtle;
+import org.nlogo.api.Link;
+import org.nlogo.api.Patch;
+import org.nlogo.api.Perspective;
+import org.nlogo.api.Turtle;
+import org.nlogo.api.ViewSettings;
+import org.nlogo.api.World;
+import org.nlogo.api.WorkspaceContext;
+import org.nlogo.core.AgentKindJ;
+
+/**
+ * What the view showed at one moment, copied out of the world so that it can
+ * be painted without locking the world, while the job thread goes on
+ * changing it.  See Renderer.takeSnapshot().
+ *
+ * Only what's visible is kept, packed into arrays, in the order it's
+ * painted.  Colors and labels are kept as the agents' own values, which
+ * can't change under us (Doubles, LogoLists, Strings).  The drawing layer
+ * isn't copied, since it's just a bitmap which the job thread draws into a
+ * line at a time; at worst a pen line shows up a frame early.
+ */
+final class RenderFrame {
+
+  // the world's shape when the frame was taken, so that we don't paint a
+  // frame from before a resize-world after it
+  private final int minPxcor, maxPxcor, minPycor, maxPycor;
+  private final double worldPatchSize;
+
+  // the settings that depend on the observer
+  final Perspective perspective;
+  final double viewOffsetX;
+  final double viewOffsetY;
+
+  // null if all the patches are black
+  final int[] patchColors;
+
+  final int patchLabelCount;
+  final int[] patchLabelX;
+  final int[] patchLabelY;
+  final String[] patchLabels;
+  final Object[] patchLabelColors;
+
+  final java.awt.image.BufferedImage drawing;
+  final boolean drawingBlank;
+
+  final int turtleCount;
+  private final double[] turtleX;
+  private final double[] turtleY;
+  private final double[] turtleHeading;
+  private final double[] turtleSize;
+  private final double[] turtleLineThickness;
+  private final Object[] turtleColor;
+  private final int[] turtleShape;
+  private final String[] turtleShapeNames;
+  // null where there's no label
+  private final String[] turtleLabel;
+  private final Object[] turtleLabelColor;
+
+  final int linkCount;
+  private final double[] linkX1;
+  private final double[] linkY1;
+  private final double[] linkX2;
+  private final double[] linkY2;
+  private final double[] linkMidpointX;
+  private final double[] linkMidpointY;
+  private final double[] linkHeading;
+  private final double[] linkSize;
+  private final double[] linkDestinationSize;
+  private final double[] linkLineThickness;
+  private final boolean[] linkDirected;
+  private final Object[] linkColor;
+  private final int[] linkShape;
+  private final String[] linkShapeNames;
+  private final String[] linkLabel;
+  private final Object[] linkLabelColor;
+
+  // where the spotlight goes, if anywhere; see Renderer.getSpotlightImage()
+  final boolean spotlight;
+  final double spotlightX;
+  final double spotlightY;
+  final double spotlightSize;
+  final boolean spotlightWrap;
+
+  /** must be called with the world locked */
+  RenderFrame(World world, ViewSettings settings, TrailDrawer trailDrawer) {
+    minPxcor = world.minPxcor();
+    maxPxcor = world.maxPxcor();
+    minPycor = world.minPycor();
+    maxPycor = world.maxPycor();
+    worldPatchSize = world.patchSize();
+
+    perspective = settings.perspective();
+    viewOffsetX = settings.viewOffsetX();
+    viewOffsetY = settings.viewOffsetY();
+
+    patchColors = world.patchesAllBlack() ? null : world.patchColors().clone();
+
+    int labelled = 0;
+    int patchCount = world.patches().count();
+    int[] labelX = new int[StrictMath.min(world.patchesWithLabels(), patchCount)];
+    int[] labelY = new int[labelX.length];
+    String[] labels = new String[labelX.length];
+    Object[] labelColors = new Object[labelX.length];
+    for (int i = 0; i < patchCount && labelled < labelX.length; i++) {
+      Patch patch = world.getPatch(i);
+      if (patch.hasLabel()) {
+        labelX[labelled] = patch.pxcor();
+        labelY[labelled] = patch.pycor();
+        labels[labelled] = patch.labelString();
+        labelColors[labelled] = patch.labelColor();
+        labelled++;
+      }
+    }
+    patchLabelCount = labelled;
+    patchLabelX = labelX;
+    patchLabelY = labelY;
+    patchLabels = labels;
+    patchLabelColors = labelColors;
+
+    drawingBlank = trailDrawer.isBlank();
+    drawing = trailDrawer.getAndCreateDrawing(false);
+
+    // breeds in the order Renderer paints them in, then the unbreeded ones
+    java.util.List<AgentSet> turtleSets = new java.util.ArrayList<AgentSet>();
+    for (scala.collection.Iterator<String> iter = world.program().breeds().keys().iterator();
+         iter.hasNext();) {
+      AgentSet breed = world.getBreed(iter.next());
+      if (breed.kind() == AgentKindJ.Turtle()) {
+        turtleSets.add(breed);
+      }
+    }
+    int turtles = world.turtles().count();
+    turtleX = new double[turtles];
+    turtleY = new double[turtles];
+    turtleHeading = new double[turtles];
+    turtleSize = new double[turtles];
+    turtleLineThickness = new double[turtles];
+    turtleColor = new Object[turtles];
+    turtleShape = new int[turtles];
+    turtleLabel = new String[turtles];
+    turtleLabelColor = new Object[turtles];
+    Map<String, Integer> shapes = new HashMap<String, Integer>();
+    int t = 0;
+    int breeded = 0;
+    for (AgentSet breed : turtleSets) {
+      for (Agent a : breed.agents()) {
+        t = addTurtle(t, (Turtle) a, shapes);
+        breeded++;
+      }
+    }
+    if (breeded < turtles) {
+      for (Agent a : world.turtles().agents()) {
+        Turtle turtle = (Turtle) a;
+        if (turtle.getBreed() == world.turtles()) {
+          t = addTurtle(t, turtle, shapes);
+        }
+      }
+    }
+    turtleCount = t;
+    turtleShapeNames = shapeNames(shapes);
+
+    java.util.List<AgentSet> linkSets = new java.util.ArrayList<AgentSet>();
+    for (scala.collection.Iterator<String> iter = world.program().linkBreeds().keys().iterator();
+         iter.hasNext();) {
+      linkSets.add(world.getLinkBreed(iter.next()));
+    }
+    int links = world.links().count();
+    linkX1 = new double[links];
+    linkY1 = new double[links];
+    linkX2 = new double[links];
+    linkY2 = new double[links];
+    linkMidpointX = new double[links];
+    linkMidpointY = new double[links];
+    linkHeading = new double[links];
+    linkSize = new double[links];
+    linkDestinationSize = new double[links];
+    linkLineThickness = new double[links];
+    linkDirected = new boolean[links];
+    linkColor = new Object[links];
+    linkShape = new int[links];
+    linkLabel = new String[links];
+    linkLabelColor = new Object[links];
+    shapes.clear();
+    int l = 0;
+    breeded = 0;
+    for (AgentSet breed : linkSets) {
+      for (Agent a : breed.agents()) {
+        l = addLink(l, (Link) a, shapes);
+        breeded++;
+      }
+    }
+    if (breeded < links) {
+      for (Agent a : world.links().agents()) {
+        Link link = (Link) a;
+        if (link.getBreed() == world.links()) {
+          l = addLink(l, link, shapes);
+        }
+      }
+    }
+    linkCount = l;
+    linkShapeNames = shapeNames(shapes);
+
+    Agent target = world.observer().targetAgent();
+    spotlight = target != null;
+    if (target instanceof Turtle) {
+      Turtle turtle = (Turtle) target;
+      spotlightSize = turtle.size() * 2;
+      spotlightX = turtle.xcor();
+      spotlightY = turtle.ycor();
+      spotlightWrap = true;
+    } else if (target instanceof Link) {
+      Link link = (Link) target;
+      spotlightSize = link.size();
+      spotlightX = link.midpointX();
+      spotlightY = link.midpointY();
+      spotlightWrap = false;
+    } else if (target instanceof Patch) {
+      Patch patch = (Patch) target;
+      spotlightSize = 2;
+      spotlightX = patch.pxcor();
+      spotlightY = patch.pycor();
+      spotlightWrap = false;
+    } else {
+      spotlightSize = 0;
+      spotlightX = 0;
+      spotlightY = 0;
+      spotlightWrap = false;
+    }
+  }
+
+  private int addTurtle(int i, Turtle turtle, Map<String, Integer> shapes) {
+    if (turtle.hidden()) {
+      return i;
+    }
+    turtleX[i] = turtle.xcor();
+    turtleY[i] = turtle.ycor();
+    turtleHeading[i] = turtle.heading();
+    turtleSize[i] = turtle.size();
+    turtleLineThickness[i] = turtle.lineThickness();
+    turtleColor[i] = turtle.color();
+    turtleShape[i] = shapeIndex(turtle.shape(), shapes);
+    if (turtle.hasLabel()) {
+      turtleLabel[i] = turtle.labelString();
+      turtleLabelColor[i] = turtle.labelColor();
+    }
+    return i + 1;
+  }
+
+  private int addLink(int i, Link link, Map<String, Integer> shapes) {
+    if (link.hidden()) {
+      return i;
+    }
+    linkX1[i] = link.x1();
+    linkY1[i] = link.y1();
+    linkX2[i] = link.x2();
+    linkY2[i] = link.y2();
+    linkMidpointX[i] = link.midpointX();
+    linkMidpointY[i] = link.midpointY();
+    linkHeading[i] = link.heading();
+    linkSize[i] = link.size();
+    linkDestinationSize[i] = link.linkDestinationSize();
+    linkLineThickness[i] = link.lineThickness();
+    linkDirected[i] = link.isDirectedLink();
+    linkColor[i] = link.color();
+    linkShape[i] = shapeIndex(link.shape(), shapes);
+    if (link.hasLabel()) {
+      linkLabel[i] = link.labelString();
+      linkLabelColor[i] = link.labelColor();
+    }
+    return i + 1;
+  }
+
+  private static int shapeIndex(String shape, Map<String, Integer> shapes) {
+    Integer index = shapes.get(shape);
+    if (index == null) {
+      index = shapes.size();
+      shapes.put(shape, index);
+    }
+    return index;
+  }
+
+  private static String[] shapeNames(Map<String, Integer> shapes) {
+    String[] names = new String[shapes.size()];
+    for (Map.Entry<String, Integer> entry : shapes.entrySet()) {
+      names[entry.getValue()] = entry.getKey();
+    }
+    return names;
+  }
+
+  /** whether the world is still the shape it was when the frame was taken */
+  boolean fits(World world) {
+    return minPxcor == world.minPxcor() && maxPxcor == world.maxPxcor() &&
+        minPycor == world.minPycor() && maxPycor == world.maxPycor() &&
+        worldPatchSize == world.patchSize();
+  }
+
+  /** the settings to paint the frame with: the view's, as the observer was then */
+  ViewSettings settings(final ViewSettings view) {
+    return new ViewSettings() {
+      public int fontSize() { return view.fontSize(); }
+      public double patchSize() { return view.patchSize(); }
+      public double viewWidth() { return view.viewWidth(); }
+      public double viewHeight() { return view.viewHeight(); }
+      public Perspective perspective() { return perspective; }
+      public double viewOffsetX() { return viewOffsetX; }
+      public double viewOffsetY() { return viewOffsetY; }
+      public boolean drawSpotlight() { return view.drawSpotlight(); }
+      public boolean renderPerspective() { return view.renderPerspective(); }
+      public WorkspaceContext workspaceContext() { return view.workspaceContext(); }
+    };
+  }
+
+  /// cursors, so that TurtleDrawer and LinkDrawer can draw from the frame
+  /// as they would from agents (all they ask of either is what's in
+  /// api.DrawableTurtle and api.DrawableLink).  each one stands in for one
+  /// agent at a time; set at() and draw it.
+
+  FrameTurtle turtleCursor() {
+    return new FrameTurtle();
+  }
+
+  FrameLink linkCursor() {
+    return new FrameLink();
+  }
+
+  final class FrameTurtle implements DrawableTurtle {
+    private int i;
+
+    FrameTurtle at(int i) {
+      this.i = i;
+      return this;
+    }
+
+    public double xcor() { return turtleX[i]; }
+    public double ycor() { return turtleY[i]; }
+    public double heading() { return turtleHeading[i]; }
+    public double size() { return turtleSize[i]; }
+    public double lineThickness() { return turtleLineThickness[i]; }
+    public Object color() { return turtleColor[i]; }
+    public String shape() { return turtleShapeNames[turtleShape[i]]; }
+    public boolean hidden() { return false; }
+    public boolean hasLabel() { return turtleLabel[i] != null; }
+    public String labelString() { return turtleLabel[i]; }
+    public Object labelColor() { return turtleLabelColor[i]; }
+  }
+
+  final class FrameLink implements DrawableLink {
+    private int i;
+
+    FrameLink at(int i) {
+      this.i = i;
+      return this;
+    }
+
+    public double x1() { return linkX1[i]; }
+    public double y1() { return linkY1[i]; }
+    public double x2() { return linkX2[i]; }
+    public double y2() { return linkY2[i]; }
+    public double midpointX() { return linkMidpointX[i]; }
+    public double midpointY() { return linkMidpointY[i]; }
+    public double heading() { return linkHeading[i]; }
+    public double size() { return linkSize[i]; }
+    public double linkDestinationSize() { return linkDestinationSize[i]; }
+    public double lineThickness() { return linkLineThickness[i]; }
+    public boolean isDirectedLink() { return linkDirected[i]; }
+    public Object color() { return linkColor[i]; }
+    public String shape() { return linkShapeNames[linkShape[i]]; }
+    public boolean hidden() { return false; }
+    public boolean hasLabel() { return linkLabel[i] != null; }
+    public String labelString() { return linkLabel[i]; }
+    public Object labelColor() { return linkLabelColor[i]; }
+  }
+}
@@ -145,6 +145,11 @@ public class Renderer
       ycor = patch.pycor();
     }
 
+    return spotlightImage(settings, xcor, ycor, spotlightSize, wrap);
+  }
+
+  private java.awt.image.BufferedImage spotlightImage(ViewSettings settings, double xcor, double ycor,
+                                                      double spotlightSize, boolean wrap) {
     return spotlightDrawer.getImage
         (topology, xcor, ycor, getWidth(settings.patchSize()), getHeight(settings.patchSize()),
             settings.patchSize(), spotlightSize, darkenPeripheral(settings), wrap);
@@ -155,6 +160,64 @@ public class Renderer
     return world.turtles().count() > 0;
   }
 
+  /// Snapshots
+
+  // While a model runs, the view paints the snapshot the job thread took at
+  // the last display point, so that neither has to wait for the other to be
+  // done with the world.  See RenderFrame.
+
+  private volatile RenderFrame snapshot = null;
+
+  @Override
+  public void takeSnapshot(ViewSettings settings) {
+    snapshot = new RenderFrame(world, settings, _trailDrawer);
+  }
+
+  @Override
+  public void discardSnapshot() {
+    snapshot = null;
+  }
+
+  @Override
+  public boolean paintSnapshot(java.awt.Graphics2D g, ViewSettings settings) {
+    return paintSnapshot(new Graphics2DWrapper(g, renderLabelsAsRectangles()), settings);
+  }
+
+  @Override
+  public boolean paintSnapshot(GraphicsInterface g, ViewSettings viewSettings) {
+    RenderFrame frame = snapshot;
+    // outlined agents are live agents, so those we paint the usual way
+    if (frame == null || outlineAgent != null || !frame.fits(world)) {
+      return false;
+    }
+    ViewSettings settings = frame.settings(viewSettings);
+    double patchSize = settings.patchSize();
+    topology.prepareToPaint(settings, getWidth(patchSize), getHeight(patchSize));
+    topology.fillBackground(g);
+    paintPatchColors(g, frame.patchColors);
+    for (int i = 0; i < frame.patchLabelCount; i++) {
+      topology.drawLabelHelper(g, frame.patchLabelX[i], frame.patchLabelY[i],
+          frame.patchLabels[i], frame.patchLabelColors[i], patchSize, 1);
+    }
+    if (frame.drawing != null && shouldPaintDrawing(frame.drawingBlank, frame.turtleCount > 0, settings)) {
+      topology.paintViewImage(g, frame.drawing);
+    }
+    g.setStrokeControl();
+    RenderFrame.FrameLink link = frame.linkCursor();
+    for (int i = 0; i < frame.linkCount; i++) {
+      linkDrawer.drawLink(g, topology, link.at(i), patchSize, false);
+    }
+    RenderFrame.FrameTurtle turtle = frame.turtleCursor();
+    for (int i = 0; i < frame.turtleCount; i++) {
+      turtleDrawer.drawTurtle(g, topology, turtle.at(i), patchSize);
+    }
+    if (settings.drawSpotlight() && spotlightAgent(settings.perspective()) && frame.spotlight) {
+      g.drawImage(spotlightImage(settings, frame.spotlightX, frame.spotlightY,
+          frame.spotlightSize, frame.spotlightWrap));
+    }
+    return true;
+  }
+
   /// NetLogo coords -> pixel coords
 
   public double graphicsX(double xcor, double patchSize, double viewOffsetX) {
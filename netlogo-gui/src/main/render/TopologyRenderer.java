@@ -34,7 +34,7 @@ public interface TopologyRenderer {
   void paintAllPatchesBlack(GraphicsInterface g);
 
   /// Links
-  void drawLink(GraphicsInterface g, org.nlogo.api.Link link, LinkDrawer.LinkDrawable drawer,
+  void drawLink(GraphicsInterface g, org.nlogo.api.DrawableLink link, LinkDrawer.LinkDrawable drawer,
                 double patchSize, java.awt.Color color, double lineThickness);
 
   /// Drawing
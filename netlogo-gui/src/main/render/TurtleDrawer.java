@@ -3,7 +3,7 @@
 package org.nlogo.render;
 
 import org.nlogo.api.GraphicsInterface;
-import org.nlogo.api.Turtle;
+import org.nlogo.api.DrawableTurtle;
 import org.nlogo.shape.VectorShape;
 
 // public because the HubNet client uses it - ST 3/1/05
@@ -17,7 +17,7 @@ public class TurtleDrawer {
   }
 
   public void drawTurtle(GraphicsInterface g, TopologyRenderer topology,
-                         org.nlogo.api.Turtle turtle, double patchSize) {
+                         org.nlogo.api.DrawableTurtle turtle, double patchSize) {
     if (!turtle.hidden()) {
       if (turtle.size() * patchSize >= MIN_PATCH_SIZE_FOR_TURTLE_SHAPES) {
         drawTurtleShape(g, topology, turtle, patchSize);
@@ -31,12 +31,12 @@ public class TurtleDrawer {
     }
   }
 
-  void drawTurtleShape(GraphicsInterface g, TopologyRenderer topology, org.nlogo.api.Turtle turtle, double patchSize) {
+  void drawTurtleShape(GraphicsInterface g, TopologyRenderer topology, org.nlogo.api.DrawableTurtle turtle, double patchSize) {
     Drawable d = getShapeFromCacheOrCreateDrawable(turtle, patchSize, shapes.getShape(turtle));
     topology.wrapDrawable(d, g, turtle.xcor(), turtle.ycor(), turtle.size(), patchSize);
   }
 
-  private Drawable getShapeFromCacheOrCreateDrawable(Turtle turtle, double patchSize, VectorShape shape) {
+  private Drawable getShapeFromCacheOrCreateDrawable(DrawableTurtle turtle, double patchSize, VectorShape shape) {
     if (shapes.useCache(turtle, patchSize) && !shape.isTooSimpleToCache()) {
       java.awt.Color turtleColor = org.nlogo.api.Color.getColor(turtle.color());
       // if the shape isn't recolorable, then there's no need to consider
@@ -61,7 +61,7 @@ public class TurtleDrawer {
   }
 
   void drawTurtleWithOutline(GraphicsInterface g, TopologyRenderer topology,
-                             org.nlogo.api.Turtle turtle, double patchSize) {
+                             org.nlogo.api.DrawableTurtle turtle, double patchSize) {
     if (!turtle.hidden()) {
       if (turtle.size() * patchSize >= MIN_PATCH_SIZE_FOR_TURTLE_SHAPES) {
         drawTurtleShapeWithOutline(g, topology, turtle, patchSize);
@@ -75,7 +75,7 @@ public class TurtleDrawer {
   }
 
   private void drawTurtleShapeWithOutline(GraphicsInterface g, TopologyRenderer topology,
-                                          org.nlogo.api.Turtle turtle, double patchSize) {
+                                          org.nlogo.api.DrawableTurtle turtle, double patchSize) {
     double turtleSize = turtle.size();
     double xcor = turtle.xcor();
     double ycor = turtle.ycor();
@@ -105,7 +105,7 @@ public class TurtleDrawer {
   }
 
   private void drawWrappedRectWithOutline(GraphicsInterface g, TopologyRenderer topology,
-                                          org.nlogo.api.Turtle turtle, double patchSize) {
+                                          org.nlogo.api.DrawableTurtle turtle, double patchSize) {
     double xcor = turtle.xcor();
     double ycor = turtle.ycor();
     double turtleSize = turtle.size();
@@ -117,7 +117,7 @@ public class TurtleDrawer {
     topology.drawWrappedRect(g, color, (float) turtleSize, xcor, ycor, turtleSize, patchSize, true);
   }
 
-  private void drawTurtleLabel(GraphicsInterface g, TopologyRenderer topology, org.nlogo.api.Turtle turtle, double patchSize) {
+  private void drawTurtleLabel(GraphicsInterface g, TopologyRenderer topology, org.nlogo.api.DrawableTurtle turtle, double patchSize) {
     topology.drawLabelHelper
         (g, turtle.xcor(), turtle.ycor(), turtle.labelString(), turtle.labelColor(), patchSize, turtle.size());
   }
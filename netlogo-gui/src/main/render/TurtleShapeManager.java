@@ -71,7 +71,7 @@ public class TurtleShapeManager {
     numAngleSteps = 360 / angleStep;
   }
 
-  boolean useCache(org.nlogo.api.Turtle turtle, double patchSize) {
+  boolean useCache(org.nlogo.api.DrawableTurtle turtle, double patchSize) {
     // ideally we'd be smart enough to cache
     // any size, but for now let's just cache
     // a few frequently used sizes - ST 1/6/05
@@ -83,7 +83,7 @@ public class TurtleShapeManager {
         turtle.lineThickness() == 0.0;
   }
 
-  VectorShape getShape(org.nlogo.api.Turtle turtle) {
+  VectorShape getShape(org.nlogo.api.DrawableTurtle turtle) {
     return (VectorShape) shapeTracker.shapeList().shape(turtle.shape());
   }
 
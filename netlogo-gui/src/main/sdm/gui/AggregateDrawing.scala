@@ -44,6 +44,7 @@ class AggregateDrawing extends StandardDrawing with AggregateDrawingInterface {
 
   def read(element: XMLElement): AnyRef = {
     model.setDt(element("dt").toDouble)
+    model.setIntegrator(element("integrator", Model.Euler))
 
     val (refs, conns) = element.children.foldLeft((Seq[Figure](), Map[Figure, (Int, Int)]())) {
 
@@ -211,7 +212,13 @@ class AggregateDrawing extends StandardDrawing with AggregateDrawingInterface {
           kids
     }
 
-    val attributes    = Map("dt" -> model.dt.toString)
+    // the integrator is only written when it isn't the default, so models
+    // which use Euler's method read the same in older versions
+    val attributes    =
+      if (model.integrator == Model.Euler)
+        Map("dt" -> model.dt.toString)
+      else
+        Map("dt" -> model.dt.toString, "integrator" -> model.integrator)
     val children = iterateFigures(Seq())
 
     XMLElement("systemDynamics", attributes, "", children)
@@ -549,13 +549,17 @@ abstract class GUIWorkspace(world: World, kioskLevel: GUIWorkspace.KioskLevel, f
       return
 
     if (haveWorldLockAlready) {
-      try {
-        waitFor(new CommandRunnable {
-          override def run(): Unit = {
-            viewManager.incrementalUpdateFromEventThread()
-          }
-        })
+      // rather than waiting while the view paints the world, we copy what it
+      // shows while we have the lock and let it paint that when it can.  if
+      // it hasn't painted the last copy yet, we don't bother making another.
+      if (viewManager.updatePending)
+        viewManager.framesSkipped()
+      else {
+        view.takeSnapshot()
+        viewManager.incrementalUpdateLater()
+      }
 
+      try {
         // don't block the event thread during a smoothing pause
         // or the UI will go sluggish (issue #1263) - ST 9/21/11
         while (!updateManager.isDoneSmoothing())
@@ -746,6 +750,8 @@ abstract class GUIWorkspace(world: World, kioskLevel: GUIWorkspace.KioskLevel, f
     new JobRemovedEvent(owner).raiseLater(this)
 
     if (owner.ownsPrimaryJobs) {
+      // so that the last update paints the world as the job left it
+      view.discardSnapshot()
       updateManager.reset()
       updateDisplay(false)
     }
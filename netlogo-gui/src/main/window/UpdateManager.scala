@@ -47,8 +47,10 @@ abstract class UpdateManager extends UpdateManagerInterface {
   // an even more negative value.  (yeah, kludgy.) - ST 4/28/10
   private val ForeverAgo = -2.0
 
-  private var lastUpdateNanos = 0L
-  private var lastUpdateTicks = ForeverAgo
+  // these are set on the event thread, when a frame is painted, and read on
+  // the job thread, which doesn't wait for the painting
+  @volatile private var lastUpdateNanos = 0L
+  @volatile private var lastUpdateTicks = ForeverAgo
   private var pseudoTicks = 0
 
   // these are values we calculate and store when the speed slider moves
@@ -78,7 +80,7 @@ abstract class UpdateManager extends UpdateManagerInterface {
       frameDone()
   }
 
-  private var timeSmoothingWillBeDone = 0L
+  @volatile private var timeSmoothingWillBeDone = 0L
 
   def isDoneSmoothing() = {
     val now = nanoTime
@@ -162,9 +162,7 @@ public class View
         if (offscreenImage != null) {
           gOff = (java.awt.Graphics2D) offscreenImage.getGraphics();
           gOff.setFont(getFont());
-          synchronized (workspace.world()) {
-            renderer.paint(gOff, this);
-          }
+          paintWorld(gOff);
         }
       }
       dirty = false;
@@ -234,9 +232,7 @@ public class View
         gOff = (java.awt.Graphics2D)offscreenImage.getGraphics();
         gOff.setFont(getFont());
       }
-      synchronized (workspace.world()) {
-        renderer.paint(gOff, this);
-      }
+      paintWorld(gOff);
       g.drawImage(offscreenImage, 0, 0, null);
       framesSkipped = false;
     } else {
@@ -249,6 +245,34 @@ public class View
     }
   }
 
+  // while the model runs, we paint the snapshot taken at the last display
+  // point, so that we don't hold up the job thread by locking the world
+  // (nor does it hold us up); when it's idle, we paint the world as it is
+  private void paintWorld(java.awt.Graphics2D g) {
+    if (workspace.jobManager().anyPrimaryJobs()) {
+      if (renderer.paintSnapshot(g, this)) {
+        return;
+      }
+    } else {
+      renderer.discardSnapshot();
+    }
+    synchronized (workspace.world()) {
+      renderer.paint(g, this);
+    }
+  }
+
+  // called on the job thread, with the world locked, at each display point
+  public void takeSnapshot() {
+    renderer.takeSnapshot(this);
+  }
+
+  // called on the job thread when a job ends, since the job may have changed
+  // the world after its last display point, and the job manager may not
+  // count it as done yet when we come to repaint
+  public void discardSnapshot() {
+    renderer.discardSnapshot();
+  }
+
   public void paintImmediately(boolean force) {
     if (viewIsVisible() && (framesSkipped || force)) {
       paintImmediately();
@@ -2,6 +2,8 @@
 
 package org.nlogo.window;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.nlogo.api.ViewInterface;
 
 public class ViewManager {
@@ -67,6 +69,28 @@ public class ViewManager {
         }
       };
 
+  // set while an update the job thread asked for hasn't happened yet
+  private final AtomicBoolean updatePending = new AtomicBoolean(false);
+
+  private final Runnable pendingUpdateRunnable =
+      new Runnable() {
+        public void run() {
+          updatePending.set(false);
+          incrementalUpdateFromEventThread();
+        }
+      };
+
+  boolean updatePending() {
+    return updatePending.get();
+  }
+
+  // like incrementalUpdateFromJobThread(), but without waiting for it
+  void incrementalUpdateLater() {
+    if (updatePending.compareAndSet(false, true)) {
+      org.nlogo.awt.EventQueue.invokeLater(pendingUpdateRunnable);
+    }
+  }
+
   void incrementalUpdateFromJobThread() {
     try {
       org.nlogo.awt.EventQueue.invokeAndWait(updateRunnable);
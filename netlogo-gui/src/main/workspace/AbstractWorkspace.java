@@ -402,7 +402,8 @@ public abstract class AbstractWorkspace
   // overridden in subclasses - ST 9/8/03, 3/1/11
   public void doImport(BufferedReaderImporter importer)
       throws java.io.IOException {
-    org.nlogo.core.File file = new org.nlogo.api.LocalFile(importer.filename());
+    org.nlogo.core.File file = new org.nlogo.api.LocalFile
+        (importer.filename(), org.nlogo.api.LocalFile.isCompressed(importer.filename()));
     try {
       file.open(org.nlogo.core.FileModeJ.READ());
       importer.doImport(file.reader());
@@ -100,6 +100,63 @@ class TestRenderer extends AbstractTestRenderer {
       Line(Location(15.0,75.0),Location(-75.0,75.0)),
       Line(Location(225.0,75.0),Location(135.0,75.0))))
   }
+
+  testUsingWorkspace("Snapshots paint the world as it was") { workspace =>
+    workspace.command("ask patch 1 1 [ set pcolor red ] " +
+                      "cro 2 [ fd 2 create-links-with other turtles ]")
+    val settings = SimpleViewSettings(patchSize = 12, workspaceContext = workspace.workspaceContext)
+    workspace.renderer.resetCache(12.0)
+    val live = new MockGraphics(this)
+    workspace.renderer.paint(live, settings)
+    workspace.world.synchronized {
+      workspace.renderer.takeSnapshot(settings)
+    }
+    workspace.command("ask turtles [ fd 1 set heading 45 ] ask links [ die ] ask patches [ set pcolor black ]")
+    val snapshot = new MockGraphics(this)
+    assert(workspace.renderer.paintSnapshot(snapshot, settings))
+    assertResult(live.toString)(snapshot.toString)
+  }
+
+  testUsingWorkspace("Snapshots aren't painted after the world changes shape") { workspace =>
+    workspace.command("crt 1")
+    val settings = SimpleViewSettings(patchSize = 12, workspaceContext = workspace.workspaceContext)
+    workspace.world.synchronized {
+      workspace.renderer.takeSnapshot(settings)
+    }
+    workspace.command("resize-world -3 3 -3 3")
+    assert(!workspace.renderer.paintSnapshot(new MockGraphics(this), settings))
+    workspace.world.synchronized {
+      workspace.renderer.takeSnapshot(settings)
+    }
+    workspace.renderer.discardSnapshot()
+    assert(!workspace.renderer.paintSnapshot(new MockGraphics(this), settings))
+  }
+
+  // what View.paintWorld does while the job manager still counts the job
+  // that's just finished, after GUIWorkspace.ownerFinished has discarded
+  // the snapshot
+  testUsingWorkspace("The repaint at the end of a job shows the world as the job left it") { workspace =>
+    val settings = SimpleViewSettings(patchSize = 12, workspaceContext = workspace.workspaceContext)
+    workspace.renderer.resetCache(12.0)
+    workspace.command("crt 1 [ set color red ]")
+    workspace.world.synchronized {
+      workspace.renderer.takeSnapshot(settings)
+    }
+    // changes after the job's last display point
+    workspace.command("ask turtles [ fd 3 set color blue ] ask patch 0 0 [ set pcolor green ]")
+    val stale = new MockGraphics(this)
+    assert(workspace.renderer.paintSnapshot(stale, settings))
+    workspace.renderer.discardSnapshot()
+    val repaint = new MockGraphics(this)
+    if (!workspace.renderer.paintSnapshot(repaint, settings))
+      workspace.world.synchronized {
+        workspace.renderer.paint(repaint, settings)
+      }
+    val live = new MockGraphics(this)
+    workspace.renderer.paint(live, settings)
+    assertResult(live.toString)(repaint.toString)
+    assert(stale.toString != repaint.toString)
+  }
 }
 
 class TestColorRendering extends AbstractTestRenderer {
@@ -3,6 +3,7 @@
 package org.nlogo.sdm
 
 import org.nlogo.api.DummyCompilerServices
+import org.nlogo.core.XMLElement
 import org.nlogo.util.AnyFunSuiteEx
 
 class ModelTests extends AnyFunSuiteEx {
@@ -60,4 +61,16 @@ class ModelTests extends AnyFunSuiteEx {
       "end\n\n"
     assertResult(expected)(translator.source)
   }
+  test("integrator") {
+    val read = new Model().read(XMLElement("systemDynamics", Map("dt" -> "0.25", "integrator" -> "rk4"), "", Seq()))
+      .asInstanceOf[Model]
+    assertResult(Model.RK4)(read.integrator)
+    assertResult(Model.RK4)(read.copy(dt = 0.5).integrator)
+    assertResult(Model.Euler)(new Model().read(XMLElement("systemDynamics", Map("dt" -> "1"), "", Seq()))
+      .asInstanceOf[Model].integrator)
+    intercept[Model.ModelException] { model.setIntegrator("leapfrog") }
+    val source = new Translator(read, new DummyCompilerServices).source
+    assert(source.contains("fourth order Runge-Kutta"))
+    assert(!source.contains("new-"))
+  }
 }
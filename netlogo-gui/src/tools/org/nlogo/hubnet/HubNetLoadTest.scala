@@ -0,0 +1,83 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.hubnet
+
+import java.util.concurrent.Executors
+
+import org.nlogo.hubnet.protocol.{ Message, TestClient, ViewUpdate }
+
+import scala.util.Random
+
+// Logs a lot of headless clients in to a HubNet server, has them all send activity commands, and
+// reports how much each of them is getting back.  Like HubNetClientMayhem, but it keeps going
+// until it's been told how long to go for, and tells you how it went.
+//
+//   HubNetLoadTest [clients] [seconds] [commands per client per second] [host] [port]
+//
+// The server should be running a model whose client has buttons named by the messages below.
+object HubNetLoadTest {
+  def main(args: Array[String]): Unit = {
+    def arg(i: Int, default: String) = if (args.length > i) args(i) else default
+    val clientCount = arg(0, "150").toInt
+    val seconds = arg(1, "60").toInt
+    val rate = arg(2, "5").toDouble
+    val host = arg(3, "127.0.0.1")
+    val port = arg(4, "9173").toInt
+
+    val random = new Random(0)
+    val messages = Vector("left", "right", "up", "down")
+    val pool = Executors.newCachedThreadPool()
+
+    val loginStart = System.nanoTime
+    val clients = (1 to clientCount).map { i =>
+      TestClient("load-" + i, ip = host, port = port, executor = pool)
+    }
+    println(s"$clientCount clients logged in in ${(System.nanoTime - loginStart) / 1000000} ms")
+
+    val received = new Array[Long](clientCount)
+    val viewBytes = new Array[Long](clientCount)
+    val buffer = new java.util.ArrayList[Message]
+    def drain(): Unit = {
+      for ((client, i) <- clients.zipWithIndex) {
+        buffer.clear()
+        client.messagesReceived.drainTo(buffer)
+        received(i) += buffer.size
+        buffer.forEach { message =>
+          message match {
+            case ViewUpdate(worldData) => viewBytes(i) += worldData.length
+            case _ =>
+          }
+        }
+      }
+    }
+
+    val end = System.nanoTime + seconds * 1000000000L
+    val pause = (1000 / rate).toLong max 1
+    var sent = 0L
+    var lastReport = System.nanoTime
+    while (System.nanoTime < end) {
+      for (client <- clients if !client.dead) {
+        client.sendActivityCommand(messages(random.nextInt(messages.size)), false)
+        sent += 1
+      }
+      drain()
+      if (System.nanoTime - lastReport > 5000000000L) {
+        lastReport = System.nanoTime
+        println(s"sent $sent, received ${received.sum}, ${clients.count(_.dead)} clients dead")
+      }
+      Thread.sleep(pause)
+    }
+    drain()
+
+    for (client <- clients if !client.dead)
+      client.close("Load test done.")
+    pool.shutdownNow()
+
+    val sorted = received.sortWith(_ < _)
+    println(s"sent $sent activity commands in $seconds s")
+    println(s"received per client: min ${sorted.head}, median ${sorted(sorted.length / 2)}, max ${sorted.last}")
+    println(s"view update bytes per client: ${viewBytes.sum / clientCount}")
+    println(s"${clients.count(_.dead)} clients dead")
+    System.exit(0)
+  }
+}
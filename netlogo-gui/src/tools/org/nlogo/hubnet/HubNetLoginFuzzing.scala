@@ -4,12 +4,11 @@ package org.nlogo.hubnet
 
 import java.net.Socket
 import java.nio.file.{ Files, Path, Paths }
-import java.io.{ ObjectOutputStream}
+import java.io.{ BufferedInputStream, DataInputStream, OutputStream }
 import java.util.concurrent.Executors
 
 import org.nlogo.api.Version
-import org.nlogo.util.ClassLoaderObjectInputStream
-import protocol.{ ActivityCommand, EnterMessage, ExitMessage, HandshakeFromClient, HandshakeFromServer }
+import protocol.{ ActivityCommand, EnterMessage, ExitMessage, HandshakeFromClient, HandshakeFromServer, WireFormat }
 
 import scala.util.Random
 
@@ -120,10 +119,10 @@ object HubNetLoginFuzzing extends App {
     var events: List[AnyRef] = Nil
     var remainingActions = actions
 
-    def makeConnection(): Option[(Socket, ObjectOutputStream, ClassLoaderObjectInputStream)] = {
+    def makeConnection(): Option[(Socket, OutputStream, DataInputStream)] = {
       var socket: Socket = null
-      var out: ObjectOutputStream = null
-      var in: ClassLoaderObjectInputStream = null
+      var out: OutputStream = null
+      var in: DataInputStream = null
 
       try {
         while (socket == null || out == null || in == null) {
@@ -132,7 +131,8 @@ object HubNetLoginFuzzing extends App {
 
           while (socket != null && out == null) {
             try {
-              out = new ObjectOutputStream(socket.getOutputStream)
+              out = socket.getOutputStream
+              WireFormat.writeHeader(out)
             } catch {
               case _: java.net.SocketException =>
                 socket = null
@@ -141,7 +141,8 @@ object HubNetLoginFuzzing extends App {
           }
           while (socket != null && in == null) {
             try {
-              in = ClassLoaderObjectInputStream(Thread.currentThread.getContextClassLoader, socket.getInputStream)
+              in = new DataInputStream(new BufferedInputStream(socket.getInputStream))
+              WireFormat.readHeader(in)
             } catch {
               case _: java.net.SocketException =>
                 socket = null
@@ -167,20 +168,20 @@ object HubNetLoginFuzzing extends App {
                   events = PendingSend(send) :: events
                   send match {
                     case SendVersion(v) =>
-                      out.writeObject(v); out.flush()
+                      WireFormat.write(out, v); out.flush()
                     case SendHandshake(clientId) =>
-                      out.writeObject(HandshakeFromClient(clientId, "COMPUTER")); out.flush()
+                      WireFormat.write(out, HandshakeFromClient(clientId, "COMPUTER")); out.flush()
                     case SendEnter =>
-                      out.writeObject(EnterMessage); out.flush()
+                      WireFormat.write(out, EnterMessage); out.flush()
                     case SendActivityMessage(tag, value) =>
-                      out.writeObject(ActivityCommand(tag, value)); out.flush()
+                      WireFormat.write(out, ActivityCommand(tag, value)); out.flush()
                     case SendExit =>
-                      out.writeObject(ExitMessage("DONE!")); out.flush()
+                      WireFormat.write(out, ExitMessage("DONE!")); out.flush()
                   }
                   events = Sent(send) :: events.tail
                 case WaitOneMessage =>
                   try {
-                    val obj = in.readObject()
+                    val obj = WireFormat.read(in)
                     events = Received(obj) :: events
                   } catch {
                     case to: java.net.SocketTimeoutException =>
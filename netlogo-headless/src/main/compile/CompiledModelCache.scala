@@ -0,0 +1,148 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.compile
+
+import java.io.{ BufferedInputStream, BufferedOutputStream, File, InputStream, ObjectInputStream,
+                 ObjectOutputStream, OutputStream }
+import java.nio.charset.StandardCharsets
+import java.nio.file.{ Files, Path, Paths, StandardCopyOption }
+import java.security.MessageDigest
+
+import org.nlogo.api.{ ExtensionManager, Version }
+import org.nlogo.core.{ Dialect, ErrorSource, FrontEndInterface, ProcedureDefinition, Program, StructureResults }
+import org.nlogo.nvm.CompilerFlags
+import org.nlogo.util.HexString
+
+import scala.jdk.CollectionConverters.IterableHasAsScala
+import scala.util.control.NonFatal
+
+/**
+ * Keeps what the front end makes of a model's code (the parsed and checked procedure definitions,
+ * and the StructureResults) on disk, so that opening the same model again, in this JVM or another
+ * one, needn't tokenize and parse it all over again.  Entries are keyed by a hash of the sources,
+ * the program we started from, the compiler flags and the NetLogo version, and also remember which
+ * extensions (and which builds of them) were loaded, since the parse depends on their primitives.
+ *
+ * It's off unless org.nlogo.compiledModelCache names a directory to keep entries in.
+ *
+ * Only the front end's results are kept.  The rest of the compiler still runs every time, since
+ * its results are live objects: the instructions hold on to the procedures they call, and the
+ * classes the Generator makes keep references to the instructions they were made from.  Models
+ * with __includes aren't cached, since the key doesn't cover the included files.
+ */
+object CompiledModelCache {
+
+  @volatile var directory: Option[Path] =
+    Option(System.getProperty("org.nlogo.compiledModelCache")).map(Paths.get(_))
+
+  private case class Entry(procedures: Seq[ProcedureDefinition], structureResults: StructureResults,
+                           extensions: String)
+
+  // Programs hold on to their dialect, which isn't Serializable; it's left out of the entry and
+  // put back when reading it
+  private case object DialectPlaceholder
+
+  def frontEnd(sources: Map[String, String], program: Program, flags: CompilerFlags,
+               extensionManager: ExtensionManager)
+              (compute: => FrontEndInterface.FrontEndResults): FrontEndInterface.FrontEndResults =
+    directory match {
+      case Some(dir) if !sources.values.exists(FrontEndInterface.hasIncludes) =>
+        val file = dir.resolve(key(sources, program, flags) + ".ser")
+        read(file, program.dialect, extensionManager).getOrElse {
+          val results = compute
+          write(file, results, program.dialect, extensionManager)
+          results
+        }
+      case _ =>
+        compute
+    }
+
+  def key(sources: Map[String, String], program: Program, flags: CompilerFlags): String = {
+    val digest = MessageDigest.getInstance("SHA-256")
+    def add(s: String): Unit = {
+      digest.update(s.getBytes(StandardCharsets.UTF_8))
+      digest.update(0.toByte)
+    }
+    add(Version.version)
+    add(program.dialect.getClass.getName)
+    add(program.dump)
+    add(flags.toString)
+    for ((name, source) <- sources.toSeq.sortBy(_._1)) {
+      add(name)
+      add(source)
+    }
+    HexString.toHexString(digest.digest)
+  }
+
+  private def read(file: Path, dialect: Dialect, extensionManager: ExtensionManager)
+      : Option[FrontEndInterface.FrontEndResults] =
+    if (!Files.isRegularFile(file))
+      None
+    else
+      try {
+        val entry = {
+          val in = new DialectInput(new BufferedInputStream(Files.newInputStream(file)), dialect)
+          try in.readObject().asInstanceOf[Entry]
+          finally in.close()
+        }
+        // the front end would have done this as it went, and it loads the extensions' primitives
+        // for the back end to find
+        extensionManager.startFullCompilation()
+        for (token <- entry.structureResults.extensions)
+          extensionManager.importExtension(token.text.toLowerCase, new ErrorSource(token))
+        extensionManager.finishFullCompilation()
+        // if any of them changed, the parse might not have been the same, so start over
+        if (extensionsFingerprint(extensionManager) == entry.extensions)
+          Some((entry.procedures, entry.structureResults))
+        else
+          None
+      } catch {
+        // a stale or broken entry is no reason not to compile the model
+        case NonFatal(_) => None
+      }
+
+  private def write(file: Path, results: FrontEndInterface.FrontEndResults, dialect: Dialect,
+                    extensionManager: ExtensionManager): Unit = {
+    val (procedures, structureResults) = results
+    // the tokens are only for the front end's own use, and we don't need them again
+    val entry = Entry(procedures, structureResults.copy(procedureTokens = Map()),
+                      extensionsFingerprint(extensionManager))
+    var temp: Path = null
+    try {
+      Files.createDirectories(file.getParent)
+      // write somewhere else first, so other JVMs opening the same model never see half an entry
+      temp = Files.createTempFile(file.getParent, "entry", ".tmp")
+      val out = new DialectOutput(new BufferedOutputStream(Files.newOutputStream(temp)), dialect)
+      try out.writeObject(entry)
+      finally out.close()
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+    } catch {
+      // not being able to cache the model is no reason not to run it
+      case NonFatal(_) =>
+        if (temp != null)
+          temp.toFile.delete()
+    }
+  }
+
+  // which extensions are loaded, and from which jars, as of when they were last changed
+  private def extensionsFingerprint(extensionManager: ExtensionManager): String =
+    extensionManager.loadedExtensions.asScala.map { classManager =>
+      val klass = classManager.getClass
+      val location = Option(klass.getProtectionDomain.getCodeSource).flatMap(source => Option(source.getLocation))
+      val modified = location.filter(_.getProtocol == "file").map(url => new File(url.toURI).lastModified)
+      s"${klass.getName} ${location.getOrElse("")} ${modified.getOrElse(0L)}"
+    }.toSeq.sorted.mkString("\n")
+
+  private class DialectOutput(out: OutputStream, dialect: Dialect) extends ObjectOutputStream(out) {
+    enableReplaceObject(true)
+    override protected def replaceObject(obj: AnyRef): AnyRef =
+      if (obj eq dialect) DialectPlaceholder else obj
+  }
+
+  private class DialectInput(in: InputStream, dialect: Dialect) extends ObjectInputStream(in) {
+    enableResolveObject(true)
+    override protected def resolveObject(obj: AnyRef): AnyRef =
+      if (obj == DialectPlaceholder) dialect else obj
+  }
+
+}
@@ -62,9 +62,14 @@ class Compiler(dialect: Dialect) extends PresentationCompilerInterface {
       oldProcedures: ProceduresMap, extensionManager: ExtensionManager,
       libManager: LibraryManager, compilationEnvironment: CompilationEnvironment,
       shouldAutoInstallLibs: Boolean, flags: CompilerFlags): CompilerResults = {
-    val (topLevelDefs, structureResults) =
+    def parse() =
       frontEnd.frontEnd( source, displayName, oldProgram, subprogram, oldProcedures
                        , extensionManager, libManager, compilationEnvironment, shouldAutoInstallLibs)
+    val (topLevelDefs, structureResults) =
+      if (subprogram)
+        parse()
+      else
+        CompiledModelCache.frontEnd(Map("" -> source), oldProgram, flags, extensionManager)(parse())
     val bridged = bridge(structureResults, oldProcedures, topLevelDefs, backifier(structureResults.program, extensionManager))
     val allDefs = middleEnd.middleEnd(
       bridged,
@@ -85,11 +90,13 @@ class Compiler(dialect: Dialect) extends PresentationCompilerInterface {
     val allSources =
       Map("" -> source) ++ additionalSources.map(additionalSource => additionalSource.classDisplayName -> additionalSource.innerSource).toMap
     val (topLevelDefs, structureResults) =
-      frontEnd.frontEnd(
-        CompilationOperand( allSources, extensionManager, libManager, compilationEnv, program
-                          , Procedure.NoProcedures, subprogram = false
-                          , shouldAutoInstallLibs = shouldAutoInstallLibs)
-      )
+      CompiledModelCache.frontEnd(allSources, program, defaultCompilerFlags, extensionManager) {
+        frontEnd.frontEnd(
+          CompilationOperand( allSources, extensionManager, libManager, compilationEnv, program
+                            , Procedure.NoProcedures, subprogram = false
+                            , shouldAutoInstallLibs = shouldAutoInstallLibs)
+        )
+      }
     val bridged = bridge(structureResults, Procedure.NoProcedures, topLevelDefs, backifier(structureResults.program, extensionManager))
     val allDefs = middleEnd.middleEnd(
       bridged,
@@ -88,6 +88,7 @@ object Main {
     var experiment: Option[String] = None
     var tableWriter: Option[java.io.PrintWriter] = None
     var spreadsheetWriter: Option[java.io.PrintWriter] = None
+    var binaryTableWriter: Option[(java.io.OutputStream, String)] = None
     var statsWriter: Option[(java.io.PrintWriter, String)] = None
     var listsWriter: Option[(java.io.PrintWriter, String)] = None
     var threads = LabDefaultValues.getDefaultThreads
@@ -143,6 +144,11 @@ object Main {
           outputPath = localOut
         spreadsheetWriter = Some(path2writer(localOut))
       }
+      else if(arg == "--binary-table") {
+        requireHasNext()
+        val path = it.next().trim
+        binaryTableWriter = Some((new java.io.FileOutputStream(path), path))
+      }
       else if(arg == "--stats")
         { requireHasNext(); statsWriter = Some((path2writer(it.next()), outputPath)) }
       else if(arg == "--lists")
@@ -165,8 +171,8 @@ object Main {
     val dimStrings = List(minPxcor, maxPxcor, minPycor, maxPycor)
     if(dimStrings.exists(_.isDefined) && dimStrings.exists(!_.isDefined))
       die("if any of min/max-px/ycor are specified, all four must be specified")
-    if (statsWriter != None && (tableWriter == None && spreadsheetWriter == None)) {
-      die("You cannot specify --stats without also specifying --table or --spreadsheet. Try --help for more information.")
+    if (statsWriter != None && (tableWriter == None && spreadsheetWriter == None && binaryTableWriter == None)) {
+      die("You cannot specify --stats without also specifying --table, --spreadsheet, or --binary-table. Try --help for more information.")
     }
     val dims =
       if(dimStrings.forall(!_.isDefined))
@@ -175,6 +181,6 @@ object Main {
         Some(new WorldDimensions(minPxcor.get.toInt, maxPxcor.get.toInt,
                                  minPycor.get.toInt, maxPycor.get.toInt))
     Some(new Settings(model.get, experiment, setupFile, tableWriter, spreadsheetWriter, statsWriter, listsWriter, dims,
-                      threads, suppressErrors, updatePlots))
+                      threads, suppressErrors, updatePlots, binaryTableWriter = binaryTableWriter))
   }
 }
@@ -2,70 +2,70 @@
 
 package org.nlogo.mirror
 
+/**
+ * Frames are rebuilt by applying deltas to an earlier frame, starting from
+ * the closest one we have: either a recently used frame, of which we keep
+ * the last frameCacheSize, or the keyframe at or before the frame we want.
+ * Keyframes are no more than a keyframe interval apart, so getting any
+ * frame takes at most that many deltas, however long the run is.
+ */
 trait FrameCache {
   def deltas: IndexedSeq[Delta]
-  val minFrameCacheSize: Int
-  val maxFrameCacheSize: Int
+  private[mirror] def keyframes: IndexedSeq[Keyframe]
+  def initialFrame: Frame
+  val frameCacheSize: Int
 
-  private var cache = Map[Int, Frame]()
+  // in access order, so the eldest entry is the least recently used
+  private val cache = new java.util.LinkedHashMap[Int, Frame](16, 0.75f, true) {
+    override def removeEldestEntry(eldest: java.util.Map.Entry[Int, Frame]): Boolean =
+      size() > frameCacheSize
+  }
 
   /** Get or reconstruct the Frame for specified index. */
   def frame(index: Int): Option[Frame] =
     if (!deltas.isDefinedAt(index))
       None
     else
-      cache.get(index).orElse {
-        frame(index - 1).map { previousFrame =>
-          val newFrame = previousFrame.applyDelta(deltas(index))
-          addFrameToCache(index, newFrame) // so we build up our cache
-          newFrame
-        }
-      }
+      Option(cache.get(index)).orElse(Some(rebuild(index)))
 
-  /**
-   * Add a new frame in the cache, and make sure we keep only the
-   * most valuable ones if we are busting maxSize. NP 2013-01-31
-   */
-  def addFrameToCache(index: Int, frame: Frame): Unit = {
-    cache += index -> frame
-    if (cache.size > maxFrameCacheSize) {
-      // if we are busting cache size
-      val keepers = cache.keys.toSeq
-        .sortBy(-utility(_, index))
-        .take(minFrameCacheSize)
-      cache = cache.view.filterKeys(keepers.contains).toMap
-    }
-  }
+  def addFrameToCache(index: Int, frame: Frame): Unit =
+    cache.put(index, frame)
 
-  /**
-   * Assigns a value to the different key frames in the cache.
-   * The basic idea is to balance the likelihood of needing a frame
-   * (value, inversely proportional to the distance with the target)
-   * with the cost of recalculating the frame (based on the
-   * size of deltas between index and its closest predecessor).
-   *
-   * The target frame should be the one we have just added to the cache.
-   * Since its distance to itself is 0.0, it will end up having infinite value
-   * (which is what we want). The 0th frame will also end up with infinite
-   * utility because, having no predecessors, it could not be recalculated.
-   *
-   * All of this is emphatically just heuristics and could potentially be tweaked.
-   * NP 2013-01-31.
-   */
-  private def utility(index: Int, target: Int): Double = {
-    import math._
-    def value = 1.0 / sqrt(abs(target - index))
-    def cost = {
-      val predecessors = cache.keys.filter(_ < index)
-      if (predecessors.isEmpty) {
-        Double.PositiveInfinity
-      } else {
-        (predecessors.max until index)
-          .map(deltas(_).size)
-          .sum.toDouble
+  private def rebuild(index: Int): Frame = {
+    val keyframe = keyframeAtOrBefore(index)
+    val from = keyframe.fold(0)(_.index)
+    var start = index - 1
+    while (start >= from && !cache.containsKey(start))
+      start -= 1
+    var frame =
+      if (start >= from)
+        cache.get(start)
+      else keyframe match {
+        case Some(k) =>
+          start = k.index
+          k.frame
+        case None =>
+          initialFrame
       }
+    // only the frame asked for is cached, so that going a long way through
+    // the deltas doesn't push out the frames we've been using
+    for (i <- start + 1 to index)
+      frame = frame.applyDelta(deltas(i))
+    addFrameToCache(index, frame)
+    frame
+  }
+
+  private def keyframeAtOrBefore(index: Int): Option[Keyframe] = {
+    // keyframes are in order, so binary search for the last one at or before index
+    var (lo, hi) = (0, keyframes.length)
+    while (lo < hi) {
+      val mid = (lo + hi) >>> 1
+      if (keyframes(mid).index <= index)
+        lo = mid + 1
+      else
+        hi = mid
     }
-    pow(cost, 2) * value
+    if (lo == 0) None else Some(keyframes(lo - 1))
   }
 
 }
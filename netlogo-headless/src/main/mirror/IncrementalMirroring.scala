@@ -0,0 +1,100 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.mirror
+
+import scala.collection.mutable
+
+import org.nlogo.agent
+
+import Mirrorables._
+
+// Mirroring.diffs looks at every variable of every agent, every frame, to
+// find what changed since the last one.  When we're recording a world of
+// our own, the agents can tell us that instead: the setters for their
+// built-in variables report to the world's AgentChanges, so here we only
+// look at the agents that changed, the links of turtles that changed (as a
+// link's size, heading and midpoint depend on its ends), and the world and
+// the observer, which are always looked at since there's one of each.  When
+// AgentChanges can't say what changed (after clear-all, resizing the world
+// and such), we look at everything, just as diffs does.
+//
+// The updates are the same as diffs would give, except perhaps for the
+// order the births and changes come in.
+
+class IncrementalMirroring(world: agent.World) {
+
+  // the values we last reported, by kind and then by id
+  private val states = mutable.HashMap[Kind, mutable.LongMap[Array[AnyRef]]]()
+
+  private val journal = world.agentChanges.journal()
+
+  def dispose(): Unit =
+    journal.close()
+
+  /** What the updates so far add up to, as Mirroring.diffs would have it. */
+  def state: Mirroring.State =
+    (for {
+      (kind, values) <- states.iterator
+      (id, vars) <- values.iterator
+    } yield AgentKey(kind, id) -> vars.toSeq).toMap
+
+  def diffs(): Update = {
+    val births = Vector.newBuilder[Birth]
+    val deaths = Vector.newBuilder[Death]
+    val changes = Vector.newBuilder[(AgentKey, Seq[Change])]
+
+    def statesOf(kind: Kind) =
+      states.getOrElseUpdate(kind, mutable.LongMap[Array[AnyRef]]())
+
+    def visit(obj: Mirrorable): Unit = {
+      val key = obj.agentKey
+      val known = statesOf(key.kind)
+      val vars = obj.kind.Variables.values.iterator.map(v => obj.getVariable(v.id)).toArray
+      known.get(key.id) match {
+        case Some(was) =>
+          val diff = for (i <- was.indices if was(i) != vars(i)) yield Change(i, vars(i))
+          if (diff.nonEmpty) {
+            changes += key -> diff
+            known(key.id) = vars
+          }
+        case None =>
+          births += Birth(key, vars.toSeq)
+          known(key.id) = vars
+      }
+    }
+
+    journal.drain() match {
+      case None =>
+        val seen = mutable.HashSet[AgentKey]()
+        for (obj <- allMirrorables(world)) {
+          seen += obj.agentKey
+          visit(obj)
+        }
+        for {
+          (kind, known) <- states
+          id <- known.keys.toSeq
+          if !seen.contains(AgentKey(kind, id))
+        } {
+          known.remove(id)
+          deaths += Death(AgentKey(kind, id))
+        }
+      case Some(agentChanges) =>
+        for ((agentKind, id) <- agentChanges.deaths) {
+          val kind = agentKindToMirrorKind(agentKind)
+          if (statesOf(kind).remove(id).isDefined)
+            deaths += Death(AgentKey(kind, id))
+        }
+        visit(new MirrorableWorld(world))
+        visit(new MirrorableObserver(world.observer))
+        for (changed <- agentChanges.changed if changed.id != -1) {
+          visit(mirrorable(changed))
+          changed match {
+            case turtle: agent.Turtle => turtle.links().foreach(link => visit(new MirrorableLink(link)))
+            case _ =>
+          }
+        }
+    }
+
+    Update(deaths.result(), births.result(), changes.result())
+  }
+}
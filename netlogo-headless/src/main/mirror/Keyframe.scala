@@ -0,0 +1,35 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.mirror
+
+import javax.imageio.ImageIO
+
+import org.nlogo.drawing.imageToBytes
+
+/**
+ * A whole frame, kept every so often in a run so that any frame can be
+ * rebuilt from the closest keyframe before it rather than from the first
+ * frame.  Keyframes are kept serialized, since there are a lot of them in a
+ * long run and only a few are looked at; the mirrored state is kept as an
+ * Update in which every agent is born.
+ */
+private[mirror] case class Keyframe(
+  index: Int,
+  rawMirroredState: Array[Byte],
+  plots: Seq[SavablePlot],
+  drawingImage: Array[Byte]) {
+
+  def frame: Frame =
+    Frame(
+      Mirroring.merge(Map(), Serializer.fromBytes(rawMirroredState)),
+      plots.map(_.toPlot),
+      ImageIO.read(new java.io.ByteArrayInputStream(drawingImage)))
+}
+
+private[mirror] object Keyframe {
+  def apply(index: Int, frame: Frame): Keyframe = {
+    val births = frame.mirroredState.toSeq.map { case (key, values) => Birth(key, values) }
+    Keyframe(index, Serializer.toBytes(Update(births = births)),
+      frame.plots.map(SavablePlot.fromPlot), imageToBytes(frame.drawingImage))
+  }
+}
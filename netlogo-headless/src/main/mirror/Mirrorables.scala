@@ -158,6 +158,13 @@ object Mirrorables {
     )
   }
 
+  def mirrorable(agent: api.Agent): Mirrorable = agent match {
+    case t: api.Turtle   => new MirrorableTurtle(t)
+    case p: api.Patch    => new MirrorablePatch(p)
+    case l: api.Link     => new MirrorableLink(l)
+    case o: api.Observer => new MirrorableObserver(o)
+  }
+
   def allMirrorables(world: api.World): Iterable[Mirrorable] = {
     val turtles = world.turtles.agents.asScala.map(t => new MirrorableTurtle(t.asInstanceOf[api.Turtle]))
     val patches = world.patches.agents.asScala.map(p => new MirrorablePatch(p.asInstanceOf[api.Patch]))
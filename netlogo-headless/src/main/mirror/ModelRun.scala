@@ -22,8 +22,8 @@ class ModelRun(
   with FrameCache
   with SavableRun {
 
-  val minFrameCacheSize = 10
-  val maxFrameCacheSize = 20
+  val frameCacheSize = 20
+  val keyframeInterval = 100
 
   var stillRecording = true
   private var _dirty: Boolean = true
@@ -40,6 +40,11 @@ class ModelRun(
   def deltas = _deltas
   def size = _deltas.length
 
+  private var _keyframes = Vector[Keyframe]()
+  private[mirror] def keyframes = _keyframes
+
+  def initialFrame = Frame(Map(), initialPlots, initialDrawingImage)
+
   var currentFrameIndex: Option[Int] = None
   def currentFrame: Option[Frame] = currentFrameIndex.flatMap(frame)
   def lastFrameIndex = if (size > 0) Some(size - 1) else None
@@ -52,11 +57,21 @@ class ModelRun(
     stillRecording = false
   }
 
+  /** Loads a saved run without replaying it, frames being rebuilt from the keyframes when needed. */
+  private[mirror] def load(deltas: Seq[Delta], keyframes: Seq[Keyframe]): Unit = {
+    _deltas = deltas.toVector
+    _keyframes = keyframes.toVector
+    stillRecording = false
+  }
+
   private def appendFrame(delta: Delta): Frame = {
+    val index = size
     val newFrame = lastFrame
-      .getOrElse(Frame(Map(), initialPlots, initialDrawingImage))
+      .getOrElse(initialFrame)
       .applyDelta(delta)
-    addFrameToCache(size, newFrame)
+    addFrameToCache(index, newFrame)
+    if (index % keyframeInterval == 0)
+      _keyframes :+= Keyframe(index, newFrame)
     _deltas :+= delta // added at the end not to mess up lastFrameIndex and size
     newFrame
   }
@@ -64,6 +79,11 @@ class ModelRun(
   def appendData(mirrorables: Iterable[Mirrorable], actions: IndexedSeq[Action]): Frame = {
     val oldMirroredState = lastFrame.map(_.mirroredState).getOrElse(Map())
     val (_, mirroredUpdate) = Mirroring.diffs(oldMirroredState, mirrorables)
+    appendData(mirroredUpdate, actions)
+  }
+
+  /** For updates worked out ahead of time, say by IncrementalMirroring. */
+  def appendData(mirroredUpdate: Update, actions: IndexedSeq[Action]): Frame = {
     val delta = Delta(Serializer.toBytes(mirroredUpdate), actions)
     _dirty = true
     appendFrame(delta)
@@ -74,5 +94,5 @@ case class Delta(
   val rawMirroredUpdate: Array[Byte],
   val actions: IndexedSeq[Action]) {
   def mirroredUpdate: Update = Serializer.fromBytes(rawMirroredUpdate)
-  def size = rawMirroredUpdate.size + actions.size // used in FrameCache cost calculations
+  def size = rawMirroredUpdate.size + actions.size
 }
@@ -32,6 +32,8 @@ trait SavableRun {
     out.writeObject(initialDrawingImageBytes)
     out.writeObject(generalNotes)
     out.writeObject(indexedNotes)
+    // after everything else, so that older versions can still read the rest
+    out.writeObject(keyframes)
     out.close()
   }
 }
@@ -51,12 +53,19 @@ object ModelRunIO {
     val initialDrawingImage = imageFromBytes(read[Array[Byte]]())
     val generalNotes = read[String]()
     val indexedNotes = read[List[IndexedNote]]()
+    // runs saved before keyframes were added end here
+    val keyframes =
+      try Some(read[Seq[Keyframe]]())
+      catch { case _: java.io.EOFException | _: java.io.OptionalDataException => None }
     in.close()
     val run = new ModelRun(
       name, modelString, viewArea, fixedViewSettings,
       interfaceImage, initialPlots, initialDrawingImage,
       generalNotes, indexedNotes)
-    run.load(deltas)
+    keyframes match {
+      case Some(k) => run.load(deltas, k)
+      case None    => run.load(deltas)
+    }
     run
   }
 }
@@ -69,16 +78,16 @@ object ModelRunIO {
  * however, so I would advise against using them for anything else.
  * NP 2013-04-10
  */
-private object SavablePlot {
+private[mirror] object SavablePlot {
   def fromPlot(plot: Plot): SavablePlot =
     SavablePlot(plot.name, plot.state,
       plot.pens.map { pen =>
-        SavablePen(pen.name, pen.state, pen.inLegend, pen.points)
+        SavablePen(pen.name, pen.state, pen.inLegend, pen.points.toVector)
       }
     )
 }
 
-private case class SavablePlot(
+private[mirror] case class SavablePlot(
   val name: String,
   val state: PlotState,
   val pens: List[SavablePen]) {
@@ -89,7 +98,7 @@ private case class SavablePlot(
   }
 }
 
-private case class SavablePen(
+private[mirror] case class SavablePen(
   val name: String,
   val state: PlotPenState,
   val inLegend: Boolean,
@@ -17,7 +17,7 @@ extends PlotPenInterface {
   override def toString = "PlotPen(" + name + ")"
 
   var state = defaultState
-  var points: Vector[PlotPoint] = Vector()
+  private val pointsBuffer = new PlotPointsBuffer
   var runtimeError: Option[Exception] = None
 
   hardReset()
@@ -34,7 +34,7 @@ extends PlotPenInterface {
       softReset()
     else {
       state = defaultState
-      points = Vector()
+      pointsBuffer.clear()
     }
   }
 
@@ -42,7 +42,7 @@ extends PlotPenInterface {
     state = state.copy(
       x = 0.0,
       isDown = true)
-    points = Vector()
+    pointsBuffer.clear()
   }
 
   // these are package-private because they don't trigger autoscaling.
@@ -50,20 +50,23 @@ extends PlotPenInterface {
   // seem useless but it simplifies the painting logic - ST 2/23/06
 
   private[plot] def plot(y: Double): Unit = {
-    if (points.nonEmpty)
+    if (pointsBuffer.nonEmpty)
       state = state.copy(x = state.x + state.interval)
-    points :+= PlotPoint(state.x, y, state.isDown, state.color)
+    pointsBuffer.add(state.x, y, state.isDown, state.color)
   }
 
   private[plot] def plot(x: Double, y: Double): Unit = {
     state = state.copy(x = x)
-    points :+= PlotPoint(x, y, state.isDown, state.color)
+    pointsBuffer.add(x, y, state.isDown, state.color)
   }
 
   def plot(x: Double, y: Double, color: Int, isDown: Boolean): Unit = {
-    points :+= PlotPoint(x, y, isDown, color)
+    pointsBuffer.add(x, y, isDown, color)
   }
 
+  def points: PlotPoints = pointsBuffer.result
+  def points_=(points: Seq[PlotPoint]): Unit = pointsBuffer.set(points)
+
   override def clone: PlotPen = {
     val newPlotPen =
       new PlotPen(temporary, name, setupCode, updateCode, inLegend, defaultState)
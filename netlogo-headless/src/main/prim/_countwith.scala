@@ -5,11 +5,17 @@ package org.nlogo.prim
 import org.nlogo.agent.AgentSet
 import org.nlogo.api.Dump
 import org.nlogo.core.I18N
-import org.nlogo.nvm.{ Context, Reporter }
+import org.nlogo.nvm.{ Context, ParallelReporters, Reporter }
 import org.nlogo.nvm.RuntimePrimitiveException
 
 class _countwith extends Reporter {
 
+  // set by PureBlockVisitor.  MethodRipper won't let us call an accessor
+  // from report_1(), so that reads the field
+  private var _pureBlock = false
+  def pureBlock: Boolean = _pureBlock
+  def pureBlock_=(pure: Boolean): Unit = { _pureBlock = pure }
+
   override def report(context: Context): java.lang.Double =
     Double.box(
       report_1(context, argEvalAgentSet(context, 0), args(1)))
@@ -17,11 +23,22 @@ class _countwith extends Reporter {
   def report_1(context: Context, sourceSet: AgentSet, block: Reporter): Double = {
     block.checkAgentSetClass(sourceSet, context)
     val freshContext = new Context(context, sourceSet)
+    // null unless the block was evaluated for all the agents in parallel
+    val results =
+      if (_pureBlock && ParallelReporters.worthwhile(sourceSet.count))
+        ParallelReporters.evaluate(context, sourceSet, ParallelReporters.agents(sourceSet.iterator), block)
+      else
+        null
     var result = 0
+    var i = 0
     val iter = sourceSet.iterator
     while(iter.hasNext) {
       val tester = iter.next()
-      freshContext.evaluateReporter(tester, block) match {
+      val value =
+        if (results == null) freshContext.evaluateReporter(tester, block)
+        else results(i)
+      i += 1
+      value match {
         case b: java.lang.Boolean =>
           if (b.booleanValue)
             result += 1
@@ -24,16 +24,25 @@ class _nsum(vn: Int) extends Reporter {
     }
     var sum = 0d
     val it = patch.getNeighbors.iterator
-    while(it.hasNext)
-      it.next().asInstanceOf[Patch].getPatchVariable(vn) match {
-        case d: java.lang.Double =>
-          sum += d.doubleValue
-        case x =>
-          throw new RuntimePrimitiveException(
-            context, this, I18N.errors.getN(
-              "org.nlogo.prim.$common.noSumOfListWithNonNumbers",
-              Dump.logoObject(x).toString, TypeNames.name(x)))
-      }
+    // diffuse keeps numeric patch variables in a double array, so
+    // there's nothing to check or unbox
+    val column = world.patchColumns.column(vn)
+    if (column != null) {
+      while(it.hasNext)
+        sum += column(it.next().id.toInt)
+    }
+    else {
+      while(it.hasNext)
+        it.next().asInstanceOf[Patch].getPatchVariable(vn) match {
+          case d: java.lang.Double =>
+            sum += d.doubleValue
+          case x =>
+            throw new RuntimePrimitiveException(
+              context, this, I18N.errors.getN(
+                "org.nlogo.prim.$common.noSumOfListWithNonNumbers",
+                Dump.logoObject(x).toString, TypeNames.name(x)))
+        }
+    }
     validDouble(sum, context)
   }
 
@@ -5,11 +5,14 @@ package org.nlogo.prim
 import org.nlogo.agent.{ Agent, AgentSet }
 import org.nlogo.api.LogoListBuilder
 import org.nlogo.core.{ I18N, Syntax }
-import org.nlogo.nvm.{ Context, Reporter }
+import org.nlogo.nvm.{ Context, ParallelReporters, Reporter }
 import org.nlogo.nvm.RuntimePrimitiveException
 
 class _of extends Reporter {
 
+  // set by PureBlockVisitor
+  var pureBlock = false
+
   override def report(context: Context): AnyRef =
     args(1).report(context) match {
       case agent: Agent =>
@@ -26,8 +29,18 @@ class _of extends Reporter {
         val freshContext = new Context(context, sourceSet)
         args(0).checkAgentSetClass(sourceSet, context)
         val iter = sourceSet.shufflerator(context.job.random)
-        while(iter.hasNext)
-          builder.add(freshContext.evaluateReporter(iter.next(), args(0)))
+        if (pureBlock && ParallelReporters.worthwhile(sourceSet.count)) {
+          val agents = ParallelReporters.agents(iter)
+          val results = ParallelReporters.evaluate(context, sourceSet, agents, args(0))
+          var i = 0
+          while (i < agents.length) {
+            builder.add(if (results == null) freshContext.evaluateReporter(agents(i), args(0)) else results(i))
+            i += 1
+          }
+        }
+        else
+          while(iter.hasNext)
+            builder.add(freshContext.evaluateReporter(iter.next(), args(0)))
         builder.toLogoList
       case x =>
         throw new org.nlogo.nvm.ArgumentTypeException(
@@ -2,7 +2,7 @@
 
 package org.nlogo.prim
 
-import org.nlogo.agent.{ AgentSet, AgentSetBuilder }
+import org.nlogo.agent.{ AgentSet, BitSetAgentSet }
 import org.nlogo.nvm.{ Context, Reporter }
 
 class _other extends Reporter {
@@ -11,14 +11,13 @@ class _other extends Reporter {
     report_1(context, argEvalAgentSet(context, 0))
 
   def report_1(context: Context, sourceSet: AgentSet): AgentSet = {
-    val builder = new AgentSetBuilder(sourceSet.kind, sourceSet.count)
-    val it = sourceSet.iterator
-    while(it.hasNext) {
-      val otherAgent = it.next()
+    val filter = BitSetAgentSet.filter(sourceSet)
+    while(filter.hasNext) {
+      val otherAgent = filter.next()
       if (context.agent ne otherAgent)
-        builder.add(otherAgent)
+        filter.keep()
     }
-    builder.build()
+    filter.result
   }
 
 }
@@ -2,7 +2,7 @@
 
 package org.nlogo.prim
 
-import org.nlogo.agent.{ Agent, AgentSet }
+import org.nlogo.agent.{ AgentSet, BitSetAgentSet }
 import org.nlogo.api.Dump
 import org.nlogo.core.I18N
 import org.nlogo.nvm.{ Context, Reporter }
@@ -15,16 +15,15 @@ class _otherwith extends Reporter {
 
   def report_1(context: Context, sourceSet: AgentSet, reporterBlock: Reporter): AgentSet = {
     val freshContext = new Context(context, sourceSet)
-    val result = collection.mutable.ArrayBuffer[Agent]()
     reporterBlock.checkAgentSetClass(sourceSet, context)
-    val iter = sourceSet.iterator
-    while(iter.hasNext) {
-      val tester = iter.next()
+    val filter = BitSetAgentSet.filter(sourceSet)
+    while(filter.hasNext) {
+      val tester = filter.next()
       if (tester ne context.agent)
         freshContext.evaluateReporter(tester, reporterBlock) match {
           case b: java.lang.Boolean =>
             if (b.booleanValue)
-              result += tester
+              filter.keep()
           case x =>
             throw new RuntimePrimitiveException(
               context, this, I18N.errors.getN(
@@ -32,7 +31,7 @@ class _otherwith extends Reporter {
                 displayName, Dump.logoObject(tester), Dump.logoObject(x)))
         }
     }
-    AgentSet.fromArray(sourceSet.kind, result.toArray)
+    filter.result
   }
 
 }
@@ -12,13 +12,22 @@ class _sum extends Reporter with Pure {
 
   def report_1(context: Context, l0: LogoList): Double = {
     var sum = 0d
-    val it = l0.javaIterator
-    while(it.hasNext)
-      it.next() match {
-        case d: java.lang.Double =>
-          sum += d.doubleValue
-        case _ => // ignore
+    if (l0.isNumeric) {
+      var i = 0
+      while (i < l0.size) {
+        sum += l0.doubleAt(i)
+        i += 1
       }
+    }
+    else {
+      val it = l0.javaIterator
+      while(it.hasNext)
+        it.next() match {
+          case d: java.lang.Double =>
+            sum += d.doubleValue
+          case _ => // ignore
+        }
+    }
     validDouble(sum, context)
   }
 
@@ -2,28 +2,45 @@
 
 package org.nlogo.prim
 
-import org.nlogo.agent.{ Agent, AgentSet }
+import org.nlogo.agent.{ AgentSet, BitSetAgentSet }
 import org.nlogo.api.Dump
 import org.nlogo.core.I18N
-import org.nlogo.nvm.{ Context, Reporter }
+import org.nlogo.nvm.{ Context, ParallelReporters, Reporter }
 import org.nlogo.nvm.RuntimePrimitiveException
 
 class _with extends Reporter {
 
+  // set by PureBlockVisitor.  MethodRipper won't let us call an accessor
+  // from report_1(), so that reads the field
+  private var _pureBlock = false
+  def pureBlock: Boolean = _pureBlock
+  def pureBlock_=(pure: Boolean): Unit = { _pureBlock = pure }
+
   override def report(context: Context): AgentSet =
     report_1(context, argEvalAgentSet(context, 0), args(1))
 
   def report_1(context: Context, sourceSet: AgentSet, reporterBlock: Reporter): AgentSet = {
     val freshContext = new Context(context, sourceSet)
-    val result = collection.mutable.ArrayBuffer[Agent]()
     reporterBlock.checkAgentSetClass(sourceSet, context)
-    val iter = sourceSet.iterator
-    while(iter.hasNext) {
-      val tester = iter.next()
-      freshContext.evaluateReporter(tester, reporterBlock) match {
+    // null unless the block was evaluated for all the agents in parallel
+    val results =
+      if (_pureBlock && ParallelReporters.worthwhile(sourceSet.count))
+        ParallelReporters.evaluate(context, sourceSet,
+          ParallelReporters.agents(BitSetAgentSet.filter(sourceSet)), reporterBlock)
+      else
+        null
+    val filter = BitSetAgentSet.filter(sourceSet)
+    var i = 0
+    while(filter.hasNext) {
+      val tester = filter.next()
+      val value =
+        if (results == null) freshContext.evaluateReporter(tester, reporterBlock)
+        else results(i)
+      i += 1
+      value match {
         case b: java.lang.Boolean =>
           if (b.booleanValue)
-            result += tester
+            filter.keep()
         case x =>
           throw new RuntimePrimitiveException(
             context, this, I18N.errors.getN(
@@ -31,7 +48,7 @@ class _with extends Reporter {
               displayName, Dump.logoObject(tester), Dump.logoObject(x)))
       }
     }
-    AgentSet.fromArray(sourceSet.kind, result.toArray)
+    filter.result
   }
 
 }
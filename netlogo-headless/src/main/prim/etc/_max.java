@@ -14,6 +14,16 @@ public final class _max extends Reporter implements Pure {
   @Override
   public Object report(Context context) {
     LogoList list = argEvalList(context, 0);
+    if (list.isNumeric()) {
+      double winner = list.doubleAt(0);
+      for (int i = 1; i < list.size(); i++) {
+        double value = list.doubleAt(i);
+        if (value > winner) {
+          winner = value;
+        }
+      }
+      return Double.valueOf(winner);
+    }
     double winner = 0;
     Double boxedWinner = null;
     for (Object elt : list.toJava()) {
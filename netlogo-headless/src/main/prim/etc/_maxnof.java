@@ -2,19 +2,13 @@
 
 package org.nlogo.prim.etc;
 
-import org.nlogo.agent.Agent;
+import org.nlogo.agent.AgentHeap;
 import org.nlogo.agent.AgentIterator;
 import org.nlogo.agent.AgentSet;
-import org.nlogo.agent.AgentSetBuilder;
 import org.nlogo.core.I18N;
 import org.nlogo.nvm.RuntimePrimitiveException;
 import org.nlogo.nvm.Reporter;
 
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.TreeMap;
-
 public final class _maxnof
     extends Reporter {
 
@@ -32,52 +26,17 @@ public final class _maxnof
           I18N.errorsJ().getN("org.nlogo.prim.etc.$common.notThatManyAgentsExist", n, count));
     }
     args[2].checkAgentSetClass(sourceSet, context);
-    TreeMap<Object, LinkedList<Agent>> resultAgents =
-        new TreeMap<Object, LinkedList<Agent>>
-            (new Comparator<Object>() {
-              public int compare(Object o1, Object o2) {
-                if (o1.equals(o2)) {
-                  return 0;
-                }
-                if (o1 instanceof Double && o2 instanceof Double) {
-                  if (((Double) o1).doubleValue() > ((Double) o2).doubleValue()) {
-                    return -1;
-                  } else {
-                    return 1;
-                  }
-                }
-                throw new ClassCastException();
-              }
-            });
-
+    AgentHeap winners = new AgentHeap(sourceSet.kind(), n, true);
     org.nlogo.nvm.Context freshContext =
         new org.nlogo.nvm.Context(context, sourceSet);
     for (AgentIterator iter = sourceSet.shufflerator(context.job.random);
          iter.hasNext();) {
       org.nlogo.agent.Agent tester = iter.next();
       Object result = freshContext.evaluateReporter(tester, args[2]);
-      if (!(result instanceof Double)) {
-        continue;
-      }
-      LinkedList<Agent> resultList = resultAgents.get(result);
-      if (resultList == null) {
-        resultList = new LinkedList<Agent>();
-        resultAgents.put(result, resultList);
-      }
-      resultList.add(tester);
-    }
-
-    AgentSetBuilder builder = new AgentSetBuilder(sourceSet.kind(), n);
-
-    for (Iterator<LinkedList<Agent>> iter = resultAgents.values().iterator();
-         n > 0 && iter.hasNext();) {
-      LinkedList<Agent> list = iter.next();
-      for (Iterator<Agent> iter2 = list.iterator(); n > 0 && iter2.hasNext();) {
-        builder.add(iter2.next());
-        n--;
+      if (result instanceof Double) {
+        winners.offer(tester, ((Double) result).doubleValue());
       }
     }
-
-    return builder.build();
+    return winners.build();
   }
 }
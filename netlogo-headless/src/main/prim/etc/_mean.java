@@ -19,6 +19,16 @@ public final class _mean extends Reporter implements Pure {
   }
 
   public double report_1(Context context, LogoList list) {
+    if (list.isNumeric()) {
+      // all numbers, and never empty
+      double sum = 0;
+      int count = list.size();
+      for (int i = 0; i < count; i++) {
+        sum += list.doubleAt(i);
+      }
+      return validDouble(sum / count, context);
+    }
+
     double sum = 0;
     int count = 0;
 
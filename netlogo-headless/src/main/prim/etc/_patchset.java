@@ -4,6 +4,7 @@ package org.nlogo.prim.etc;
 
 import org.nlogo.agent.AgentIterator;
 import org.nlogo.agent.AgentSet;
+import org.nlogo.agent.BitSetAgentSet;
 import org.nlogo.agent.Patch;
 import org.nlogo.api.Dump;
 import org.nlogo.core.*;
@@ -22,8 +23,19 @@ public final class _patchset
   public Object report(final Context context) {
     LinkedHashSet<Patch> resultSet =
         new LinkedHashSet<Patch>();
+    // while every input is a BitSetAgentSet, hold off in case we can
+    // combine them a word at a time
+    AgentSet[] bitSets = new AgentSet[args.length];
     for (int i = 0; i < args.length; i++) {
       Object elt = args[i].report(context);
+      if (bitSets != null) {
+        if (elt instanceof BitSetAgentSet && ((AgentSet) elt).kind() == AgentKindJ.Patch()) {
+          bitSets[i] = (AgentSet) elt;
+          continue;
+        }
+        addAll(bitSets, i, resultSet);
+        bitSets = null;
+      }
       if (elt instanceof AgentSet) {
         AgentSet tempSet = (AgentSet) elt;
         if (tempSet.kind() != AgentKindJ.Patch()) {
@@ -42,11 +54,26 @@ public final class _patchset
             (context, this, i, Syntax.PatchType() | Syntax.PatchsetType(), elt);
       }
     }
+    if (bitSets != null) {
+      AgentSet union = BitSetAgentSet.union(bitSets);
+      if (union != null) {
+        return union;
+      }
+      addAll(bitSets, args.length, resultSet);
+    }
     return AgentSet.fromArray(
       AgentKindJ.Patch(),
       resultSet.toArray(new org.nlogo.agent.Patch[resultSet.size()]));
   }
 
+  private static void addAll(AgentSet[] sets, int count, Set<Patch> result) {
+    for (int i = 0; i < count; i++) {
+      for (AgentIterator iter = sets[i].iterator(); iter.hasNext();) {
+        result.add((Patch) iter.next());
+      }
+    }
+  }
+
   private void descendList(Context context, LogoList tempList, Set<Patch> result) {
     for (Object obj : tempList.toJava()) {
       if (obj instanceof Patch) {
@@ -15,6 +15,6 @@ class _range extends Reporter {
     }
     if (step == 0)
       throw new RuntimePrimitiveException(context, this, I18N.errors.get("org.nlogo.prim.etc._range.zeroStep"))
-    LogoList.fromVector(DoubleRange(start, stop, step).map(Double.box).toVector)
+    LogoList.fromDoubles(DoubleRange(start, stop, step).toArray)
   }
 }
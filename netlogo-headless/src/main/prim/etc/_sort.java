@@ -12,6 +12,7 @@ import org.nlogo.nvm.Context;
 import org.nlogo.nvm.Reporter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 
 public final class _sort
@@ -28,6 +29,14 @@ public final class _sort
       return ((AgentSet) obj).toLogoList();
     } else if (obj instanceof LogoList) {
       LogoList input = (LogoList) obj;
+      if (input.isNumeric()) {
+        double[] sorted = new double[input.size()];
+        for (int i = 0; i < sorted.length; i++) {
+          sorted[i] = input.doubleAt(i);
+        }
+        Arrays.sort(sorted);
+        return LogoList.fromDoubles(sorted);
+      }
       ArrayList<Double> numbers = new ArrayList<Double>();
       ArrayList<String> strings = new ArrayList<String>();
       ArrayList<Agent> agents = new ArrayList<Agent>();
@@ -746,7 +746,7 @@ object AbstractWorkspaceTraits {
 
     @throws(classOf[java.io.IOException])
     def doImport(importer: BufferedReaderImporter): Unit = {
-      val file = new api.LocalFile(importer.filename)
+      val file = new api.LocalFile(importer.filename, api.LocalFile.isCompressed(importer.filename))
       try {
         file.open(FileMode.Read)
         importer.doImport(file.reader)
@@ -0,0 +1,117 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.compile
+
+import java.nio.file.{ Files, Path }
+import java.nio.file.attribute.BasicFileAttributes
+
+import org.nlogo.api.{ DummyExtensionManager, DummyLibraryManager }
+import org.nlogo.core.{ DummyCompilationEnvironment, Model, Pen, Plot, Program, View }
+import org.nlogo.headless.HeadlessWorkspace
+import org.nlogo.nvm.CompilerFlags
+import org.nlogo.util.AnyFunSuiteEx
+
+import scala.jdk.CollectionConverters.IteratorHasAsScala
+
+class CompiledModelCacheTests extends AnyFunSuiteEx {
+
+  val program = Program.empty().copy(interfaceGlobals = List("glob1"))
+
+  val source =
+    """|globals [counter]
+       |turtles-own [energy]
+       |to setup
+       |  crt 10 [ set energy random 10 ]
+       |  let xs map [ x -> x * glob1 ] [1 2 3]
+       |  set counter sum xs
+       |end
+       |to-report total report sum [energy] of turtles + counter end""".stripMargin
+
+  def compile(source: String) =
+    Compiler.compileProgram(source, Seq(), program, new DummyExtensionManager, new DummyLibraryManager,
+                            new DummyCompilationEnvironment, false)
+
+  def entries(dir: Path): Seq[Path] = {
+    val stream = Files.list(dir)
+    try stream.iterator.asScala.toSeq
+    finally stream.close()
+  }
+
+  def withCache(body: Path => Unit): Unit = {
+    val dir = Files.createTempDirectory("compiled-model-cache")
+    val old = CompiledModelCache.directory
+    CompiledModelCache.directory = Some(dir)
+    try body(dir)
+    finally {
+      CompiledModelCache.directory = old
+      entries(dir).foreach(Files.delete)
+      Files.delete(dir)
+    }
+  }
+
+  test("a cached model compiles the same as a fresh one") {
+    val fresh = compile(source)
+    withCache { dir =>
+      compile(source)
+      assertResult(1)(entries(dir).size)
+      val cached = compile(source)
+      assertResult(1)(entries(dir).size)
+      assertResult(fresh.program.dump)(cached.program.dump)
+      assertResult(fresh.procedures.map(_.dump))(cached.procedures.map(_.dump))
+    }
+  }
+
+  // the prims with abstract bases are the ones whose tokens used to go missing on the way back in
+  test("a model read back from the cache runs") {
+    val model =
+      Model(code = """|globals [total]
+                      |to go
+                      |  let xs [1 2 3]
+                      |  set total sum xs
+                      |  print total
+                      |  output-print total * 2
+                      |  set-current-plot "totals"
+                      |  plot total
+                      |end""".stripMargin,
+            widgets = List(View(), Plot(display = Some("totals"), pens = List(Pen(display = "pen")))))
+    def run(): (String, Seq[(Double, Double)]) = {
+      val workspace = HeadlessWorkspace.newInstance
+      try {
+        workspace.silent = true
+        workspace.openModel(model)
+        workspace.command("go")
+        val pen = workspace.plotManager.plots.head.pens.head
+        (workspace.outputAreaBuffer.toString, pen.points.map(p => (p.x, p.y)).toSeq)
+      }
+      finally workspace.dispose()
+    }
+    withCache { dir =>
+      val fresh = run()
+      assertResult(("12\n", Seq((0.0, 6.0))))(fresh)
+      assert(entries(dir).nonEmpty)
+      // had an entry been unreadable, it would have been written again
+      def fileKeys = entries(dir).map(Files.readAttributes(_, classOf[BasicFileAttributes]).fileKey).toSet
+      val written = fileKeys
+      assertResult(fresh)(run())
+      assertResult(written)(fileKeys)
+    }
+  }
+
+  test("key") {
+    val key = CompiledModelCache.key(Map("" -> source), program, CompilerFlags())
+    assertResult(key)(CompiledModelCache.key(Map("" -> source), program, CompilerFlags()))
+    assert(key != CompiledModelCache.key(Map("" -> (source + " ")), program, CompilerFlags()))
+    assert(key != CompiledModelCache.key(Map("" -> source), Program.empty(), CompilerFlags()))
+    assert(key != CompiledModelCache.key(Map("" -> source), program, CompilerFlags(useOptimizer = false)))
+  }
+
+  test("models with includes aren't cached") {
+    withCache { dir =>
+      intercept[Exception] {
+        compile("__includes [\"missing.nls\"]\n" + source)
+      }
+      assert(entries(dir).isEmpty)
+    }
+  }
+
+}
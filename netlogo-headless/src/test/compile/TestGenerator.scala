@@ -133,6 +133,33 @@ class TestGenerator extends AnyFunSuiteEx {
       ).mkString("\n"))(disassembleReporter("xcor = 0"))
     }
 
+  // with fuseCommands on, each run of commands between jump targets becomes one
+  // GeneratedSequence at the start of the run, and the rest stay where they were
+  if(Version.useGenerator)
+    test("fuseCommands") {
+      val procedure = Compiler.compileMoreCode(
+        "to foo __ignore 1 __ignore 2 if glob1 = 0 [ __ignore 3 __ignore 4 ] __ignore 5\nend", None,
+        program, NoProcedures,
+        new DummyExtensionManager,
+        new DummyLibraryManager,
+        new DummyCompilationEnvironment,
+        CompilerFlags(useGenerator = false, optimizations = Optimizations.headlessOptimizations)).head
+      val generator = new org.nlogo.generate.Generator(procedure, false)
+      generator.fuseCommands = true
+      val code = generator.generate()
+      assertResult(procedure.code.length)(code.length)
+      val sequences = code.zipWithIndex.collect {
+        case (sequence: org.nlogo.generate.GeneratedSequence, i) => (sequence, i)
+      }
+      assert(sequences.map(_._2).contains(0))
+      assert(sequences.size > 1)
+      for ((sequence, i) <- sequences) {
+        assert(!sequence.commands(0).isInstanceOf[org.nlogo.generate.GeneratedSequence])
+        for (k <- 1 until sequence.commands.length)
+          assert(sequence.commands(k) eq code(i + k))
+      }
+    }
+
   if(Version.useGenerator)
     test("Correctly generates custom code for or") {
       Compiler.compileProgram(
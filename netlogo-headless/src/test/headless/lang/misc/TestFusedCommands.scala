@@ -0,0 +1,66 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.headless
+package lang
+package misc
+
+import org.nlogo.api.Version
+import org.nlogo.core.Model
+import org.nlogo.generate.{ GeneratedSequence, Generator }
+import org.nlogo.nvm.EngineException
+
+class TestFusedCommands extends FixtureSuite {
+
+  val Code =
+    """|globals [glob1]
+       |to go
+       |  crt 5 [ set color red set size 2 set heading 90 ]
+       |  ask turtles [ fd 1 set label who set glob1 glob1 + 1 ]
+       |  bump
+       |  set glob1 glob1 * 2
+       |  set glob1 glob1 + 1
+       |end
+       |to bump
+       |  set glob1 glob1 + 100
+       |end
+       |to boom
+       |  ask turtles [ set glob1 glob1 / 1 set glob1 glob1 / 0 ]
+       |end""".stripMargin
+
+  // procedures are fused (or not) as they're compiled
+  def declareFused(code: String)(implicit fixture: Fixture): Unit = {
+    val wasFusing = Generator.fuseCommands
+    Generator.fuseCommands = true
+    try fixture.declare(Model(code = code))
+    finally Generator.fuseCommands = wasFusing
+  }
+
+  if (Version.useGenerator)
+    test("bodies of asks, and what calls come back to, are fused") { implicit fixture =>
+      import fixture._
+      declareFused(Code)
+      val code = workspace.procedures("GO").code
+      def startsRunAfter(prim: String): Boolean = {
+        val i = code.indexWhere(_.getClass.getSimpleName.contains(s"_${prim}_"))
+        i != -1 && code(i + 1).isInstanceOf[GeneratedSequence]
+      }
+      assert(startsRunAfter("createturtles"))
+      assert(startsRunAfter("ask"))
+      assert(startsRunAfter("call"))
+      testCommand("go")
+      testReporter("glob1", "211")
+      testReporter("sort [label] of turtles", "[0 1 2 3 4]")
+      testReporter("all? turtles [color = red and size = 2 and xcor = 1 and ycor = 0]", "true")
+    }
+
+  if (Version.useGenerator)
+    test("errors in fused ask bodies are blamed on the right command") { implicit fixture =>
+      import fixture._
+      declareFused(Code)
+      testCommand("crt 1")
+      testCommand("boom", RuntimeError("Division by zero."))
+      val ex = workspace.lastLogoException.asInstanceOf[EngineException]
+      assertResult(Code.lastIndexOf("/ 0"))(ex.responsibleInstruction.get.token.start)
+    }
+
+}
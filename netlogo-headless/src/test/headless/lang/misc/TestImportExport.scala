@@ -115,6 +115,29 @@ class TestImportExport extends FixtureSuite  {
       "globals [x y]")
   }
 
+  test("RoundTripCompressed", SlowTest.Tag) { implicit fixture =>
+    import fixture._
+    val filename = getUniqueFilename()
+    val compressed = filename + ".gz"
+    declare(Model(code = "patches-own [p]"))
+    testCommand("random-seed 378234")
+    // big enough for the agents' rows to be exported and imported in parallel
+    testCommand("resize-world -50 50 -50 50")
+    testCommand("crt 5000 [ set label who setxy random-xcor random-ycor ]")
+    testCommand("ask patches [ set p pxcor * 0.5 set plabel \"a\\\"b\" ]")
+    exportWorld(filename)
+    exportWorld(compressed)
+    val export1 = fileToString(filename)
+    assert(new java.io.File(compressed).length < new java.io.File(filename).length)
+    testCommand("ca")
+    importWorld(compressed)
+    exportWorld(filename)
+    val export2 = fileToString(filename)
+    assert(delete(filename))
+    assert(delete(compressed))
+    assertResult(dropLines(export1, 3))(dropLines(export2, 3))
+  }
+
   test("AgentsStoredInAgentVariables", SlowTest.Tag) { implicit fixture =>
     roundTripHelper("cro 4 [ create-links-with other turtles ]\n" +
       "ask turtle 0 [ set label one-of other turtles ]\n" +
@@ -215,6 +238,40 @@ class TestImportExport extends FixtureSuite  {
     testReporter("[heading] of turtle 1", "0")
   }
 
+  test("BinaryChecksums", SlowTest.Tag) { implicit fixture =>
+    import fixture._
+    val filename = getUniqueFilename()
+    declare(Model(code = "turtles-own [ friend ] globals [ g ]"))
+    testCommand("ca reset-ticks")
+    testCommand("crt 5 [ fd 2 set friend one-of other turtles ] ask turtle 0 [ create-links-with other turtles ]")
+    testCommand("set g (list 1 -0.5 \"two\" true nobody turtle 1 patch 0 0 turtles) tick")
+    exportWorld(filename)
+    val expected = Checksummer.calculateBinaryWorldChecksum(workspace)
+    importWorld(filename)
+    assertResult(expected)(Checksummer.calculateBinaryWorldChecksum(workspace))
+    testCommand("ask turtle 3 [ die ]")
+    assert(Checksummer.calculateBinaryWorldChecksum(workspace) != expected)
+  }
+
+  test("WorldHistory", SlowTest.Tag) { implicit fixture =>
+    import fixture._
+    declare(Model())
+    def run(steps: Seq[String]): Seq[String] = {
+      testCommand("ca random-seed 42 crt 10 reset-ticks")
+      val history = new Checksummer.WorldHistory(workspace.world)
+      steps.map { step =>
+        testCommand(s"ask turtles [ $step ] tick")
+        history.sample()
+      }
+    }
+    val first = run(Seq("fd random 3", "rt random 90", "fd 1"))
+    assertResult(first)(run(Seq("fd random 3", "rt random 90", "fd 1")))
+    val diverged = run(Seq("fd random 3", "rt random 45", "fd 1"))
+    assertResult(first.head)(diverged.head)
+    assert(first(1) != diverged(1))
+    assert(first(2) != diverged(2))
+  }
+
   test("ImportInvalidSize", SlowTest.Tag) { implicit fixture =>
     import fixture._
     declare(Model())
@@ -513,6 +570,31 @@ class TestImportExport extends FixtureSuite  {
     assertResult(2)(errorNumber(0))
   }
 
+  test("ErrorsNameTheirLine", SlowTest.Tag) { implicit fixture =>
+    import fixture._
+    val filename = getUniqueFilename()
+    declare(Model())
+    testCommand("crt 5")
+    exportWorld(filename)
+    // give the third turtle an extra value
+    val lines = fileToString(filename).replace("\r\n", "\n").split("\n")
+    val badLine = lines.indexWhere(_.startsWith("\"TURTLES\"")) + 4
+    lines(badLine) = lines(badLine) + ",\"99\""
+    java.nio.file.Files.write(java.nio.file.Paths.get(filename), lines.mkString("\n").getBytes("UTF-8"))
+    val errors = collection.mutable.Buffer[String]()
+    workspace.importerErrorHandler =
+      new org.nlogo.agent.ImporterJ.ErrorHandler() {
+        def showError(title: String, errorDetails: String, fatalError: Boolean) = {
+          errors += errorDetails
+          true
+        }
+      }
+    testCommand("ca")
+    importWorld(filename)
+    assertResult(1)(errors.size)
+    assert(errors.head.startsWith("Error Importing at Line " + (badLine + 1) + ": There are a total of "))
+  }
+
   // this is a focused test with a small number of turtles
   // designed to catch one particular known bug
   test("ReproducibilityOfWhoNumberAssignment1", SlowTest.Tag) { implicit fixture =>
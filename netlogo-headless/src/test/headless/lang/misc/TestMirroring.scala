@@ -135,6 +135,41 @@ class TestMirroring extends FixtureSuite {
     checkAllAgents(state)
   }
 
+  test("incremental diffs") { implicit fixture =>
+    import fixture.{ workspace => ws }
+    ws.openModel(Model(widgets = List(View.square(2))))
+    val incremental = new IncrementalMirroring(ws.world)
+    try {
+      var state: State = Map()
+      var full: State = Map()
+      def step(command: String): Update = {
+        ws.command(command)
+        val update = incremental.diffs()
+        state = Mirroring.merge(state, update)
+        full = diffs(full, mirrorables)._1
+        assertResult(full)(state)
+        assertResult(full)(incremental.state)
+        checkAllAgents(state)
+        update
+      }
+      step("crt 10 [ create-links-with other turtles ]")
+      step("ask patches [ set pcolor pxcor set plabel pycor ]")
+      // a turtle moving changes its links too
+      val moved = step("ask turtle 0 [ fd 1 ]")
+      assert(moved.changes.exists(_._1 == AgentKey(Turtle, 0)))
+      assertResult(9)(moved.changes.count(_._1.kind == Link))
+      step("ask n-of 4 turtles [ die ]")
+      step("ask turtles [ hatch 1 [ set color red set label who ] ]")
+      step("ask links [ set thickness 0.5 ]")
+      step("reset-ticks tick")
+      assertResult((0, 0, 0))(sizes(step("ask turtles [ ]")))
+      step("clear-all crt 3 [ setxy random-xcor random-ycor ]")
+      step("resize-world -1 1 -1 1")
+      step("ask turtles [ set heading 90 fd 0.5 ]")
+    }
+    finally incremental.dispose()
+  }
+
   test("tick counter") { implicit fixture =>
     import fixture.{ workspace => ws }
     ws.openModel(Model())
@@ -0,0 +1,57 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.headless
+package lang
+package misc
+
+import org.nlogo.core.Model
+import org.nlogo.nvm.ParallelReporters
+
+class TestParallelReporters extends FixtureSuite {
+
+  // the reporter's value in parallel, then one agent at a time, from the
+  // same state.  in parallel comes first, since that's the one which has
+  // to cope with whatever the world hasn't tidied up yet.
+  def inParallelAndNot(reporter: String)(implicit fixture: Fixture): (AnyRef, AnyRef) = {
+    import fixture._
+    val wasEnabled = ParallelReporters.enabled
+    try {
+      ParallelReporters.enabled = true
+      testCommand("random-seed 0")
+      val parallel = workspace.report(reporter)
+      ParallelReporters.enabled = false
+      testCommand("random-seed 0")
+      (parallel, workspace.report(reporter))
+    }
+    finally ParallelReporters.enabled = wasEnabled
+  }
+
+  def assertSameInParallel(reporter: String)(implicit fixture: Fixture): Unit = {
+    val (parallel, serial) = inParallelAndNot(reporter)
+    assertResult(serial)(parallel)
+  }
+
+  test("patch variables left stale by diffuse") { implicit fixture =>
+    import fixture._
+    declare(Model(code = "patches-own [grass]"))
+    testCommand("resize-world -25 25 -25 25")
+    testCommand("random-seed 3 ask patches [ set grass random 100 ]")
+    testCommand("repeat 3 [ diffuse grass 0.5 ]")
+    assertSameInParallel("[grass * 2] of patches")
+    testCommand("diffuse4 grass 0.3")
+    assertSameInParallel("count patches with [grass > 50]")
+  }
+
+  test("breed agentsets with dead agents in them") { implicit fixture =>
+    import fixture._
+    declare(Model(code = "breed [wolves wolf] breed [sheep a-sheep] globals [pack]"))
+    testCommand("create-wolves 30 create-sheep 2500 set pack wolves")
+    testCommand("ask wolves with [who mod 3 = 1] [ die ]")
+    assertSameInParallel("[sort pack] of sheep")
+    testCommand("ask wolves with [who mod 3 = 2] [ die ]")
+    assertSameInParallel("[length sort pack + who] of sheep")
+    testCommand("ask sheep with [who mod 7 = 0] [ die ]")
+    assertSameInParallel("count sheep with [length sort pack > who mod 25]")
+  }
+
+}
@@ -0,0 +1,69 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.headless
+package lang
+package misc
+
+import java.io.{ ByteArrayInputStream, DataInputStream }
+
+import org.nlogo.api.WorldPropertiesInterface
+import org.nlogo.core.{ Model, View }
+import org.nlogo.hubnet.mirroring.{ ClientWorld, DiffBuffer, ServerWorld }
+import org.nlogo.hubnet.server.AgentChangesJournal
+
+import scala.jdk.CollectionConverters.IterableHasAsScala
+
+// a ServerWorld which only looks at what its journal says has changed should
+// send the clients the same view as one which looks at everything
+class TestServerWorld extends FixtureSuite {
+
+  val props = new WorldPropertiesInterface { def fontSize = 10 }
+
+  def view(client: ClientWorld): (Seq[String], Seq[String], Seq[String]) =
+    (client.getPatches.toSeq.map(p => Seq(p.pxcor, p.pycor, p.pcolor, p.plabel, p.plabelColor).mkString(" ")),
+     client.getTurtles.asScala.map(_.stringRep).toSeq,
+     client.getLinks.asScala.map(_.stringRep).toSeq)
+
+  def receive(client: ClientWorld, buf: DiffBuffer): Unit =
+    if (!buf.isEmpty)
+      client.updateFrom(new DataInputStream(new ByteArrayInputStream(buf.toByteArray)))
+
+  test("journal agrees with scanning") { implicit fixture =>
+    import fixture.{ workspace => ws }
+    ws.openModel(Model(widgets = List(View.square(2))))
+    val journal = ws.world.synchronized { new AgentChangesJournal(ws.world) }
+    try {
+      var scanning = new ServerWorld(props)
+      var journaling = new ServerWorld(props)
+      val scanned = new ClientWorld(false)
+      val journaled = new ClientWorld(false)
+      var lastPatches = ws.world.patches
+      def step(command: String): Unit = {
+        ws.command(command)
+        // as ConnectionManager does when the world is resized
+        val resetWorld = lastPatches != ws.world.patches
+        if (resetWorld) {
+          scanning = new ServerWorld(props)
+          journaling = new ServerWorld(props)
+          lastPatches = ws.world.patches
+        }
+        receive(scanned, scanning.updateWorld(ws.world, resetWorld))
+        receive(journaled, journaling.updateWorld(ws.world, resetWorld, journal))
+        assertResult(view(scanned))(view(journaled))
+      }
+      step("")
+      step("crt 10 [ create-links-with other turtles ]")
+      step("ask patches [ set pcolor pxcor set plabel pycor ]")
+      step("ask turtle 0 [ fd 1 ]")
+      step("ask n-of 4 turtles [ die ]")
+      step("ask turtles [ hatch 1 [ set color red set label who ] ]")
+      step("ask links [ set thickness 0.5 ]")
+      step("ask one-of turtles [ die ] ask one-of links [ die ]")
+      step("clear-all crt 3 [ setxy random-xcor random-ycor ]")
+      step("resize-world -1 1 -1 1")
+      step("ask turtles [ set heading 90 fd 0.5 ]")
+    }
+    finally ws.world.synchronized { journal.close() }
+  }
+
+}
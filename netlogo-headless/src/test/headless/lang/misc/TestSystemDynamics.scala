@@ -0,0 +1,58 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.headless
+package lang
+package misc
+
+import org.nlogo.core.Model
+import org.nlogo.sdm.{ Model => SDModel, Rate, Reservoir, Stock, Translator }
+
+class TestSystemDynamics extends FixtureSuite {
+
+  // stock grows at a rate of stock, so after a time of 1 it should be e
+  def growth(integrator: String): SDModel = {
+    val model = new SDModel("ExponentialGrowth", 0.5)
+    model.setIntegrator(integrator)
+    val stock = new Stock("stock")
+    stock.initialValueExpression = "1"
+    model.addElement(stock)
+    val inflow = new Rate("inflow")
+    inflow.source = new Reservoir
+    inflow.sink = stock
+    inflow.expression = "stock"
+    model.addElement(inflow)
+    // flows out of a stock which can't go below zero
+    val drain = new Stock("drain")
+    drain.initialValueExpression = "0.1"
+    drain.nonNegative = true
+    model.addElement(drain)
+    val outflow = new Rate("outflow")
+    outflow.source = drain
+    outflow.sink = new Reservoir
+    outflow.expression = "1"
+    model.addElement(outflow)
+    model
+  }
+
+  def stockAfterTwoSteps(integrator: String)(implicit fixture: Fixture): Double = {
+    import fixture._
+    declare(Model(code = new Translator(growth(integrator), compiler.utilities).source))
+    testCommand("system-dynamics-setup repeat 2 [ system-dynamics-go ]")
+    testReporter("ticks", "1")
+    testReporter("drain", "0")
+    workspace.report("stock").asInstanceOf[Double]
+  }
+
+  test("Euler") { implicit fixture =>
+    assertResult(2.25)(stockAfterTwoSteps(SDModel.Euler))
+  }
+
+  test("RungeKutta") { implicit fixture =>
+    assert(StrictMath.abs(stockAfterTwoSteps(SDModel.RK4) - StrictMath.E) < 0.002)
+  }
+
+  test("DormandPrince") { implicit fixture =>
+    assert(StrictMath.abs(stockAfterTwoSteps(SDModel.DormandPrince) - StrictMath.E) < 0.00001)
+  }
+
+}
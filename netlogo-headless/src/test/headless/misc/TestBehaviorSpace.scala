@@ -3,8 +3,9 @@
 package org.nlogo.headless
 package misc
 
-import org.nlogo.api.FileIO
+import org.nlogo.api.{ FileIO, LabProtocol }
 import org.nlogo.core.{ Model, View, WorldDimensions }
+import org.nlogo.lab.{ TableExporter, Worker }
 import org.nlogo.nvm.{ LabInterface, Workspace }
 import org.nlogo.util.{ AnyFunSuiteEx, SlowTest }
 
@@ -171,6 +172,34 @@ class TestBehaviorSpace extends AnyFunSuiteEx
     newWorker("testExportGraphics")
       .run(workspace, () => workspace, 1)
   }
+  test("ParallelExportersGetEachStep", SlowTest.Tag) {
+    val protocol = LabProtocol("steps", "", "reset-ticks", "tick", "", "", 4, true, true, "", 10, "",
+                               List("ticks"), Nil, Nil)
+    val worker = new Worker(protocol)
+    val writer = new java.io.StringWriter
+    // slow enough that the runs get ahead of the writing
+    worker.addListener(
+      new TableExporter("steps", View.square(0).dimensions, protocol, new java.io.PrintWriter(writer)) {
+        override def measurementsTaken(w: Workspace, runNumber: Int, step: Int, values: List[AnyRef]): Unit = {
+          Thread.sleep(1)
+          super.measurementsTaken(w, runNumber, step, values)
+        }
+      })
+    def workspace = {
+      val w = newWorkspace()
+      w.openModel(Model())
+      w
+    }
+    worker.run(workspace, () => workspace, 2)
+    val rows = stripLineFeeds(writer.toString).split("\n").drop(7)
+      .map(_.split(",").map(_.stripPrefix("\"").stripSuffix("\"")).toSeq).toSeq
+    for (run <- 1 to 4) {
+      val runRows = rows.filter(_.head == run.toString)
+      assertResult((0 to 10).map(_.toString))(runRows.map(_(1)))
+      // the [step] column agrees with ticks, measured at the time
+      assertResult(runRows.map(_(1)))(runRows.map(_(2)))
+    }
+  }
   test("ModelWithIncludedExperiments", SlowTest.Tag) {
     runExperimentFromModel("test/lab/FireWithExperiments.nlogox", "test1", "test/lab/FireWithExperiments1")
     runExperimentFromModel("test/lab/FireWithExperiments.nlogox", "test2", "test/lab/FireWithExperiments2")
@@ -0,0 +1,59 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.mirror
+
+import java.awt.geom.Area
+import java.awt.image.BufferedImage
+import java.io.{ ByteArrayInputStream, ByteArrayOutputStream }
+
+import org.nlogo.util.AnyFunSuiteEx
+
+class ModelRunTests extends AnyFunSuiteEx {
+
+  def newRun() = {
+    val image = new BufferedImage(2, 2, BufferedImage.TYPE_INT_ARGB)
+    new ModelRun("run", "", new Area, null, image, Seq(), image)
+  }
+
+  val patch = AgentKey(Mirrorables.Patch, 0)
+
+  // frame n has a patch whose only value is n, and a turtle for every tenth frame so far
+  def record(run: ModelRun, frames: Int): Unit =
+    for (n <- 0 until frames) {
+      val turtle = Birth(AgentKey(Mirrorables.Turtle, n), Seq(Double.box(n)))
+      val update =
+        if (n == 0) Update(births = Seq(Birth(patch, Seq(Double.box(0)))))
+        else Update(births = if (n % 10 == 0) Seq(turtle) else Seq(),
+                    changes = Seq(patch -> Seq(Change(0, Double.box(n)))))
+      run.appendData(update, IndexedSeq())
+    }
+
+  def check(run: ModelRun, n: Int): Unit = {
+    val state = run.frame(n).get.mirroredState
+    assertResult(Seq(Double.box(n)))(state(patch))
+    assertResult(n / 10 + 1)(state.size)
+  }
+
+  test("frames are rebuilt from keyframes") {
+    val run = newRun()
+    record(run, 1050)
+    assertResult((0 to 1000 by 100).toSeq)(run.keyframes.map(_.index))
+    for (n <- Seq(1049, 0, 537, 538, 99, 100, 101, 999, 1000, 536, 1049))
+      check(run, n)
+    assertResult(None)(run.frame(1050))
+  }
+
+  test("keyframes are saved with the run") {
+    val run = newRun()
+    record(run, 250)
+    val bytes = new ByteArrayOutputStream
+    run.save(bytes)
+    val loaded = ModelRunIO.load(new ByteArrayInputStream(bytes.toByteArray))
+    assert(!loaded.stillRecording)
+    assertResult(250)(loaded.size)
+    assertResult(Seq(0, 100, 200))(loaded.keyframes.map(_.index))
+    for (n <- Seq(249, 150, 0, 200, 17))
+      check(loaded, n)
+  }
+
+}
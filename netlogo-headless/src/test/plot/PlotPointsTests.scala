@@ -0,0 +1,92 @@
+// (C) Uri Wilensky. https://github.com/NetLogo/NetLogo
+
+package org.nlogo.plot
+
+import org.nlogo.util.AnyFunSuiteEx
+
+class PlotPointsTests extends AnyFunSuiteEx {
+
+  def fill(buffer: PlotPointsBuffer, n: Int): PlotPointsBuffer = {
+    for (i <- 0 until n)
+      buffer.add(i, i, i % 3 != 0, i % 5)
+    buffer
+  }
+
+  test("keeps every point by default") {
+    val points = fill(new PlotPointsBuffer(PlotPoints.KeepAll), 1000).result
+    assertResult(1000)(points.size)
+    for (i <- 0 until 1000)
+      assertResult(PlotPoint(i, i, i % 3 != 0, i % 5))(points(i))
+    assertResult(points.map(_.y))(points.indices.map(points.y))
+    assertResult(points.map(_.isDown))(points.indices.map(points.isDown))
+  }
+
+  test("points already handed out don't change") {
+    val buffer = fill(new PlotPointsBuffer(PlotPoints.KeepAll), 10)
+    val before = buffer.result
+    val copy = before.toVector
+    fill(buffer, 100)
+    assertResult(copy)(before)
+    buffer.clear()
+    buffer.add(-1, -1, false, 7)
+    assertResult(copy)(before)
+    assertResult(Seq(PlotPoint(-1, -1, false, 7)))(buffer.result)
+  }
+
+  test("a window keeps the newest points") {
+    val buffer = fill(new PlotPointsBuffer(PlotPoints.Window(50)), 1234)
+    val points = buffer.result
+    assertResult(50)(points.size)
+    assertResult((1184 until 1234).map(_.toDouble))(points.map(_.x))
+    assertResult(PlotPoint(1233, 1233, false, 3))(points.last)
+  }
+
+  test("decimating keeps the shape of the line in bounded space") {
+    val buffer = new PlotPointsBuffer(PlotPoints.Decimate(100))
+    for (i <- 0 until 100000)
+      buffer.add(i, if (i == 54321) 1e6 else if (i == 7777) -1e6 else math.sin(i / 100.0), true, 0)
+    val points = buffer.result
+    assert(points.size <= 100)
+    assertResult(0.0)(points.head.x)
+    assertResult(99999.0)(points.last.x)
+    assert(points.exists(_.y == 1e6))
+    assert(points.exists(_.y == -1e6))
+    assert(points.indices.tail.forall(i => points.x(i - 1) < points.x(i)))
+  }
+
+  test("setting points") {
+    val buffer = new PlotPointsBuffer(PlotPoints.KeepAll)
+    val points = Vector(PlotPoint(1, 2, true, 3), PlotPoint(4, 5, false, 6))
+    buffer.set(points)
+    assertResult(points)(buffer.result)
+    buffer.set(fill(new PlotPointsBuffer, 5).result)
+    assertResult(fill(new PlotPointsBuffer, 5).result)(buffer.result)
+  }
+
+  // the job thread plots while the event thread paints
+  test("points handed out while others are being added make sense") {
+    val buffer = new PlotPointsBuffer(PlotPoints.Window(300))
+    @volatile var failure: Throwable = null
+    val plotter = new Thread {
+      override def run(): Unit =
+        try {
+          for (_ <- 0 until 200) {
+            fill(buffer, 500)
+            buffer.clear()
+          }
+        } catch {
+          case t: Throwable => failure = t
+        }
+    }
+    plotter.start()
+    while (plotter.isAlive) {
+      val points = buffer.result
+      assert(points.size <= 300)
+      for (i <- points.indices)
+        assertResult(points.x(i))(points(i).y)
+    }
+    plotter.join()
+    assert(failure == null, failure)
+  }
+
+}
@@ -2,6 +2,7 @@
 
 package org.nlogo.workspace
 
+import java.awt.image.BufferedImage
 import java.io.PrintWriter
 
 import org.nlogo.util.AnyFunSuiteEx
@@ -58,4 +59,39 @@ class ChecksummerTests extends AnyFunSuiteEx {
     assertResult("376368FF0F759FD60F473E56EA58D5E7D8305E0F")(
       Checksummer.calculateChecksum(tester))
   }
+  // what calculateWorldChecksum() did before it streamed
+  def cleanExport(s: String): String = {
+    val norm = s.replaceAll("\r\n", "\n")
+    norm.drop(norm.indexOf("\n\n") + 2)
+  }
+  test("export checksums are the same streamed") {
+    def tester(fn: PrintWriter): Unit = {
+      fn.print("header\r\nmore header\r\n\r\n")
+      foo(fn)
+      fn.print("a lone \r and \r\n\r\n")
+      bar(fn)
+    }
+    assertResult(Checksummer.calculateChecksum(tester, cleanExport))(
+      Checksummer.calculateExportChecksum(tester))
+    // with no blank line, everything but the first character counts
+    assertResult(Checksummer.calculateChecksum(bar, cleanExport))(
+      Checksummer.calculateExportChecksum(bar))
+  }
+  def image(colors: Int*): BufferedImage = {
+    val image = new BufferedImage(3, 2, BufferedImage.TYPE_INT_ARGB)
+    image.setRGB(0, 0, 3, 2, colors.toArray, 0, 3)
+    image
+  }
+  test("graphics checksums are the same streamed") {
+    val img = image(0xff000000, 0xffffffff, 0x80123456, 0, 0xff00ff00, 0x7f0000ff)
+    def tester(fn: PrintWriter): Unit =
+      img.getData.getPixels(0, 0, img.getWidth, img.getHeight, null: Array[Int]).foreach(fn.println(_))
+    assertResult(Checksummer.calculateChecksum(tester))(
+      Checksummer.calculateGraphicsChecksum(img))
+  }
+  test("binary graphics checksums") {
+    val a = Checksummer.calculateBinaryGraphicsChecksum(image(1, 2, 3, 4, 5, 6))
+    assertResult(a)(Checksummer.calculateBinaryGraphicsChecksum(image(1, 2, 3, 4, 5, 6)))
+    assert(a != Checksummer.calculateBinaryGraphicsChecksum(image(1, 2, 3, 4, 5, 7)))
+  }
 }
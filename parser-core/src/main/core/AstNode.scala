@@ -28,8 +28,11 @@ package org.nlogo.core
  * Each AstNode, even if synthesized, should correspond to some particular source fragment, as
  * indicated by the position and length. It's the compiler's job to make sure these values are
  * always reasonable.
+ *
+ * AstNodes are Serializable so that parsed procedures can be cached on disk between runs (see
+ * org.nlogo.compile.CompiledModelCache in headless).
  */
-trait AstNode extends SourceLocatable
+trait AstNode extends SourceLocatable with Serializable
 
 /**
  * represents a NetLogo expression. An expression is either a block or a
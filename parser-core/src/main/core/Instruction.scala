@@ -4,7 +4,11 @@ package org.nlogo.core
 
 import java.util.Locale
 
-trait Instruction extends TokenHolder {
+// Instructions are Serializable, along with the AstNodes that hold them, so that parsed procedures
+// can be cached on disk between runs (see org.nlogo.compile.CompiledModelCache in headless).  It
+// has to be here, not in the concrete prims, or the fields below, which live in whichever class
+// first mixes this in (often an abstract base like PlotCommand), wouldn't be written out.
+trait Instruction extends TokenHolder with Serializable {
   def syntax: Syntax
   var token: Token = null
   var agentClassString = syntax.agentClassString
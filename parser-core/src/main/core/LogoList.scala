@@ -9,49 +9,161 @@ import scala.language.implicitConversions
 
 object LogoList {
   val Empty = new LogoList(Vector[AnyRef]())
-  def apply(objs: AnyRef*) = new LogoList(Vector[AnyRef]() ++ objs)
+  def apply(objs: AnyRef*) = fromIterator(objs.iterator)
   def fromJava(objs: java.lang.Iterable[? <: AnyRef]) = {
     import scala.jdk.CollectionConverters.IteratorHasAsScala
     fromIterator(objs.iterator.asScala)
   }
-  def fromIterator(it: scala.Iterator[? <: AnyRef]) =
-    new LogoList(it.toVector)
+  def fromIterator(it: scala.Iterator[? <: AnyRef]) = {
+    val builder = new Builder
+    it.foreach(builder.add)
+    builder.result()
+  }
   def fromVector(v: Vector[AnyRef]) =
     new LogoList(v)
   def fromList(l: List[AnyRef]) =
-    new LogoList(Vector[AnyRef]() ++ l)
+    fromIterator(l.iterator)
+  /** The list keeps the array itself, so it mustn't be changed afterwards. */
+  def fromDoubles(numbers: Array[Double]): LogoList =
+    if (numbers.isEmpty) Empty
+    else new LogoList(null, numbers, 0, numbers.length)
   implicit def toIterator(ll:LogoList): Iterator[AnyRef] = ll.scalaIterator
+
+  /**
+   * Builds a list, keeping the items unboxed for as long as they're all
+   * numbers, so that lists of numbers end up numeric (see LogoList).
+   */
+  class Builder {
+    private var numbers: Array[Double] = null
+    private var count = 0
+    private var items: VectorBuilder[AnyRef] = null
+
+    def add(obj: AnyRef): Unit =
+      if (items != null)
+        items += obj
+      else obj match {
+        case d: java.lang.Double =>
+          if (numbers == null)
+            numbers = new Array[Double](16)
+          else if (count == numbers.length)
+            numbers = java.util.Arrays.copyOf(numbers, count * 2)
+          numbers(count) = d.doubleValue
+          count += 1
+        case _ =>
+          items = new VectorBuilder[AnyRef]
+          var i = 0
+          while (i < count) {
+            items += Double.box(numbers(i))
+            i += 1
+          }
+          numbers = null
+          items += obj
+      }
+
+    def result(): LogoList =
+      if (items != null)
+        fromVector(items.result())
+      else if (count == 0)
+        Empty
+      else
+        fromDoubles(if (count == numbers.length) numbers else java.util.Arrays.copyOf(numbers, count))
+  }
 }
 
-class LogoList private (private val v: Vector[AnyRef])
+/**
+ * Lists are usually kept as vectors of objects, but lists made up entirely of
+ * numbers (say from n-values, map, range or `of`) are kept as an array of
+ * unboxed doubles instead, which takes about a quarter of the memory and lets
+ * prims like sum and mean go through them without unboxing anything; such
+ * lists are "numeric", and doubleAt can be used on them.  Taking sublists of
+ * numeric lists shares the array.  Anything that adds to or changes a numeric
+ * list gives back an ordinary one, so that building up lists one item at a
+ * time isn't quadratic.
+ */
+class LogoList private (
+  private val v: Vector[AnyRef],
+  // when numeric, the items are numbers(lo) until numbers(hi) and v is null
+  private val numbers: Array[Double], private val lo: Int, private val hi: Int)
   extends IndexedSeq[AnyRef] with Serializable {
 
-  def scalaIterator = v.iterator
-  override def toVector = v
+  private def this(v: Vector[AnyRef]) = this(v, null, 0, 0)
+
+  /** Whether the list is kept unboxed, in which case every item is a Double. */
+  def isNumeric: Boolean = numbers != null
+
+  private def vector: Vector[AnyRef] =
+    if (isNumeric) {
+      val builder = new VectorBuilder[AnyRef]
+      var i = lo
+      while (i < hi) {
+        builder += Double.box(numbers(i))
+        i += 1
+      }
+      builder.result()
+    }
+    else v
+
+  private def checkIndex(idx: Int): Unit =
+    if (idx < 0 || idx >= hi - lo)
+      throw new IndexOutOfBoundsException(idx.toString)
+
+  private def numericSlice(from: Int, until: Int): LogoList =
+    if (from >= until) LogoList.Empty
+    else new LogoList(null, numbers, lo + from, lo + until)
 
-  override def length: Int = v.length
+  def scalaIterator = iterator
+  override def toVector = vector
 
-  override def apply(idx: Int): AnyRef = v(idx)
+  override def length: Int =
+    if (isNumeric) hi - lo else v.length
+
+  override def apply(idx: Int): AnyRef =
+    if (isNumeric) {
+      checkIndex(idx)
+      Double.box(numbers(lo + idx))
+    }
+    else v(idx)
+
+  /** The item at the given index, which must be a number. Doesn't box anything if the list is numeric. */
+  def doubleAt(idx: Int): Double =
+    if (isNumeric) {
+      checkIndex(idx)
+      numbers(lo + idx)
+    }
+    else v(idx).asInstanceOf[java.lang.Double].doubleValue
 
   override def iterator: collection.Iterator[AnyRef] =
-    v.iterator
-  def get(index: Int) = v(index)
+    if (isNumeric)
+      new collection.AbstractIterator[AnyRef] {
+        private var i = lo
+        def hasNext = i < hi
+        def next() =
+          if (i < hi) {
+            i += 1
+            Double.box(numbers(i - 1))
+          }
+          else
+            collection.Iterator.empty.next()
+      }
+    else
+      v.iterator
+  def get(index: Int) = apply(index)
   def javaIterator: java.util.Iterator[AnyRef] =
-    new Iterator(v)
+    new Iterator(iterator)
   def javaIterable: java.lang.Iterable[AnyRef] =
-    new Iterable(v)
+    new Iterable(this)
   def toJava: java.util.AbstractSequentialList[AnyRef] =
-    new JavaList(v, size)
+    new JavaList(this, size)
   def listIterator(i: Int): java.util.ListIterator[AnyRef] =
-    new Iterator(v.drop(i))
+    new Iterator(iterator.drop(i))
   def add(index: Int, obj: AnyRef) = unsupported
 
   /// public methods for prims. input validity checking is caller's job
 
-  def first = v.head
+  def first = if (isNumeric) apply(0) else v.head
   def fput(obj: AnyRef): LogoList = {
     try {
-      new LogoList(obj +: v)
+      new LogoList(obj +: vector)
     } catch {
       case e: IllegalArgumentException =>
         throw new RuntimeException("The specified list has too many elements.")
@@ -59,33 +171,47 @@ class LogoList private (private val v: Vector[AnyRef])
   }
   def lput(obj: AnyRef): LogoList = {
     try {
-      new LogoList(v :+ obj)
+      new LogoList(vector :+ obj)
     } catch {
       case e: IllegalArgumentException =>
         throw new RuntimeException("The specified list has too many elements.")
     }
   }
-  override def reverse = new LogoList(v.reverse)
+  override def reverse =
+    if (isNumeric) {
+      val reversed = new Array[Double](hi - lo)
+      var i = 0
+      while (i < reversed.length) {
+        reversed(i) = numbers(hi - 1 - i)
+        i += 1
+      }
+      LogoList.fromDoubles(reversed)
+    }
+    else new LogoList(v.reverse)
   def replaceItem(index: Int, obj: AnyRef) =
-    new LogoList(v.updated(index, obj))
+    new LogoList(vector.updated(index, obj))
   def insertItem(index: Int, obj: AnyRef, elt: AnyRef) =
-    new LogoList(v.patch(index, Seq(elt), 0))
+    new LogoList(vector.patch(index, Seq(elt), 0))
   def logoSublist(start: Int, stop: Int) =
-    new LogoList(v.slice(start, stop))
-  def butFirst = new LogoList(v.tail)
-  def butLast = new LogoList(v.init)
+    if (isNumeric) numericSlice(start, stop)
+    else new LogoList(v.slice(start, stop))
+  def butFirst =
+    if (isNumeric) numericSlice(1, length)
+    else new LogoList(v.tail)
+  def butLast =
+    if (isNumeric) numericSlice(0, length - 1)
+    else new LogoList(v.init)
   def removeItem(index: Int) =
-    new LogoList(v.patch(index, Nil, 1))
+    new LogoList(vector.patch(index, Nil, 1))
 
-  override def toString = v.mkString("[", ", ", "]")
+  override def toString = iterator.mkString("[", ", ", "]")
 
   /// Iterator class
 
-  private class Iterable(v: Vector[AnyRef]) extends java.lang.Iterable[AnyRef] {
-    val iterator = new Iterator(v)
+  private class Iterable(list: LogoList) extends java.lang.Iterable[AnyRef] {
+    val iterator = new Iterator(list.iterator)
   }
-  private class Iterator(v: Vector[AnyRef]) extends java.util.ListIterator[AnyRef] {
-    private val it = v.iterator
+  private class Iterator(it: collection.Iterator[AnyRef]) extends java.util.ListIterator[AnyRef] {
     override def hasNext = it.hasNext
     override def hasPrevious = unsupported
     override def next = it.next()
@@ -97,27 +223,25 @@ class LogoList private (private val v: Vector[AnyRef])
     override def remove = unsupported
   }
 
-  private class JavaList(v: Vector[AnyRef], override val size: Int) extends java.util.AbstractSequentialList[AnyRef] {
+  private class JavaList(list: LogoList, override val size: Int) extends java.util.AbstractSequentialList[AnyRef] {
     override def listIterator(index: Int): java.util.ListIterator[AnyRef] =
-      new Iterator(v.splitAt(index)._2)
+      new Iterator(list.iterator.drop(index))
   }
 
   private def unsupported = throw new UnsupportedOperationException
 
   def randomSubset(n: Int, rng: Random): LogoList = {
-    // Can't use LogoListBuilder because it's in api, not core
-    // - BCH 5/2/2018
-    val builder = new VectorBuilder[AnyRef]
+    val builder = new LogoList.Builder
     var i = 0
     var j = 0
     while (j < n && i < size) {
       if (rng.nextInt(size - i) < n - j) {
-        builder += this(i)
+        builder.add(this(i))
         j += 1
       }
       i += 1
     }
-    LogoList.fromVector(builder.result())
+    builder.result()
   }
 
 }
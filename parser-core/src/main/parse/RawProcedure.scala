@@ -7,7 +7,7 @@ import org.nlogo.core,
   core.StructureDeclarations.Procedure
 
 class RawProcedure(val procedureDeclaration: Procedure, val displayNameOption: Option[String])
-  extends FrontEndProcedure {
+  extends FrontEndProcedure with Serializable {
 
   val nameToken: core.Token = procedureDeclaration.tokens.tail.head
   val argTokens: Seq[core.Token] = procedureDeclaration.inputs.map(_.token)
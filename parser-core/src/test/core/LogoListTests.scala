@@ -10,4 +10,56 @@ class LogoListTests extends AnyFunSuite {
       LogoList().javaIterator.next
     }
   }
+
+  def numbers(xs: Double*): LogoList =
+    LogoList(xs.map(Double.box)*)
+
+  test("lists of numbers are numeric") {
+    assert(numbers(1, 2, 3).isNumeric)
+    assert(!LogoList(Double.box(1), "two").isNumeric)
+    assert(!LogoList("one", Double.box(2)).isNumeric)
+    assert(!LogoList().isNumeric)
+    assert(LogoList.fromDoubles(Array(1, 2, 3)).isNumeric)
+  }
+
+  test("numeric lists look like any other") {
+    val numeric = numbers(1, 2, 3)
+    val boxed = LogoList.fromVector(Vector(Double.box(1), Double.box(2), Double.box(3)))
+    assert(!boxed.isNumeric)
+    assertResult(boxed)(numeric)
+    assertResult(numeric)(boxed)
+    assertResult(boxed.hashCode)(numeric.hashCode)
+    assertResult("[1.0, 2.0, 3.0]")(numeric.toString)
+    assertResult(Double.box(2))(numeric(1))
+    assertResult(2.0)(numeric.doubleAt(1))
+    assertResult(Double.box(1))(numeric.first)
+    assertResult(Seq(1.0, 2.0, 3.0))(numeric.iterator.toSeq)
+    intercept[IndexOutOfBoundsException] { numeric(3) }
+    intercept[IndexOutOfBoundsException] { numeric.doubleAt(-1) }
+  }
+
+  test("sublists of numeric lists stay numeric") {
+    val list = numbers(1, 2, 3, 4, 5)
+    val middle = list.logoSublist(1, 4)
+    assert(middle.isNumeric)
+    assertResult(numbers(2, 3, 4))(middle)
+    assertResult(numbers(3, 4))(middle.butFirst)
+    assertResult(numbers(2, 3))(middle.butLast)
+    assertResult(numbers(4, 3, 2))(middle.reverse)
+    intercept[IndexOutOfBoundsException] { middle(3) }
+    assertResult(LogoList.Empty)(middle.logoSublist(2, 2))
+    assertResult(LogoList.Empty)(numbers(1).butFirst)
+  }
+
+  test("changing numeric lists") {
+    val list = numbers(1, 2, 3)
+    assertResult(LogoList(Double.box(1), Double.box(2), Double.box(3), "four"))(list.lput("four"))
+    assertResult(numbers(0, 1, 2, 3))(list.fput(Double.box(0)))
+    assertResult(LogoList(Double.box(1), "two", Double.box(3)))(list.replaceItem(1, "two"))
+    assertResult(numbers(1, 3))(list.removeItem(1))
+    assertResult(numbers(1, 1.5, 2, 3))(list.insertItem(1, null, Double.box(1.5)))
+    // the original is untouched
+    assertResult(numbers(1, 2, 3))(list)
+  }
+
 }
@@ -81,7 +81,7 @@ object Depend {
       "headless/hubnet" -> List("headless", "hubnet/protocol"),
       "headless/test" -> List("api", "core"),
       "hubnet/client" -> List("hubnet/connection", "hubnet/mirroring", "hubnet/protocol", "render", "fileformat", "window"),
-      "hubnet/connection" -> List("api"),
+      "hubnet/connection" -> List("api", "hubnet/protocol"),
       "hubnet/mirroring" -> List("api"),
       "hubnet/protocol" -> List("api"),
       "hubnet/server" -> List("workspace", "hubnet/connection", "hubnet/mirroring", "hubnet/protocol", "fileformat"),